@@ -0,0 +1,164 @@
+package com.oodlefinance.samuel.catalano.common.concurrent;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Collects the distinct keys asked for during a short window and loads them with a single call of a batch loader.
+ * <p>
+ * The first key of a batch opens the window; the batch is loaded when the window closes or as soon as it holds
+ * {@code maxBatchSize} keys, whichever comes first; either way the next key opens a new window. Concurrent requests
+ * for the same key share one result. Keys missing from the map returned by the loader resolve to {@code null}; an
+ * exception thrown by the loader fails every key of the batch.
+ *
+ * @param <K> the key type
+ * @param <V> the value type
+ */
+public class MicroBatcher<K, V> implements AutoCloseable {
+
+  private final BatchLoader<K, V> batchLoader;
+  private final long windowNanos;
+  private final int maxBatchSize;
+  private final ScheduledExecutorService executor;
+
+  private Map<K, CompletableFuture<V>> pending = new HashMap<>();
+  private long batchNumber;
+  private ScheduledFuture<?> scheduledFlush;
+
+  /**
+   * @param name prefix of the loader thread names
+   * @param batchLoader loads a batch of distinct keys, returning the values found by key
+   * @param window how long to wait for more keys once the first key of a batch arrives
+   * @param maxBatchSize number of keys that triggers the load before the window closes
+   * @param loaderThreads number of batches that can be loaded concurrently
+   */
+  public MicroBatcher(final String name, final BatchLoader<K, V> batchLoader, final Duration window,
+                      final int maxBatchSize, final int loaderThreads) {
+    this.batchLoader = batchLoader;
+    this.windowNanos = window.toNanos();
+    this.maxBatchSize = maxBatchSize;
+
+    final AtomicInteger threadCount = new AtomicInteger();
+    this.executor = Executors.newScheduledThreadPool(loaderThreads, runnable -> {
+      final Thread thread = new Thread(runnable, name + "-" + threadCount.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  /**
+   * Adds the key to the current batch.
+   *
+   * @param key the key to load
+   * @return a future completed with the value of the key, or {@code null} if the loader did not find it
+   */
+  public CompletableFuture<V> load(final K key) {
+    final CompletableFuture<V> future;
+    Map<K, CompletableFuture<V>> full = null;
+    synchronized (this) {
+      var existing = pending.get(key);
+      if (existing != null) {
+        return existing;
+      }
+
+      future = new CompletableFuture<>();
+      pending.put(key, future);
+      if (pending.size() >= maxBatchSize) {
+        full = takePending();
+      } else if (scheduledFlush == null) {
+        final long number = batchNumber;
+        scheduledFlush = executor.schedule(() -> flush(number), windowNanos, TimeUnit.NANOSECONDS);
+      }
+    }
+
+    if (full != null) {
+      final Map<K, CompletableFuture<V>> batch = full;
+      executor.execute(() -> run(batch));
+    }
+    return future;
+  }
+
+  /**
+   * Adds the key to the current batch and waits for its value.
+   *
+   * @param key the key to load
+   * @return the value of the key, or {@code null} if the loader did not find it
+   * @throws Exception the exception thrown by the loader for the batch of the key
+   */
+  public V get(final K key) throws Exception {
+    return SingleFlight.join(load(key));
+  }
+
+  /**
+   * Stops the loader threads. Keys still waiting for their batch are cancelled.
+   */
+  @Override
+  public void close() {
+    executor.shutdownNow();
+    final Map<K, CompletableFuture<V>> batch;
+    synchronized (this) {
+      batch = takePending();
+    }
+    batch.values().forEach(future -> future.cancel(false));
+  }
+
+  /**
+   * Loads the pending batch when the window it was scheduled for is still open, a batch loaded early because it was
+   * full must not cut the window of the next one short.
+   */
+  private void flush(final long number) {
+    final Map<K, CompletableFuture<V>> batch;
+    synchronized (this) {
+      if (number != batchNumber || pending.isEmpty()) {
+        return;
+      }
+      batch = takePending();
+    }
+    run(batch);
+  }
+
+  private Map<K, CompletableFuture<V>> takePending() {
+    final Map<K, CompletableFuture<V>> batch = pending;
+    pending = new HashMap<>();
+    batchNumber++;
+    if (scheduledFlush != null) {
+      scheduledFlush.cancel(false);
+      scheduledFlush = null;
+    }
+    return batch;
+  }
+
+  private void run(final Map<K, CompletableFuture<V>> batch) {
+    try {
+      var values = batchLoader.load(batch.keySet());
+      batch.forEach((key, future) -> future.complete(values.get(key)));
+    } catch (final Exception | Error e) {
+      batch.values().forEach(future -> future.completeExceptionally(e));
+    }
+  }
+
+  /**
+   * Loads a batch of distinct keys.
+   *
+   * @param <K> the key type
+   * @param <V> the value type
+   */
+  @FunctionalInterface
+  public interface BatchLoader<K, V> {
+
+    /**
+     * @param keys the keys to load
+     * @return the values found, by key
+     * @throws Exception when the batch cannot be loaded
+     */
+    Map<K, V> load(Collection<K> keys) throws Exception;
+  }
+}
@@ -0,0 +1,71 @@
+package com.oodlefinance.samuel.catalano.common.concurrent;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Coalesces concurrent loads of the same key: while a load for a key is running, every other caller asking for
+ * that key waits for it and gets the same result (or the same exception) instead of starting its own load.
+ * Nothing is kept once the load completes, so a caller arriving afterwards starts a new one.
+ * <p>
+ * Results are shared between callers, they must not be mutated.
+ *
+ * @param <K> the key type
+ * @param <V> the value type
+ */
+public class SingleFlight<K, V> {
+
+  private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+  /**
+   * Returns the result of the load running for the given key, or runs the given loader on the calling thread
+   * if there is none.
+   *
+   * @param key the key to load
+   * @param loader loads the value of the key, may return {@code null}
+   * @return the loaded value
+   * @throws Exception the exception thrown by the loader
+   */
+  public V execute(final K key, final Callable<V> loader) throws Exception {
+    final CompletableFuture<V> own = new CompletableFuture<>();
+    final CompletableFuture<V> running = inFlight.putIfAbsent(key, own);
+    if (running != null) {
+      return join(running);
+    }
+
+    try {
+      var value = loader.call();
+      own.complete(value);
+      return value;
+    } catch (final Exception | Error e) {
+      own.completeExceptionally(e);
+      throw e;
+    } finally {
+      inFlight.remove(key, own);
+    }
+  }
+
+  /**
+   * @return the number of keys being loaded right now
+   */
+  public int inFlight() {
+    return inFlight.size();
+  }
+
+  static <V> V join(final CompletableFuture<V> future) throws Exception {
+    try {
+      return future.join();
+    } catch (final CompletionException e) {
+      if (e.getCause() instanceof Exception exception) {
+        throw exception;
+      }
+      if (e.getCause() instanceof Error error) {
+        throw error;
+      }
+      throw e;
+    }
+  }
+}
@@ -0,0 +1,22 @@
+package com.oodlefinance.samuel.catalano.common.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+
+/**
+ * Registers the {@link PayloadSizeFilter} in every servlet application depending on this module.
+ */
+@AutoConfiguration
+@ConditionalOnClass(MeterRegistry.class)
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class PayloadSizeAutoConfiguration {
+
+  @Bean
+  public PayloadSizeFilter payloadSizeFilter(final MeterRegistry meterRegistry) {
+    return new PayloadSizeFilter(meterRegistry);
+  }
+}
@@ -0,0 +1,182 @@
+package com.oodlefinance.samuel.catalano.common.metrics;
+
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Records the size of request and response bodies of the message API in the {@value #SUMMARY} distribution,
+ * tagged with the direction, the HTTP method and the URI pattern. Response bytes are counted as they are written,
+ * so streamed and asynchronous responses are measured without being buffered.
+ * <p>
+ * Request sizes are taken from the {@code Content-Length} header, before any request filter inflates the body, so a
+ * compressed request is measured compressed and a chunked request is not recorded. Response sizes are counted before
+ * the connector compresses them ({@code server.compression}), so they are the uncompressed sizes. Registered in both
+ * applications by the {@link PayloadSizeAutoConfiguration}.
+ */
+@Order(Ordered.HIGHEST_PRECEDENCE + 5)
+public class PayloadSizeFilter extends OncePerRequestFilter {
+
+  public static final String SUMMARY = "oodle.messages.payload";
+
+  private final MeterRegistry meterRegistry;
+
+  public PayloadSizeFilter(final MeterRegistry meterRegistry) {
+    this.meterRegistry = meterRegistry;
+  }
+
+  @Override
+  protected boolean shouldNotFilter(final HttpServletRequest request) {
+    return !request.getRequestURI().startsWith("/api/");
+  }
+
+  @Override
+  protected void doFilterInternal(final HttpServletRequest request, final HttpServletResponse response,
+                                  final FilterChain filterChain) throws ServletException, IOException {
+    final CountingResponse countingResponse = new CountingResponse(response);
+    try {
+      filterChain.doFilter(request, countingResponse);
+    } finally {
+      if (request.isAsyncStarted()) {
+        request.getAsyncContext().addListener(new AsyncListener() {
+          @Override
+          public void onComplete(final AsyncEvent event) {
+            record(request, countingResponse);
+          }
+
+          @Override
+          public void onTimeout(final AsyncEvent event) {
+          }
+
+          @Override
+          public void onError(final AsyncEvent event) {
+          }
+
+          @Override
+          public void onStartAsync(final AsyncEvent event) {
+          }
+        });
+      } else {
+        countingResponse.flushWriter();
+        record(request, countingResponse);
+      }
+    }
+  }
+
+  private void record(final HttpServletRequest request, final CountingResponse response) {
+    var uri = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+    var uriTag = uri == null ? "UNKNOWN" : uri.toString();
+    if (request.getContentLengthLong() > 0) {
+      summary("request", request.getMethod(), uriTag).record(request.getContentLengthLong());
+    }
+    summary("response", request.getMethod(), uriTag).record(response.bytesWritten());
+  }
+
+  private DistributionSummary summary(final String direction, final String method, final String uri) {
+    return DistributionSummary.builder(SUMMARY)
+                              .description("Size of the message API request and response bodies")
+                              .baseUnit("bytes")
+                              .tags("direction", direction, "method", method, "uri", uri)
+                              .register(meterRegistry);
+  }
+
+  private static final class CountingResponse extends HttpServletResponseWrapper {
+
+    private long count;
+    private ServletOutputStream outputStream;
+    private PrintWriter writer;
+
+    private CountingResponse(final HttpServletResponse response) {
+      super(response);
+    }
+
+    private synchronized long bytesWritten() {
+      return count;
+    }
+
+    private synchronized void add(final long bytes) {
+      count += bytes;
+    }
+
+    @Override
+    public ServletOutputStream getOutputStream() throws IOException {
+      if (outputStream == null) {
+        final ServletOutputStream delegate = super.getOutputStream();
+        outputStream = new ServletOutputStream() {
+          @Override
+          public boolean isReady() {
+            return delegate.isReady();
+          }
+
+          @Override
+          public void setWriteListener(final WriteListener writeListener) {
+            delegate.setWriteListener(writeListener);
+          }
+
+          @Override
+          public void write(final int b) throws IOException {
+            delegate.write(b);
+            add(1);
+          }
+
+          @Override
+          public void write(final byte[] b, final int off, final int len) throws IOException {
+            delegate.write(b, off, len);
+            add(len);
+          }
+
+          @Override
+          public void flush() throws IOException {
+            delegate.flush();
+          }
+
+          @Override
+          public void close() throws IOException {
+            delegate.close();
+          }
+        };
+      }
+      return outputStream;
+    }
+
+    @Override
+    public PrintWriter getWriter() throws IOException {
+      if (writer == null) {
+        var encoding = getCharacterEncoding() == null ? StandardCharsets.UTF_8.name() : getCharacterEncoding();
+        writer = new PrintWriter(new OutputStreamWriter(getOutputStream(), encoding), false);
+      }
+      return writer;
+    }
+
+    @Override
+    public void flushBuffer() throws IOException {
+      flushWriter();
+      super.flushBuffer();
+    }
+
+    private void flushWriter() {
+      if (writer != null) {
+        writer.flush();
+      }
+    }
+  }
+}
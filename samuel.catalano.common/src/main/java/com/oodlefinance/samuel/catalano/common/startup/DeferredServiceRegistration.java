@@ -0,0 +1,111 @@
+package com.oodlefinance.samuel.catalano.common.startup;
+
+import jakarta.annotation.PreDestroy;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.web.context.WebServerInitializedEvent;
+import org.springframework.cloud.client.serviceregistry.AutoServiceRegistrationProperties;
+import org.springframework.cloud.consul.discovery.ConsulDiscoveryProperties;
+import org.springframework.cloud.consul.discovery.HeartbeatProperties;
+import org.springframework.cloud.consul.serviceregistry.ConsulAutoRegistration;
+import org.springframework.cloud.consul.serviceregistry.ConsulManagementRegistrationCustomizer;
+import org.springframework.cloud.consul.serviceregistry.ConsulRegistrationCustomizer;
+import org.springframework.cloud.consul.serviceregistry.ConsulServiceRegistry;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.event.EventListener;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Registers the application in Consul in the background once it is ready, instead of while it starts, turned on with
+ * {@code oodle.startup.defer-service-registration} together with {@code spring.cloud.consul.discovery.register=false}
+ * (both set by the {@code fast-startup} profile). Startup no longer waits for Consul, nor fails when it is down; the
+ * instance is only discovered once registered. A failed registration is retried every {@code registration-retry-delay}.
+ * <p>
+ * With {@code register=false} Spring Cloud Consul creates no registration of its own, so it is built here from the
+ * discovery properties, with the port the web server was given once it started, {@code server.port=0} included.
+ */
+@Slf4j
+public class DeferredServiceRegistration {
+
+  private final ConsulServiceRegistry serviceRegistry;
+  private final ConsulDiscoveryProperties discoveryProperties;
+  private final AutoServiceRegistrationProperties autoRegistrationProperties;
+  private final HeartbeatProperties heartbeatProperties;
+  private final List<ConsulRegistrationCustomizer> registrationCustomizers;
+  private final List<ConsulManagementRegistrationCustomizer> managementRegistrationCustomizers;
+  private final Duration retryDelay;
+  private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+    var thread = new Thread(runnable, "deferred-registration");
+    thread.setDaemon(true);
+    return thread;
+  });
+  private volatile int port;
+  private volatile ConsulAutoRegistration registration;
+  private volatile boolean registered;
+
+  public DeferredServiceRegistration(final ObjectProvider<ConsulServiceRegistry> serviceRegistry,
+                                     final ObjectProvider<ConsulDiscoveryProperties> discoveryProperties,
+                                     final ObjectProvider<AutoServiceRegistrationProperties> autoRegistrationProperties,
+                                     final ObjectProvider<HeartbeatProperties> heartbeatProperties,
+                                     final ObjectProvider<ConsulRegistrationCustomizer> registrationCustomizers,
+                                     final ObjectProvider<ConsulManagementRegistrationCustomizer> managementRegistrationCustomizers,
+                                     final Duration retryDelay) {
+    this.serviceRegistry = serviceRegistry.getIfAvailable();
+    this.discoveryProperties = discoveryProperties.getIfAvailable();
+    if (this.serviceRegistry == null || this.discoveryProperties == null) {
+      throw new IllegalStateException("oodle.startup.defer-service-registration needs the Consul service registry and "
+          + "discovery client, check spring.cloud.consul.enabled, spring.cloud.consul.discovery.enabled and "
+          + "spring.cloud.service-registry.enabled");
+    }
+    this.autoRegistrationProperties = autoRegistrationProperties.getIfAvailable(AutoServiceRegistrationProperties::new);
+    this.heartbeatProperties = heartbeatProperties.getIfAvailable(HeartbeatProperties::new);
+    this.registrationCustomizers = registrationCustomizers.orderedStream().toList();
+    this.managementRegistrationCustomizers = managementRegistrationCustomizers.orderedStream().toList();
+    this.retryDelay = retryDelay;
+  }
+
+  @EventListener
+  public void onWebServerInitialized(final WebServerInitializedEvent event) {
+    // the management server, when it has a port of its own, is not the one registered
+    if (!"management".equals(event.getApplicationContext().getServerNamespace())) {
+      port = event.getWebServer().getPort();
+    }
+  }
+
+  @EventListener
+  public void onApplicationReady(final ApplicationReadyEvent event) {
+    executor.execute(() -> register(event.getApplicationContext()));
+  }
+
+  @PreDestroy
+  public void close() {
+    executor.shutdownNow();
+    if (registered) {
+      serviceRegistry.deregister(registration);
+    }
+  }
+
+  private void register(final ApplicationContext context) {
+    try {
+      if (registration == null) {
+        var built = ConsulAutoRegistration.registration(autoRegistrationProperties, discoveryProperties, context,
+            registrationCustomizers, managementRegistrationCustomizers, heartbeatProperties);
+        built.initializePort(port);
+        registration = built;
+      }
+      serviceRegistry.register(registration);
+      registered = true;
+    } catch (final Exception e) {
+      log.warn("Error registering {} in Consul, retrying in {}: {}", context.getId(), retryDelay, e.getMessage());
+      executor.schedule(() -> register(context), retryDelay.toMillis(), TimeUnit.MILLISECONDS);
+    }
+  }
+}
@@ -0,0 +1,39 @@
+package com.oodlefinance.samuel.catalano.common.startup;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cloud.client.serviceregistry.AutoServiceRegistrationProperties;
+import org.springframework.cloud.consul.discovery.ConsulDiscoveryProperties;
+import org.springframework.cloud.consul.discovery.HeartbeatProperties;
+import org.springframework.cloud.consul.serviceregistry.ConsulManagementRegistrationCustomizer;
+import org.springframework.cloud.consul.serviceregistry.ConsulRegistrationCustomizer;
+import org.springframework.cloud.consul.serviceregistry.ConsulServiceRegistry;
+import org.springframework.context.annotation.Bean;
+
+import java.time.Duration;
+
+/**
+ * Registers the {@link DeferredServiceRegistration} in every Consul application depending on this module, when
+ * {@code oodle.startup.defer-service-registration} is on.
+ */
+@AutoConfiguration
+@ConditionalOnClass(ConsulServiceRegistry.class)
+@ConditionalOnProperty(prefix = "oodle.startup", name = "defer-service-registration", havingValue = "true")
+public class DeferredServiceRegistrationAutoConfiguration {
+
+  @Bean
+  public DeferredServiceRegistration deferredServiceRegistration(
+      final ObjectProvider<ConsulServiceRegistry> serviceRegistry,
+      final ObjectProvider<ConsulDiscoveryProperties> discoveryProperties,
+      final ObjectProvider<AutoServiceRegistrationProperties> autoRegistrationProperties,
+      final ObjectProvider<HeartbeatProperties> heartbeatProperties,
+      final ObjectProvider<ConsulRegistrationCustomizer> registrationCustomizers,
+      final ObjectProvider<ConsulManagementRegistrationCustomizer> managementRegistrationCustomizers,
+      @Value("${oodle.startup.registration-retry-delay:5s}") final Duration retryDelay) {
+    return new DeferredServiceRegistration(serviceRegistry, discoveryProperties, autoRegistrationProperties,
+        heartbeatProperties, registrationCustomizers, managementRegistrationCustomizers, retryDelay);
+  }
+}
@@ -0,0 +1,54 @@
+package com.oodlefinance.samuel.catalano.common.startup;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+/**
+ * Training run recording the class data sharing archive ({@code ./gradlew cdsArchive}): with
+ * {@code oodle.startup.training-run} the application sends a request to each of {@code oodle.startup.training-paths}
+ * once it has started, so the classes loaded to serve them are archived too. Exiting afterwards is left to the main
+ * class. The property is read at runtime rather than as a bean condition, since conditions are fixed at build time on
+ * an AOT-processed build.
+ */
+@Slf4j
+public final class TrainingRun {
+
+  private TrainingRun() {
+  }
+
+  /**
+   * Sends the training requests, if the training run is on.
+   *
+   * @param context the started application
+   * @return whether the training run was on, so the application should now exit
+   */
+  public static boolean run(final ConfigurableApplicationContext context) {
+    var environment = context.getEnvironment();
+    if (!environment.getProperty("oodle.startup.training-run", Boolean.class, false)
+        || !(context instanceof WebServerApplicationContext webContext)) {
+      return false;
+    }
+    var client = HttpClient.newHttpClient();
+    for (var path : environment.getProperty("oodle.startup.training-paths", String[].class, new String[0])) {
+      var request = HttpRequest.newBuilder(URI.create("http://localhost:" + webContext.getWebServer().getPort() + path)).build();
+      try {
+        var response = client.send(request, HttpResponse.BodyHandlers.discarding());
+        log.info("Training request {} answered {}", path, response.statusCode());
+      } catch (final IOException e) {
+        log.warn("Training request {} failed: {}", path, e.getMessage());
+      } catch (final InterruptedException e) {
+        Thread.currentThread().interrupt();
+        break;
+      }
+    }
+    return true;
+  }
+}
@@ -0,0 +1,71 @@
+package com.oodlefinance.samuel.catalano.common.concurrent;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+class MicroBatcherTest {
+
+  private final List<Set<Long>> batches = new CopyOnWriteArrayList<>();
+
+  @Test
+  void testKeysWithinWindow_ShouldBeLoadedWithOneCall() throws Exception {
+    try (var batcher = new MicroBatcher<Long, String>("test", this::load, Duration.ofMillis(50), 100, 1)) {
+      final CompletableFuture<String> first = batcher.load(1L);
+      final CompletableFuture<String> second = batcher.load(2L);
+      final CompletableFuture<String> duplicate = batcher.load(1L);
+      final CompletableFuture<String> missing = batcher.load(404L);
+
+      assertThat(first.get(5, TimeUnit.SECONDS)).isEqualTo("Message 1");
+      assertThat(second.get(5, TimeUnit.SECONDS)).isEqualTo("Message 2");
+      assertThat(duplicate).isSameAs(first);
+      assertThat(missing.get(5, TimeUnit.SECONDS)).isNull();
+      assertThat(batches).containsExactly(Set.of(1L, 2L, 404L));
+    }
+  }
+
+  @Test
+  void testFullBatch_ShouldBeLoadedBeforeWindowCloses() throws Exception {
+    try (var batcher = new MicroBatcher<Long, String>("test", this::load, Duration.ofMinutes(1), 2, 1)) {
+      final CompletableFuture<String> first = batcher.load(1L);
+      final CompletableFuture<String> second = batcher.load(2L);
+
+      assertThat(first.get(5, TimeUnit.SECONDS)).isEqualTo("Message 1");
+      assertThat(second.get(5, TimeUnit.SECONDS)).isEqualTo("Message 2");
+      assertThat(batches).containsExactly(Set.of(1L, 2L));
+    }
+  }
+
+  @Test
+  void testKeyAfterFullBatch_ShouldWaitForItsOwnWindow() throws Exception {
+    try (var batcher = new MicroBatcher<Long, String>("test", this::load, Duration.ofMillis(500), 2, 1)) {
+      batcher.load(1L);
+      batcher.load(2L).get(5, TimeUnit.SECONDS);
+      Thread.sleep(200);
+
+      final CompletableFuture<String> third = batcher.load(3L);
+      Thread.sleep(400);
+
+      assertThat(third).isNotDone();
+      assertThat(third.get(5, TimeUnit.SECONDS)).isEqualTo("Message 3");
+      assertThat(batches).containsExactly(Set.of(1L, 2L), Set.of(3L));
+    }
+  }
+
+  private Map<Long, String> load(final Collection<Long> ids) {
+    batches.add(Set.copyOf(ids));
+    final Map<Long, String> values = new HashMap<>();
+    ids.stream().filter(id -> id != 404L).forEach(id -> values.put(id, "Message " + id));
+    return values;
+  }
+}
@@ -0,0 +1,70 @@
+package com.oodlefinance.samuel.catalano.common.concurrent;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class SingleFlightTest {
+
+  @Test
+  void testConcurrentCallsForSameKey_ShouldShareOneLoad() throws Exception {
+    final SingleFlight<Long, String> singleFlight = new SingleFlight<>();
+    final AtomicInteger loads = new AtomicInteger();
+    final CountDownLatch release = new CountDownLatch(1);
+    final ExecutorService executor = Executors.newFixedThreadPool(8);
+
+    try {
+      final List<Future<String>> results = new ArrayList<>();
+      for (int i = 0; i < 8; i++) {
+        results.add(executor.submit(() -> singleFlight.execute(1L, () -> {
+          loads.incrementAndGet();
+          await(release);
+          return "Hello";
+        })));
+      }
+      while (singleFlight.inFlight() == 0) {
+        Thread.onSpinWait();
+      }
+      Thread.sleep(100);
+      release.countDown();
+
+      for (final Future<String> result : results) {
+        assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo("Hello");
+      }
+      assertThat(loads.get()).isEqualTo(1);
+      assertThat(singleFlight.inFlight()).isZero();
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  void testFailedLoad_ShouldRethrowAndNotBeKept() throws Exception {
+    final SingleFlight<Long, String> singleFlight = new SingleFlight<>();
+
+    assertThatExceptionOfType(IllegalStateException.class)
+        .isThrownBy(() -> singleFlight.execute(1L, () -> {
+          throw new IllegalStateException("Database is down");
+        }));
+
+    assertThat(singleFlight.execute(1L, () -> "Hello")).isEqualTo("Hello");
+  }
+
+  private static void await(final CountDownLatch latch) {
+    try {
+      latch.await(5, TimeUnit.SECONDS);
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -0,0 +1,161 @@
+package com.oodlefinance.samuel.catalano.external.benchmark;
+
+import com.oodlefinance.samuel.catalano.external.ExternalApplication;
+import com.oodlefinance.samuel.catalano.internal.InternalApplication;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.StringJoiner;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Measures full round trips through the gateway: HTTP client -> external controller -> Feign -> internal
+ * controller -> H2, with both applications started on random ports in the benchmark JVM. Consul is replaced by the
+ * simple discovery client and the gateway cache is turned off so every read reaches the internal service.
+ * <p>
+ * Both applications ship an {@code application.yml} at the root of the classpath, so neither is loaded here and
+ * the settings each context needs are given explicitly.
+ * <p>
+ * {@code feignClient} runs every benchmark with the pooled Apache HttpClient 5 ({@code pooled}) and with Feign's
+ * default {@code HttpURLConnection} client ({@code unpooled}); {@link #getPageConcurrently()} shows the throughput of
+ * both under concurrent load.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class GatewayRoundTripBenchmark {
+
+  private static final int ROWS = 1_000;
+  private static final int IDS_PER_MULTI_GET = 100;
+  private static final Pattern FIRST_ID = Pattern.compile("\"id\":(\\d+)");
+  private static final String NO_CONFIG_FILES = "spring.config.location=optional:classpath:/benchmark/";
+
+  @Param({"pooled", "unpooled"})
+  public String feignClient;
+
+  private ConfigurableApplicationContext internal;
+  private ConfigurableApplicationContext external;
+  private HttpClient httpClient;
+  private String baseUrl;
+  private long firstId;
+
+  @Setup(Level.Trial)
+  public void setup() throws IOException, InterruptedException {
+    internal = new SpringApplicationBuilder(InternalApplication.class)
+        .properties(NO_CONFIG_FILES,
+                    "server.port=0",
+                    "spring.main.banner-mode=off",
+                    "spring.application.name=oodle-finance-internal",
+                    "spring.cloud.consul.enabled=false",
+                    "spring.datasource.url=jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1;LAZY_QUERY_EXECUTION=1",
+                    "spring.jpa.hibernate.ddl-auto=create-drop",
+                    "spring.jpa.properties.hibernate.jdbc.batch_size=50",
+                    "spring.jpa.properties.hibernate.order_inserts=true")
+        .run();
+    var internalPort = ((WebServerApplicationContext) internal).getWebServer().getPort();
+
+    external = new SpringApplicationBuilder(ExternalApplication.class)
+        .properties(NO_CONFIG_FILES,
+                    "server.port=0",
+                    "spring.main.banner-mode=off",
+                    "spring.application.name=oodle-finance-external",
+                    "spring.cloud.consul.enabled=false",
+                    "spring.cloud.discovery.client.simple.instances.oodle-finance-internal[0].uri=http://localhost:" + internalPort,
+                    "spring.autoconfigure.exclude=org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration,"
+                        + "org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration",
+                    "spring.cloud.openfeign.httpclient.hc5.enabled=" + "pooled".equals(feignClient),
+                    "oodle.cache.messages.enabled=false",
+                    "oodle.cache.messages.invalidation.enabled=false")
+        .run();
+    baseUrl = "http://localhost:" + ((WebServerApplicationContext) external).getWebServer().getPort() + "/api/messages";
+
+    httpClient = HttpClient.newHttpClient();
+    final StringBuilder batch = new StringBuilder("[");
+    for (int i = 1; i <= ROWS; i++) {
+      batch.append(i > 1 ? "," : "").append("{\"message\":\"Message number ").append(i).append("\"}");
+    }
+    var results = send(HttpRequest.newBuilder(URI.create(baseUrl + "/batch"))
+                                  .header("Content-Type", "application/json")
+                                  .POST(HttpRequest.BodyPublishers.ofString(batch.append("]").toString()))
+                                  .build());
+    var firstResult = FIRST_ID.matcher(results);
+    if (!firstResult.find()) {
+      throw new IllegalStateException("Messages were not created: " + results);
+    }
+    firstId = Long.parseLong(firstResult.group(1));
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    external.close();
+    internal.close();
+  }
+
+  @Benchmark
+  public String getMessageById() throws IOException, InterruptedException {
+    return send(HttpRequest.newBuilder(URI.create(baseUrl + "/" + randomId())).GET().build());
+  }
+
+  @Benchmark
+  public String getMessagesByIds() throws IOException, InterruptedException {
+    final StringJoiner ids = new StringJoiner(",");
+    var from = randomId();
+    for (int i = 0; i < IDS_PER_MULTI_GET; i++) {
+      ids.add(String.valueOf(from + i));
+    }
+    return send(HttpRequest.newBuilder(URI.create(baseUrl + "?ids=" + ids)).GET().build());
+  }
+
+  @Benchmark
+  public String getPage() throws IOException, InterruptedException {
+    return send(HttpRequest.newBuilder(URI.create(baseUrl + "?limit=100&after=" + randomId())).GET().build());
+  }
+
+  @Benchmark
+  @Threads(16)
+  @BenchmarkMode(Mode.Throughput)
+  @OutputTimeUnit(TimeUnit.SECONDS)
+  public String getPageConcurrently() throws IOException, InterruptedException {
+    return getPage();
+  }
+
+  @Benchmark
+  public String createMessage() throws IOException, InterruptedException {
+    return send(HttpRequest.newBuilder(URI.create(baseUrl))
+                           .header("Content-Type", "application/json")
+                           .POST(HttpRequest.BodyPublishers.ofString("{\"message\":\"Benchmark message\"}"))
+                           .build());
+  }
+
+  private String send(final HttpRequest request) throws IOException, InterruptedException {
+    var response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+    if (response.statusCode() >= 300) {
+      throw new IllegalStateException("Unexpected status " + response.statusCode() + ": " + response.body());
+    }
+    return response.body();
+  }
+
+  private long randomId() {
+    return firstId + ThreadLocalRandom.current().nextInt(ROWS - IDS_PER_MULTI_GET);
+  }
+}
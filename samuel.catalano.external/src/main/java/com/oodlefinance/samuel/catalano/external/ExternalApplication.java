@@ -1,5 +1,7 @@
 package com.oodlefinance.samuel.catalano.external;
 
+import com.oodlefinance.samuel.catalano.common.startup.TrainingRun;
+
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.cloud.client.discovery.EnableDiscoveryClient;
@@ -11,6 +13,10 @@ import org.springframework.cloud.openfeign.EnableFeignClients;
 public class ExternalApplication {
 
   public static void main(String[] args) {
-    SpringApplication.run(ExternalApplication.class, args);
+    var context = SpringApplication.run(ExternalApplication.class, args);
+    if (TrainingRun.run(context)) {
+      // the JVM records the class data sharing archive when it exits
+      System.exit(SpringApplication.exit(context));
+    }
   }
 }
@@ -0,0 +1,195 @@
+package com.oodlefinance.samuel.catalano.external.cache;
+
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.github.benmanes.caffeine.cache.Ticker;
+import com.oodlefinance.samuel.catalano.external.dto.MessageDTO;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+import jakarta.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded in-process cache of messages read through the internal service, keyed by message id. Entries are evicted by
+ * size and by time since they were written. Entries read after the refresh period are revalidated in the background by
+ * the {@link MessageRevalidator} while the cached copy keeps being served, a revalidated entry is written again.
+ * Revalidations block on the internal service, so they run on a dedicated pool of {@code refresh-threads} threads
+ * queueing at most {@code refresh-queue-capacity} of them; when it is full the revalidation is skipped, the cached copy
+ * is kept and revalidated on a later read. Hit, miss and eviction counters are published as the {@code cache.*} metrics
+ * tagged with {@code cache=messages}.
+ */
+@Component
+public class MessageCache {
+
+  public static final String CACHE_NAME = "messages";
+
+  private final boolean enabled;
+  private final Executor executor;
+  private final LoadingCache<Long, MessageDTO> cache;
+  private final AtomicLong invalidations = new AtomicLong();
+
+  @Autowired
+  public MessageCache(final MessageCacheProperties properties, final MeterRegistry meterRegistry,
+                      final MessageRevalidator revalidator) {
+    this(properties, meterRegistry, revalidator, Ticker.systemTicker(), refreshExecutor(properties));
+  }
+
+  /**
+   * Creates a cache whose entries are never revalidated, they only expire.
+   */
+  public MessageCache(final MessageCacheProperties properties, final MeterRegistry meterRegistry) {
+    this(properties, meterRegistry, null, Ticker.systemTicker(), ForkJoinPool.commonPool());
+  }
+
+  MessageCache(final MessageCacheProperties properties, final MeterRegistry meterRegistry,
+               final MessageRevalidator revalidator, final Ticker ticker, final Executor executor) {
+    this.enabled = properties.isEnabled();
+    this.executor = executor;
+    var builder = Caffeine.newBuilder()
+                          .maximumSize(properties.getMaximumSize())
+                          .expireAfterWrite(properties.getTimeToLive())
+                          .ticker(ticker)
+                          .executor(executor)
+                          .recordStats();
+    if (revalidator != null && properties.getRefreshAfter() != null && properties.getRefreshAfter().compareTo(properties.getTimeToLive()) < 0) {
+      builder.refreshAfterWrite(properties.getRefreshAfter());
+    }
+    this.cache = builder.build(new CacheLoader<>() {
+      @Override
+      public MessageDTO load(final Long id) {
+        return null;
+      }
+
+      @Override
+      public MessageDTO reload(final Long id, final MessageDTO cached) throws Exception {
+        return revalidator.revalidate(cached);
+      }
+    });
+    CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+  }
+
+  @PreDestroy
+  public void close() {
+    if (executor instanceof ThreadPoolExecutor pool) {
+      pool.shutdownNow();
+    }
+  }
+
+  /**
+   * Returns the cached message with the given id.
+   *
+   * @param id the message id
+   * @return the cached message, or {@code null} if it is not cached
+   */
+  public MessageDTO getIfPresent(final Long id) {
+    return enabled ? cache.getIfPresent(id) : null;
+  }
+
+  /**
+   * Caches the given message, replacing any entry with the same id.
+   *
+   * @param message the message to cache, ignored when {@code null} or without id
+   */
+  public void put(final MessageDTO message) {
+    if (enabled && message != null && message.getId() != null) {
+      cache.put(message.getId(), message);
+    }
+  }
+
+  /**
+   * Takes a stamp before reading messages from the internal service, to hand to {@link #put(MessageDTO, long)}
+   * afterwards.
+   *
+   * @return the number of invalidations so far
+   */
+  public long stamp() {
+    return invalidations.get();
+  }
+
+  /**
+   * Caches a message read from the internal service, unless an entry was invalidated since the stamp was taken: the
+   * message may then have been read before that change, and caching it would bring the stale copy back.
+   *
+   * @param message the message to cache, ignored when {@code null} or without id
+   * @param stamp the stamp taken before reading it
+   */
+  public void put(final MessageDTO message, final long stamp) {
+    if (!enabled || message == null || message.getId() == null || stamp != invalidations.get()) {
+      return;
+    }
+    cache.put(message.getId(), message);
+    // an invalidation counts itself before removing anything, so it either removes this entry or is seen here
+    if (stamp != invalidations.get()) {
+      cache.asMap().remove(message.getId(), message);
+    }
+  }
+
+  /**
+   * Removes the message with the given id from the cache.
+   *
+   * @param id the message id
+   */
+  public void evict(final Long id) {
+    if (id != null) {
+      invalidations.incrementAndGet();
+      cache.invalidate(id);
+    }
+  }
+
+  /**
+   * Removes the message with the given id from the cache, unless the cached copy is already at the given version or
+   * a later one: changes of concurrent writes may be reported out of order.
+   *
+   * @param id the message id
+   * @param version the version of the message after the change, {@code null} to remove the message whatever its version
+   */
+  public void evictOlderThan(final Long id, final Long version) {
+    if (id == null) {
+      return;
+    }
+    invalidations.incrementAndGet();
+    var cached = cache.asMap().get(id);
+    if (cached != null && (version == null || cached.getVersion() == null || cached.getVersion() < version)) {
+      cache.asMap().remove(id, cached);
+    }
+  }
+
+  /**
+   * Removes the messages with the given ids from the cache.
+   *
+   * @param ids the message ids
+   */
+  public void evictAll(final Iterable<Long> ids) {
+    ids.forEach(this::evict);
+  }
+
+  /**
+   * Removes every message from the cache.
+   */
+  public void clear() {
+    invalidations.incrementAndGet();
+    cache.invalidateAll();
+  }
+
+  private static ThreadPoolExecutor refreshExecutor(final MessageCacheProperties properties) {
+    var threadCount = new AtomicInteger();
+    return new ThreadPoolExecutor(properties.getRefreshThreads(), properties.getRefreshThreads(), 60, TimeUnit.SECONDS,
+                                  new ArrayBlockingQueue<>(properties.getRefreshQueueCapacity()), runnable -> {
+      var thread = new Thread(runnable, "message-cache-refresh-" + threadCount.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+}
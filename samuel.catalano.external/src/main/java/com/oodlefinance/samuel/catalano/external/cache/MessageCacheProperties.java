@@ -0,0 +1,45 @@
+package com.oodlefinance.samuel.catalano.external.cache;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Settings of the in-process {@link MessageCache}, bound from {@code oodle.cache.messages.*}.
+ */
+@Setter
+@Getter
+@ConfigurationProperties(prefix = "oodle.cache.messages")
+public class MessageCacheProperties {
+
+  private boolean enabled = true;
+
+  private long maximumSize = 10_000;
+
+  private Duration timeToLive = Duration.ofMinutes(5);
+
+  private Duration refreshAfter = Duration.ofMinutes(1);
+
+  private int refreshThreads = 2;
+
+  private int refreshQueueCapacity = 1000;
+
+  private Invalidation invalidation = new Invalidation();
+
+  /**
+   * Settings of the {@link MessageChangeSubscriber}, bound from {@code oodle.cache.messages.invalidation.*}.
+   */
+  @Setter
+  @Getter
+  public static class Invalidation {
+
+    private boolean enabled = true;
+
+    private Duration pollTimeout = Duration.ofSeconds(25);
+
+    private Duration retryDelay = Duration.ofSeconds(1);
+  }
+}
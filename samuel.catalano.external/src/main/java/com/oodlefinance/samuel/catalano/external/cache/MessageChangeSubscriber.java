@@ -0,0 +1,210 @@
+package com.oodlefinance.samuel.catalano.external.cache;
+
+import lombok.extern.slf4j.Slf4j;
+
+import com.oodlefinance.samuel.catalano.external.config.FeignHttpClientConfig;
+import com.oodlefinance.samuel.catalano.external.feign.MessageFeignClient;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
+import org.springframework.cloud.openfeign.FeignClientBuilder;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Keeps the {@link MessageCache} of this gateway consistent with writes made through any other gateway replica.
+ * <p>
+ * Every instance of the internal service has a change feed of its own, with its own epoch and sequence, so each
+ * discovered instance is long-polled directly, bypassing the load balancer, by a background thread keeping that
+ * instance's position. Every message reported as changed is evicted, unless the cached copy is already at the reported
+ * version or a later one. When a feed reports a reset or a new epoch (its instance restarted), changes may have been
+ * missed and the whole cache is cleared; so it is when an instance is first seen or leaves the discovery. While an
+ * instance is unreachable its subscription keeps its position and retries, catching up once it is back. The instances
+ * are looked up again every poll timeout.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "oodle.cache.messages.invalidation", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class MessageChangeSubscriber implements SmartLifecycle {
+
+  private final Supplier<List<ServiceInstance>> instances;
+  private final Function<ServiceInstance, MessageFeignClient> clients;
+  private final MessageCache messageCache;
+  private final long pollTimeoutMillis;
+  private final Duration retryDelay;
+  private final Map<URI, InstanceFeed> feeds = new ConcurrentHashMap<>();
+
+  private volatile boolean running;
+  private Thread discovery;
+
+  @Autowired
+  public MessageChangeSubscriber(final DiscoveryClient discoveryClient, final ApplicationContext applicationContext,
+                                 final MessageCache messageCache, final MessageCacheProperties properties) {
+    this(() -> discoveryClient.getInstances(FeignHttpClientConfig.CLIENT_NAME),
+         instance -> new FeignClientBuilder(applicationContext).forType(MessageFeignClient.class, FeignHttpClientConfig.CLIENT_NAME)
+                                                               .url(instance.getUri().toString())
+                                                               .path(MessageFeignClient.PATH)
+                                                               .build(),
+         messageCache, properties);
+  }
+
+  MessageChangeSubscriber(final Supplier<List<ServiceInstance>> instances, final Function<ServiceInstance, MessageFeignClient> clients,
+                          final MessageCache messageCache, final MessageCacheProperties properties) {
+    this.instances = instances;
+    this.clients = clients;
+    this.messageCache = messageCache;
+    this.pollTimeoutMillis = properties.getInvalidation().getPollTimeout().toMillis();
+    this.retryDelay = properties.getInvalidation().getRetryDelay();
+  }
+
+  /**
+   * Subscribes to the change feed of the instances discovered since the last lookup and drops the subscriptions of
+   * the instances that are gone.
+   */
+  public synchronized void refreshInstances() {
+    final Set<URI> discovered = new HashSet<>();
+    for (var instance : instances.get()) {
+      discovered.add(instance.getUri());
+      feeds.computeIfAbsent(instance.getUri(), uri -> {
+        var feed = new InstanceFeed(uri, clients.apply(instance));
+        if (running) {
+          feed.start();
+        }
+        return feed;
+      });
+    }
+    for (var iterator = feeds.values().iterator(); iterator.hasNext(); ) {
+      var feed = iterator.next();
+      if (!discovered.contains(feed.uri)) {
+        iterator.remove();
+        feed.stop();
+        // the changes it made since it was last polled are lost with it
+        messageCache.clear();
+      }
+    }
+  }
+
+  /**
+   * Reads the next slice of the change feed of every discovered instance, waiting for up to the poll timeout each,
+   * and applies them to the cache.
+   */
+  public void pollOnce() {
+    refreshInstances();
+    feeds.values().forEach(InstanceFeed::pollOnce);
+  }
+
+  @Override
+  public synchronized void start() {
+    running = true;
+    feeds.values().forEach(InstanceFeed::start);
+    discovery = new Thread(this::discover, "message-change-discovery");
+    discovery.setDaemon(true);
+    discovery.start();
+  }
+
+  @Override
+  public void stop() {
+    running = false;
+    if (discovery != null) {
+      discovery.interrupt();
+    }
+    feeds.values().forEach(InstanceFeed::stop);
+  }
+
+  @Override
+  public boolean isRunning() {
+    return running;
+  }
+
+  private void discover() {
+    while (running) {
+      try {
+        refreshInstances();
+      } catch (final Exception e) {
+        log.warn("Error looking up the instances of {}: {}", FeignHttpClientConfig.CLIENT_NAME, e.getMessage());
+      }
+      try {
+        Thread.sleep(pollTimeoutMillis);
+      } catch (final InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      }
+    }
+  }
+
+  /**
+   * The subscription to the change feed of one instance, with its own position.
+   */
+  private final class InstanceFeed {
+
+    private final URI uri;
+    private final MessageFeignClient client;
+    private volatile boolean subscribed = true;
+    private volatile Thread worker;
+    private String epoch;
+    private Long since;
+
+    private InstanceFeed(final URI uri, final MessageFeignClient client) {
+      this.uri = uri;
+      this.client = client;
+    }
+
+    private void pollOnce() {
+      var changes = client.getChanges(since, pollTimeoutMillis).getBody();
+      if (changes == null) {
+        return;
+      }
+
+      if (changes.isReset() || !Objects.equals(epoch, changes.getEpoch())) {
+        messageCache.clear();
+      } else {
+        changes.getChanges().forEach(change -> messageCache.evictOlderThan(change.getId(), change.getVersion()));
+      }
+      epoch = changes.getEpoch();
+      since = changes.getLastSequence();
+    }
+
+    private void start() {
+      worker = new Thread(this::run, "message-change-subscriber-" + uri.getAuthority());
+      worker.setDaemon(true);
+      worker.start();
+    }
+
+    private void stop() {
+      subscribed = false;
+      if (worker != null) {
+        worker.interrupt();
+      }
+    }
+
+    private void run() {
+      while (running && subscribed) {
+        try {
+          pollOnce();
+        } catch (final Exception e) {
+          log.warn("Error reading the message change feed of {}, retrying in {}: {}", uri, retryDelay, e.getMessage());
+          try {
+            Thread.sleep(retryDelay.toMillis());
+          } catch (final InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            return;
+          }
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,63 @@
+package com.oodlefinance.samuel.catalano.external.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.oodlefinance.samuel.catalano.external.config.WireFormatConfig;
+import com.oodlefinance.samuel.catalano.external.dto.MessageDTO;
+import com.oodlefinance.samuel.catalano.external.exception.ServiceException;
+import com.oodlefinance.samuel.catalano.external.feign.MessageFeignClient;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Revalidates cached messages against the internal service with a conditional request on their ETag, so an
+ * unchanged message costs a 304 (Not Modified) without body instead of a full read. A changed message is decoded
+ * from JSON or Smile, according to the {@code Content-Type} of the response.
+ */
+@Component
+public class MessageRevalidator {
+
+  private final MessageFeignClient messageFeignClient;
+  private final ObjectMapper objectMapper;
+  private final ObjectMapper smileMapper;
+
+  @Autowired
+  public MessageRevalidator(final MessageFeignClient messageFeignClient, final ObjectMapper objectMapper) {
+    this.messageFeignClient = messageFeignClient;
+    this.objectMapper = objectMapper;
+    this.smileMapper = objectMapper.copyWith(new SmileFactory());
+  }
+
+  /**
+   * Checks whether the cached copy of a message is still current.
+   *
+   * @param cached the cached message
+   * @return the cached message when unchanged, the current message when it changed, or {@code null} when it was deleted
+   * @throws ServiceException when the internal service cannot be reached or answers with another status
+   */
+  public MessageDTO revalidate(final MessageDTO cached) throws ServiceException {
+    var eTag = cached.getVersion() == null ? null : "\"" + cached.getVersion() + "\"";
+    try (var response = messageFeignClient.revalidateMessage(cached.getId(), eTag)) {
+      if (response.status() == HttpStatus.NOT_MODIFIED.value()) {
+        return cached;
+      }
+      if (response.status() == HttpStatus.NOT_FOUND.value()) {
+        return null;
+      }
+      if (response.status() != HttpStatus.OK.value() || response.body() == null) {
+        throw new ServiceException("Unexpected status revalidating message " + cached.getId() + ": " + response.status());
+      }
+      var contentType = response.headers().getOrDefault(HttpHeaders.CONTENT_TYPE, List.of());
+      var mapper = contentType.stream().anyMatch(value -> value.startsWith(WireFormatConfig.APPLICATION_SMILE_VALUE)) ? smileMapper : objectMapper;
+      return mapper.readValue(response.body().asInputStream(), MessageDTO.class);
+    } catch (final IOException e) {
+      throw new ServiceException("Error revalidating message " + cached.getId(), e);
+    }
+  }
+}
@@ -0,0 +1,11 @@
+package com.oodlefinance.samuel.catalano.external.config;
+
+import com.oodlefinance.samuel.catalano.external.cache.MessageCacheProperties;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(MessageCacheProperties.class)
+public class CacheConfig {
+}
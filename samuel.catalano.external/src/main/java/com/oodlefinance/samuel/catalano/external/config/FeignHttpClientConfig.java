@@ -0,0 +1,105 @@
+package com.oodlefinance.samuel.catalano.external.config;
+
+import feign.RequestInterceptor;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.apache.hc.client5.http.HttpRoute;
+import org.apache.hc.client5.http.io.HttpClientConnectionManager;
+import org.apache.hc.core5.pool.ConnPoolControl;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.function.ToDoubleFunction;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * HTTP client of the Feign hop to the internal service.
+ * <p>
+ * Feign runs on the pooled, keep-alive Apache HttpClient 5 configured under {@code spring.cloud.openfeign.httpclient}
+ * (total and per-route connection limits, time to live). The client asks for gzip responses and inflates them
+ * itself; request bodies of at least {@code oodle.gateway.compression.min-request-size} are gzip compressed here.
+ * The state of the connection pool is published in the {@value #POOL_METRICS} gauges.
+ */
+@Configuration
+@EnableConfigurationProperties(GatewayProperties.class)
+public class FeignHttpClientConfig {
+
+  public static final String POOL_METRICS = "httpcomponents.httpclient.pool";
+  public static final String CLIENT_NAME = "oodle-finance-internal";
+
+  /**
+   * Compresses the request bodies that are large enough with gzip.
+   *
+   * @param properties the gateway settings
+   * @return the request interceptor
+   */
+  @Bean
+  @ConditionalOnProperty(prefix = "oodle.gateway.compression", name = "enabled", havingValue = "true", matchIfMissing = true)
+  public RequestInterceptor gzipRequestInterceptor(final GatewayProperties properties) {
+    final long minRequestSize = properties.getCompression().getMinRequestSize().toBytes();
+    return template -> {
+      var body = template.body();
+      if (body == null || body.length < minRequestSize || template.headers().containsKey(HttpHeaders.CONTENT_ENCODING)) {
+        return;
+      }
+      template.body(gzip(body), null);
+      template.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+    };
+  }
+
+  /**
+   * Publishes the totals of the Feign connection pool: maximum, leased and available connections, and requests
+   * waiting for a connection. Leased connections close to the maximum, or pending requests, mean the pool is saturated.
+   *
+   * @param connectionManager the connection manager of the Feign client, absent when Feign does not use HttpClient 5
+   * @return the meter binder
+   */
+  @Bean
+  public MeterBinder feignConnectionPoolMetrics(final ObjectProvider<HttpClientConnectionManager> connectionManager) {
+    return registry -> {
+      if (!(connectionManager.getIfAvailable() instanceof ConnPoolControl<?> pool)) {
+        return;
+      }
+      @SuppressWarnings("unchecked")
+      final ConnPoolControl<HttpRoute> routes = (ConnPoolControl<HttpRoute>) pool;
+      gauge(routes, ".total.max", "Maximum number of connections of the pool", control -> control.getTotalStats().getMax())
+          .register(registry);
+      gauge(routes, ".total.connections", "Number of leased connections", control -> control.getTotalStats().getLeased())
+          .tag("state", "leased")
+          .register(registry);
+      gauge(routes, ".total.connections", "Number of idle connections", control -> control.getTotalStats().getAvailable())
+          .tag("state", "available")
+          .register(registry);
+      gauge(routes, ".total.pending", "Number of requests waiting for a connection", control -> control.getTotalStats().getPending())
+          .register(registry);
+      gauge(routes, ".route.max.default", "Maximum number of connections per route", ConnPoolControl::getDefaultMaxPerRoute)
+          .register(registry);
+    };
+  }
+
+  private static Gauge.Builder<ConnPoolControl<HttpRoute>> gauge(final ConnPoolControl<HttpRoute> pool, final String suffix,
+                                                                final String description,
+                                                                final ToDoubleFunction<ConnPoolControl<HttpRoute>> value) {
+    return Gauge.builder(POOL_METRICS + suffix, pool, value)
+                .description(description)
+                .tag("httpclient", CLIENT_NAME);
+  }
+
+  private static byte[] gzip(final byte[] body) {
+    final ByteArrayOutputStream compressed = new ByteArrayOutputStream(Math.max(64, body.length / 4));
+    try (var gzip = new GZIPOutputStream(compressed)) {
+      gzip.write(body);
+    } catch (final IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return compressed.toByteArray();
+  }
+}
@@ -0,0 +1,133 @@
+package com.oodlefinance.samuel.catalano.external.config;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * Settings of the gateway execution mode, bound from {@code oodle.gateway.*}.
+ * <p>
+ * In {@code blocking} mode (default) each request holds a Tomcat thread for the whole Feign call. In
+ * {@code reactive} mode requests are served through a non-blocking WebClient, so the Tomcat thread is released
+ * while the internal service is being called.
+ * <p>
+ * {@code wire-format} is the encoding of the bodies exchanged with the internal service, {@code smile} (default)
+ * or {@code json}. Request bodies of at least {@code compression.min-request-size} are sent gzip compressed.
+ * <p>
+ * {@code load-balancer.strategy} chooses how instances of the internal service are picked, {@code latency-aware}
+ * (default) or {@code round-robin}, see {@link LoadBalancerConfig}.
+ * <p>
+ * {@code resilience} guards every Feign call to the internal service with a circuit breaker and a bulkhead per
+ * operation, and hedges the idempotent reads, see
+ * {@link com.oodlefinance.samuel.catalano.external.resilience.ResilienceAspect ResilienceAspect}.
+ */
+@Setter
+@Getter
+@ConfigurationProperties(prefix = "oodle.gateway")
+public class GatewayProperties {
+
+  private String mode = "blocking";
+
+  private String wireFormat = "smile";
+
+  private Reactive reactive = new Reactive();
+
+  private Compression compression = new Compression();
+
+  private LoadBalancer loadBalancer = new LoadBalancer();
+
+  private Resilience resilience = new Resilience();
+
+  @Setter
+  @Getter
+  public static class Reactive {
+
+    private int maxConnections = 500;
+
+    private int pendingAcquireMaxCount = 20_000;
+
+    private Duration pendingAcquireTimeout = Duration.ofSeconds(30);
+
+    private Duration responseTimeout = Duration.ofSeconds(30);
+  }
+
+  @Setter
+  @Getter
+  public static class Compression {
+
+    private boolean enabled = true;
+
+    private DataSize minRequestSize = DataSize.ofKilobytes(2);
+  }
+
+  @Setter
+  @Getter
+  public static class LoadBalancer {
+
+    private String strategy = "latency-aware";
+
+    private Duration decay = Duration.ofSeconds(10);
+
+    private int failureThreshold = 3;
+
+    private Duration ejectionTime = Duration.ofSeconds(30);
+  }
+
+  @Setter
+  @Getter
+  public static class Resilience {
+
+    private boolean enabled = true;
+
+    private CircuitBreaker circuitBreaker = new CircuitBreaker();
+
+    private Bulkhead bulkhead = new Bulkhead();
+
+    private Hedging hedging = new Hedging();
+
+    @Setter
+    @Getter
+    public static class CircuitBreaker {
+
+      private int failureRateThreshold = 50;
+
+      private int slidingWindowSize = 100;
+
+      private int minimumCalls = 20;
+
+      private Duration openDuration = Duration.ofSeconds(10);
+
+      private int halfOpenCalls = 5;
+    }
+
+    @Setter
+    @Getter
+    public static class Bulkhead {
+
+      private int maxConcurrentCalls = 100;
+
+      private Duration maxWait = Duration.ZERO;
+    }
+
+    @Setter
+    @Getter
+    public static class Hedging {
+
+      private boolean enabled = true;
+
+      private double percentile = 0.95;
+
+      private Duration minDelay = Duration.ofMillis(5);
+
+      private int minimumSamples = 100;
+
+      private double maxRatio = 0.1;
+
+      private int threads = 200;
+    }
+  }
+}
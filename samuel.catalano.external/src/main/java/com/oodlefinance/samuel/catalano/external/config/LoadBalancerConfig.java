@@ -0,0 +1,36 @@
+package com.oodlefinance.samuel.catalano.external.config;
+
+import com.oodlefinance.samuel.catalano.external.loadbalancer.InstanceStatsRegistry;
+import com.oodlefinance.samuel.catalano.external.loadbalancer.LatencyAwareLoadBalancerClientConfiguration;
+import com.oodlefinance.samuel.catalano.external.loadbalancer.LatencyTrackingLifecycle;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cloud.loadbalancer.annotation.LoadBalancerClient;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Latency-aware load balancing of the internal service, for Feign and the reactive WebClient alike. Turned off with
+ * {@code oodle.gateway.load-balancer.strategy=round-robin}, which restores the Spring Cloud default.
+ * <p>
+ * Every request is recorded by the {@link LatencyTrackingLifecycle}, and instances are chosen by the
+ * {@link com.oodlefinance.samuel.catalano.external.loadbalancer.LatencyAwareLoadBalancer LatencyAwareLoadBalancer}.
+ */
+@Configuration
+@EnableConfigurationProperties(GatewayProperties.class)
+@ConditionalOnProperty(prefix = "oodle.gateway.load-balancer", name = "strategy", havingValue = "latency-aware", matchIfMissing = true)
+@LoadBalancerClient(name = FeignHttpClientConfig.CLIENT_NAME, configuration = LatencyAwareLoadBalancerClientConfiguration.class)
+public class LoadBalancerConfig {
+
+  @Bean
+  public InstanceStatsRegistry instanceStatsRegistry(final GatewayProperties properties, final MeterRegistry meterRegistry) {
+    return new InstanceStatsRegistry(properties.getLoadBalancer(), meterRegistry);
+  }
+
+  @Bean
+  public LatencyTrackingLifecycle latencyTrackingLifecycle(final InstanceStatsRegistry instanceStatsRegistry) {
+    return new LatencyTrackingLifecycle(instanceStatsRegistry);
+  }
+}
@@ -0,0 +1,57 @@
+package com.oodlefinance.samuel.catalano.external.config;
+
+import com.oodlefinance.samuel.catalano.external.feign.MessageErrorDecoder;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.reactive.function.client.WebClientCustomizer;
+import org.springframework.cloud.client.loadbalancer.LoadBalanced;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+@Configuration
+@EnableConfigurationProperties(GatewayProperties.class)
+@ConditionalOnProperty(prefix = "oodle.gateway", name = "mode", havingValue = "reactive")
+public class ReactiveGatewayConfig {
+
+  public static final String INTERNAL_BASE_URL = "http://oodle-finance-internal/api/messages";
+
+  @Bean
+  @LoadBalanced
+  public WebClient.Builder loadBalancedWebClientBuilder(final ObjectProvider<WebClientCustomizer> customizers) {
+    final WebClient.Builder builder = WebClient.builder();
+    customizers.orderedStream().forEach(customizer -> customizer.customize(builder));
+    return builder;
+  }
+
+  @Bean
+  public WebClient internalWebClient(final WebClient.Builder loadBalancedWebClientBuilder, final GatewayProperties properties,
+                                     final MessageErrorDecoder errorDecoder) {
+    var reactive = properties.getReactive();
+    var connectionProvider = ConnectionProvider.builder("oodle-finance-internal")
+                                               .maxConnections(reactive.getMaxConnections())
+                                               .pendingAcquireMaxCount(reactive.getPendingAcquireMaxCount())
+                                               .pendingAcquireTimeout(reactive.getPendingAcquireTimeout())
+                                               .build();
+    var httpClient = HttpClient.create(connectionProvider).responseTimeout(reactive.getResponseTimeout()).compress(true);
+
+    var accept = "smile".equals(properties.getWireFormat()) ? WireFormatConfig.ACCEPT_SMILE_OR_JSON : MediaType.APPLICATION_JSON_VALUE;
+
+    return loadBalancedWebClientBuilder.clientConnector(new ReactorClientHttpConnector(httpClient))
+                                       .baseUrl(INTERNAL_BASE_URL)
+                                       .defaultHeader(HttpHeaders.ACCEPT, accept)
+                                       .defaultStatusHandler(MessageErrorDecoder::isPropagated,
+                                                             response -> response.bodyToMono(byte[].class)
+                                                                                 .defaultIfEmpty(new byte[0])
+                                                                                 .map(body -> errorDecoder.toException(response.statusCode().value(), body,
+                                                                                                                       response.headers().asHttpHeaders().getFirst(HttpHeaders.RETRY_AFTER))))
+                                       .build();
+  }
+}
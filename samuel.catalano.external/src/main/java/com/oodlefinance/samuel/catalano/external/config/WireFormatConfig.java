@@ -0,0 +1,75 @@
+package com.oodlefinance.samuel.catalano.external.config;
+
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import feign.RequestInterceptor;
+import feign.codec.Encoder;
+
+import org.springframework.beans.factory.ObjectFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.http.HttpMessageConverters;
+import org.springframework.cloud.openfeign.support.SpringEncoder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+/**
+ * Wire format of the calls to the internal service.
+ * <p>
+ * With {@code oodle.gateway.wire-format=smile} (default) the Feign client sends request bodies as Smile
+ * ({@value #APPLICATION_SMILE_VALUE}), the binary encoding of the Jackson data model, and asks for Smile responses
+ * with JSON as the fallback. Responses are decoded according to their {@code Content-Type}, so an internal service
+ * answering in JSON keeps working. With {@code json} the client behaves as before.
+ */
+@Configuration
+public class WireFormatConfig {
+
+  public static final String APPLICATION_SMILE_VALUE = "application/x-jackson-smile";
+  public static final String ACCEPT_SMILE_OR_JSON = APPLICATION_SMILE_VALUE + ", application/json;q=0.9";
+
+  /**
+   * Replaces the default Smile converter, so Smile is read and written with the same Jackson settings and modules
+   * as JSON, by the Feign client and by the gateway API.
+   *
+   * @param builder the Jackson builder configured by Spring Boot
+   * @return the Smile message converter
+   */
+  @Bean
+  public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(final Jackson2ObjectMapperBuilder builder) {
+    return new MappingJackson2SmileHttpMessageConverter(builder.createXmlMapper(false).factory(new SmileFactory()).build());
+  }
+
+  /**
+   * Asks the internal service for Smile, unless the Feign method declares what it produces.
+   *
+   * @return the request interceptor
+   */
+  @Bean
+  @ConditionalOnProperty(prefix = "oodle.gateway", name = "wire-format", havingValue = "smile", matchIfMissing = true)
+  public RequestInterceptor smileAcceptInterceptor() {
+    return template -> {
+      if (!template.headers().containsKey(HttpHeaders.ACCEPT)) {
+        template.header(HttpHeaders.ACCEPT, ACCEPT_SMILE_OR_JSON);
+      }
+    };
+  }
+
+  /**
+   * Encodes the Feign request bodies as Smile, unless the Feign method declares what it consumes.
+   *
+   * @param messageConverters the message converters of the application
+   * @return the Feign encoder
+   */
+  @Bean
+  @ConditionalOnProperty(prefix = "oodle.gateway", name = "wire-format", havingValue = "smile", matchIfMissing = true)
+  public Encoder feignEncoder(final ObjectFactory<HttpMessageConverters> messageConverters) {
+    final Encoder delegate = new SpringEncoder(messageConverters);
+    return (object, bodyType, template) -> {
+      if (!template.headers().containsKey(HttpHeaders.CONTENT_TYPE)) {
+        template.header(HttpHeaders.CONTENT_TYPE, APPLICATION_SMILE_VALUE);
+      }
+      delegate.encode(object, bodyType, template);
+    };
+  }
+}
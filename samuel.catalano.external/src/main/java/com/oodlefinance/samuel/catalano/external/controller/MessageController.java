@@ -3,12 +3,21 @@ package com.oodlefinance.samuel.catalano.external.controller;
 import jakarta.validation.Valid;
 
 import com.oodlefinance.samuel.catalano.external.controller.base.BaseRESTController;
+import com.oodlefinance.samuel.catalano.external.dto.BatchItemResultDTO;
+import com.oodlefinance.samuel.catalano.external.dto.MessageCountDTO;
 import com.oodlefinance.samuel.catalano.external.dto.MessageDTO;
+import com.oodlefinance.samuel.catalano.external.dto.MessageRangeDTO;
+import com.oodlefinance.samuel.catalano.external.dto.MessageSearchResultDTO;
+import com.oodlefinance.samuel.catalano.external.dto.MessagesByIdDTO;
+import com.oodlefinance.samuel.catalano.external.exception.ClientErrorException;
+import com.oodlefinance.samuel.catalano.external.exception.PreconditionFailedException;
 import com.oodlefinance.samuel.catalano.external.exception.ServiceException;
 import com.oodlefinance.samuel.catalano.external.service.impl.MessageServiceImpl;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.http.HttpStatus;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -16,13 +25,20 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.List;
 
 @RestController
 @RequestMapping("/api/messages")
+@ConditionalOnProperty(prefix = "oodle.gateway", name = "mode", havingValue = "blocking", matchIfMissing = true)
 public class MessageController extends BaseRESTController {
 
   private final MessageServiceImpl messageService;
@@ -37,14 +53,76 @@ public class MessageController extends BaseRESTController {
    * Maps to the create method in the MessageService class.
    *
    * @param messageDTO The message data transfer object (DTO) that contains the message data.
-   * @return A ResponseEntity with the status code 201 (CREATED) and the created message in the response body.
+   * @return A ResponseEntity with the status code 201 (CREATED) and the created message in the response body,
+   *     or 202 (ACCEPTED) and the accepted message when the internal service ingests it write-behind.
    * @throws ServiceException If an error occurs while performing the operation.
    */
   @PostMapping
   public ResponseEntity<MessageDTO> createMessage(@Valid @RequestBody final MessageDTO messageDTO) throws ServiceException {
     try {
-      var createdMessage = messageService.create(messageDTO);
-      return ResponseEntity.status(HttpStatus.CREATED).body(createdMessage);
+      return messageService.create(messageDTO);
+    } catch (final ClientErrorException e) {
+      throw e;
+    } catch (final Exception e) {
+      throw new ServiceException(e.getMessage(), e);
+    }
+  }
+
+  /**
+   * REST API endpoint for creating several messages in one request.
+   * Maps to the createAll method in the MessageService class.
+   *
+   * @param messageDTOs The messages to create.
+   * @return A ResponseEntity with the status code 200 (OK) and one result per message, in request order.
+   * @throws ServiceException If an error occurs while performing the operation.
+   */
+  @PostMapping("/batch")
+  public ResponseEntity<List<BatchItemResultDTO>> createMessages(@RequestBody final List<MessageDTO> messageDTOs) throws ServiceException {
+    try {
+      var results = messageService.createAll(messageDTOs);
+      return ResponseEntity.ok(results);
+    } catch (final ClientErrorException e) {
+      throw e;
+    } catch (final Exception e) {
+      throw new ServiceException(e.getMessage(), e);
+    }
+  }
+
+  /**
+   * REST API endpoint for updating several messages in one request.
+   * Maps to the updateAll method in the MessageService class.
+   *
+   * @param messageDTOs The messages to update, each one holding the ID of the message it replaces.
+   * @return A ResponseEntity with the status code 200 (OK) and one result per message, in request order.
+   * @throws ServiceException If an error occurs while performing the operation.
+   */
+  @PutMapping("/batch")
+  public ResponseEntity<List<BatchItemResultDTO>> updateMessages(@RequestBody final List<MessageDTO> messageDTOs) throws ServiceException {
+    try {
+      var results = messageService.updateAll(messageDTOs);
+      return ResponseEntity.ok(results);
+    } catch (final ClientErrorException e) {
+      throw e;
+    } catch (final Exception e) {
+      throw new ServiceException(e.getMessage(), e);
+    }
+  }
+
+  /**
+   * REST API endpoint for deleting several messages in one request.
+   * Maps to the deleteAllById method in the MessageService class.
+   *
+   * @param ids The IDs of the messages to delete.
+   * @return A ResponseEntity with the status code 200 (OK) and one result per ID, in request order.
+   * @throws ServiceException If an error occurs while performing the operation.
+   */
+  @DeleteMapping("/batch")
+  public ResponseEntity<List<BatchItemResultDTO>> deleteMessages(@RequestBody final List<Long> ids) throws ServiceException {
+    try {
+      var results = messageService.deleteAllById(ids);
+      return ResponseEntity.ok(results);
+    } catch (final ClientErrorException e) {
+      throw e;
     } catch (final Exception e) {
       throw new ServiceException(e.getMessage(), e);
     }
@@ -52,18 +130,26 @@ public class MessageController extends BaseRESTController {
 
   /**
    * REST API endpoint for updating an existing message.
-   * Maps to the update method in the MessageService class.
+   * Maps to the update method in the MessageService class. With an {@code If-Match} header the message is only
+   * updated if it still has that ETag.
    *
    * @param id The ID of the message to update.
    * @param messageDTO The message data transfer object (DTO) that contains the updated message data.
-   * @return A ResponseEntity with the status code 200 (OK) and the updated message in the response body.
+   * @param ifMatch The ETag the message must still have, omitted to update whatever the version.
+   * @return A ResponseEntity with the status code 200 (OK), the updated message in the response body and its ETag when known.
+   * @throws PreconditionFailedException If the message no longer has the ETag in {@code If-Match}.
    * @throws ServiceException If an error occurs while performing the operation.
    */
   @PutMapping("/{id}")
-  public ResponseEntity<MessageDTO> updateMessage(@PathVariable final Long id, @Valid @RequestBody final MessageDTO messageDTO) throws ServiceException {
+  public ResponseEntity<MessageDTO> updateMessage(@PathVariable final Long id, @Valid @RequestBody final MessageDTO messageDTO,
+                                                  @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) final String ifMatch) throws ServiceException {
     try {
-      var updatedMessage = messageService.update(id, messageDTO);
-      return ResponseEntity.ok(updatedMessage);
+      var updatedMessage = messageService.update(id, messageDTO, ifMatch);
+      return withETag(updatedMessage);
+    } catch (final PreconditionFailedException e) {
+      throw e;
+    } catch (final ClientErrorException e) {
+      throw e;
     } catch (final Exception e) {
       throw new ServiceException(e.getMessage(), e);
     }
@@ -71,7 +157,8 @@ public class MessageController extends BaseRESTController {
 
   /**
    * REST API endpoint for retrieving a message by its ID.
-   * Maps to the findById method in the MessageService class.
+   * Maps to the findById method in the MessageService class. The response carries the version of the message as
+   * its ETag, a request whose {@code If-None-Match} header still matches it gets a 304 (Not Modified) without body.
    *
    * @param id The ID of the message to retrieve.
    * @return A ResponseEntity with the status code 200 (OK) and the retrieved message in the response body.
@@ -81,41 +168,176 @@ public class MessageController extends BaseRESTController {
   public ResponseEntity<MessageDTO> getMessageById(@PathVariable final Long id) throws ServiceException {
     try {
       var message = messageService.findById(id);
-      return ResponseEntity.ok(message);
+      return withETag(message);
+    } catch (final ClientErrorException e) {
+      throw e;
     } catch (final Exception e) {
       throw new ServiceException(e.getMessage(), e);
     }
   }
 
   /**
-   * REST API endpoint for retrieving all messages.
-   * Maps to the findAll method in the MessageService class.
+   * REST API endpoint for retrieving messages page by page.
+   * Maps to the findAll method in the MessageService class. To fetch the next page, pass the id of the
+   * last message received as the {@code after} parameter.
    *
-   * @return A ResponseEntity with the status code 200 (OK) and a list of all messages in the response body.
+   * @param after The ID of the last message of the previous page, omitted for the first page.
+   * @param limit The maximum number of messages to return.
+   * @return A ResponseEntity with the status code 200 (OK) and a page of messages in the response body.
    * @throws ServiceException If an error occurs while performing the operation.
    */
   @GetMapping
-  public ResponseEntity<List<MessageDTO>> getAllMessages() throws ServiceException {
+  public ResponseEntity<List<MessageDTO>> getAllMessages(@RequestParam(required = false) final Long after,
+                                                         @RequestParam(required = false) final Integer limit) throws ServiceException {
     try {
-      var messages = messageService.findAll();
+      var messages = messageService.findAll(after, limit);
       return ResponseEntity.ok(messages);
+    } catch (final ClientErrorException e) {
+      throw e;
     } catch (final Exception e) {
       throw new ServiceException(e.getMessage(), e);
     }
   }
 
+  /**
+   * REST API endpoint for retrieving several messages by their IDs in one request.
+   * Maps to the findAllById method in the MessageService class. IDs that do not exist are listed in the
+   * response instead of failing the whole request.
+   *
+   * @param ids The IDs of the messages to retrieve, as a comma separated list or a repeated parameter.
+   * @return A ResponseEntity with the status code 200 (OK), the messages found and the missing IDs.
+   * @throws ServiceException If an error occurs while performing the operation.
+   */
+  @GetMapping(params = "ids")
+  public ResponseEntity<MessagesByIdDTO> getMessagesByIds(@RequestParam final List<Long> ids) throws ServiceException {
+    try {
+      var messages = messageService.findAllById(ids);
+      return ResponseEntity.ok(messages);
+    } catch (final ClientErrorException e) {
+      throw e;
+    } catch (final Exception e) {
+      throw new ServiceException(e.getMessage(), e);
+    }
+  }
+
+  /**
+   * REST API endpoint for searching the text of the messages.
+   * Maps to the search method in the MessageService class. Messages matching any of the terms are returned, best
+   * match first; a term ending with {@code *} matches every word starting with it.
+   *
+   * @param q The terms to look for, separated by spaces.
+   * @param offset The number of best matches to skip.
+   * @param limit The maximum number of messages to return.
+   * @return A ResponseEntity with the status code 200 (OK), the page of matching messages and the total number of matches.
+   * @throws ServiceException If an error occurs while performing the operation.
+   */
+  @GetMapping("/search")
+  public ResponseEntity<MessageSearchResultDTO> searchMessages(@RequestParam final String q,
+                                                               @RequestParam(required = false) final Integer offset,
+                                                               @RequestParam(required = false) final Integer limit) throws ServiceException {
+    try {
+      var result = messageService.search(q, offset, limit);
+      return ResponseEntity.ok(result);
+    } catch (final ClientErrorException e) {
+      throw e;
+    } catch (final Exception e) {
+      throw new ServiceException(e.getMessage(), e);
+    }
+  }
+
+  /**
+   * REST API endpoint for retrieving the messages created in a time range, newest first.
+   * Maps to the findCreatedBetween method in the MessageService class. To fetch the next page, pass the
+   * {@code nextBefore} and {@code nextBeforeId} of the previous page as {@code before} and {@code beforeId}.
+   *
+   * @param from The start of the range (inclusive), as an ISO-8601 instant.
+   * @param to The end of the range (exclusive), as an ISO-8601 instant.
+   * @param before The creation time of the last message of the previous page, omitted for the first page.
+   * @param beforeId The ID of the last message of the previous page, omitted for the first page.
+   * @param limit The maximum number of messages to return.
+   * @return A ResponseEntity with the status code 200 (OK), a page of messages and the cursor of the next page.
+   * @throws ServiceException If an error occurs while performing the operation.
+   */
+  @GetMapping("/range")
+  public ResponseEntity<MessageRangeDTO> getMessagesCreatedBetween(@RequestParam final Instant from,
+                                                                   @RequestParam final Instant to,
+                                                                   @RequestParam(required = false) final Instant before,
+                                                                   @RequestParam(required = false) final Long beforeId,
+                                                                   @RequestParam(required = false) final Integer limit) throws ServiceException {
+    try {
+      var messages = messageService.findCreatedBetween(from, to, before, beforeId, limit);
+      return ResponseEntity.ok(messages);
+    } catch (final ClientErrorException e) {
+      throw e;
+    } catch (final Exception e) {
+      throw new ServiceException(e.getMessage(), e);
+    }
+  }
+
+  /**
+   * REST API endpoint for counting the messages created in a time range per interval.
+   * Maps to the countCreatedPerInterval method in the MessageService class.
+   *
+   * @param from The start of the range (inclusive) and of the first interval, as an ISO-8601 instant.
+   * @param to The end of the range (exclusive), as an ISO-8601 instant.
+   * @param interval The length of an interval, as an ISO-8601 duration such as {@code PT1H}.
+   * @return A ResponseEntity with the status code 200 (OK) and the number of messages of every interval, in order.
+   * @throws ServiceException If an error occurs while performing the operation.
+   */
+  @GetMapping("/histogram")
+  public ResponseEntity<List<MessageCountDTO>> countMessagesCreatedPerInterval(@RequestParam final Instant from,
+                                                                               @RequestParam final Instant to,
+                                                                               @RequestParam final Duration interval) throws ServiceException {
+    try {
+      var histogram = messageService.countCreatedPerInterval(from, to, interval);
+      return ResponseEntity.ok(histogram);
+    } catch (final ClientErrorException e) {
+      throw e;
+    } catch (final Exception e) {
+      throw new ServiceException(e.getMessage(), e);
+    }
+  }
+
+  /**
+   * REST API endpoint for streaming all messages as newline-delimited JSON.
+   * Maps to the streamAll method in the MessageService class. The internal service response is relayed as it
+   * arrives, so the gateway never buffers the whole list.
+   *
+   * @return A ResponseEntity with the status code 200 (OK) and a body streaming one JSON message per line.
+   */
+  @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+  public ResponseEntity<StreamingResponseBody> streamAllMessages() {
+    final StreamingResponseBody body = outputStream -> {
+      try {
+        messageService.streamAll(outputStream);
+      } catch (final ServiceException e) {
+        throw new IOException(e.getMessage(), e);
+      }
+    };
+    return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+  }
+
   /**
    * REST API endpoint for deleting a message by its ID.
-   * Maps to the deleteById method in the MessageService class.
+   * Maps to the deleteById method in the MessageService class. With an {@code If-Match} header the message is only
+   * deleted if it still has that ETag.
    *
+   * @param id The ID of the message to delete.
+   * @param ifMatch The ETag the message must still have, omitted to delete whatever the version.
    * @return A ResponseEntity with the status code 204 (No Content) response indicating that the operation was successful.
+   * @throws PreconditionFailedException If the message no longer has the ETag in {@code If-Match}.
    * @throws ServiceException If an error occurs while performing the operation.
    */
   @DeleteMapping("/{id}")
-  public ResponseEntity<Void> deleteMessage(@PathVariable Long id) throws ServiceException {
+  public ResponseEntity<Void> deleteMessage(@PathVariable Long id,
+                                            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) final String ifMatch) throws ServiceException {
     try {
-      messageService.deleteById(id);
+      messageService.deleteById(id, ifMatch);
       return ResponseEntity.noContent().build();
+    } catch (final PreconditionFailedException e) {
+      throw e;
+    } catch (final ClientErrorException e) {
+      throw e;
     } catch (final Exception e) {
       throw new ServiceException(e.getMessage(), e);
     }
@@ -0,0 +1,219 @@
+package com.oodlefinance.samuel.catalano.external.controller;
+
+import jakarta.validation.Valid;
+
+import com.oodlefinance.samuel.catalano.external.controller.base.BaseRESTController;
+import com.oodlefinance.samuel.catalano.external.dto.BatchItemResultDTO;
+import com.oodlefinance.samuel.catalano.external.dto.MessageCountDTO;
+import com.oodlefinance.samuel.catalano.external.dto.MessageDTO;
+import com.oodlefinance.samuel.catalano.external.dto.MessageRangeDTO;
+import com.oodlefinance.samuel.catalano.external.dto.MessageSearchResultDTO;
+import com.oodlefinance.samuel.catalano.external.dto.MessagesByIdDTO;
+import com.oodlefinance.samuel.catalano.external.service.ReactiveMessageService;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Same API as {@link MessageController}, served when {@code oodle.gateway.mode} is {@code reactive}.
+ * Handlers return {@link Mono} / {@link Flux} so Spring MVC releases the Tomcat thread while the internal
+ * service is being called; a request in flight costs a connection and a few objects, not a thread.
+ */
+@RestController
+@RequestMapping("/api/messages")
+@ConditionalOnProperty(prefix = "oodle.gateway", name = "mode", havingValue = "reactive")
+public class ReactiveMessageController extends BaseRESTController {
+
+  private final ReactiveMessageService messageService;
+
+  @Autowired
+  public ReactiveMessageController(final ReactiveMessageService messageService) {
+    this.messageService = messageService;
+  }
+
+  /**
+   * REST API endpoint for creating a new message.
+   *
+   * @param messageDTO The message data transfer object (DTO) that contains the message data.
+   * @return The created message with the status code 201 (CREATED), or the accepted message with 202 (ACCEPTED) when
+   *     the internal service ingests it write-behind.
+   */
+  @PostMapping
+  public Mono<ResponseEntity<MessageDTO>> createMessage(@Valid @RequestBody final MessageDTO messageDTO) {
+    return messageService.create(messageDTO);
+  }
+
+  /**
+   * REST API endpoint for creating several messages in one request.
+   *
+   * @param messageDTOs The messages to create.
+   * @return One result per message, in request order.
+   */
+  @PostMapping("/batch")
+  public Mono<ResponseEntity<List<BatchItemResultDTO>>> createMessages(@RequestBody final List<MessageDTO> messageDTOs) {
+    return messageService.createAll(messageDTOs).map(ResponseEntity::ok);
+  }
+
+  /**
+   * REST API endpoint for updating several messages in one request.
+   *
+   * @param messageDTOs The messages to update, each one holding the ID of the message it replaces.
+   * @return One result per message, in request order.
+   */
+  @PutMapping("/batch")
+  public Mono<ResponseEntity<List<BatchItemResultDTO>>> updateMessages(@RequestBody final List<MessageDTO> messageDTOs) {
+    return messageService.updateAll(messageDTOs).map(ResponseEntity::ok);
+  }
+
+  /**
+   * REST API endpoint for deleting several messages in one request.
+   *
+   * @param ids The IDs of the messages to delete.
+   * @return One result per ID, in request order.
+   */
+  @DeleteMapping("/batch")
+  public Mono<ResponseEntity<List<BatchItemResultDTO>>> deleteMessages(@RequestBody final List<Long> ids) {
+    return messageService.deleteAllById(ids).map(ResponseEntity::ok);
+  }
+
+  /**
+   * REST API endpoint for updating an existing message.
+   *
+   * @param id The ID of the message to update.
+   * @param messageDTO The message data transfer object (DTO) that contains the updated message data.
+   * @param ifMatch The ETag the message must still have, omitted to update whatever the version.
+   * @return The updated message, with its ETag when known.
+   */
+  @PutMapping("/{id}")
+  public Mono<ResponseEntity<MessageDTO>> updateMessage(@PathVariable final Long id, @Valid @RequestBody final MessageDTO messageDTO,
+                                                        @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) final String ifMatch) {
+    return messageService.update(id, messageDTO, ifMatch).map(BaseRESTController::withETag);
+  }
+
+  /**
+   * REST API endpoint for retrieving a message by its ID.
+   *
+   * @param id The ID of the message to retrieve.
+   * @return The retrieved message with its ETag, or a 304 (Not Modified) when {@code If-None-Match} still matches it.
+   */
+  @GetMapping("/{id}")
+  public Mono<ResponseEntity<MessageDTO>> getMessageById(@PathVariable final Long id) {
+    return messageService.findById(id).map(BaseRESTController::withETag);
+  }
+
+  /**
+   * REST API endpoint for retrieving messages page by page.
+   *
+   * @param after The ID of the last message of the previous page, omitted for the first page.
+   * @param limit The maximum number of messages to return.
+   * @return A page of messages.
+   */
+  @GetMapping
+  public Mono<ResponseEntity<List<MessageDTO>>> getAllMessages(@RequestParam(required = false) final Long after,
+                                                               @RequestParam(required = false) final Integer limit) {
+    return messageService.findAll(after, limit).map(ResponseEntity::ok);
+  }
+
+  /**
+   * REST API endpoint for retrieving several messages by their IDs in one request.
+   *
+   * @param ids The IDs of the messages to retrieve, as a comma separated list or a repeated parameter.
+   * @return The messages found and the missing IDs.
+   */
+  @GetMapping(params = "ids")
+  public Mono<ResponseEntity<MessagesByIdDTO>> getMessagesByIds(@RequestParam final List<Long> ids) {
+    return messageService.findAllById(ids).map(ResponseEntity::ok);
+  }
+
+  /**
+   * REST API endpoint for searching the text of the messages.
+   *
+   * @param q The terms to look for, separated by spaces, a term ending with {@code *} being a prefix.
+   * @param offset The number of best matches to skip.
+   * @param limit The maximum number of messages to return.
+   * @return The page of matching messages, best match first, and the total number of matches.
+   */
+  @GetMapping("/search")
+  public Mono<ResponseEntity<MessageSearchResultDTO>> searchMessages(@RequestParam final String q,
+                                                                     @RequestParam(required = false) final Integer offset,
+                                                                     @RequestParam(required = false) final Integer limit) {
+    return messageService.search(q, offset, limit).map(ResponseEntity::ok);
+  }
+
+  /**
+   * REST API endpoint for retrieving the messages created in a time range, newest first.
+   *
+   * @param from The start of the range (inclusive), as an ISO-8601 instant.
+   * @param to The end of the range (exclusive), as an ISO-8601 instant.
+   * @param before The creation time of the last message of the previous page, omitted for the first page.
+   * @param beforeId The ID of the last message of the previous page, omitted for the first page.
+   * @param limit The maximum number of messages to return.
+   * @return A page of messages and the cursor of the next page.
+   */
+  @GetMapping("/range")
+  public Mono<ResponseEntity<MessageRangeDTO>> getMessagesCreatedBetween(@RequestParam final Instant from,
+                                                                         @RequestParam final Instant to,
+                                                                         @RequestParam(required = false) final Instant before,
+                                                                         @RequestParam(required = false) final Long beforeId,
+                                                                         @RequestParam(required = false) final Integer limit) {
+    return messageService.findCreatedBetween(from, to, before, beforeId, limit).map(ResponseEntity::ok);
+  }
+
+  /**
+   * REST API endpoint for counting the messages created in a time range per interval.
+   *
+   * @param from The start of the range (inclusive) and of the first interval, as an ISO-8601 instant.
+   * @param to The end of the range (exclusive), as an ISO-8601 instant.
+   * @param interval The length of an interval, as an ISO-8601 duration such as {@code PT1H}.
+   * @return The number of messages of every interval, in order.
+   */
+  @GetMapping("/histogram")
+  public Mono<ResponseEntity<List<MessageCountDTO>>> countMessagesCreatedPerInterval(@RequestParam final Instant from,
+                                                                                     @RequestParam final Instant to,
+                                                                                     @RequestParam final Duration interval) {
+    return messageService.countCreatedPerInterval(from, to, interval).map(ResponseEntity::ok);
+  }
+
+  /**
+   * REST API endpoint for streaming all messages as newline-delimited JSON.
+   *
+   * @return One JSON message per line, written as the internal service produces them.
+   */
+  @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+  public Flux<MessageDTO> streamAllMessages() {
+    return messageService.streamAll();
+  }
+
+  /**
+   * REST API endpoint for deleting a message by its ID.
+   *
+   * @param id The ID of the message to delete.
+   * @param ifMatch The ETag the message must still have, omitted to delete whatever the version.
+   * @return The status code 204 (No Content) once the message is deleted.
+   */
+  @DeleteMapping("/{id}")
+  public Mono<ResponseEntity<Void>> deleteMessage(@PathVariable final Long id,
+                                                  @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) final String ifMatch) {
+    return messageService.deleteById(id, ifMatch).then(Mono.fromSupplier(() -> ResponseEntity.noContent().build()));
+  }
+
+}
@@ -2,7 +2,10 @@ package com.oodlefinance.samuel.catalano.external.controller.base;
 
 import lombok.extern.slf4j.Slf4j;
 
+import com.oodlefinance.samuel.catalano.external.dto.MessageDTO;
+
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -37,4 +40,18 @@ public abstract class BaseRESTController {
 
     return errors;
   }
+
+  /**
+   * Builds a 200 (OK) response for a message, with the version of the message as its ETag when it is known.
+   *
+   * @param message the message to return
+   * @return a response holding the message
+   */
+  protected static ResponseEntity<MessageDTO> withETag(final MessageDTO message) {
+    var response = ResponseEntity.ok();
+    if (message != null && message.getVersion() != null) {
+      response.eTag(String.valueOf(message.getVersion()));
+    }
+    return response.body(message);
+  }
 }
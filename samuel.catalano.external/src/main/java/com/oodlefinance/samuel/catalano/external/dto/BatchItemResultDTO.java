@@ -0,0 +1,28 @@
+package com.oodlefinance.samuel.catalano.external.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import com.oodlefinance.samuel.catalano.external.dto.base.BaseDTO;
+
+/**
+ * Outcome of a single item of a batch request, reported at the same index as the item it refers to.
+ */
+@Setter
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class BatchItemResultDTO extends BaseDTO {
+
+  private Integer index;
+
+  private Long id;
+
+  private Integer status;
+
+  private String error;
+}
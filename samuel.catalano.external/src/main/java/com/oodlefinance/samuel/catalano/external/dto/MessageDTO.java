@@ -7,6 +7,7 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.oodlefinance.samuel.catalano.external.dto.base.BaseDTO;
 
 @Setter
@@ -20,4 +21,7 @@ public class MessageDTO extends BaseDTO {
 
   @NotBlank(message = "message must not be blank")
   private String message;
+
+  @JsonInclude(JsonInclude.Include.NON_NULL)
+  private Long version;
 }
@@ -0,0 +1,30 @@
+package com.oodlefinance.samuel.catalano.external.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import com.oodlefinance.samuel.catalano.external.dto.base.BaseDTO;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * One page of the messages created in a time range, newest first. When there may be more messages, the cursor of
+ * the next page is given by {@code nextBefore} and {@code nextBeforeId}, otherwise they are {@code null}.
+ */
+@Setter
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class MessageRangeDTO extends BaseDTO {
+
+  private List<MessageDTO> messages;
+
+  private Instant nextBefore;
+
+  private Long nextBeforeId;
+}
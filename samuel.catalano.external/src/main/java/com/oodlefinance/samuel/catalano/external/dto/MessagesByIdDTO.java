@@ -0,0 +1,27 @@
+package com.oodlefinance.samuel.catalano.external.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import com.oodlefinance.samuel.catalano.external.dto.base.BaseDTO;
+
+import java.util.List;
+
+/**
+ * Result of a multi-get: the messages found, in the order their ids were requested, and the requested ids
+ * that do not exist.
+ */
+@Setter
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class MessagesByIdDTO extends BaseDTO {
+
+  private List<MessageDTO> messages;
+
+  private List<Long> missingIds;
+}
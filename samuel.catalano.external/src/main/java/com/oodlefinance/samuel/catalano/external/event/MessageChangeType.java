@@ -0,0 +1,7 @@
+package com.oodlefinance.samuel.catalano.external.event;
+
+public enum MessageChangeType {
+  CREATED,
+  UPDATED,
+  DELETED
+}
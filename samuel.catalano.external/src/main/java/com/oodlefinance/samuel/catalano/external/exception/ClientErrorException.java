@@ -0,0 +1,40 @@
+package com.oodlefinance.samuel.catalano.external.exception;
+
+import java.io.Serial;
+
+/**
+ * A 4xx answer of the internal service (bad request, not found, conflict, too many requests), or a 503 it answered when
+ * shedding load, passed on to the caller of the gateway with the same status, message and {@code Retry-After} header.
+ * It is an expected outcome, not a fault: it carries no stack trace, is not logged and is not counted as a failure by
+ * the circuit breaker. A failed precondition (412) is decoded the same way, but into a
+ * {@link PreconditionFailedException}.
+ */
+public class ClientErrorException extends RuntimeException {
+
+  @Serial
+  private static final long serialVersionUID = 1L;
+
+  private final int status;
+  private final String retryAfter;
+
+  public ClientErrorException(final int status, final String message) {
+    this(status, message, null);
+  }
+
+  public ClientErrorException(final int status, final String message, final String retryAfter) {
+    super(message, null, false, false);
+    this.status = status;
+    this.retryAfter = retryAfter;
+  }
+
+  public int getStatus() {
+    return status;
+  }
+
+  /**
+   * @return the {@code Retry-After} header of the answer, {@code null} when it had none
+   */
+  public String getRetryAfter() {
+    return retryAfter;
+  }
+}
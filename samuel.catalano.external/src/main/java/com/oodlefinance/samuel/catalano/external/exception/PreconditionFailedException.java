@@ -0,0 +1,21 @@
+package com.oodlefinance.samuel.catalano.external.exception;
+
+import java.io.Serial;
+
+/**
+ * Thrown when a conditional request ({@code If-Match}) no longer matches the current version of a message. Decoded
+ * from the 412 answer of the internal service, it is an expected outcome: it carries no stack trace and is not logged.
+ */
+public class PreconditionFailedException extends ServiceException {
+
+  @Serial
+  private static final long serialVersionUID = 1L;
+
+  public PreconditionFailedException(String message) {
+    super(message, null, false, false);
+  }
+
+  public PreconditionFailedException(String message, Throwable cause) {
+    super(message, cause);
+  }
+}
@@ -22,4 +22,8 @@ public class ServiceException extends Exception {
   public ServiceException(Throwable cause) {
     super(cause);
   }
+
+  protected ServiceException(String message, Throwable cause, boolean enableSuppression, boolean writableStackTrace) {
+    super(message, cause, enableSuppression, writableStackTrace);
+  }
 }
@@ -0,0 +1,96 @@
+package com.oodlefinance.samuel.catalano.external.feign;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.oodlefinance.samuel.catalano.external.exception.ClientErrorException;
+import com.oodlefinance.samuel.catalano.external.exception.PreconditionFailedException;
+import com.oodlefinance.samuel.catalano.external.handler.ErrorResponse;
+import feign.Response;
+import feign.codec.ErrorDecoder;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.Set;
+
+/**
+ * Decodes the error answers of the internal service. The expected outcomes, {@link #PROPAGATED_STATUSES 400, 404, 409,
+ * 412, 429 and 503}, become an exception without stack trace holding the message of the {@link ErrorResponse} the
+ * internal service sent, so they reach the caller unchanged: a {@link PreconditionFailedException} for a stale
+ * {@code If-Match}, a {@link ClientErrorException} with the status and the {@code Retry-After} header for the others.
+ * A full write-behind queue is answered 429 and a request shed by the concurrency limit 503 by the gateway too,
+ * instead of a retryable Feign error answered 500 and counted as a failure by the circuit breaker. Any other status is
+ * decoded into a {@link feign.FeignException} by the default decoder.
+ */
+@Component
+public class MessageErrorDecoder implements ErrorDecoder {
+
+  public static final Set<Integer> PROPAGATED_STATUSES = Set.of(HttpStatus.BAD_REQUEST.value(),
+                                                                HttpStatus.NOT_FOUND.value(),
+                                                                HttpStatus.CONFLICT.value(),
+                                                                HttpStatus.PRECONDITION_FAILED.value(),
+                                                                HttpStatus.TOO_MANY_REQUESTS.value(),
+                                                                HttpStatus.SERVICE_UNAVAILABLE.value());
+
+  private static final int MAX_BODY_SIZE = 8 * 1024;
+
+  private final ErrorDecoder fallback = new ErrorDecoder.Default();
+  private final ObjectMapper objectMapper;
+
+  @Autowired
+  public MessageErrorDecoder(final ObjectMapper objectMapper) {
+    this.objectMapper = objectMapper;
+  }
+
+  /**
+   * @param status the status of an answer of the internal service
+   * @return whether the status is passed on to the caller, decoded by {@link #toException(int, byte[], String)}
+   */
+  public static boolean isPropagated(final HttpStatusCode status) {
+    return PROPAGATED_STATUSES.contains(status.value());
+  }
+
+  @Override
+  public Exception decode(final String methodKey, final Response response) {
+    if (!PROPAGATED_STATUSES.contains(response.status())) {
+      return fallback.decode(methodKey, response);
+    }
+    byte[] body = null;
+    if (response.body() != null) {
+      try (var inputStream = response.body().asInputStream()) {
+        body = inputStream.readNBytes(MAX_BODY_SIZE);
+      } catch (final IOException e) {
+        // the status alone is enough, the message falls back to its reason phrase
+      }
+    }
+    var retryAfter = response.headers().get(HttpHeaders.RETRY_AFTER);
+    return toException(response.status(), body, retryAfter == null || retryAfter.isEmpty() ? null : retryAfter.iterator().next());
+  }
+
+  /**
+   * @param status the status of the answer
+   * @param body the body of the answer, {@code null} when there is none
+   * @param retryAfter the {@code Retry-After} header of the answer, {@code null} when there is none
+   * @return the exception passing the answer on to the caller
+   */
+  public Exception toException(final int status, final byte[] body, final String retryAfter) {
+    String message = null;
+    if (body != null && body.length > 0) {
+      try {
+        message = objectMapper.readValue(body, ErrorResponse.class).message();
+      } catch (final IOException e) {
+        // not an ErrorResponse, e.g. a validation problem detail
+      }
+    }
+    if (message == null) {
+      message = HttpStatus.valueOf(status).getReasonPhrase();
+    }
+    if (status == HttpStatus.PRECONDITION_FAILED.value()) {
+      return new PreconditionFailedException(message);
+    }
+    return new ClientErrorException(status, message, retryAfter);
+  }
+}
@@ -2,10 +2,20 @@ package com.oodlefinance.samuel.catalano.external.feign;
 
 import jakarta.validation.Valid;
 
+import com.oodlefinance.samuel.catalano.external.dto.BatchItemResultDTO;
+import com.oodlefinance.samuel.catalano.external.dto.MessageChangesDTO;
+import com.oodlefinance.samuel.catalano.external.dto.MessageCountDTO;
 import com.oodlefinance.samuel.catalano.external.dto.MessageDTO;
+import com.oodlefinance.samuel.catalano.external.dto.MessageRangeDTO;
+import com.oodlefinance.samuel.catalano.external.dto.MessageSearchResultDTO;
+import com.oodlefinance.samuel.catalano.external.dto.MessagesByIdDTO;
 import com.oodlefinance.samuel.catalano.external.exception.ServiceException;
+import feign.Response;
 
+import org.springframework.cloud.openfeign.CollectionFormat;
 import org.springframework.cloud.openfeign.FeignClient;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -13,12 +23,18 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
 
+import java.time.Duration;
+import java.time.Instant;
 import java.util.List;
 
-@FeignClient(name = "oodle-finance-internal", path = "/api/messages")
+@FeignClient(name = "oodle-finance-internal", path = MessageFeignClient.PATH)
 public interface MessageFeignClient {
 
+  String PATH = "/api/messages";
+
   /**
    * Feign Client endpoint for creating a new message.
    * Maps to the create method in the MessageService class.
@@ -29,16 +45,48 @@ public interface MessageFeignClient {
   @PostMapping
   ResponseEntity<MessageDTO> createMessage(@Valid @RequestBody final MessageDTO messageDTO) throws ServiceException;
 
+  /**
+   * Feign Client endpoint for creating several messages in one request.
+   * Maps to the createAll method in the MessageService class.
+   *
+   * @param messageDTOs The messages to create.
+   * @throws ServiceException If an error occurs while performing the operation.
+   */
+  @PostMapping("/batch")
+  ResponseEntity<List<BatchItemResultDTO>> createMessages(@RequestBody final List<MessageDTO> messageDTOs) throws ServiceException;
+
+  /**
+   * Feign Client endpoint for updating several messages in one request.
+   * Maps to the updateAll method in the MessageService class.
+   *
+   * @param messageDTOs The messages to update, each one holding the ID of the message it replaces.
+   * @throws ServiceException If an error occurs while performing the operation.
+   */
+  @PutMapping("/batch")
+  ResponseEntity<List<BatchItemResultDTO>> updateMessages(@RequestBody final List<MessageDTO> messageDTOs) throws ServiceException;
+
+  /**
+   * Feign Client endpoint for deleting several messages in one request.
+   * Maps to the deleteAllById method in the MessageService class.
+   *
+   * @param ids The IDs of the messages to delete.
+   * @throws ServiceException If an error occurs while performing the operation.
+   */
+  @DeleteMapping("/batch")
+  ResponseEntity<List<BatchItemResultDTO>> deleteMessages(@RequestBody final List<Long> ids) throws ServiceException;
+
   /**
    * Feign Client endpoint for updating an existing message.
    * Maps to the update method in the MessageService class.
    *
    * @param id The ID of the message to update.
    * @param messageDTO The message data transfer object (DTO) that contains the updated message data.
+   * @param ifMatch The ETag the message must still have, null to update whatever the version.
    * @throws ServiceException If an error occurs while performing the operation.
    */
   @PutMapping("/{id}")
-  ResponseEntity<MessageDTO> updateMessage(@PathVariable final Long id, @Valid @RequestBody final MessageDTO messageDTO) throws ServiceException;
+  ResponseEntity<MessageDTO> updateMessage(@PathVariable final Long id, @Valid @RequestBody final MessageDTO messageDTO,
+                                           @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) final String ifMatch) throws ServiceException;
 
   /**
    * Feign Client endpoint for retrieving a message by its ID.
@@ -51,21 +99,116 @@ public interface MessageFeignClient {
   ResponseEntity<MessageDTO> getMessageById(@PathVariable final Long id) throws ServiceException;
 
   /**
-   * Feign Client endpoint for retrieving all messages.
+   * Feign Client endpoint for revalidating a cached message with a conditional request.
+   * Maps to the findById method in the MessageService class. The raw {@link Response} is returned so that a
+   * 304 (Not Modified) is not turned into an error, the caller is responsible for closing it.
+   *
+   * @param id The ID of the message to revalidate.
+   * @param ifNoneMatch The ETag of the cached message, null to fetch it unconditionally.
+   */
+  @GetMapping("/{id}")
+  Response revalidateMessage(@PathVariable final Long id,
+                             @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) final String ifNoneMatch);
+
+  /**
+   * Feign Client endpoint for retrieving messages page by page.
    * Maps to the findAll method in the MessageService class.
    *
+   * @param after The ID of the last message of the previous page, null for the first page.
+   * @param limit The maximum number of messages to return, null for the server default.
    * @throws ServiceException If an error occurs while performing the operation.
    */
   @GetMapping
-  ResponseEntity<List<MessageDTO>> getAllMessages() throws ServiceException;
+  ResponseEntity<List<MessageDTO>> getAllMessages(@RequestParam(value = "after", required = false) final Long after,
+                                                  @RequestParam(value = "limit", required = false) final Integer limit) throws ServiceException;
+
+  /**
+   * Feign Client endpoint for retrieving several messages by their IDs in one request.
+   * Maps to the findAllById method in the MessageService class. The IDs are sent as one comma separated
+   * parameter to keep the URL short.
+   *
+   * @param ids The IDs of the messages to retrieve.
+   * @throws ServiceException If an error occurs while performing the operation.
+   */
+  @GetMapping
+  @CollectionFormat(feign.CollectionFormat.CSV)
+  ResponseEntity<MessagesByIdDTO> getMessagesByIds(@RequestParam("ids") final List<Long> ids) throws ServiceException;
+
+  /**
+   * Feign Client endpoint for searching the text of the messages.
+   * Maps to the search method in the MessageService class.
+   *
+   * @param q The terms to look for, separated by spaces, a term ending with {@code *} being a prefix.
+   * @param offset The number of best matches to skip, null for none.
+   * @param limit The maximum number of messages to return, null for the server default.
+   * @throws ServiceException If an error occurs while performing the operation.
+   */
+  @GetMapping("/search")
+  ResponseEntity<MessageSearchResultDTO> searchMessages(@RequestParam("q") final String q,
+                                                        @RequestParam(value = "offset", required = false) final Integer offset,
+                                                        @RequestParam(value = "limit", required = false) final Integer limit) throws ServiceException;
+
+  /**
+   * Feign Client endpoint for retrieving the messages created in a time range, newest first.
+   * Maps to the findCreatedBetween method in the MessageService class.
+   *
+   * @param from The start of the range (inclusive).
+   * @param to The end of the range (exclusive).
+   * @param before The creation time of the last message of the previous page, null for the first page.
+   * @param beforeId The ID of the last message of the previous page, null for the first page.
+   * @param limit The maximum number of messages to return, null for the server default.
+   * @throws ServiceException If an error occurs while performing the operation.
+   */
+  @GetMapping("/range")
+  ResponseEntity<MessageRangeDTO> getMessagesCreatedBetween(@RequestParam("from") final Instant from,
+                                                            @RequestParam("to") final Instant to,
+                                                            @RequestParam(value = "before", required = false) final Instant before,
+                                                            @RequestParam(value = "beforeId", required = false) final Long beforeId,
+                                                            @RequestParam(value = "limit", required = false) final Integer limit) throws ServiceException;
+
+  /**
+   * Feign Client endpoint for counting the messages created in a time range per interval.
+   * Maps to the countCreatedPerInterval method in the MessageService class.
+   *
+   * @param from The start of the range (inclusive) and of the first interval.
+   * @param to The end of the range (exclusive).
+   * @param interval The length of an interval.
+   * @throws ServiceException If an error occurs while performing the operation.
+   */
+  @GetMapping("/histogram")
+  ResponseEntity<List<MessageCountDTO>> countMessagesCreatedPerInterval(@RequestParam("from") final Instant from,
+                                                                        @RequestParam("to") final Instant to,
+                                                                        @RequestParam("interval") final Duration interval) throws ServiceException;
+
+  /**
+   * Feign Client endpoint for streaming all messages as newline-delimited JSON.
+   * Maps to the streamAll method in the MessageService class. The raw {@link Response} is returned so that
+   * the body can be read incrementally, the caller is responsible for closing it.
+   */
+  @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+  Response streamAllMessages();
+
+  /**
+   * Feign Client endpoint for reading the message change feed with long polling.
+   * Maps to the getChanges method of the internal MessageController.
+   *
+   * @param since The last sequence received, null to only get the current position of the feed.
+   * @param timeout How long the internal service waits for a change before answering, in milliseconds.
+   */
+  @GetMapping("/changes")
+  ResponseEntity<MessageChangesDTO> getChanges(@RequestParam(value = "since", required = false) final Long since,
+                                               @RequestParam(value = "timeout", required = false) final Long timeout);
 
   /**
    * Feign Client endpoint for deleting a message by its ID.
    * Maps to the deleteById method in the MessageService class.
    *
+   * @param id The ID of the message to delete.
+   * @param ifMatch The ETag the message must still have, null to delete whatever the version.
    * @throws ServiceException If an error occurs while performing the operation.
    */
   @DeleteMapping("/{id}")
-  ResponseEntity<Void> deleteMessage(@PathVariable Long id) throws ServiceException;
+  ResponseEntity<Void> deleteMessage(@PathVariable Long id,
+                                     @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) final String ifMatch) throws ServiceException;
 
 }
@@ -1,7 +1,11 @@
 package com.oodlefinance.samuel.catalano.external.handler;
 
+import com.oodlefinance.samuel.catalano.external.exception.ClientErrorException;
+import com.oodlefinance.samuel.catalano.external.exception.PreconditionFailedException;
 import com.oodlefinance.samuel.catalano.external.exception.ServiceException;
+import com.oodlefinance.samuel.catalano.external.resilience.CallRejectedException;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -19,7 +23,8 @@ public class CustomExceptionHandler extends ResponseEntityExceptionHandler {
 
   /**
    * Handle {@link ServiceException} exceptions thrown by the application and return an error response
-   * with HTTP status code 500 (INTERNAL_SERVER_ERROR).
+   * with HTTP status code 500 (INTERNAL_SERVER_ERROR), or 503 (SERVICE_UNAVAILABLE) when the call to the internal
+   * service was rejected by the gateway.
    *
    * @param ex the exception to handle
    * @param request the current request
@@ -29,7 +34,60 @@ public class CustomExceptionHandler extends ResponseEntityExceptionHandler {
    */
   @ExceptionHandler(value = ServiceException.class)
   public ResponseEntity<ErrorResponse> handleServiceException(final ServiceException ex, final WebRequest request) {
+    for (Throwable cause = ex.getCause(); cause != null; cause = cause.getCause()) {
+      if (cause instanceof CallRejectedException rejected) {
+        return handleCallRejectedException(rejected);
+      }
+    }
     final ErrorResponse errorResponse = new ErrorResponse(HttpStatus.INTERNAL_SERVER_ERROR.name(), ex.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR.value());
     return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).contentType(MediaType.APPLICATION_JSON).body(errorResponse);
   }
-}
\ No newline at end of file
+
+  /**
+   * Handle {@link ClientErrorException} exceptions, the 4xx answers of the internal service and the 503 answers of
+   * its load shedding, and return an error response with the same HTTP status code, message and {@code Retry-After}
+   * header.
+   *
+   * @param ex the exception to handle
+   * @param request the current request
+   * @return an error response with the HTTP status code of the internal service answer
+   * @ExceptionHandler Specifies the type of exception this method handles.
+   */
+  @ExceptionHandler(value = ClientErrorException.class)
+  public ResponseEntity<ErrorResponse> handleClientErrorException(final ClientErrorException ex, final WebRequest request) {
+    final HttpStatus status = HttpStatus.valueOf(ex.getStatus());
+    final ErrorResponse errorResponse = new ErrorResponse(status.name(), ex.getMessage(), status.value());
+    final ResponseEntity.BodyBuilder response = ResponseEntity.status(status).contentType(MediaType.APPLICATION_JSON);
+    if (ex.getRetryAfter() != null) {
+      response.header(HttpHeaders.RETRY_AFTER, ex.getRetryAfter());
+    }
+    return response.body(errorResponse);
+  }
+
+  /**
+   * Return an error response with HTTP status code 503 (SERVICE_UNAVAILABLE) for the calls the gateway refused to
+   * send to the internal service, because its circuit breaker is open or its bulkhead is full.
+   *
+   * @param ex the rejection
+   * @return an error response with HTTP status code 503 (SERVICE_UNAVAILABLE)
+   */
+  private ResponseEntity<ErrorResponse> handleCallRejectedException(final CallRejectedException ex) {
+    final ErrorResponse errorResponse = new ErrorResponse(HttpStatus.SERVICE_UNAVAILABLE.name(), ex.getMessage(), HttpStatus.SERVICE_UNAVAILABLE.value());
+    return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).contentType(MediaType.APPLICATION_JSON).body(errorResponse);
+  }
+
+  /**
+   * Handle {@link PreconditionFailedException} exceptions thrown when the {@code If-Match} header of a request no
+   * longer matches the message, and return an error response with HTTP status code 412 (PRECONDITION_FAILED).
+   *
+   * @param ex the exception to handle
+   * @param request the current request
+   * @return an error response with HTTP status code 412 (PRECONDITION_FAILED)
+   * @ExceptionHandler Specifies the type of exception this method handles.
+   */
+  @ExceptionHandler(value = PreconditionFailedException.class)
+  public ResponseEntity<ErrorResponse> handlePreconditionFailedException(final PreconditionFailedException ex, final WebRequest request) {
+    final ErrorResponse errorResponse = new ErrorResponse(HttpStatus.PRECONDITION_FAILED.name(), ex.getMessage(), HttpStatus.PRECONDITION_FAILED.value());
+    return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).contentType(MediaType.APPLICATION_JSON).body(errorResponse);
+  }
+}
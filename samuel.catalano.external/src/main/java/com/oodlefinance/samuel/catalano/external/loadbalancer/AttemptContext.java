@@ -0,0 +1,64 @@
+package com.oodlefinance.samuel.catalano.external.loadbalancer;
+
+import org.springframework.cloud.client.ServiceInstance;
+
+/**
+ * One attempt of a blocking call to the internal service, bound to the thread making it. The
+ * {@link LatencyTrackingLifecycle} records the instance the attempt was sent to, and the
+ * {@link LatencyAwareLoadBalancer} does not send it to the instance it must {@link #avoid()} when another one is
+ * available. A hedged read thus goes to another instance than the attempt it duplicates.
+ */
+public final class AttemptContext {
+
+  private static final ThreadLocal<AttemptContext> CURRENT = new ThreadLocal<>();
+
+  private final ServiceInstance avoid;
+  private volatile ServiceInstance instance;
+
+  public AttemptContext(final ServiceInstance avoid) {
+    this.avoid = avoid;
+  }
+
+  /**
+   * @return the attempt bound to the calling thread, {@code null} when there is none
+   */
+  public static AttemptContext current() {
+    return CURRENT.get();
+  }
+
+  /**
+   * Binds the attempt to the calling thread until {@link #unbind()}.
+   */
+  public void bind() {
+    CURRENT.set(this);
+  }
+
+  /**
+   * Unbinds the attempt of the calling thread.
+   */
+  public static void unbind() {
+    CURRENT.remove();
+  }
+
+  /**
+   * @return the instance the attempt must not be sent to, {@code null} when there is none
+   */
+  public ServiceInstance avoid() {
+    return avoid;
+  }
+
+  /**
+   * @return the instance the attempt was sent to, {@code null} until it is chosen
+   */
+  public ServiceInstance instance() {
+    return instance;
+  }
+
+  void instance(final ServiceInstance instance) {
+    this.instance = instance;
+  }
+
+  static boolean sameInstance(final ServiceInstance a, final ServiceInstance b) {
+    return a != null && b != null && a.getHost().equals(b.getHost()) && a.getPort() == b.getPort();
+  }
+}
@@ -0,0 +1,114 @@
+package com.oodlefinance.samuel.catalano.external.loadbalancer;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Load of one instance of the internal service, as seen by this gateway: requests in flight, latency and recent
+ * failures.
+ * <p>
+ * The latency is a peak EWMA: a sample above the average replaces it at once, a sample below is blended in with a
+ * weight that grows with the time since the previous one, and the average itself decays towards zero while the
+ * instance gets no traffic. A slow instance is thus avoided as soon as it is seen slow, and retried once it has been
+ * left alone for a few {@code decay} periods.
+ * <p>
+ * After {@code failureThreshold} failures in a row the instance is ejected for {@code ejectionTime}.
+ */
+public class InstanceStats {
+
+  /** Cost of an instance with requests in flight but no latency sample yet. */
+  static final double PENALTY = 1e12;
+
+  private final double decayNanos;
+  private final int failureThreshold;
+  private final long ejectionNanos;
+  private final AtomicInteger outstanding = new AtomicInteger();
+  private double latencyNanos;
+  private long lastSampleNanos;
+  private int consecutiveFailures;
+  private boolean ejected;
+  private long ejectedUntilNanos;
+
+  InstanceStats(final long decayNanos, final int failureThreshold, final long ejectionNanos) {
+    this.decayNanos = decayNanos;
+    this.failureThreshold = failureThreshold;
+    this.ejectionNanos = ejectionNanos;
+  }
+
+  /**
+   * Records the start of a request to the instance.
+   */
+  public void start() {
+    outstanding.incrementAndGet();
+  }
+
+  /**
+   * Records the end of a request to the instance. A failure never lowers the latency: an instance failing fast must
+   * not look faster than the others.
+   *
+   * @param elapsedNanos the time the request took
+   * @param failed whether the request failed
+   * @param now the current {@link System#nanoTime()}
+   */
+  public synchronized void complete(final long elapsedNanos, final boolean failed, final long now) {
+    // never below zero: the stats may have been dropped and created again while the request was in flight
+    outstanding.updateAndGet(inFlight -> inFlight > 0 ? inFlight - 1 : 0);
+    var latency = latency(now);
+    if (elapsedNanos > latency) {
+      latencyNanos = elapsedNanos;
+      lastSampleNanos = now;
+    } else if (!failed) {
+      var weight = Math.exp(-(now - lastSampleNanos) / decayNanos);
+      latencyNanos = latency * weight + elapsedNanos * (1 - weight);
+      lastSampleNanos = now;
+    }
+    if (!failed) {
+      consecutiveFailures = 0;
+    } else if (++consecutiveFailures >= failureThreshold) {
+      consecutiveFailures = 0;
+      ejected = true;
+      ejectedUntilNanos = now + ejectionNanos;
+    }
+  }
+
+  /**
+   * @param now the current {@link System#nanoTime()}
+   * @return the expected cost of one more request: the latency times the requests that would be in flight
+   */
+  public synchronized double cost(final long now) {
+    var latency = latency(now);
+    var inFlight = outstanding.get();
+    if (latency == 0 && inFlight > 0) {
+      return PENALTY + inFlight;
+    }
+    return latency * (inFlight + 1);
+  }
+
+  /**
+   * @param now the current {@link System#nanoTime()}
+   * @return the latency of the instance in nanoseconds, decayed since the last sample
+   */
+  public synchronized double latency(final long now) {
+    if (latencyNanos == 0) {
+      return 0;
+    }
+    return latencyNanos * Math.exp(-(now - lastSampleNanos) / decayNanos);
+  }
+
+  /**
+   * @param now the current {@link System#nanoTime()}
+   * @return whether the instance is ejected
+   */
+  public synchronized boolean isEjected(final long now) {
+    if (ejected && ejectedUntilNanos - now <= 0) {
+      ejected = false;
+    }
+    return ejected;
+  }
+
+  /**
+   * @return the number of requests in flight to the instance
+   */
+  public int outstanding() {
+    return outstanding.get();
+  }
+}
@@ -0,0 +1,112 @@
+package com.oodlefinance.samuel.catalano.external.loadbalancer;
+
+import com.oodlefinance.samuel.catalano.external.config.GatewayProperties;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+
+import org.springframework.cloud.client.ServiceInstance;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The {@link InstanceStats} of every instance of the internal service this gateway has called, shared by the
+ * {@link LatencyTrackingLifecycle} that records requests and the {@link LatencyAwareLoadBalancer} that reads them.
+ * Instances are identified by host and port, the only identity simple discovery gives them.
+ * <p>
+ * The latency, requests in flight and ejection of each instance are published in the {@value #METRICS_PREFIX}
+ * gauges, tagged with the instance. The stats and gauges of an instance are dropped as soon as it is missing from
+ * the instances discovered for a request, see {@link #retainOnly(List)}, so instances that come and go (new ports or
+ * hosts on every deployment) do not pile up.
+ */
+public class InstanceStatsRegistry {
+
+  public static final String METRICS_PREFIX = "oodle.gateway.load-balancer";
+
+  private final Map<String, Tracked> stats = new ConcurrentHashMap<>();
+  private final long decayNanos;
+  private final int failureThreshold;
+  private final long ejectionNanos;
+  private final MeterRegistry meterRegistry;
+  private volatile List<ServiceInstance> lastInstances;
+
+  public InstanceStatsRegistry(final GatewayProperties.LoadBalancer properties, final MeterRegistry meterRegistry) {
+    if (properties.getDecay().isNegative() || properties.getDecay().isZero() || properties.getFailureThreshold() < 1) {
+      throw new IllegalArgumentException("oodle.gateway.load-balancer.decay and failure-threshold must be positive");
+    }
+    this.decayNanos = properties.getDecay().toNanos();
+    this.failureThreshold = properties.getFailureThreshold();
+    this.ejectionNanos = properties.getEjectionTime().toNanos();
+    this.meterRegistry = meterRegistry;
+  }
+
+  /**
+   * @param instance an instance of the internal service
+   * @return its stats, created on first use
+   */
+  public InstanceStats stats(final ServiceInstance instance) {
+    var key = key(instance);
+    var existing = stats.get(key);
+    return (existing != null ? existing : stats.computeIfAbsent(key, this::register)).stats();
+  }
+
+  /**
+   * @param instance an instance of the internal service
+   * @return its stats, {@code null} when they were never created or were dropped
+   */
+  public InstanceStats find(final ServiceInstance instance) {
+    var tracked = stats.get(key(instance));
+    return tracked == null ? null : tracked.stats();
+  }
+
+  /**
+   * Drops the stats and gauges of the instances missing from the latest discovered instances. Discovery hands out
+   * the same list until the instances change, so this only does work when they do.
+   *
+   * @param instances the instances discovered for the current request
+   */
+  public void retainOnly(final List<ServiceInstance> instances) {
+    if (instances == lastInstances) {
+      return;
+    }
+    lastInstances = instances;
+    final HashSet<String> current = new HashSet<>();
+    instances.forEach(instance -> current.add(key(instance)));
+    stats.forEach((key, tracked) -> {
+      if (!current.contains(key) && stats.remove(key, tracked)) {
+        tracked.meters().forEach(meterRegistry::remove);
+      }
+    });
+  }
+
+  private static String key(final ServiceInstance instance) {
+    return instance.getHost() + ":" + instance.getPort();
+  }
+
+  private Tracked register(final String instance) {
+    var instanceStats = new InstanceStats(decayNanos, failureThreshold, ejectionNanos);
+    var tags = Tags.of("instance", instance);
+    var latency = Gauge.builder(METRICS_PREFIX + ".latency", instanceStats, s -> s.latency(System.nanoTime()) / TimeUnit.SECONDS.toNanos(1))
+         .description("Peak EWMA latency of the instance of the internal service")
+         .baseUnit("seconds")
+         .tags(tags)
+         .register(meterRegistry);
+    var outstanding = Gauge.builder(METRICS_PREFIX + ".outstanding", instanceStats, InstanceStats::outstanding)
+         .description("Requests in flight to the instance of the internal service")
+         .tags(tags)
+         .register(meterRegistry);
+    var ejected = Gauge.builder(METRICS_PREFIX + ".ejected", instanceStats, s -> s.isEjected(System.nanoTime()) ? 1 : 0)
+         .description("Whether the instance of the internal service is ejected after repeated failures")
+         .tags(tags)
+         .register(meterRegistry);
+    return new Tracked(instanceStats, List.of(latency, outstanding, ejected));
+  }
+
+  private record Tracked(InstanceStats stats, List<Meter> meters) {
+  }
+}
@@ -0,0 +1,85 @@
+package com.oodlefinance.samuel.catalano.external.loadbalancer;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.client.loadbalancer.EmptyResponse;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.loadbalancer.core.NoopServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.core.ReactorServiceInstanceLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.SelectedInstanceCallback;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Chooses an instance of the internal service by power of two choices: two instances are picked at random and the one
+ * with the lowest {@link InstanceStats#cost(long) cost}, latency times requests in flight, gets the request. A slow or
+ * paused instance quickly stops receiving requests without every gateway piling onto the same fastest instance, as
+ * always picking the cheapest one would.
+ * <p>
+ * Ejected instances are left out, unless all of them are ejected, and so is the instance the current
+ * {@link AttemptContext} must avoid, unless it is the only one left. The stats of instances no longer discovered are
+ * dropped from the {@link InstanceStatsRegistry}.
+ */
+public class LatencyAwareLoadBalancer implements ReactorServiceInstanceLoadBalancer {
+
+  private final String serviceId;
+  private final ObjectProvider<ServiceInstanceListSupplier> suppliers;
+  private final InstanceStatsRegistry registry;
+
+  public LatencyAwareLoadBalancer(final String serviceId,
+                                  final ObjectProvider<ServiceInstanceListSupplier> suppliers,
+                                  final InstanceStatsRegistry registry) {
+    this.serviceId = serviceId;
+    this.suppliers = suppliers;
+    this.registry = registry;
+  }
+
+  @Override
+  public Mono<Response<ServiceInstance>> choose(final Request request) {
+    var supplier = suppliers.getIfAvailable(() -> new NoopServiceInstanceListSupplier(serviceId));
+    var attempt = AttemptContext.current();
+    var avoid = attempt == null ? null : attempt.avoid();
+    return supplier.get(request).next().map(instances -> {
+      registry.retainOnly(instances);
+      var response = choose(instances, avoid);
+      if (response.hasServer() && supplier instanceof SelectedInstanceCallback callback) {
+        callback.selectedServiceInstance(response.getServer());
+      }
+      return response;
+    });
+  }
+
+  private Response<ServiceInstance> choose(final List<ServiceInstance> instances, final ServiceInstance avoid) {
+    if (instances.isEmpty()) {
+      return new EmptyResponse();
+    }
+    var now = System.nanoTime();
+    var candidates = instances.stream().filter(instance -> !registry.stats(instance).isEjected(now)).toList();
+    if (candidates.isEmpty()) {
+      candidates = instances;
+    }
+    if (avoid != null) {
+      var others = candidates.stream().filter(instance -> !AttemptContext.sameInstance(instance, avoid)).toList();
+      if (!others.isEmpty()) {
+        candidates = others;
+      }
+    }
+    if (candidates.size() == 1) {
+      return new DefaultResponse(candidates.get(0));
+    }
+    var random = ThreadLocalRandom.current();
+    var first = random.nextInt(candidates.size());
+    var second = random.nextInt(candidates.size() - 1);
+    if (second >= first) {
+      second++;
+    }
+    var a = candidates.get(first);
+    var b = candidates.get(second);
+    return new DefaultResponse(registry.stats(a).cost(now) <= registry.stats(b).cost(now) ? a : b);
+  }
+}
@@ -0,0 +1,25 @@
+package com.oodlefinance.samuel.catalano.external.loadbalancer;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.loadbalancer.core.ReactorLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.support.LoadBalancerClientFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.env.Environment;
+
+/**
+ * Load balancer configuration of the internal service client, registered through {@code @LoadBalancerClient}. It is
+ * applied to the child context of that client only, so it must not be a {@code @Configuration} picked up by the
+ * component scan.
+ */
+public class LatencyAwareLoadBalancerClientConfiguration {
+
+  @Bean
+  public ReactorLoadBalancer<ServiceInstance> latencyAwareLoadBalancer(final Environment environment,
+                                                                       final LoadBalancerClientFactory clientFactory,
+                                                                       final InstanceStatsRegistry registry) {
+    var serviceId = environment.getProperty(LoadBalancerClientFactory.PROPERTY_NAME);
+    return new LatencyAwareLoadBalancer(serviceId, clientFactory.getLazyProvider(serviceId, ServiceInstanceListSupplier.class), registry);
+  }
+}
@@ -0,0 +1,66 @@
+package com.oodlefinance.samuel.catalano.external.loadbalancer;
+
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.CompletionContext;
+import org.springframework.cloud.client.loadbalancer.LoadBalancerLifecycle;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.RequestDataContext;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.client.loadbalancer.ResponseData;
+
+/**
+ * Records every load-balanced request to the internal service in the {@link InstanceStatsRegistry}, from Feign as
+ * well as from the reactive WebClient. A request fails when it throws or gets a 5xx response; 4xx responses are the
+ * caller's fault and count as successes.
+ * <p>
+ * The instance chosen for a blocking call is also recorded in the {@link AttemptContext} of the calling thread.
+ */
+public class LatencyTrackingLifecycle implements LoadBalancerLifecycle<RequestDataContext, ResponseData, ServiceInstance> {
+
+  private final InstanceStatsRegistry registry;
+
+  public LatencyTrackingLifecycle(final InstanceStatsRegistry registry) {
+    this.registry = registry;
+  }
+
+  @Override
+  public boolean supports(final Class requestContextClass, final Class responseClass, final Class serverTypeClass) {
+    return RequestDataContext.class.isAssignableFrom(requestContextClass)
+           && ResponseData.class.isAssignableFrom(responseClass)
+           && ServiceInstance.class.isAssignableFrom(serverTypeClass);
+  }
+
+  @Override
+  public void onStart(final Request<RequestDataContext> request) {
+  }
+
+  @Override
+  public void onStartRequest(final Request<RequestDataContext> request, final Response<ServiceInstance> lbResponse) {
+    if (lbResponse == null || !lbResponse.hasServer()) {
+      return;
+    }
+    request.getContext().setRequestStartTime(System.nanoTime());
+    registry.stats(lbResponse.getServer()).start();
+    var attempt = AttemptContext.current();
+    if (attempt != null) {
+      attempt.instance(lbResponse.getServer());
+    }
+  }
+
+  @Override
+  public void onComplete(final CompletionContext<ResponseData, ServiceInstance, RequestDataContext> completionContext) {
+    var lbResponse = completionContext.getLoadBalancerResponse();
+    if (completionContext.status() == CompletionContext.Status.DISCARD || lbResponse == null || !lbResponse.hasServer()) {
+      return;
+    }
+    var now = System.nanoTime();
+    var startTime = completionContext.getLoadBalancerRequest().getContext().getRequestStartTime();
+    var response = completionContext.getClientResponse();
+    var failed = completionContext.status() == CompletionContext.Status.FAILED
+                 || response != null && response.getHttpStatus() != null && response.getHttpStatus().is5xxServerError();
+    var stats = registry.find(lbResponse.getServer());
+    if (stats != null) {
+      stats.complete(startTime == 0 ? 0 : now - startTime, failed, now);
+    }
+  }
+}
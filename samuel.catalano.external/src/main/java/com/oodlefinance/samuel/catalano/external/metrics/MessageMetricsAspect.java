@@ -0,0 +1,116 @@
+package com.oodlefinance.samuel.catalano.external.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Times every call going through the layers of the gateway: controller, service and the Feign hop to the
+ * internal service.
+ * <p>
+ * Each call is recorded by the {@value #TIMER} timer, tagged with the layer, the operation ({@code Class.method}), the
+ * outcome ({@code success}, {@code error} or {@code cancelled}) and the exception class name. Failed calls also
+ * increment the {@value #ERRORS} counter. Calls returning a {@link Mono} or {@link Flux} are timed from every
+ * subscription, when the work actually starts, until the publisher completes, fails or is cancelled. Percentiles and
+ * histograms are configured under {@code management.metrics.distribution}.
+ */
+@Aspect
+@Component
+public class MessageMetricsAspect {
+
+  public static final String TIMER = "oodle.messages";
+  public static final String ERRORS = "oodle.messages.errors";
+
+  private static final String SUCCESS = "success";
+  private static final String ERROR = "error";
+  private static final String CANCELLED = "cancelled";
+
+  private final MeterRegistry meterRegistry;
+
+  @Autowired
+  public MessageMetricsAspect(final MeterRegistry meterRegistry) {
+    this.meterRegistry = meterRegistry;
+  }
+
+  @Around("within(com.oodlefinance.samuel.catalano.external.controller..*) && execution(public * *(..))")
+  public Object timeController(final ProceedingJoinPoint joinPoint) throws Throwable {
+    return time(joinPoint, "controller");
+  }
+
+  @Around("within(com.oodlefinance.samuel.catalano.external.service.impl..*) && execution(public * *(..))")
+  public Object timeService(final ProceedingJoinPoint joinPoint) throws Throwable {
+    return time(joinPoint, "service");
+  }
+
+  @Around("this(com.oodlefinance.samuel.catalano.external.feign.MessageFeignClient)")
+  public Object timeFeign(final ProceedingJoinPoint joinPoint) throws Throwable {
+    return time(joinPoint, "feign");
+  }
+
+  private Object time(final ProceedingJoinPoint joinPoint, final String layer) throws Throwable {
+    var signature = joinPoint.getSignature();
+    var operation = signature.getDeclaringType().getSimpleName() + "." + signature.getName();
+    var sample = Timer.start(meterRegistry);
+    final Object result;
+    try {
+      result = joinPoint.proceed();
+    } catch (final Throwable e) {
+      record(sample, layer, operation, ERROR, e);
+      throw e;
+    }
+
+    if (result instanceof Mono<?> mono) {
+      return Mono.defer(() -> {
+        var subscribed = Timer.start(meterRegistry);
+        final AtomicReference<Throwable> error = new AtomicReference<>();
+        return mono.doOnError(error::set)
+                   .doFinally(signal -> record(subscribed, layer, operation, outcome(signal), error.get()));
+      });
+    }
+    if (result instanceof Flux<?> flux) {
+      return Flux.defer(() -> {
+        var subscribed = Timer.start(meterRegistry);
+        final AtomicReference<Throwable> error = new AtomicReference<>();
+        return flux.doOnError(error::set)
+                   .doFinally(signal -> record(subscribed, layer, operation, outcome(signal), error.get()));
+      });
+    }
+    record(sample, layer, operation, SUCCESS, null);
+    return result;
+  }
+
+  private static String outcome(final SignalType signal) {
+    return switch (signal) {
+      case ON_ERROR -> ERROR;
+      case CANCEL -> CANCELLED;
+      default -> SUCCESS;
+    };
+  }
+
+  private void record(final Timer.Sample sample, final String layer, final String operation, final String outcome,
+                      final Throwable error) {
+    var exception = error == null ? "none" : error.getClass().getSimpleName();
+    sample.stop(Timer.builder(TIMER)
+                     .description("Calls through the message gateway")
+                     .tags("layer", layer, "operation", operation, "outcome", outcome, "exception", exception)
+                     .register(meterRegistry));
+    if (error != null) {
+      Counter.builder(ERRORS)
+             .description("Failed calls through the message gateway")
+             .tags("layer", layer, "operation", operation, "exception", exception)
+             .register(meterRegistry)
+             .increment();
+    }
+  }
+}
@@ -0,0 +1,17 @@
+package com.oodlefinance.samuel.catalano.external.resilience;
+
+import java.io.Serial;
+
+/**
+ * Thrown instead of calling the internal service when the circuit breaker of the operation is open or its bulkhead
+ * is full. It is thrown on the fast path of an overloaded gateway, so it carries no stack trace.
+ */
+public class CallRejectedException extends RuntimeException {
+
+  @Serial
+  private static final long serialVersionUID = 1L;
+
+  public CallRejectedException(final String message) {
+    super(message, null, false, false);
+  }
+}
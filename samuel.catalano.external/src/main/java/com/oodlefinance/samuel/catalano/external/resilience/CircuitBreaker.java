@@ -0,0 +1,154 @@
+package com.oodlefinance.samuel.catalano.external.resilience;
+
+/**
+ * Count-based circuit breaker of one operation of the internal service.
+ * <p>
+ * While {@link State#CLOSED closed}, the outcomes of the last {@code slidingWindowSize} calls are kept; once at least
+ * {@code minimumCalls} of them are recorded and failures reach {@code failureRateThreshold} percent, the breaker
+ * {@link State#OPEN opens} and rejects every call for {@code openDuration}. It then lets {@code halfOpenCalls} trial
+ * calls through ({@link State#HALF_OPEN half open}): it closes once they all succeed and opens again on the first
+ * failure.
+ * <p>
+ * Every change of state starts a new generation, handed out with each permit by {@link #tryAcquire(long)}. The
+ * outcome of a call is only counted in the generation it was allowed in: a slow call allowed while closed that fails
+ * after the breaker went half open does not reopen it, nor does it count as one of the trial calls.
+ */
+public class CircuitBreaker {
+
+  public enum State {
+    CLOSED, OPEN, HALF_OPEN
+  }
+
+  /**
+   * Returned by {@link #tryAcquire(long)} when the call is not allowed.
+   */
+  public static final long REJECTED = -1;
+
+  private final int failureRateThreshold;
+  private final int minimumCalls;
+  private final long openNanos;
+  private final int halfOpenCalls;
+  private final boolean[] outcomes;
+  private State state = State.CLOSED;
+  private int next;
+  private int recorded;
+  private int failures;
+  private long openedAt;
+  private int halfOpenPermits;
+  private int halfOpenSuccesses;
+  private long generation;
+
+  public CircuitBreaker(final int failureRateThreshold, final int slidingWindowSize, final int minimumCalls,
+                        final long openNanos, final int halfOpenCalls) {
+    if (failureRateThreshold < 1 || failureRateThreshold > 100 || slidingWindowSize < 1 || halfOpenCalls < 1) {
+      throw new IllegalArgumentException("Circuit breaker failure rate threshold must be between 1 and 100, "
+                                         + "sliding window size and half open calls must be positive");
+    }
+    this.failureRateThreshold = failureRateThreshold;
+    this.minimumCalls = Math.max(1, Math.min(minimumCalls, slidingWindowSize));
+    this.openNanos = openNanos;
+    this.halfOpenCalls = halfOpenCalls;
+    this.outcomes = new boolean[slidingWindowSize];
+  }
+
+  /**
+   * Asks for a call. Every call allowed must be followed by {@link #onSuccess(long)} or {@link #onFailure(long, long)}
+   * with the permit returned here.
+   *
+   * @param now the current {@link System#nanoTime()}
+   * @return the permit of the call, the current generation, or {@link #REJECTED} when the call may not go through
+   */
+  public synchronized long tryAcquire(final long now) {
+    if (state == State.OPEN) {
+      if (now - openedAt < openNanos) {
+        return REJECTED;
+      }
+      state = State.HALF_OPEN;
+      generation++;
+      halfOpenPermits = halfOpenCalls;
+      halfOpenSuccesses = 0;
+    }
+    if (state == State.HALF_OPEN) {
+      if (halfOpenPermits == 0) {
+        return REJECTED;
+      }
+      halfOpenPermits--;
+    }
+    return generation;
+  }
+
+  /**
+   * Records a successful call, unless it was allowed before the current state.
+   *
+   * @param permit the permit returned by {@link #tryAcquire(long)} for the call
+   */
+  public synchronized void onSuccess(final long permit) {
+    if (permit != generation) {
+      return;
+    }
+    if (state == State.HALF_OPEN) {
+      if (++halfOpenSuccesses >= halfOpenCalls) {
+        state = State.CLOSED;
+        generation++;
+        reset();
+      }
+    } else if (state == State.CLOSED) {
+      record(false);
+    }
+  }
+
+  /**
+   * Records a failed call, unless it was allowed before the current state.
+   *
+   * @param permit the permit returned by {@link #tryAcquire(long)} for the call
+   * @param now the current {@link System#nanoTime()}
+   */
+  public synchronized void onFailure(final long permit, final long now) {
+    if (permit != generation) {
+      return;
+    }
+    if (state == State.HALF_OPEN) {
+      open(now);
+    } else if (state == State.CLOSED) {
+      record(true);
+      if (recorded >= minimumCalls && failures * 100 >= failureRateThreshold * recorded) {
+        open(now);
+      }
+    }
+  }
+
+  /**
+   * @return the current state
+   */
+  public synchronized State state() {
+    return state;
+  }
+
+  private void record(final boolean failure) {
+    if (recorded == outcomes.length) {
+      if (outcomes[next]) {
+        failures--;
+      }
+    } else {
+      recorded++;
+    }
+    outcomes[next] = failure;
+    if (failure) {
+      failures++;
+    }
+    next = (next + 1) % outcomes.length;
+  }
+
+  private void open(final long now) {
+    state = State.OPEN;
+    generation++;
+    openedAt = now;
+    reset();
+  }
+
+  private void reset() {
+    next = 0;
+    recorded = 0;
+    failures = 0;
+  }
+}
@@ -0,0 +1,87 @@
+package com.oodlefinance.samuel.catalano.external.resilience;
+
+import java.util.Arrays;
+
+/**
+ * Decides when a read of the internal service is hedged: a second attempt is sent once the first has taken longer
+ * than the {@code percentile} latency of the last {@value #WINDOW} successful attempts, never sooner than
+ * {@code minDelay}. Nothing is hedged before {@code minimumSamples} latencies are known.
+ * <p>
+ * Hedges are paid from a budget: every call adds {@code maxRatio} of a hedge to it, up to {@value #MAX_BUDGET}, so at
+ * most that share of the calls is ever doubled, even when the internal service is slow as a whole.
+ */
+public class HedgePolicy {
+
+  static final int WINDOW = 1024;
+  static final double MAX_BUDGET = 10;
+
+  private static final int REFRESH_EVERY = 64;
+
+  private final double percentile;
+  private final long minDelayNanos;
+  private final int minimumSamples;
+  private final double maxRatio;
+  private final long[] samples = new long[WINDOW];
+  private int next;
+  private int recorded;
+  private int sinceRefresh;
+  private long delayNanos = -1;
+  private double budget;
+
+  public HedgePolicy(final double percentile, final long minDelayNanos, final int minimumSamples, final double maxRatio) {
+    if (percentile <= 0 || percentile >= 1) {
+      throw new IllegalArgumentException("Hedging percentile must be between 0 and 1, exclusive");
+    }
+    this.percentile = percentile;
+    this.minDelayNanos = minDelayNanos;
+    this.minimumSamples = Math.max(1, Math.min(minimumSamples, WINDOW));
+    this.maxRatio = maxRatio;
+  }
+
+  /**
+   * Records the latency of a successful attempt.
+   *
+   * @param nanos the time the attempt took
+   */
+  public synchronized void record(final long nanos) {
+    samples[next] = nanos;
+    next = (next + 1) % WINDOW;
+    recorded = Math.min(recorded + 1, WINDOW);
+    if (recorded >= minimumSamples && (delayNanos < 0 || ++sinceRefresh >= REFRESH_EVERY)) {
+      var sorted = Arrays.copyOf(samples, recorded);
+      Arrays.sort(sorted);
+      delayNanos = Math.max(minDelayNanos, sorted[(int) Math.ceil(percentile * recorded) - 1]);
+      sinceRefresh = 0;
+    }
+  }
+
+  /**
+   * Starts a call, adding to the hedge budget.
+   *
+   * @return how long to wait for the first attempt before hedging, negative when the call is not hedged
+   */
+  public synchronized long startCall() {
+    budget = Math.min(MAX_BUDGET, budget + maxRatio);
+    return budget >= 1 ? delayNanos : -1;
+  }
+
+  /**
+   * @return the current hedging delay, negative until {@code minimumSamples} latencies are known
+   */
+  public synchronized long delayNanos() {
+    return delayNanos;
+  }
+
+  /**
+   * Pays for a hedge from the budget.
+   *
+   * @return whether the hedge may be sent
+   */
+  public synchronized boolean tryHedge() {
+    if (budget < 1) {
+      return false;
+    }
+    budget--;
+    return true;
+  }
+}
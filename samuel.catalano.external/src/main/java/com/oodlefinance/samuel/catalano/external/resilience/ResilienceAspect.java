@@ -0,0 +1,297 @@
+package com.oodlefinance.samuel.catalano.external.resilience;
+
+import com.oodlefinance.samuel.catalano.external.config.GatewayProperties;
+import com.oodlefinance.samuel.catalano.external.exception.ClientErrorException;
+import com.oodlefinance.samuel.catalano.external.exception.PreconditionFailedException;
+import com.oodlefinance.samuel.catalano.external.loadbalancer.AttemptContext;
+import feign.FeignException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Guards every call of the {@link com.oodlefinance.samuel.catalano.external.feign.MessageFeignClient} with a bulkhead
+ * and a {@link CircuitBreaker} per operation, configured under {@code oodle.gateway.resilience}. A call beyond
+ * {@code bulkhead.max-concurrent-calls}, or made while the breaker is open, fails at once with a
+ * {@link CallRejectedException} instead of reaching the internal service. 4xx responses are the caller's fault and
+ * count as successes for the breaker.
+ * <p>
+ * The idempotent reads, {@code getMessageById} and {@code getAllMessages}, are hedged: their attempts run on the
+ * {@code feign-hedge} threads, and when the first one outlasts the delay of the {@link HedgePolicy}, a second one is
+ * sent to another instance (see {@link AttemptContext}); the first successful answer is returned.
+ * <p>
+ * The bulkhead counts attempts, not calls: a hedge needs a free slot of its own, and is not sent without one, and
+ * the slot of an attempt is only given back when that attempt ends, even if the caller already got the answer of the
+ * other one.
+ * <p>
+ * Breaker states, free bulkhead slots, rejections, hedging delays and hedges are published in the
+ * {@value #METRICS_PREFIX} metrics, tagged with the operation.
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@ConditionalOnProperty(prefix = "oodle.gateway.resilience", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class ResilienceAspect implements DisposableBean {
+
+  public static final String METRICS_PREFIX = "oodle.gateway.resilience";
+
+  static final Set<String> HEDGED_OPERATIONS = Set.of("getMessageById", "getAllMessages");
+
+  private final GatewayProperties.Resilience properties;
+  private final MeterRegistry meterRegistry;
+  private final Map<String, Guard> guards = new ConcurrentHashMap<>();
+  private final ThreadPoolExecutor hedgeExecutor;
+
+  @Autowired
+  public ResilienceAspect(final GatewayProperties properties, final MeterRegistry meterRegistry) {
+    this.properties = properties.getResilience();
+    this.meterRegistry = meterRegistry;
+
+    var threadCount = new AtomicInteger();
+    this.hedgeExecutor = new ThreadPoolExecutor(0, this.properties.getHedging().getThreads(), 60, TimeUnit.SECONDS,
+                                                new SynchronousQueue<>(), runnable -> {
+      var thread = new Thread(runnable, "feign-hedge-" + threadCount.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  @Around("this(com.oodlefinance.samuel.catalano.external.feign.MessageFeignClient)")
+  public Object guard(final ProceedingJoinPoint joinPoint) throws Throwable {
+    var operation = joinPoint.getSignature().getName();
+    var guard = guards.get(operation);
+    if (guard == null) {
+      guard = guards.computeIfAbsent(operation, Guard::new);
+    }
+
+    if (!guard.bulkhead.tryAcquire(properties.getBulkhead().getMaxWait().toNanos(), TimeUnit.NANOSECONDS)) {
+      guard.bulkheadRejections.increment();
+      throw new CallRejectedException("Too many concurrent calls to " + operation);
+    }
+    // the slot is handed over to the first attempt of a hedged call, which gives it back when it ends
+    var slotHandedOver = false;
+    try {
+      var permit = guard.circuitBreaker.tryAcquire(System.nanoTime());
+      if (permit == CircuitBreaker.REJECTED) {
+        guard.circuitRejections.increment();
+        throw new CallRejectedException("Circuit breaker of " + operation + " is open");
+      }
+      try {
+        final Object result;
+        if (guard.hedgePolicy == null) {
+          result = joinPoint.proceed();
+        } else {
+          slotHandedOver = true;
+          result = hedged(joinPoint, guard);
+        }
+        guard.circuitBreaker.onSuccess(permit);
+        return result;
+      } catch (final Throwable e) {
+        if (isFailure(e)) {
+          guard.circuitBreaker.onFailure(permit, System.nanoTime());
+        } else {
+          guard.circuitBreaker.onSuccess(permit);
+        }
+        throw e;
+      }
+    } finally {
+      if (!slotHandedOver) {
+        guard.bulkhead.release();
+      }
+    }
+  }
+
+  @Override
+  public void destroy() {
+    hedgeExecutor.shutdown();
+  }
+
+  /**
+   * Runs a hedged call, holding the bulkhead slot acquired by {@link #guard(ProceedingJoinPoint)} for its first
+   * attempt.
+   */
+  private Object hedged(final ProceedingJoinPoint joinPoint, final Guard guard) throws Throwable {
+    var delay = guard.hedgePolicy.startCall();
+    var firstContext = new AttemptContext(null);
+    final CompletableFuture<Object> first;
+    try {
+      first = attempt(joinPoint, guard, firstContext);
+    } catch (final RejectedExecutionException e) {
+      try {
+        return timed(joinPoint, guard);
+      } finally {
+        guard.bulkhead.release();
+      }
+    }
+    if (delay < 0) {
+      return join(first);
+    }
+
+    try {
+      return first.get(delay, TimeUnit.NANOSECONDS);
+    } catch (final ExecutionException e) {
+      throw e.getCause();
+    } catch (final TimeoutException e) {
+      if (!guard.bulkhead.tryAcquire()) {
+        return join(first);
+      }
+      if (!guard.hedgePolicy.tryHedge()) {
+        guard.bulkhead.release();
+        return join(first);
+      }
+    }
+
+    final CompletableFuture<Object> second;
+    try {
+      second = attempt(joinPoint, guard, new AttemptContext(firstContext.instance()));
+    } catch (final RejectedExecutionException e) {
+      guard.bulkhead.release();
+      return join(first);
+    }
+    guard.hedges.increment();
+
+    var winner = new CompletableFuture<>();
+    var failures = new AtomicInteger();
+    first.whenComplete((value, error) -> settle(winner, value, error, failures, null));
+    second.whenComplete((value, error) -> settle(winner, value, error, failures, guard.hedgesWon));
+    return join(winner);
+  }
+
+  /**
+   * Starts an attempt holding a bulkhead slot, which it gives back when it ends. When the attempt cannot be started
+   * the slot is still the caller's.
+   */
+  private CompletableFuture<Object> attempt(final ProceedingJoinPoint joinPoint, final Guard guard, final AttemptContext context) {
+    return CompletableFuture.supplyAsync(() -> {
+      context.bind();
+      try {
+        return timed(joinPoint, guard);
+      } catch (final RuntimeException e) {
+        throw e;
+      } catch (final Throwable e) {
+        throw new CompletionException(e);
+      } finally {
+        AttemptContext.unbind();
+        guard.bulkhead.release();
+      }
+    }, hedgeExecutor);
+  }
+
+  private static Object timed(final ProceedingJoinPoint joinPoint, final Guard guard) throws Throwable {
+    var start = System.nanoTime();
+    var result = joinPoint.proceed();
+    guard.hedgePolicy.record(System.nanoTime() - start);
+    return result;
+  }
+
+  private static void settle(final CompletableFuture<Object> winner, final Object value, final Throwable error,
+                             final AtomicInteger failures, final Counter won) {
+    if (error == null) {
+      if (winner.complete(value) && won != null) {
+        won.increment();
+      }
+    } else if (failures.incrementAndGet() == 2) {
+      winner.completeExceptionally(error instanceof CompletionException && error.getCause() != null ? error.getCause() : error);
+    }
+  }
+
+  private static Object join(final CompletableFuture<Object> future) throws Throwable {
+    try {
+      return future.get();
+    } catch (final ExecutionException e) {
+      throw e.getCause();
+    }
+  }
+
+  private static boolean isFailure(final Throwable e) {
+    if (e instanceof ClientErrorException || e instanceof PreconditionFailedException) {
+      return false;
+    }
+    return !(e instanceof FeignException feignException && feignException.status() >= 400 && feignException.status() < 500);
+  }
+
+  /**
+   * The circuit breaker, bulkhead, hedge policy and meters of one operation.
+   */
+  private final class Guard {
+
+    private final CircuitBreaker circuitBreaker;
+    private final Semaphore bulkhead;
+    private final HedgePolicy hedgePolicy;
+    private final Counter circuitRejections;
+    private final Counter bulkheadRejections;
+    private final Counter hedges;
+    private final Counter hedgesWon;
+
+    private Guard(final String operation) {
+      var breaker = properties.getCircuitBreaker();
+      this.circuitBreaker = new CircuitBreaker(breaker.getFailureRateThreshold(), breaker.getSlidingWindowSize(),
+                                               breaker.getMinimumCalls(), breaker.getOpenDuration().toNanos(),
+                                               breaker.getHalfOpenCalls());
+      this.bulkhead = new Semaphore(properties.getBulkhead().getMaxConcurrentCalls());
+
+      var hedging = properties.getHedging();
+      this.hedgePolicy = hedging.isEnabled() && HEDGED_OPERATIONS.contains(operation)
+          ? new HedgePolicy(hedging.getPercentile(), hedging.getMinDelay().toNanos(), hedging.getMinimumSamples(), hedging.getMaxRatio())
+          : null;
+
+      Gauge.builder(METRICS_PREFIX + ".circuit-breaker.state", circuitBreaker, b -> b.state().ordinal())
+           .description("State of the circuit breaker of the operation: 0 closed, 1 open, 2 half open")
+           .tag("operation", operation)
+           .register(meterRegistry);
+      Gauge.builder(METRICS_PREFIX + ".bulkhead.available", bulkhead, Semaphore::availablePermits)
+           .description("Calls of the operation that can still start before the bulkhead is full")
+           .tag("operation", operation)
+           .register(meterRegistry);
+      this.circuitRejections = rejections(operation, "circuit-open");
+      this.bulkheadRejections = rejections(operation, "bulkhead-full");
+
+      if (hedgePolicy != null) {
+        Gauge.builder(METRICS_PREFIX + ".hedging.delay", hedgePolicy, p -> Math.max(0, p.delayNanos()) / 1e9)
+             .description("Time after which a call of the operation is hedged")
+             .baseUnit("seconds")
+             .tag("operation", operation)
+             .register(meterRegistry);
+      }
+      this.hedges = Counter.builder(METRICS_PREFIX + ".hedges")
+                           .description("Second attempts sent for slow calls of the operation")
+                           .tag("operation", operation)
+                           .register(meterRegistry);
+      this.hedgesWon = Counter.builder(METRICS_PREFIX + ".hedges.won")
+                              .description("Second attempts that answered before the first one")
+                              .tag("operation", operation)
+                              .register(meterRegistry);
+    }
+
+    private Counter rejections(final String operation, final String reason) {
+      return Counter.builder(METRICS_PREFIX + ".rejected")
+                    .description("Calls of the operation failed fast without reaching the internal service")
+                    .tags("operation", operation, "reason", reason)
+                    .register(meterRegistry);
+    }
+  }
+}
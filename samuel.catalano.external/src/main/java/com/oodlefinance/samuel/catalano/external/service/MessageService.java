@@ -3,5 +3,16 @@ package com.oodlefinance.samuel.catalano.external.service;
 import com.oodlefinance.samuel.catalano.external.dto.MessageDTO;
 
 public interface MessageService extends BaseService<MessageDTO> {
-  // for future Message specific methods to be implemented
+
+  /**
+   * Maximum number of distinct ids of one multi-get, larger requests are rejected with {@code 400 Bad Request}.
+   */
+  int MAX_IDS_PER_REQUEST = 1000;
+
+  /**
+   * Maximum number of ids sent to the internal service in one multi-get call, so its URL stays short.
+   */
+  int MAX_IDS_PER_CALL = 200;
+
+  String TOO_MANY_IDS = "at most " + MAX_IDS_PER_REQUEST + " ids can be retrieved at once";
 }
@@ -0,0 +1,55 @@
+package com.oodlefinance.samuel.catalano.external.service;
+
+import com.oodlefinance.samuel.catalano.external.dto.BatchItemResultDTO;
+import com.oodlefinance.samuel.catalano.external.dto.MessageCountDTO;
+import com.oodlefinance.samuel.catalano.external.dto.MessageDTO;
+import com.oodlefinance.samuel.catalano.external.dto.MessageRangeDTO;
+import com.oodlefinance.samuel.catalano.external.dto.MessageSearchResultDTO;
+import com.oodlefinance.samuel.catalano.external.dto.MessagesByIdDTO;
+
+import org.springframework.http.ResponseEntity;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Non-blocking counterpart of {@link MessageService}, used when the gateway runs in {@code reactive} mode.
+ * Failures are signalled as {@link com.oodlefinance.samuel.catalano.external.exception.ServiceException} errors,
+ * {@link com.oodlefinance.samuel.catalano.external.exception.PreconditionFailedException} when an {@code If-Match}
+ * ETag no longer matches.
+ */
+public interface ReactiveMessageService {
+
+  /**
+   * Creates a message, answering with the status of the internal service: 201 (CREATED), or 202 (ACCEPTED) when it
+   * ingests the message write-behind, in which case the message is not cached.
+   */
+  Mono<ResponseEntity<MessageDTO>> create(MessageDTO dto);
+
+  Mono<MessageDTO> update(Long id, MessageDTO dto, String ifMatch);
+
+  Mono<MessageDTO> findById(Long id);
+
+  Mono<MessagesByIdDTO> findAllById(List<Long> ids);
+
+  Mono<MessageSearchResultDTO> search(String query, Integer offset, Integer limit);
+
+  Mono<List<MessageDTO>> findAll(Long after, Integer limit);
+
+  Mono<MessageRangeDTO> findCreatedBetween(Instant from, Instant to, Instant before, Long beforeId, Integer limit);
+
+  Mono<List<MessageCountDTO>> countCreatedPerInterval(Instant from, Instant to, Duration interval);
+
+  Flux<MessageDTO> streamAll();
+
+  Mono<List<BatchItemResultDTO>> createAll(List<MessageDTO> dtos);
+
+  Mono<List<BatchItemResultDTO>> updateAll(List<MessageDTO> dtos);
+
+  Mono<List<BatchItemResultDTO>> deleteAllById(List<Long> ids);
+
+  Mono<Void> deleteById(Long id, String ifMatch);
+}
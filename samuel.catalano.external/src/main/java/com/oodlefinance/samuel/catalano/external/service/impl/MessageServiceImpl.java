@@ -1,38 +1,98 @@
 package com.oodlefinance.samuel.catalano.external.service.impl;
 
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 
+import com.oodlefinance.samuel.catalano.common.concurrent.MicroBatcher;
+import com.oodlefinance.samuel.catalano.common.concurrent.SingleFlight;
+import com.oodlefinance.samuel.catalano.external.cache.MessageCache;
+import com.oodlefinance.samuel.catalano.external.dto.BatchItemResultDTO;
+import com.oodlefinance.samuel.catalano.external.dto.MessageCountDTO;
 import com.oodlefinance.samuel.catalano.external.dto.MessageDTO;
+import com.oodlefinance.samuel.catalano.external.dto.MessageRangeDTO;
+import com.oodlefinance.samuel.catalano.external.dto.MessageSearchResultDTO;
+import com.oodlefinance.samuel.catalano.external.dto.MessagesByIdDTO;
+import com.oodlefinance.samuel.catalano.external.exception.ClientErrorException;
+import com.oodlefinance.samuel.catalano.external.exception.PreconditionFailedException;
 import com.oodlefinance.samuel.catalano.external.exception.ServiceException;
 import com.oodlefinance.samuel.catalano.external.feign.MessageFeignClient;
 import com.oodlefinance.samuel.catalano.external.service.MessageService;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 
+import java.io.OutputStream;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 
 @Slf4j
 @Service
 public class MessageServiceImpl implements MessageService {
 
   private final MessageFeignClient messageFeignClient;
+  private final MessageCache messageCache;
+  private final SingleFlight<Long, MessageDTO> inFlightReads = new SingleFlight<>();
+  private MicroBatcher<Long, MessageDTO> readBatcher;
 
   @Autowired
-  public MessageServiceImpl(final MessageFeignClient messageFeignClient) {
+  public MessageServiceImpl(final MessageFeignClient messageFeignClient, final MessageCache messageCache) {
     this.messageFeignClient = messageFeignClient;
+    this.messageCache = messageCache;
   }
 
   /**
-   * Creates a new Message.
+   * Turns on micro-batching of {@link #findById(Long)}: the cache misses collected during the window are fetched
+   * with one multi-get call to the internal service. With a zero window (default) concurrent misses of the same
+   * id still share one call.
+   *
+   * @param window how long to collect ids before fetching them
+   * @param maxBatchSize number of distinct ids that triggers the call before the window closes
+   * @param loaderThreads number of multi-get calls that can run concurrently
+   */
+  @Autowired
+  public void configureReadBatching(@Value("${oodle.messages.read.batch-window:0ms}") final Duration window,
+                                    @Value("${oodle.messages.read.max-batch-size:100}") final int maxBatchSize,
+                                    @Value("${oodle.messages.read.loader-threads:4}") final int loaderThreads) {
+    if (!window.isZero() && !window.isNegative()) {
+      this.readBatcher = new MicroBatcher<>("message-read-batcher", this::fetchAll, window, maxBatchSize, loaderThreads);
+    }
+  }
+
+  @PreDestroy
+  public void close() {
+    if (readBatcher != null) {
+      readBatcher.close();
+    }
+  }
+
+  /**
+   * Creates a new Message. With write-behind ingestion on the internal side the message is only accepted, answered
+   * 202 (ACCEPTED), and is not cached: it is written later, and may never be.
    *
    * @param dto MessageDTO object that holds the message data
-   * @return MessageDTO object representing the newly created message
+   * @return the status of the internal service answer, 201 (CREATED) or 202 (ACCEPTED), and the message
+   * @throws ClientErrorException when the internal service rejects the message, e.g. 429 when its queue is full
    * @throws ServiceException when an error occurs during message creation
    */
-  public MessageDTO create(final MessageDTO dto) throws ServiceException {
+  public ResponseEntity<MessageDTO> create(final MessageDTO dto) throws ServiceException {
     try {
-      return messageFeignClient.createMessage(dto).getBody();
+      var response = messageFeignClient.createMessage(dto);
+      if (response.getStatusCode().value() != HttpStatus.ACCEPTED.value()) {
+        messageCache.put(response.getBody());
+      }
+      return ResponseEntity.status(response.getStatusCode()).body(response.getBody());
+    } catch (final ClientErrorException e) {
+      throw e;
     } catch (final Exception e) {
       log.error("Error persisting a new Message: {}", e.getMessage(), e);
       throw new ServiceException("Error persisting a new Message", e);
@@ -40,7 +100,67 @@ public class MessageServiceImpl implements MessageService {
   }
 
   /**
-   * Updates an existing Message.
+   * Creates several messages with a single call to the internal service.
+   *
+   * @param dtos the messages to create
+   * @return one result per item, holding the generated id or the reason the item was rejected
+   * @throws ServiceException when the batch cannot be sent to the internal service
+   */
+  public List<BatchItemResultDTO> createAll(final List<MessageDTO> dtos) throws ServiceException {
+    try {
+      return messageFeignClient.createMessages(dtos).getBody();
+    } catch (final ClientErrorException e) {
+      throw e;
+    } catch (final Exception e) {
+      log.error("Error persisting a batch of Messages: {}", e.getMessage(), e);
+      throw new ServiceException("Error persisting a batch of Messages", e);
+    }
+  }
+
+  /**
+   * Updates several messages with a single call to the internal service. The cached entries of the
+   * updated messages are evicted whatever the outcome.
+   *
+   * @param dtos the messages to update, each one holding the id of the message it replaces
+   * @return one result per item
+   * @throws ServiceException when the batch cannot be sent to the internal service
+   */
+  public List<BatchItemResultDTO> updateAll(final List<MessageDTO> dtos) throws ServiceException {
+    try {
+      return messageFeignClient.updateMessages(dtos).getBody();
+    } catch (final ClientErrorException e) {
+      throw e;
+    } catch (final Exception e) {
+      log.error("Error updating a batch of Messages: {}", e.getMessage(), e);
+      throw new ServiceException("Error updating a batch of Messages", e);
+    } finally {
+      dtos.stream().filter(Objects::nonNull).forEach(dto -> messageCache.evict(dto.getId()));
+    }
+  }
+
+  /**
+   * Deletes several messages with a single call to the internal service. The cached entries of the
+   * deleted messages are evicted whatever the outcome.
+   *
+   * @param ids the ids of the messages to delete
+   * @return one result per id
+   * @throws ServiceException when the batch cannot be sent to the internal service
+   */
+  public List<BatchItemResultDTO> deleteAllById(final List<Long> ids) throws ServiceException {
+    try {
+      return messageFeignClient.deleteMessages(ids).getBody();
+    } catch (final ClientErrorException e) {
+      throw e;
+    } catch (final Exception e) {
+      log.error("Error deleting a batch of Messages: {}", e.getMessage(), e);
+      throw new ServiceException("Error deleting a batch of Messages", e);
+    } finally {
+      messageCache.evictAll(ids);
+    }
+  }
+
+  /**
+   * Updates an existing Message and refreshes its cached entry.
    *
    * @param id identifier of the message to be updated
    * @param dto MessageDTO object that holds the updated message data
@@ -48,24 +168,66 @@ public class MessageServiceImpl implements MessageService {
    * @throws ServiceException when an error occurs during message update
    */
   public MessageDTO update(final Long id, final MessageDTO dto) throws ServiceException {
+    return update(id, dto, null);
+  }
+
+  /**
+   * Updates an existing Message, only if it still has the given ETag, and refreshes its cached entry.
+   *
+   * @param id identifier of the message to be updated
+   * @param dto MessageDTO object that holds the updated message data
+   * @param ifMatch the ETag the message must still have, {@code null} to update whatever the version
+   * @return MessageDTO object representing the updated message
+   * @throws PreconditionFailedException when the message no longer has the given ETag
+   * @throws ClientErrorException when the internal service rejects the update, e.g. the message does not exist
+   * @throws ServiceException when an error occurs during message update
+   */
+  public MessageDTO update(final Long id, final MessageDTO dto, final String ifMatch) throws ServiceException {
     try {
-      return messageFeignClient.updateMessage(id, dto).getBody();
+      var message = messageFeignClient.updateMessage(id, dto, ifMatch).getBody();
+      messageCache.put(message);
+      return message;
+    } catch (final ClientErrorException | PreconditionFailedException e) {
+      messageCache.evict(id);
+      throw e;
     } catch (final Exception e) {
+      messageCache.evict(id);
       log.error("Error updating an existing Message: {}", e.getMessage(), e);
       throw new ServiceException("Error updating an existing Message", e);
     }
   }
 
   /**
-   * Retrieves a message by its id.
+   * Retrieves a message by its id, from the message cache when present, otherwise from the internal service.
+   * Concurrent cache misses for the same id share one call to the internal service.
    *
    * @param id identifier of the message to retrieve
    * @return MessageDTO object representing the retrieved message
-   * @throws ServiceException when message with the specified id cannot be found
+   * @throws ClientErrorException when message with the specified id cannot be found
+   * @throws ServiceException when an error occurs calling the internal service
    */
   public MessageDTO findById(final Long id) throws ServiceException {
+    var cached = messageCache.getIfPresent(id);
+    if (cached != null) {
+      return cached;
+    }
+
     try {
-      return messageFeignClient.getMessageById(id).getBody();
+      if (readBatcher != null) {
+        var message = readBatcher.get(id);
+        if (message == null) {
+          throw new ClientErrorException(HttpStatus.NOT_FOUND.value(), "There is no message with id: " + id);
+        }
+        return message;
+      }
+      return inFlightReads.execute(id, () -> {
+        var stamp = messageCache.stamp();
+        var message = messageFeignClient.getMessageById(id).getBody();
+        messageCache.put(message, stamp);
+        return message;
+      });
+    } catch (final ClientErrorException e) {
+      throw e;
     } catch (final Exception e) {
       log.error("Error find Message by id: " + id + " - " + e.getMessage(), e);
       throw new ServiceException(e.getMessage(), e);
@@ -73,14 +235,69 @@ public class MessageServiceImpl implements MessageService {
   }
 
   /**
-   * Retrieves a list of all messages.
+   * Retrieves several messages by id. Cached messages are served from the message cache, the others are fetched
+   * with multi-get calls to the internal service of at most {@value #MAX_IDS_PER_CALL} ids each and cached.
    *
-   * @return list of MessageDTO objects representing all messages
+   * @param ids identifiers of the messages to retrieve, duplicates and {@code null} are ignored
+   * @return the messages found, in request order, and the ids that were not found
+   * @throws ClientErrorException when more than {@value #MAX_IDS_PER_REQUEST} distinct ids are asked for
    * @throws ServiceException when an error occurs during message retrieval
    */
-  public List<MessageDTO> findAll() throws ServiceException {
+  public MessagesByIdDTO findAllById(final List<Long> ids) throws ServiceException {
     try {
-      return messageFeignClient.getAllMessages().getBody();
+      final List<Long> distinctIds = new ArrayList<>(new LinkedHashSet<>(ids));
+      distinctIds.remove(null);
+      if (distinctIds.size() > MAX_IDS_PER_REQUEST) {
+        throw new ClientErrorException(HttpStatus.BAD_REQUEST.value(), TOO_MANY_IDS);
+      }
+
+      final Map<Long, MessageDTO> found = new HashMap<>(distinctIds.size() * 2);
+      final List<Long> misses = new ArrayList<>();
+      distinctIds.forEach(id -> {
+        var cached = messageCache.getIfPresent(id);
+        if (cached != null) {
+          found.put(id, cached);
+        } else {
+          misses.add(id);
+        }
+      });
+      if (!misses.isEmpty()) {
+        found.putAll(fetchAll(misses));
+      }
+
+      final List<MessageDTO> messages = new ArrayList<>(found.size());
+      final List<Long> missingIds = new ArrayList<>();
+      distinctIds.forEach(id -> {
+        var message = found.get(id);
+        if (message != null) {
+          messages.add(message);
+        } else {
+          missingIds.add(id);
+        }
+      });
+
+      return MessagesByIdDTO.builder().messages(messages).missingIds(missingIds).build();
+    } catch (final ClientErrorException e) {
+      throw e;
+    } catch (final Exception e) {
+      log.error("Error retrieving messages by id: {}", e.getMessage(), e);
+      throw new ServiceException("Error retrieving messages by id", e);
+    }
+  }
+
+  /**
+   * Retrieves a page of messages using keyset pagination on the message id.
+   *
+   * @param after id of the last message of the previous page, {@code null} to start from the beginning
+   * @param limit maximum number of messages to retrieve, {@code null} for the internal service default
+   * @return list of MessageDTO objects representing the page of messages
+   * @throws ServiceException when an error occurs during message retrieval
+   */
+  public List<MessageDTO> findAll(final Long after, final Integer limit) throws ServiceException {
+    try {
+      return messageFeignClient.getAllMessages(after, limit).getBody();
+    } catch (final ClientErrorException e) {
+      throw e;
     } catch (final Exception e) {
       log.error("Error retrieving all existing messages: {}", e.getMessage(), e);
       throw new ServiceException("Error retrieving all existing messages", e);
@@ -88,17 +305,135 @@ public class MessageServiceImpl implements MessageService {
   }
 
   /**
-   * Deletes a message by its id.
+   * Searches the text of the messages through the full-text index of the internal service.
+   *
+   * @param query the terms to look for, a term ending with {@code *} matching every word starting with it
+   * @param offset number of best matches to skip, {@code null} for none
+   * @param limit maximum number of messages to retrieve, {@code null} for the internal service default
+   * @return the page of matching messages, best match first, and the total number of matches
+   * @throws ServiceException when an error occurs during message retrieval
+   */
+  public MessageSearchResultDTO search(final String query, final Integer offset, final Integer limit) throws ServiceException {
+    try {
+      return messageFeignClient.searchMessages(query, offset, limit).getBody();
+    } catch (final ClientErrorException e) {
+      throw e;
+    } catch (final Exception e) {
+      log.error("Error searching messages: {}", e.getMessage(), e);
+      throw new ServiceException("Error searching messages", e);
+    }
+  }
+
+  /**
+   * Retrieves the messages created in a time range, newest first, one page at a time.
+   *
+   * @param from start of the range, inclusive
+   * @param to end of the range, exclusive
+   * @param before creation time of the last message of the previous page, {@code null} for the first page
+   * @param beforeId id of the last message of the previous page, {@code null} for the first page
+   * @param limit maximum number of messages to retrieve, {@code null} for the internal service default
+   * @return the page of messages and the cursor of the next page
+   * @throws ServiceException when an error occurs during message retrieval
+   */
+  public MessageRangeDTO findCreatedBetween(final Instant from, final Instant to, final Instant before,
+                                            final Long beforeId, final Integer limit) throws ServiceException {
+    try {
+      return messageFeignClient.getMessagesCreatedBetween(from, to, before, beforeId, limit).getBody();
+    } catch (final ClientErrorException e) {
+      throw e;
+    } catch (final Exception e) {
+      log.error("Error retrieving messages created between {} and {}: {}", from, to, e.getMessage(), e);
+      throw new ServiceException("Error retrieving messages by creation time", e);
+    }
+  }
+
+  /**
+   * Counts the messages created in a time range per interval, aggregated by the internal service database.
+   *
+   * @param from start of the range and of the first interval, inclusive
+   * @param to end of the range, exclusive
+   * @param interval length of an interval
+   * @return the number of messages of every interval, in order
+   * @throws ServiceException when an error occurs during message retrieval
+   */
+  public List<MessageCountDTO> countCreatedPerInterval(final Instant from, final Instant to, final Duration interval) throws ServiceException {
+    try {
+      return messageFeignClient.countMessagesCreatedPerInterval(from, to, interval).getBody();
+    } catch (final ClientErrorException e) {
+      throw e;
+    } catch (final Exception e) {
+      log.error("Error counting messages created between {} and {}: {}", from, to, e.getMessage(), e);
+      throw new ServiceException("Error counting messages by creation time", e);
+    }
+  }
+
+  /**
+   * Streams every message as newline-delimited JSON, copying the internal service response to the given
+   * output stream as it arrives instead of buffering it.
+   *
+   * @param outputStream the stream the messages are written to
+   * @throws ServiceException when an error occurs during message retrieval
+   */
+  public void streamAll(final OutputStream outputStream) throws ServiceException {
+    try (var response = messageFeignClient.streamAllMessages()) {
+      if (response.status() != HttpStatus.OK.value() || response.body() == null) {
+        throw new ServiceException("Unexpected status streaming messages: " + response.status());
+      }
+      response.body().asInputStream().transferTo(outputStream);
+    } catch (final ClientErrorException e) {
+      throw e;
+    } catch (final Exception e) {
+      log.error("Error streaming all existing messages: {}", e.getMessage(), e);
+      throw new ServiceException("Error streaming all existing messages", e);
+    }
+  }
+
+  /**
+   * Deletes a message by its id. The cached entry is evicted whatever the outcome.
    *
    * @param id identifier of the message to delete
-   * @throws ServiceException when message with the specified id cannot be found
+   * @throws ClientErrorException when message with the specified id cannot be found
+   * @throws ServiceException when an error occurs calling the internal service
    */
   public void deleteById(final Long id) throws ServiceException {
+    deleteById(id, null);
+  }
+
+  /**
+   * Deletes a message by its id, only if it still has the given ETag. The cached entry is evicted whatever the outcome.
+   *
+   * @param id identifier of the message to delete
+   * @param ifMatch the ETag the message must still have, {@code null} to delete whatever the version
+   * @throws PreconditionFailedException when the message no longer has the given ETag
+   * @throws ClientErrorException when message with the specified id cannot be found
+   * @throws ServiceException when an error occurs calling the internal service
+   */
+  public void deleteById(final Long id, final String ifMatch) throws ServiceException {
     try {
-      messageFeignClient.deleteMessage(id);
+      messageFeignClient.deleteMessage(id, ifMatch);
+    } catch (final ClientErrorException | PreconditionFailedException e) {
+      throw e;
     } catch (final Exception e) {
       log.error("Error deleting Message with id: " + id + " - " + e.getMessage(), e);
       throw new ServiceException(e);
+    } finally {
+      messageCache.evict(id);
+    }
+  }
+
+  private Map<Long, MessageDTO> fetchAll(final Collection<Long> ids) throws ServiceException {
+    final List<Long> idList = List.copyOf(ids);
+    final Map<Long, MessageDTO> messages = new HashMap<>(ids.size() * 2);
+    for (int offset = 0; offset < idList.size(); offset += MAX_IDS_PER_CALL) {
+      var stamp = messageCache.stamp();
+      var result = messageFeignClient.getMessagesByIds(idList.subList(offset, Math.min(offset + MAX_IDS_PER_CALL, idList.size()))).getBody();
+      if (result != null && result.getMessages() != null) {
+        result.getMessages().forEach(message -> {
+          messageCache.put(message, stamp);
+          messages.put(message.getId(), message);
+        });
+      }
     }
+    return messages;
   }
 }
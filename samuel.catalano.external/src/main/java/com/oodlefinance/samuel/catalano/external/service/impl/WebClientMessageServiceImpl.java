@@ -0,0 +1,300 @@
+package com.oodlefinance.samuel.catalano.external.service.impl;
+
+import lombok.extern.slf4j.Slf4j;
+
+import com.oodlefinance.samuel.catalano.external.cache.MessageCache;
+import com.oodlefinance.samuel.catalano.external.config.GatewayProperties;
+import com.oodlefinance.samuel.catalano.external.config.WireFormatConfig;
+import com.oodlefinance.samuel.catalano.external.dto.BatchItemResultDTO;
+import com.oodlefinance.samuel.catalano.external.dto.MessageCountDTO;
+import com.oodlefinance.samuel.catalano.external.dto.MessageDTO;
+import com.oodlefinance.samuel.catalano.external.dto.MessageRangeDTO;
+import com.oodlefinance.samuel.catalano.external.dto.MessageSearchResultDTO;
+import com.oodlefinance.samuel.catalano.external.dto.MessagesByIdDTO;
+import com.oodlefinance.samuel.catalano.external.exception.ClientErrorException;
+import com.oodlefinance.samuel.catalano.external.exception.ServiceException;
+import com.oodlefinance.samuel.catalano.external.service.MessageService;
+import com.oodlefinance.samuel.catalano.external.service.ReactiveMessageService;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * {@link ReactiveMessageService} calling the internal service through a load balanced, non-blocking
+ * {@link WebClient}. Reads and writes go through the same {@link MessageCache} as the blocking implementation.
+ * Request bodies are sent in the configured wire format ({@code oodle.gateway.wire-format}).
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(prefix = "oodle.gateway", name = "mode", havingValue = "reactive")
+public class WebClientMessageServiceImpl implements ReactiveMessageService {
+
+  private static final ParameterizedTypeReference<List<MessageDTO>> MESSAGE_LIST = new ParameterizedTypeReference<>() {};
+  private static final ParameterizedTypeReference<List<BatchItemResultDTO>> RESULT_LIST = new ParameterizedTypeReference<>() {};
+
+  private final WebClient webClient;
+  private final MessageCache messageCache;
+  private final MediaType bodyType;
+
+  @Autowired
+  public WebClientMessageServiceImpl(@Qualifier("internalWebClient") final WebClient webClient, final MessageCache messageCache,
+                                     final GatewayProperties properties) {
+    this.webClient = webClient;
+    this.messageCache = messageCache;
+    this.bodyType = "smile".equals(properties.getWireFormat())
+        ? MediaType.parseMediaType(WireFormatConfig.APPLICATION_SMILE_VALUE)
+        : MediaType.APPLICATION_JSON;
+  }
+
+  @Override
+  public Mono<ResponseEntity<MessageDTO>> create(final MessageDTO dto) {
+    return webClient.post()
+                    .contentType(bodyType)
+                    .bodyValue(dto)
+                    .retrieve()
+                    .toEntity(MessageDTO.class)
+                    .doOnNext(response -> {
+                      if (response.getStatusCode().value() != HttpStatus.ACCEPTED.value()) {
+                        messageCache.put(response.getBody());
+                      }
+                    })
+                    .map(response -> ResponseEntity.status(response.getStatusCode()).body(response.getBody()))
+                    .onErrorMap(e -> failure("Error persisting a new Message", e));
+  }
+
+  @Override
+  public Mono<MessageDTO> update(final Long id, final MessageDTO dto, final String ifMatch) {
+    return webClient.put()
+                    .uri("/{id}", id)
+                    .headers(headers -> setIfMatch(headers, ifMatch))
+                    .contentType(bodyType)
+                    .bodyValue(dto)
+                    .retrieve()
+                    .bodyToMono(MessageDTO.class)
+                    .doOnNext(messageCache::put)
+                    .doOnError(e -> messageCache.evict(id))
+                    .onErrorMap(e -> failure("Error updating an existing Message", e));
+  }
+
+  @Override
+  public Mono<MessageDTO> findById(final Long id) {
+    var cached = messageCache.getIfPresent(id);
+    if (cached != null) {
+      return Mono.just(cached);
+    }
+    return Mono.defer(() -> {
+      var stamp = messageCache.stamp();
+      return webClient.get()
+                      .uri("/{id}", id)
+                      .retrieve()
+                      .bodyToMono(MessageDTO.class)
+                      .doOnNext(message -> messageCache.put(message, stamp));
+    }).onErrorMap(e -> failure("Error find Message by id: " + id, e));
+  }
+
+  /**
+   * Same as {@link MessageServiceImpl#findAllById(List)}:
+   * cached messages are served from the message cache, the others are fetched with multi-get calls of at most
+   * {@value MessageService#MAX_IDS_PER_CALL} ids each and cached.
+   */
+  @Override
+  public Mono<MessagesByIdDTO> findAllById(final List<Long> ids) {
+    return Mono.defer(() -> {
+      final List<Long> distinctIds = ids.stream().filter(Objects::nonNull).distinct().toList();
+      if (distinctIds.size() > MessageService.MAX_IDS_PER_REQUEST) {
+        return Mono.error(new ClientErrorException(HttpStatus.BAD_REQUEST.value(), MessageService.TOO_MANY_IDS));
+      }
+
+      var stamp = messageCache.stamp();
+      final Map<Long, MessageDTO> found = new ConcurrentHashMap<>(distinctIds.size() * 2);
+      final List<Long> misses = new ArrayList<>();
+      distinctIds.forEach(id -> {
+        var cached = messageCache.getIfPresent(id);
+        if (cached != null) {
+          found.put(id, cached);
+        } else {
+          misses.add(id);
+        }
+      });
+
+      final List<List<Long>> calls = new ArrayList<>();
+      for (int offset = 0; offset < misses.size(); offset += MessageService.MAX_IDS_PER_CALL) {
+        calls.add(misses.subList(offset, Math.min(offset + MessageService.MAX_IDS_PER_CALL, misses.size())));
+      }
+      return Flux.fromIterable(calls)
+                 .concatMap(this::fetchAll)
+                 .doOnNext(message -> {
+                   messageCache.put(message, stamp);
+                   found.put(message.getId(), message);
+                 })
+                 .then(Mono.fromSupplier(() -> {
+                   final List<MessageDTO> messages = new ArrayList<>(found.size());
+                   final List<Long> missingIds = new ArrayList<>();
+                   distinctIds.forEach(id -> {
+                     var message = found.get(id);
+                     if (message != null) {
+                       messages.add(message);
+                     } else {
+                       missingIds.add(id);
+                     }
+                   });
+                   return MessagesByIdDTO.builder().messages(messages).missingIds(missingIds).build();
+                 }));
+    }).onErrorMap(e -> failure("Error retrieving messages by id", e));
+  }
+
+  @Override
+  public Mono<MessageSearchResultDTO> search(final String query, final Integer offset, final Integer limit) {
+    return webClient.get()
+                    .uri(uriBuilder -> uriBuilder.path("/search")
+                                                 .queryParam("q", query)
+                                                 .queryParamIfPresent("offset", Optional.ofNullable(offset))
+                                                 .queryParamIfPresent("limit", Optional.ofNullable(limit))
+                                                 .build())
+                    .retrieve()
+                    .bodyToMono(MessageSearchResultDTO.class)
+                    .onErrorMap(e -> failure("Error searching messages", e));
+  }
+
+  @Override
+  public Mono<MessageRangeDTO> findCreatedBetween(final Instant from, final Instant to, final Instant before,
+                                                  final Long beforeId, final Integer limit) {
+    return webClient.get()
+                    .uri(uriBuilder -> uriBuilder.path("/range")
+                                                 .queryParam("from", from)
+                                                 .queryParam("to", to)
+                                                 .queryParamIfPresent("before", Optional.ofNullable(before))
+                                                 .queryParamIfPresent("beforeId", Optional.ofNullable(beforeId))
+                                                 .queryParamIfPresent("limit", Optional.ofNullable(limit))
+                                                 .build())
+                    .retrieve()
+                    .bodyToMono(MessageRangeDTO.class)
+                    .onErrorMap(e -> failure("Error retrieving messages by creation time", e));
+  }
+
+  @Override
+  public Mono<List<MessageCountDTO>> countCreatedPerInterval(final Instant from, final Instant to, final Duration interval) {
+    return webClient.get()
+                    .uri(uriBuilder -> uriBuilder.path("/histogram")
+                                                 .queryParam("from", from)
+                                                 .queryParam("to", to)
+                                                 .queryParam("interval", interval)
+                                                 .build())
+                    .retrieve()
+                    .bodyToFlux(MessageCountDTO.class)
+                    .collectList()
+                    .onErrorMap(e -> failure("Error counting messages by creation time", e));
+  }
+
+  @Override
+  public Mono<List<MessageDTO>> findAll(final Long after, final Integer limit) {
+    return webClient.get()
+                    .uri(uriBuilder -> uriBuilder.queryParamIfPresent("after", Optional.ofNullable(after))
+                                                 .queryParamIfPresent("limit", Optional.ofNullable(limit))
+                                                 .build())
+                    .retrieve()
+                    .bodyToMono(MESSAGE_LIST)
+                    .onErrorMap(e -> failure("Error retrieving all existing messages", e));
+  }
+
+  @Override
+  public Flux<MessageDTO> streamAll() {
+    return webClient.get()
+                    .uri("/stream")
+                    .accept(MediaType.APPLICATION_NDJSON)
+                    .retrieve()
+                    .bodyToFlux(MessageDTO.class)
+                    .onErrorMap(e -> failure("Error streaming all existing messages", e));
+  }
+
+  @Override
+  public Mono<List<BatchItemResultDTO>> createAll(final List<MessageDTO> dtos) {
+    return webClient.post()
+                    .uri("/batch")
+                    .contentType(bodyType)
+                    .bodyValue(dtos)
+                    .retrieve()
+                    .bodyToMono(RESULT_LIST)
+                    .onErrorMap(e -> failure("Error persisting a batch of Messages", e));
+  }
+
+  @Override
+  public Mono<List<BatchItemResultDTO>> updateAll(final List<MessageDTO> dtos) {
+    return webClient.put()
+                    .uri("/batch")
+                    .contentType(bodyType)
+                    .bodyValue(dtos)
+                    .retrieve()
+                    .bodyToMono(RESULT_LIST)
+                    .doFinally(signal -> dtos.stream().filter(Objects::nonNull).forEach(dto -> messageCache.evict(dto.getId())))
+                    .onErrorMap(e -> failure("Error updating a batch of Messages", e));
+  }
+
+  @Override
+  public Mono<List<BatchItemResultDTO>> deleteAllById(final List<Long> ids) {
+    return webClient.method(HttpMethod.DELETE)
+                    .uri("/batch")
+                    .contentType(bodyType)
+                    .bodyValue(ids)
+                    .retrieve()
+                    .bodyToMono(RESULT_LIST)
+                    .doFinally(signal -> messageCache.evictAll(ids))
+                    .onErrorMap(e -> failure("Error deleting a batch of Messages", e));
+  }
+
+  @Override
+  public Mono<Void> deleteById(final Long id, final String ifMatch) {
+    return webClient.delete()
+                    .uri("/{id}", id)
+                    .headers(headers -> setIfMatch(headers, ifMatch))
+                    .retrieve()
+                    .toBodilessEntity()
+                    .doFinally(signal -> messageCache.evict(id))
+                    .onErrorMap(e -> failure("Error deleting Message with id: " + id, e))
+                    .then();
+  }
+
+  private Flux<MessageDTO> fetchAll(final List<Long> ids) {
+    final String csv = ids.stream().map(String::valueOf).collect(Collectors.joining(","));
+    return webClient.get()
+                    .uri(uriBuilder -> uriBuilder.queryParam("ids", csv).build())
+                    .retrieve()
+                    .bodyToMono(MessagesByIdDTO.class)
+                    .flatMapIterable(result -> result.getMessages() == null ? List.of() : result.getMessages());
+  }
+
+  private static void setIfMatch(final HttpHeaders headers, final String ifMatch) {
+    if (ifMatch != null) {
+      headers.set(HttpHeaders.IF_MATCH, ifMatch);
+    }
+  }
+
+  private static Throwable failure(final String message, final Throwable cause) {
+    if (cause instanceof ServiceException || cause instanceof ClientErrorException) {
+      return cause;
+    }
+    log.error("{} - {}", message, cause.getMessage(), cause);
+    return new ServiceException(message, cause);
+  }
+}
@@ -0,0 +1,137 @@
+package com.oodlefinance.samuel.catalano.external.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.oodlefinance.samuel.catalano.external.config.WireFormatConfig;
+import com.oodlefinance.samuel.catalano.external.dto.MessageDTO;
+import com.oodlefinance.samuel.catalano.external.exception.ServiceException;
+import com.oodlefinance.samuel.catalano.external.feign.MessageFeignClient;
+import feign.Request;
+import feign.Response;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+class MessageCacheTest {
+
+  private final AtomicLong nanos = new AtomicLong();
+  private MessageFeignClient internalService;
+  private MessageCache messageCache;
+
+  @BeforeEach
+  void setup() {
+    internalService = mock(MessageFeignClient.class);
+    final MessageRevalidator revalidator = new MessageRevalidator(internalService, new ObjectMapper());
+    messageCache = new MessageCache(new MessageCacheProperties(), new SimpleMeterRegistry(), revalidator, nanos::get, Runnable::run);
+  }
+
+  @Test
+  void testGetIfPresent_AfterRefreshPeriod_ShouldKeepUnchangedMessage() throws ServiceException {
+    final MessageDTO message = MessageDTO.builder().id(1L).message("Cached message").version(2L).build();
+    when(internalService.revalidateMessage(1L, "\"2\"")).thenReturn(response(304, null));
+
+    messageCache.put(message);
+    advance(Duration.ofMinutes(2));
+
+    assertThat(messageCache.getIfPresent(1L)).isSameAs(message);
+    assertThat(messageCache.getIfPresent(1L)).isSameAs(message);
+    verify(internalService, times(1)).revalidateMessage(1L, "\"2\"");
+    verify(internalService, never()).getMessageById(1L);
+  }
+
+  @Test
+  void testGetIfPresent_AfterRefreshPeriod_ShouldReplaceChangedMessage() {
+    messageCache.put(MessageDTO.builder().id(1L).message("Cached message").version(2L).build());
+    when(internalService.revalidateMessage(1L, "\"2\""))
+        .thenReturn(response(200, "{\"id\":1,\"message\":\"Changed message\",\"version\":3}"));
+
+    advance(Duration.ofMinutes(2));
+    messageCache.getIfPresent(1L);
+
+    final MessageDTO revalidated = messageCache.getIfPresent(1L);
+    assertThat(revalidated.getMessage()).isEqualTo("Changed message");
+    assertThat(revalidated.getVersion()).isEqualTo(3L);
+  }
+
+  @Test
+  void testGetIfPresent_AfterRefreshPeriod_ShouldEvictDeletedMessage() {
+    messageCache.put(MessageDTO.builder().id(1L).message("Cached message").version(2L).build());
+    when(internalService.revalidateMessage(1L, "\"2\"")).thenReturn(response(404, null));
+
+    advance(Duration.ofMinutes(2));
+    messageCache.getIfPresent(1L);
+
+    assertThat(messageCache.getIfPresent(1L)).isNull();
+  }
+
+  @Test
+  void testPut_WhenInvalidatedDuringTheRead_ShouldNotCacheTheReadMessage() {
+    final long stamp = messageCache.stamp();
+    messageCache.evictOlderThan(1L, 3L);
+    messageCache.put(MessageDTO.builder().id(1L).message("Read before the change").version(2L).build(), stamp);
+
+    assertThat(messageCache.getIfPresent(1L)).isNull();
+
+    final MessageDTO current = MessageDTO.builder().id(1L).message("Read after the change").version(3L).build();
+    messageCache.put(current, messageCache.stamp());
+
+    assertThat(messageCache.getIfPresent(1L)).isSameAs(current);
+  }
+
+  @Test
+  void testRevalidate_ShouldDecodeSmileBody() throws Exception {
+    final MessageDTO changed = MessageDTO.builder().id(1L).message("Changed message").version(3L).build();
+    var request = Request.create(Request.HttpMethod.GET, "/api/messages/1", Map.of(), null, StandardCharsets.UTF_8, null);
+    when(internalService.revalidateMessage(1L, "\"2\"")).thenReturn(Response.builder()
+        .status(200)
+        .request(request)
+        .headers(Map.of("Content-Type", List.of(WireFormatConfig.APPLICATION_SMILE_VALUE)))
+        .body(new ObjectMapper(new SmileFactory()).writeValueAsBytes(changed))
+        .build());
+
+    final MessageRevalidator revalidator = new MessageRevalidator(internalService, new ObjectMapper());
+    final MessageDTO revalidated = revalidator.revalidate(MessageDTO.builder().id(1L).message("Cached message").version(2L).build());
+
+    assertThat(revalidated.getMessage()).isEqualTo("Changed message");
+    assertThat(revalidated.getVersion()).isEqualTo(3L);
+  }
+
+  @Test
+  void testRevalidate_ShouldFailOnUnexpectedStatus() {
+    final MessageDTO message = MessageDTO.builder().id(1L).message("Cached message").version(2L).build();
+    when(internalService.revalidateMessage(1L, "\"2\"")).thenReturn(response(503, null));
+
+    final MessageRevalidator revalidator = new MessageRevalidator(internalService, new ObjectMapper());
+
+    assertThatExceptionOfType(ServiceException.class)
+        .isThrownBy(() -> revalidator.revalidate(message));
+  }
+
+  private void advance(final Duration duration) {
+    nanos.addAndGet(duration.toNanos());
+  }
+
+  private static Response response(final int status, final String body) {
+    var request = Request.create(Request.HttpMethod.GET, "/api/messages/1", Map.of(), null, StandardCharsets.UTF_8, null);
+    var builder = Response.builder().status(status).request(request).headers(Map.of());
+    if (body != null) {
+      builder.body(body, StandardCharsets.UTF_8);
+    }
+    return builder.build();
+  }
+}
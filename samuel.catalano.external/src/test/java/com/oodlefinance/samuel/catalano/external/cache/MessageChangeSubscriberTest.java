@@ -0,0 +1,177 @@
+package com.oodlefinance.samuel.catalano.external.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.ArgumentMatchers.nullable;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.oodlefinance.samuel.catalano.external.dto.MessageChangeDTO;
+import com.oodlefinance.samuel.catalano.external.dto.MessageChangesDTO;
+import com.oodlefinance.samuel.catalano.external.dto.MessageDTO;
+import com.oodlefinance.samuel.catalano.external.event.MessageChangeType;
+import com.oodlefinance.samuel.catalano.external.exception.ServiceException;
+import com.oodlefinance.samuel.catalano.external.feign.MessageFeignClient;
+import com.oodlefinance.samuel.catalano.external.service.impl.MessageServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.http.ResponseEntity;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Runs two gateways in the same JVM against one in-memory stand-in of the internal service and its change feed.
+ */
+class MessageChangeSubscriberTest {
+
+  private static final String EPOCH = "epoch-1";
+  private static final ServiceInstance INSTANCE = new DefaultServiceInstance("internal-1", "oodle-finance-internal", "internal-1", 8080, false);
+
+  private final Map<Long, String> storedMessages = new ConcurrentHashMap<>();
+  private final List<MessageChangeDTO> feed = new ArrayList<>();
+  private MessageFeignClient internalService;
+
+  private MessageServiceImpl gatewayA;
+  private MessageServiceImpl gatewayB;
+  private MessageChangeSubscriber subscriberA;
+  private MessageChangeSubscriber subscriberB;
+
+  @BeforeEach
+  void setup() throws ServiceException {
+    storedMessages.put(1L, "Original message");
+    internalService = mock(MessageFeignClient.class);
+    when(internalService.getMessageById(anyLong())).thenAnswer(invocation -> {
+      final Long id = invocation.getArgument(0);
+      return ResponseEntity.ok(MessageDTO.builder().id(id).message(storedMessages.get(id)).build());
+    });
+    when(internalService.updateMessage(anyLong(), any(MessageDTO.class), isNull())).thenAnswer(invocation -> {
+      final Long id = invocation.getArgument(0);
+      final MessageDTO dto = invocation.getArgument(1);
+      storedMessages.put(id, dto.getMessage());
+      publish(id, MessageChangeType.UPDATED);
+      return ResponseEntity.ok(MessageDTO.builder().id(id).message(dto.getMessage()).build());
+    });
+    when(internalService.deleteMessage(anyLong(), isNull())).thenAnswer(invocation -> {
+      final Long id = invocation.getArgument(0);
+      storedMessages.remove(id);
+      publish(id, MessageChangeType.DELETED);
+      return ResponseEntity.noContent().build();
+    });
+    when(internalService.getChanges(nullable(Long.class), anyLong())).thenAnswer(invocation -> {
+      final Long since = invocation.getArgument(0);
+      synchronized (feed) {
+        final List<MessageChangeDTO> changes = since == null ? List.of() : List.copyOf(feed.subList(since.intValue(), feed.size()));
+        return ResponseEntity.ok(MessageChangesDTO.builder().epoch(EPOCH).lastSequence((long) feed.size()).changes(changes).build());
+      }
+    });
+
+    final MessageCacheProperties properties = new MessageCacheProperties();
+    final MessageCache cacheA = new MessageCache(properties, new SimpleMeterRegistry());
+    final MessageCache cacheB = new MessageCache(properties, new SimpleMeterRegistry());
+    gatewayA = new MessageServiceImpl(internalService, cacheA);
+    gatewayB = new MessageServiceImpl(internalService, cacheB);
+    final List<ServiceInstance> instances = List.of(INSTANCE);
+    subscriberA = new MessageChangeSubscriber(() -> instances, instance -> internalService, cacheA, properties);
+    subscriberB = new MessageChangeSubscriber(() -> instances, instance -> internalService, cacheB, properties);
+    subscriberA.pollOnce();
+    subscriberB.pollOnce();
+  }
+
+  @Test
+  void testUpdateThroughOneGateway_ShouldEvictMessageCachedByTheOther() throws ServiceException {
+    assertThat(gatewayB.findById(1L).getMessage()).isEqualTo("Original message");
+
+    gatewayA.update(1L, MessageDTO.builder().message("Updated message").build());
+    assertThat(gatewayB.findById(1L).getMessage()).isEqualTo("Original message");
+
+    subscriberB.pollOnce();
+
+    assertThat(gatewayB.findById(1L).getMessage()).isEqualTo("Updated message");
+    assertThat(gatewayA.findById(1L).getMessage()).isEqualTo("Updated message");
+  }
+
+  @Test
+  void testDeleteThroughOneGateway_ShouldEvictMessageCachedByTheOther() throws ServiceException {
+    gatewayB.findById(1L);
+
+    gatewayA.deleteById(1L);
+    subscriberB.pollOnce();
+
+    assertThat(gatewayB.findById(1L).getMessage()).isNull();
+  }
+
+  @Test
+  void testChangeOlderThanCachedCopy_ShouldKeepIt() throws ServiceException {
+    when(internalService.getMessageById(2L)).thenReturn(ResponseEntity.ok(MessageDTO.builder().id(2L).message("Version 2").version(2L).build()));
+    gatewayB.findById(2L);
+    synchronized (feed) {
+      feed.add(MessageChangeDTO.builder().sequence(feed.size() + 1L).id(2L).type(MessageChangeType.UPDATED).version(1L).build());
+    }
+    when(internalService.getMessageById(2L)).thenReturn(ResponseEntity.ok(MessageDTO.builder().id(2L).message("Version 1").version(1L).build()));
+
+    subscriberB.pollOnce();
+
+    assertThat(gatewayB.findById(2L).getMessage()).isEqualTo("Version 2");
+  }
+
+  @Test
+  void testNewEpoch_ShouldClearTheWholeCache() throws ServiceException {
+    gatewayB.findById(1L);
+    storedMessages.put(1L, "Changed while the feed was lost");
+    when(internalService.getChanges(nullable(Long.class), anyLong()))
+        .thenReturn(ResponseEntity.ok(MessageChangesDTO.builder().epoch("epoch-2").lastSequence(0L).changes(List.of()).build()));
+
+    subscriberB.pollOnce();
+
+    assertThat(gatewayB.findById(1L).getMessage()).isEqualTo("Changed while the feed was lost");
+  }
+
+  @Test
+  void testSeveralInternalInstances_ShouldFollowEachFeedWithItsOwnPosition() throws ServiceException {
+    final ServiceInstance otherInstance = new DefaultServiceInstance("internal-2", "oodle-finance-internal", "internal-2", 8080, false);
+    final MessageFeignClient otherService = mock(MessageFeignClient.class);
+    final List<MessageChangeDTO> otherFeed = new ArrayList<>();
+    when(otherService.getChanges(nullable(Long.class), anyLong())).thenAnswer(invocation -> {
+      final Long since = invocation.getArgument(0);
+      final List<MessageChangeDTO> changes = since == null ? List.of() : List.copyOf(otherFeed.subList(since.intValue(), otherFeed.size()));
+      return ResponseEntity.ok(MessageChangesDTO.builder().epoch("other-epoch").lastSequence((long) otherFeed.size()).changes(changes).build());
+    });
+    final MessageCache cache = new MessageCache(new MessageCacheProperties(), new SimpleMeterRegistry());
+    final MessageServiceImpl gateway = new MessageServiceImpl(internalService, cache);
+    final MessageChangeSubscriber subscriber = new MessageChangeSubscriber(() -> List.of(INSTANCE, otherInstance),
+                                                                           instance -> instance == INSTANCE ? internalService : otherService,
+                                                                           cache, new MessageCacheProperties());
+    subscriber.pollOnce();
+    when(internalService.getMessageById(2L)).thenReturn(ResponseEntity.ok(MessageDTO.builder().id(2L).message("Cached").build()));
+    gateway.findById(1L);
+    gateway.findById(2L);
+
+    storedMessages.put(1L, "Updated through the other instance");
+    otherFeed.add(MessageChangeDTO.builder().sequence(1L).id(1L).type(MessageChangeType.UPDATED).build());
+    subscriber.pollOnce();
+
+    assertThat(gateway.findById(1L).getMessage()).isEqualTo("Updated through the other instance");
+    verify(internalService, times(1)).getMessageById(2L);
+    verify(otherService).getChanges(0L, new MessageCacheProperties().getInvalidation().getPollTimeout().toMillis());
+    verify(internalService, never()).getChanges(eq(1L), anyLong());
+  }
+
+  private void publish(final Long id, final MessageChangeType type) {
+    synchronized (feed) {
+      feed.add(MessageChangeDTO.builder().sequence(feed.size() + 1L).id(id).type(type).build());
+    }
+  }
+}
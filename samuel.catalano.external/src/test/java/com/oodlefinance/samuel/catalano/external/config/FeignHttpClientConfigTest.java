@@ -0,0 +1,74 @@
+package com.oodlefinance.samuel.catalano.external.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import feign.RequestInterceptor;
+import feign.RequestTemplate;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.client5.http.io.HttpClientConnectionManager;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+class FeignHttpClientConfigTest {
+
+  private final FeignHttpClientConfig config = new FeignHttpClientConfig();
+
+  @Test
+  void testGzipRequestInterceptor_ShouldCompressLargeBodies() throws IOException {
+    final byte[] body = "{\"message\":\"A long message\"},".repeat(200).getBytes(StandardCharsets.UTF_8);
+    final RequestTemplate template = new RequestTemplate().body(body, StandardCharsets.UTF_8);
+
+    interceptor().apply(template);
+
+    assertThat(template.headers().get(HttpHeaders.CONTENT_ENCODING)).containsExactly("gzip");
+    assertThat(template.body().length).isLessThan(body.length);
+    try (var inflated = new GZIPInputStream(new ByteArrayInputStream(template.body()))) {
+      assertThat(inflated.readAllBytes()).isEqualTo(body);
+    }
+  }
+
+  @Test
+  void testGzipRequestInterceptor_ShouldKeepSmallBodiesUncompressed() {
+    final byte[] body = "{\"message\":\"Short\"}".getBytes(StandardCharsets.UTF_8);
+    final RequestTemplate template = new RequestTemplate().body(body, StandardCharsets.UTF_8);
+
+    interceptor().apply(template);
+
+    assertThat(template.headers()).doesNotContainKey(HttpHeaders.CONTENT_ENCODING);
+    assertThat(template.body()).isEqualTo(body);
+  }
+
+  @Test
+  void testFeignConnectionPoolMetrics_ShouldPublishPoolLimits() {
+    final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    final var connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                                                                           .setMaxConnTotal(200)
+                                                                           .setMaxConnPerRoute(50)
+                                                                           .build();
+    final var beanFactory = new StaticListableBeanFactory(Map.of("hc5ConnectionManager", connectionManager));
+
+    config.feignConnectionPoolMetrics(beanFactory.getBeanProvider(HttpClientConnectionManager.class))
+          .bindTo(registry);
+
+    assertThat(registry.get(FeignHttpClientConfig.POOL_METRICS + ".total.max").gauge().value()).isEqualTo(200.0);
+    assertThat(registry.get(FeignHttpClientConfig.POOL_METRICS + ".route.max.default").gauge().value()).isEqualTo(50.0);
+    assertThat(registry.get(FeignHttpClientConfig.POOL_METRICS + ".total.connections").tag("state", "leased").gauge().value())
+        .isZero();
+  }
+
+  private RequestInterceptor interceptor() {
+    final GatewayProperties properties = new GatewayProperties();
+    properties.getCompression().setMinRequestSize(DataSize.ofKilobytes(1));
+    return config.gzipRequestInterceptor(properties);
+  }
+}
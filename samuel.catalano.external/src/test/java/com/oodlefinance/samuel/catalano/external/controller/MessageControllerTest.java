@@ -6,11 +6,20 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.oodlefinance.samuel.catalano.external.dto.BatchItemResultDTO;
 import com.oodlefinance.samuel.catalano.external.dto.MessageDTO;
+import com.oodlefinance.samuel.catalano.external.dto.MessageRangeDTO;
+import com.oodlefinance.samuel.catalano.external.dto.MessageSearchResultDTO;
+import com.oodlefinance.samuel.catalano.external.exception.ClientErrorException;
+import com.oodlefinance.samuel.catalano.external.exception.PreconditionFailedException;
+import com.oodlefinance.samuel.catalano.external.exception.ServiceException;
+import com.oodlefinance.samuel.catalano.external.resilience.CallRejectedException;
 import com.oodlefinance.samuel.catalano.external.service.impl.MessageServiceImpl;
 
 import org.junit.jupiter.api.Test;
@@ -18,9 +27,13 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.time.Instant;
 import java.util.List;
 
 @SpringBootTest
@@ -38,7 +51,7 @@ class MessageControllerTest {
     final MessageDTO messageDTO = MessageDTO.builder().message("Created message").build();
     final MessageDTO createdMessage = new MessageDTO();
 
-    given(messageService.create(messageDTO)).willReturn(createdMessage);
+    given(messageService.create(messageDTO)).willReturn(ResponseEntity.status(HttpStatus.CREATED).body(createdMessage));
 
     mockMvc.perform(post("/api/messages")
             .contentType(MediaType.APPLICATION_JSON)
@@ -46,13 +59,57 @@ class MessageControllerTest {
         .andExpect(status().isCreated());
   }
 
+  @Test
+  void createMessage_WhenOnlyAccepted_Returns202() throws Exception {
+    final MessageDTO messageDTO = MessageDTO.builder().message("Accepted message").build();
+    final MessageDTO acceptedMessage = MessageDTO.builder().id(7L).message("Accepted message").version(0L).build();
+
+    given(messageService.create(messageDTO)).willReturn(ResponseEntity.status(HttpStatus.ACCEPTED).body(acceptedMessage));
+
+    mockMvc.perform(post("/api/messages")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(asJsonString(messageDTO)))
+        .andExpect(status().isAccepted())
+        .andExpect(jsonPath("$.id").value(7));
+  }
+
+  @Test
+  void createMessage_WhenQueueIsFull_Returns429AndRetryAfter() throws Exception {
+    final MessageDTO messageDTO = MessageDTO.builder().message("Refused message").build();
+
+    given(messageService.create(messageDTO)).willThrow(new ClientErrorException(429, "Message ingestion queue is full, retry later", "1"));
+
+    mockMvc.perform(post("/api/messages")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(asJsonString(messageDTO)))
+        .andExpect(status().isTooManyRequests())
+        .andExpect(header().string(HttpHeaders.RETRY_AFTER, "1"))
+        .andExpect(jsonPath("$.message").value("Message ingestion queue is full, retry later"));
+  }
+
+  @Test
+  void deleteMessages_Returns200AndOneResultPerId() throws Exception {
+    final List<BatchItemResultDTO> results = List.of(
+        BatchItemResultDTO.builder().index(0).id(1L).status(204).build(),
+        BatchItemResultDTO.builder().index(1).id(2L).status(404).error("not found").build());
+
+    given(messageService.deleteAllById(List.of(1L, 2L))).willReturn(results);
+
+    mockMvc.perform(delete("/api/messages/batch")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(asJsonString(List.of(1L, 2L))))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$", hasSize(2)))
+        .andExpect(jsonPath("$[1].status").value(404));
+  }
+
   @Test
   void updateMessage_Returns200AndUpdatedMessage() throws Exception {
     final Long id = 1L;
     final MessageDTO messageDTO = MessageDTO.builder().message("Updated message").build();
     final MessageDTO updatedMessage = new MessageDTO();
 
-    given(messageService.update(id, messageDTO)).willReturn(updatedMessage);
+    given(messageService.update(id, messageDTO, null)).willReturn(updatedMessage);
 
     mockMvc.perform(put("/api/messages/{id}", id)
             .contentType(MediaType.APPLICATION_JSON)
@@ -60,6 +117,20 @@ class MessageControllerTest {
         .andExpect(status().isOk());
   }
 
+  @Test
+  void updateMessage_WithStaleIfMatch_Returns412() throws Exception {
+    final Long id = 1L;
+    final MessageDTO messageDTO = MessageDTO.builder().message("Updated message").build();
+
+    given(messageService.update(id, messageDTO, "\"3\"")).willThrow(new PreconditionFailedException("stale", null));
+
+    mockMvc.perform(put("/api/messages/{id}", id)
+            .header(HttpHeaders.IF_MATCH, "\"3\"")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(asJsonString(messageDTO)))
+        .andExpect(status().isPreconditionFailed());
+  }
+
   @Test
   void getMessageById_Returns200AndMessage() throws Exception {
     final Long id = 1L;
@@ -71,19 +142,91 @@ class MessageControllerTest {
         .andExpect(status().isOk());
   }
 
+  @Test
+  void getMessageById_WhenMissing_Returns404AndMessage() throws Exception {
+    final Long id = 1L;
+
+    given(messageService.findById(id)).willThrow(new ClientErrorException(404, "There is no member found with id: 1"));
+
+    mockMvc.perform(get("/api/messages/{id}", id))
+        .andExpect(status().isNotFound())
+        .andExpect(jsonPath("$.message").value("There is no member found with id: 1"));
+  }
+
+  @Test
+  void getMessageById_WhenCallRejected_Returns503() throws Exception {
+    final Long id = 1L;
+
+    given(messageService.findById(id)).willThrow(new ServiceException("rejected", new CallRejectedException("Circuit breaker of getMessageById is open")));
+
+    mockMvc.perform(get("/api/messages/{id}", id))
+        .andExpect(status().isServiceUnavailable())
+        .andExpect(jsonPath("$.message").value("Circuit breaker of getMessageById is open"));
+  }
+
+  @Test
+  void getMessageById_WithMatchingIfNoneMatch_Returns304() throws Exception {
+    final Long id = 1L;
+    final MessageDTO message = MessageDTO.builder().id(id).message("Message").version(2L).build();
+
+    given(messageService.findById(id)).willReturn(message);
+
+    mockMvc.perform(get("/api/messages/{id}", id).header(HttpHeaders.IF_NONE_MATCH, "\"2\""))
+        .andExpect(status().isNotModified())
+        .andExpect(header().string(HttpHeaders.ETAG, "\"2\""))
+        .andExpect(content().string(""));
+  }
+
   @Test
   void getAllMessages_Returns200AndListOfMessages() throws Exception {
     final List<MessageDTO> messages = List.of(
         MessageDTO.builder().message("Message 1").build(),
         MessageDTO.builder().message("Message 2").build());
 
-    given(messageService.findAll()).willReturn(messages);
+    given(messageService.findAll(5L, 2)).willReturn(messages);
 
-    mockMvc.perform(get("/api/messages"))
+    mockMvc.perform(get("/api/messages").param("after", "5").param("limit", "2"))
         .andExpect(status().isOk())
         .andExpect(jsonPath("$", hasSize(2)));
   }
 
+  @Test
+  void searchMessages_Returns200AndRankedPage() throws Exception {
+    final MessageSearchResultDTO result = MessageSearchResultDTO.builder()
+        .total(2)
+        .offset(0)
+        .limit(20)
+        .messages(List.of(MessageDTO.builder().id(4L).message("Payment received").build()))
+        .build();
+
+    given(messageService.search("payment", null, null)).willReturn(result);
+
+    mockMvc.perform(get("/api/messages/search").param("q", "payment"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.total").value(2))
+        .andExpect(jsonPath("$.messages[0].message").value("Payment received"));
+  }
+
+  @Test
+  void getMessagesCreatedBetween_Returns200AndNextPageCursor() throws Exception {
+    final Instant from = Instant.parse("2023-02-01T00:00:00Z");
+    final Instant to = Instant.parse("2023-02-02T00:00:00Z");
+    final Instant nextBefore = Instant.parse("2023-02-01T12:00:00Z");
+    final MessageRangeDTO range = MessageRangeDTO.builder()
+        .messages(List.of(MessageDTO.builder().id(7L).message("Latest message").build()))
+        .nextBefore(nextBefore)
+        .nextBeforeId(7L)
+        .build();
+
+    given(messageService.findCreatedBetween(from, to, null, null, 1)).willReturn(range);
+
+    mockMvc.perform(get("/api/messages/range").param("from", from.toString()).param("to", to.toString()).param("limit", "1"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.messages[0].id").value(7))
+        .andExpect(jsonPath("$.nextBefore").value("2023-02-01T12:00:00Z"))
+        .andExpect(jsonPath("$.nextBeforeId").value(7));
+  }
+
   @Test
   void deleteMessage_Returns204() throws Exception {
     final Long id = 1L;
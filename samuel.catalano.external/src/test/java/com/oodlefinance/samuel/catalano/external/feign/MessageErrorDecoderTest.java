@@ -0,0 +1,90 @@
+package com.oodlefinance.samuel.catalano.external.feign;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.oodlefinance.samuel.catalano.external.exception.ClientErrorException;
+import com.oodlefinance.samuel.catalano.external.exception.PreconditionFailedException;
+import feign.FeignException;
+import feign.Request;
+import feign.Response;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+class MessageErrorDecoderTest {
+
+  private final MessageErrorDecoder decoder = new MessageErrorDecoder(new ObjectMapper());
+
+  @Test
+  void testDecode_WithNotFound_ShouldPassStatusAndMessageThrough() {
+    final Exception exception = decoder.decode("getMessageById", response(404, "{\"status\":\"NOT_FOUND\",\"message\":\"There is no member found with id: 1\",\"code\":404}"));
+
+    assertThat(exception).isInstanceOf(ClientErrorException.class)
+                         .hasMessage("There is no member found with id: 1")
+                         .extracting(e -> ((ClientErrorException) e).getStatus()).isEqualTo(404);
+    assertThat(exception.getStackTrace()).isEmpty();
+  }
+
+  @Test
+  void testDecode_WithoutErrorResponse_ShouldFallBackToReasonPhrase() {
+    final Exception exception = decoder.decode("getMessagesCreatedBetween", response(400, "not json"));
+
+    assertThat(exception).isInstanceOf(ClientErrorException.class).hasMessage("Bad Request");
+  }
+
+  @Test
+  void testDecode_WithTooManyRequests_ShouldKeepRetryAfter() {
+    final Exception exception = decoder.decode("createMessage", response(429, "{\"message\":\"Message ingestion queue is full, retry later\"}",
+                                                                         Map.of(HttpHeaders.RETRY_AFTER, List.of("1"))));
+
+    assertThat(exception).isInstanceOf(ClientErrorException.class).hasMessage("Message ingestion queue is full, retry later");
+    assertThat(((ClientErrorException) exception).getStatus()).isEqualTo(429);
+    assertThat(((ClientErrorException) exception).getRetryAfter()).isEqualTo("1");
+  }
+
+  @Test
+  void testDecode_WithShedRequest_ShouldKeepStatusAndRetryAfterWithoutStackTrace() {
+    final Exception exception = decoder.decode("searchMessages", response(503, "{\"message\":\"Too many bulk requests in progress, retry later\"}",
+                                                                          Map.of(HttpHeaders.RETRY_AFTER, List.of("1"))));
+
+    assertThat(exception).isInstanceOf(ClientErrorException.class).hasMessage("Too many bulk requests in progress, retry later");
+    assertThat(((ClientErrorException) exception).getStatus()).isEqualTo(503);
+    assertThat(((ClientErrorException) exception).getRetryAfter()).isEqualTo("1");
+    assertThat(exception.getStackTrace()).isEmpty();
+  }
+
+  @Test
+  void testDecode_WithPreconditionFailed_ShouldThrowPreconditionFailedWithoutStackTrace() {
+    final Exception exception = decoder.decode("updateMessage", response(412, "{\"message\":\"Message 1 is no longer at version 2\"}"));
+
+    assertThat(exception).isInstanceOf(PreconditionFailedException.class).hasMessage("Message 1 is no longer at version 2");
+    assertThat(exception.getStackTrace()).isEmpty();
+  }
+
+  @Test
+  void testDecode_WithServerError_ShouldKeepFeignException() {
+    assertThat(decoder.decode("getMessageById", response(500, "{\"message\":\"boom\"}")))
+        .isInstanceOf(FeignException.class)
+        .extracting(e -> ((FeignException) e).status()).isEqualTo(500);
+  }
+
+  private static Response response(final int status, final String body) {
+    return response(status, body, Map.of());
+  }
+
+  private static Response response(final int status, final String body, final Map<String, Collection<String>> headers) {
+    final Request request = Request.create(Request.HttpMethod.GET, "/api/messages/1", Map.of(), null, StandardCharsets.UTF_8, null);
+    return Response.builder()
+                   .status(status)
+                   .request(request)
+                   .headers(headers)
+                   .body(body, StandardCharsets.UTF_8)
+                   .build();
+  }
+}
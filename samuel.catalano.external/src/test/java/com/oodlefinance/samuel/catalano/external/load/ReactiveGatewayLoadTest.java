@@ -0,0 +1,112 @@
+package com.oodlefinance.samuel.catalano.external.load;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.oodlefinance.samuel.catalano.external.ExternalApplication;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Holds {@value #REQUESTS} requests in flight through the gateway in {@code reactive} mode against a stub of the
+ * internal service that answers after {@link #INTERNAL_DELAY}. Run with {@code ./gradlew loadTest}; it needs a
+ * file descriptor limit of about 50k ({@code ulimit -n}).
+ */
+@Tag("load")
+class ReactiveGatewayLoadTest {
+
+  private static final int REQUESTS = 10_000;
+  private static final Duration INTERNAL_DELAY = Duration.ofSeconds(5);
+  private static final long MAX_HEAP_BYTES_PER_REQUEST = 64 * 1024;
+
+  private final AtomicInteger inFlight = new AtomicInteger();
+  private final AtomicInteger peakInFlight = new AtomicInteger();
+
+  private DisposableServer internalService;
+  private ConfigurableApplicationContext gateway;
+
+  @BeforeEach
+  void setup() {
+    internalService = HttpServer.create()
+                                .port(0)
+                                .route(routes -> routes.get("/api/messages/{id}", (request, response) -> {
+                                  peakInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                                  final String body = "{\"id\":" + request.param("id") + ",\"message\":\"Hello\"}";
+                                  return response.header("Content-Type", "application/json")
+                                                 .sendString(Mono.delay(INTERNAL_DELAY)
+                                                                 .doOnNext(tick -> inFlight.decrementAndGet())
+                                                                 .thenReturn(body));
+                                }))
+                                .bindNow();
+
+    gateway = new SpringApplicationBuilder(ExternalApplication.class)
+        .properties("server.port=0",
+                    "server.tomcat.threads.max=50",
+                    "spring.cloud.consul.enabled=false",
+                    "spring.cloud.consul.discovery.enabled=false",
+                    "spring.cloud.discovery.client.simple.instances.oodle-finance-internal[0].uri=http://localhost:" + internalService.port(),
+                    "oodle.gateway.mode=reactive",
+                    "oodle.gateway.reactive.max-connections=" + (REQUESTS + 1_000),
+                    "oodle.cache.messages.enabled=false",
+                    "oodle.cache.messages.invalidation.enabled=false")
+        .run();
+  }
+
+  @AfterEach
+  void tearDown() {
+    gateway.close();
+    internalService.disposeNow();
+  }
+
+  @Test
+  void testTenThousandSlowRequests_ShouldAllBeInFlightAtOnceWithBoundedHeap() {
+    final int gatewayPort = ((WebServerApplicationContext) gateway).getWebServer().getPort();
+    final HttpClient client = HttpClient.create(ConnectionProvider.builder("load-test")
+                                                                  .maxConnections(REQUESTS)
+                                                                  .pendingAcquireMaxCount(-1)
+                                                                  .build())
+                                        .baseUrl("http://localhost:" + gatewayPort)
+                                        .responseTimeout(INTERNAL_DELAY.multipliedBy(6));
+
+    final long heapBefore = usedHeapAfterGc();
+    final Mono<Long> heapAtPeak = Mono.delay(INTERNAL_DELAY.dividedBy(2)).map(tick -> usedHeapAfterGc());
+
+    final AtomicInteger succeeded = new AtomicInteger();
+    final Mono<Void> load = Flux.range(1, REQUESTS)
+                                .flatMap(id -> client.get()
+                                                     .uri("/api/messages/" + id)
+                                                     .responseSingle((response, body) -> body.asString()
+                                                                                             .filter(ignored -> response.status().code() == 200)),
+                                         REQUESTS)
+                                .doOnNext(body -> succeeded.incrementAndGet())
+                                .then();
+
+    final Long heapGrowth = Mono.zip(load.thenReturn(true), heapAtPeak)
+                                .map(result -> result.getT2() - heapBefore)
+                                .block(INTERNAL_DELAY.multipliedBy(12));
+
+    assertThat(succeeded.get()).isEqualTo(REQUESTS);
+    assertThat(peakInFlight.get()).isGreaterThanOrEqualTo(REQUESTS);
+    assertThat(heapGrowth).isLessThan(REQUESTS * MAX_HEAP_BYTES_PER_REQUEST);
+  }
+
+  private static long usedHeapAfterGc() {
+    System.gc();
+    return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+  }
+}
@@ -0,0 +1,151 @@
+package com.oodlefinance.samuel.catalano.external.loadbalancer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.oodlefinance.samuel.catalano.external.config.GatewayProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.DefaultRequest;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.support.ServiceInstanceListSuppliers;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+class LatencyAwareLoadBalancerTest {
+
+  private static final String SERVICE_ID = "oodle-finance-internal";
+
+  private final ServiceInstance fast = instance(8081);
+  private final ServiceInstance busy = instance(8082);
+  private final ServiceInstance slow = instance(8083);
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+  @Test
+  void testChoose_ShouldAvoidSlowInstance() {
+    final InstanceStatsRegistry registry = registry(Duration.ofSeconds(30));
+    record(registry, fast, 5, false);
+    record(registry, busy, 5, false);
+    record(registry, slow, 500, false);
+
+    final Map<ServiceInstance, Long> choices = choose(registry, 1_000);
+
+    assertThat(choices.getOrDefault(slow, 0L)).isZero();
+    assertThat(choices.get(fast)).isPositive();
+    assertThat(choices.get(busy)).isPositive();
+    assertThat(meterRegistry.get(InstanceStatsRegistry.METRICS_PREFIX + ".latency").tag("instance", "localhost:8083").gauge().value())
+        .isGreaterThan(0.4);
+  }
+
+  @Test
+  void testChoose_ShouldAvoidInstanceWithRequestsInFlight() {
+    final InstanceStatsRegistry registry = registry(Duration.ofSeconds(30));
+    record(registry, fast, 5, false);
+    record(registry, busy, 5, false);
+    record(registry, slow, 5, false);
+    IntStream.range(0, 10).forEach(i -> registry.stats(busy).start());
+
+    final Map<ServiceInstance, Long> choices = choose(registry, 1_000);
+
+    assertThat(choices.getOrDefault(busy, 0L)).isZero();
+    assertThat(meterRegistry.get(InstanceStatsRegistry.METRICS_PREFIX + ".outstanding").tag("instance", "localhost:8082").gauge().value())
+        .isEqualTo(10);
+  }
+
+  @Test
+  void testChoose_ShouldEjectFailingInstanceForEjectionTime() throws InterruptedException {
+    final InstanceStatsRegistry registry = registry(Duration.ofMillis(200));
+    record(registry, busy, 50, false);
+    record(registry, slow, 50, false);
+    record(registry, fast, 5, true);
+    record(registry, fast, 5, true);
+    record(registry, fast, 5, true);
+
+    assertThat(choose(registry, 200)).doesNotContainKey(fast);
+    assertThat(meterRegistry.get(InstanceStatsRegistry.METRICS_PREFIX + ".ejected").tag("instance", "localhost:8081").gauge().value())
+        .isEqualTo(1);
+
+    TimeUnit.MILLISECONDS.sleep(300);
+
+    assertThat(choose(registry, 200)).containsKey(fast);
+  }
+
+  @Test
+  void testChoose_WhenAllInstancesEjected_ShouldStillChooseOne() {
+    final InstanceStatsRegistry registry = registry(Duration.ofSeconds(30));
+    for (final ServiceInstance instance : new ServiceInstance[] {fast, busy, slow}) {
+      IntStream.range(0, 3).forEach(i -> record(registry, instance, 5, true));
+    }
+
+    assertThat(choose(registry, 10).values().stream().mapToLong(Long::longValue).sum()).isEqualTo(10);
+  }
+
+  @Test
+  void testChoose_WithAttemptContext_ShouldAvoidInstanceOfFirstAttempt() {
+    final InstanceStatsRegistry registry = registry(Duration.ofSeconds(30));
+    record(registry, fast, 5, false);
+    record(registry, busy, 50, false);
+    record(registry, slow, 500, false);
+
+    new AttemptContext(fast).bind();
+    try {
+      assertThat(choose(registry, 200)).doesNotContainKey(fast).containsKey(busy);
+    } finally {
+      AttemptContext.unbind();
+    }
+  }
+
+  @Test
+  void testChoose_ShouldDropStatsOfInstancesNoLongerDiscovered() {
+    final InstanceStatsRegistry registry = registry(Duration.ofSeconds(30));
+    record(registry, fast, 5, false);
+    record(registry, slow, 500, false);
+
+    choose(registry, 10, fast, busy);
+
+    assertThat(registry.find(slow)).isNull();
+    assertThat(meterRegistry.find(InstanceStatsRegistry.METRICS_PREFIX + ".latency").tag("instance", "localhost:8083").gauge()).isNull();
+    assertThat(meterRegistry.find(InstanceStatsRegistry.METRICS_PREFIX + ".ejected").tag("instance", "localhost:8083").gauge()).isNull();
+    assertThat(registry.find(fast)).isNotNull();
+    assertThat(meterRegistry.find(InstanceStatsRegistry.METRICS_PREFIX + ".latency").tag("instance", "localhost:8081").gauge()).isNotNull();
+  }
+
+  private InstanceStatsRegistry registry(final Duration ejectionTime) {
+    final GatewayProperties.LoadBalancer properties = new GatewayProperties.LoadBalancer();
+    properties.setEjectionTime(ejectionTime);
+    return new InstanceStatsRegistry(properties, meterRegistry);
+  }
+
+  private Map<ServiceInstance, Long> choose(final InstanceStatsRegistry registry, final int times) {
+    return choose(registry, times, fast, busy, slow);
+  }
+
+  private Map<ServiceInstance, Long> choose(final InstanceStatsRegistry registry, final int times, final ServiceInstance... instances) {
+    final ServiceInstanceListSupplier supplier = ServiceInstanceListSuppliers.from(SERVICE_ID, instances);
+    final LatencyAwareLoadBalancer loadBalancer = new LatencyAwareLoadBalancer(
+        SERVICE_ID, new StaticListableBeanFactory(Map.of("supplier", supplier)).getBeanProvider(ServiceInstanceListSupplier.class), registry);
+
+    return IntStream.range(0, times)
+                    .mapToObj(i -> loadBalancer.choose(new DefaultRequest<>()).block().getServer())
+                    .collect(Collectors.groupingBy(Function.identity(), Collectors.counting()));
+  }
+
+  private static void record(final InstanceStatsRegistry registry, final ServiceInstance instance, final long millis, final boolean failed) {
+    final InstanceStats stats = registry.stats(instance);
+    stats.start();
+    stats.complete(TimeUnit.MILLISECONDS.toNanos(millis), failed, System.nanoTime());
+  }
+
+  private static ServiceInstance instance(final int port) {
+    return new DefaultServiceInstance(SERVICE_ID + "-" + port, SERVICE_ID, "localhost", port, false);
+  }
+}
@@ -0,0 +1,92 @@
+package com.oodlefinance.samuel.catalano.external.loadbalancer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.oodlefinance.samuel.catalano.external.ExternalApplication;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs the gateway in front of {@value #REPLICAS} stub instances of the internal service, listed with simple discovery
+ * instead of Consul, the last one answering after {@link #SLOW_DELAY}.
+ */
+class LatencyAwareLoadBalancingTest {
+
+  private static final int REPLICAS = 3;
+  private static final int REQUESTS = 60;
+  private static final Duration SLOW_DELAY = Duration.ofMillis(300);
+
+  private final List<DisposableServer> replicas = new ArrayList<>();
+  private final List<AtomicInteger> calls = new ArrayList<>();
+
+  private ConfigurableApplicationContext gateway;
+
+  @BeforeEach
+  void setup() {
+    final List<String> properties = new ArrayList<>(List.of("server.port=0",
+                                                            "spring.cloud.consul.enabled=false",
+                                                            "spring.cloud.consul.discovery.enabled=false",
+                                                            "oodle.cache.messages.enabled=false",
+                                                            "oodle.cache.messages.invalidation.enabled=false"));
+    for (int i = 0; i < REPLICAS; i++) {
+      final AtomicInteger replicaCalls = new AtomicInteger();
+      final Duration delay = i == REPLICAS - 1 ? SLOW_DELAY : Duration.ZERO;
+      final DisposableServer replica = HttpServer.create()
+                                                 .port(0)
+                                                 .route(routes -> routes.get("/api/messages/{id}", (request, response) -> {
+                                                   replicaCalls.incrementAndGet();
+                                                   final String body = "{\"id\":" + request.param("id") + ",\"message\":\"Hello\"}";
+                                                   return response.header("Content-Type", "application/json")
+                                                                  .sendString(Mono.delay(delay).thenReturn(body));
+                                                 }))
+                                                 .bindNow();
+      replicas.add(replica);
+      calls.add(replicaCalls);
+      properties.add("spring.cloud.discovery.client.simple.instances.oodle-finance-internal[" + i + "].uri=http://localhost:" + replica.port());
+    }
+
+    gateway = new SpringApplicationBuilder(ExternalApplication.class).properties(properties.toArray(String[]::new)).run();
+  }
+
+  @AfterEach
+  void tearDown() {
+    gateway.close();
+    replicas.forEach(DisposableServer::disposeNow);
+  }
+
+  @Test
+  void testFindById_ShouldRouteAroundSlowReplica() throws IOException, InterruptedException {
+    final int gatewayPort = ((WebServerApplicationContext) gateway).getWebServer().getPort();
+    final HttpClient client = HttpClient.newHttpClient();
+
+    int succeeded = 0;
+    for (int id = 1; id <= REQUESTS; id++) {
+      final HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + gatewayPort + "/api/messages/" + id)).build();
+      if (client.send(request, HttpResponse.BodyHandlers.ofString()).statusCode() == 200) {
+        succeeded++;
+      }
+    }
+
+    assertThat(succeeded).isEqualTo(REQUESTS);
+    assertThat(calls.get(REPLICAS - 1).get()).isLessThan(REQUESTS / 10);
+    assertThat(calls.subList(0, REPLICAS - 1)).allSatisfy(replicaCalls -> assertThat(replicaCalls.get()).isPositive());
+  }
+}
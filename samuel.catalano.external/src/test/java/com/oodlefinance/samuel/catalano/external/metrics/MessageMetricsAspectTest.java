@@ -0,0 +1,59 @@
+package com.oodlefinance.samuel.catalano.external.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.oodlefinance.samuel.catalano.external.controller.ReactiveMessageController;
+import com.oodlefinance.samuel.catalano.external.dto.MessageDTO;
+import com.oodlefinance.samuel.catalano.external.service.ReactiveMessageService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.TimeUnit;
+
+class MessageMetricsAspectTest {
+
+  private SimpleMeterRegistry meterRegistry;
+  private ReactiveMessageService messageService;
+  private ReactiveMessageController controller;
+
+  @BeforeEach
+  void setup() {
+    meterRegistry = new SimpleMeterRegistry();
+    messageService = mock(ReactiveMessageService.class);
+    final AspectJProxyFactory proxyFactory = new AspectJProxyFactory(new ReactiveMessageController(messageService));
+    proxyFactory.setProxyTargetClass(true);
+    proxyFactory.addAspect(new MessageMetricsAspect(meterRegistry));
+    controller = proxyFactory.getProxy();
+  }
+
+  @Test
+  void testReactiveCall_ShouldBeTimedFromSubscription() throws InterruptedException {
+    when(messageService.findById(1L)).thenReturn(Mono.just(MessageDTO.builder().id(1L).version(0L).build()));
+
+    final var response = controller.getMessageById(1L);
+    Thread.sleep(200);
+    response.block();
+
+    final var timer = meterRegistry.get(MessageMetricsAspect.TIMER)
+                                   .tags("layer", "controller", "operation", "ReactiveMessageController.getMessageById", "outcome", "success")
+                                   .timer();
+    assertThat(timer.count()).isEqualTo(1);
+    assertThat(timer.totalTime(TimeUnit.MILLISECONDS)).isLessThan(200);
+  }
+
+  @Test
+  void testCancelledReactiveCall_ShouldBeTimedAsCancelled() {
+    when(messageService.findById(1L)).thenReturn(Mono.never());
+
+    controller.getMessageById(1L).subscribe().dispose();
+
+    assertThat(meterRegistry.get(MessageMetricsAspect.TIMER).tags("outcome", "cancelled").timer().count()).isEqualTo(1);
+    assertThat(meterRegistry.find(MessageMetricsAspect.ERRORS).counter()).isNull();
+  }
+}
@@ -0,0 +1,94 @@
+package com.oodlefinance.samuel.catalano.external.resilience;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.stream.IntStream;
+
+class CircuitBreakerTest {
+
+  private static final long OPEN_NANOS = 1_000;
+
+  private final CircuitBreaker circuitBreaker = new CircuitBreaker(50, 10, 4, OPEN_NANOS, 2);
+
+  @Test
+  void testOnFailure_ShouldOpenOnceFailureRateIsReached() {
+    call(0, true);
+    call(0, true);
+    call(0, false);
+
+    assertThat(circuitBreaker.state()).isEqualTo(CircuitBreaker.State.CLOSED);
+
+    call(0, false);
+    call(0, true);
+
+    assertThat(circuitBreaker.state()).isEqualTo(CircuitBreaker.State.OPEN);
+    assertThat(circuitBreaker.tryAcquire(OPEN_NANOS - 1)).isEqualTo(CircuitBreaker.REJECTED);
+  }
+
+  @Test
+  void testOnFailure_ShouldForgetCallsOutsideSlidingWindow() {
+    final CircuitBreaker slidingBreaker = new CircuitBreaker(50, 4, 4, OPEN_NANOS, 2);
+    IntStream.range(0, 3).forEach(i -> slidingBreaker.onFailure(slidingBreaker.tryAcquire(0), 0));
+    IntStream.range(0, 4).forEach(i -> slidingBreaker.onSuccess(slidingBreaker.tryAcquire(0)));
+
+    slidingBreaker.onFailure(slidingBreaker.tryAcquire(0), 0);
+
+    assertThat(slidingBreaker.state()).isEqualTo(CircuitBreaker.State.CLOSED);
+  }
+
+  @Test
+  void testTryAcquire_AfterOpenDuration_ShouldLetTrialCallsThrough() {
+    IntStream.range(0, 4).forEach(i -> call(0, true));
+
+    final long first = circuitBreaker.tryAcquire(OPEN_NANOS);
+    final long second = circuitBreaker.tryAcquire(OPEN_NANOS);
+    assertThat(first).isNotEqualTo(CircuitBreaker.REJECTED);
+    assertThat(second).isNotEqualTo(CircuitBreaker.REJECTED);
+    assertThat(circuitBreaker.tryAcquire(OPEN_NANOS)).isEqualTo(CircuitBreaker.REJECTED);
+    assertThat(circuitBreaker.state()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+
+    circuitBreaker.onSuccess(first);
+    circuitBreaker.onSuccess(second);
+
+    assertThat(circuitBreaker.state()).isEqualTo(CircuitBreaker.State.CLOSED);
+  }
+
+  @Test
+  void testOnFailure_WhenHalfOpen_ShouldOpenAgain() {
+    IntStream.range(0, 4).forEach(i -> call(0, true));
+    final long trial = circuitBreaker.tryAcquire(OPEN_NANOS);
+
+    circuitBreaker.onFailure(trial, OPEN_NANOS);
+
+    assertThat(circuitBreaker.state()).isEqualTo(CircuitBreaker.State.OPEN);
+    assertThat(circuitBreaker.tryAcquire(2 * OPEN_NANOS - 1)).isEqualTo(CircuitBreaker.REJECTED);
+  }
+
+  @Test
+  void testOutcome_OfCallAllowedBeforeCurrentState_ShouldBeIgnored() {
+    final long slowCall = circuitBreaker.tryAcquire(0);
+    IntStream.range(0, 4).forEach(i -> call(0, true));
+    final long trial = circuitBreaker.tryAcquire(OPEN_NANOS);
+
+    circuitBreaker.onFailure(slowCall, OPEN_NANOS);
+    assertThat(circuitBreaker.state()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+    circuitBreaker.onSuccess(slowCall);
+    circuitBreaker.onSuccess(trial);
+    assertThat(circuitBreaker.state()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+
+    circuitBreaker.onSuccess(circuitBreaker.tryAcquire(OPEN_NANOS));
+    assertThat(circuitBreaker.state()).isEqualTo(CircuitBreaker.State.CLOSED);
+  }
+
+  private void call(final long now, final boolean failed) {
+    final long permit = circuitBreaker.tryAcquire(now);
+    assertThat(permit).isNotEqualTo(CircuitBreaker.REJECTED);
+    if (failed) {
+      circuitBreaker.onFailure(permit, now);
+    } else {
+      circuitBreaker.onSuccess(permit);
+    }
+  }
+}
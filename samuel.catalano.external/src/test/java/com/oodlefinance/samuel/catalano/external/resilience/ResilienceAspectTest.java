@@ -0,0 +1,188 @@
+package com.oodlefinance.samuel.catalano.external.resilience;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import com.oodlefinance.samuel.catalano.external.config.GatewayProperties;
+import com.oodlefinance.samuel.catalano.external.dto.MessageDTO;
+import com.oodlefinance.samuel.catalano.external.feign.MessageFeignClient;
+import feign.FeignException;
+import feign.Request;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.http.ResponseEntity;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class ResilienceAspectTest {
+
+  private final MessageFeignClient target = mock(MessageFeignClient.class);
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private final GatewayProperties properties = new GatewayProperties();
+
+  private ResilienceAspect aspect;
+
+  @AfterEach
+  void tearDown() {
+    aspect.destroy();
+  }
+
+  @Test
+  void testGetMessageById_WhenFirstAttemptIsSlow_ShouldAnswerWithHedge() throws Exception {
+    properties.getResilience().getHedging().setMinimumSamples(20);
+    final MessageFeignClient client = client();
+    final AtomicInteger calls = new AtomicInteger();
+    final int slowCall = 31;
+    given(target.getMessageById(anyLong())).willAnswer(invocation -> {
+      if (calls.incrementAndGet() == slowCall) {
+        TimeUnit.SECONDS.sleep(2);
+      }
+      return ResponseEntity.ok(MessageDTO.builder().id(invocation.getArgument(0)).message("Hello").build());
+    });
+    for (long id = 1; id < slowCall; id++) {
+      client.getMessageById(id);
+    }
+
+    final long start = System.nanoTime();
+    final MessageDTO message = client.getMessageById(31L).getBody();
+
+    assertThat(message.getId()).isEqualTo(31L);
+    assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(1));
+    assertThat(meterRegistry.get(ResilienceAspect.METRICS_PREFIX + ".hedges").tag("operation", "getMessageById").counter().count())
+        .isEqualTo(1);
+    assertThat(meterRegistry.get(ResilienceAspect.METRICS_PREFIX + ".hedges.won").tag("operation", "getMessageById").counter().count())
+        .isEqualTo(1);
+  }
+
+  @Test
+  void testGetMessageById_WhenHedged_ShouldHoldOneBulkheadSlotPerAttempt() throws Exception {
+    properties.getResilience().getHedging().setMinimumSamples(20);
+    properties.getResilience().getBulkhead().setMaxConcurrentCalls(2);
+    final MessageFeignClient client = client();
+    final AtomicInteger calls = new AtomicInteger();
+    final CountDownLatch release = new CountDownLatch(1);
+    final int slowCall = 31;
+    given(target.getMessageById(anyLong())).willAnswer(invocation -> {
+      if (calls.incrementAndGet() == slowCall) {
+        release.await(5, TimeUnit.SECONDS);
+      }
+      return ResponseEntity.ok(MessageDTO.builder().id(invocation.getArgument(0)).message("Hello").build());
+    });
+    for (long id = 1; id < slowCall; id++) {
+      client.getMessageById(id);
+    }
+
+    assertThat(client.getMessageById(31L).getBody().getId()).isEqualTo(31L);
+
+    assertThat(availableSlots("getMessageById")).isEqualTo(1);
+    release.countDown();
+    final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (availableSlots("getMessageById") < 2 && System.nanoTime() < deadline) {
+      TimeUnit.MILLISECONDS.sleep(10);
+    }
+    assertThat(availableSlots("getMessageById")).isEqualTo(2);
+  }
+
+  @Test
+  void testGetMessageById_WhenNoBulkheadSlotIsFree_ShouldNotHedge() throws Exception {
+    properties.getResilience().getHedging().setMinimumSamples(20);
+    properties.getResilience().getBulkhead().setMaxConcurrentCalls(1);
+    final MessageFeignClient client = client();
+    final AtomicInteger calls = new AtomicInteger();
+    final int slowCall = 31;
+    given(target.getMessageById(anyLong())).willAnswer(invocation -> {
+      if (calls.incrementAndGet() == slowCall) {
+        TimeUnit.MILLISECONDS.sleep(200);
+      }
+      return ResponseEntity.ok(MessageDTO.builder().id(invocation.getArgument(0)).message("Hello").build());
+    });
+    for (long id = 1; id < slowCall; id++) {
+      client.getMessageById(id);
+    }
+
+    assertThat(client.getMessageById(31L).getBody().getId()).isEqualTo(31L);
+
+    verify(target, times(slowCall)).getMessageById(anyLong());
+    assertThat(meterRegistry.get(ResilienceAspect.METRICS_PREFIX + ".hedges").tag("operation", "getMessageById").counter().count())
+        .isZero();
+  }
+
+  @Test
+  void testGuard_WhenFailureRateIsReached_ShouldFailFast() throws Exception {
+    properties.getResilience().getCircuitBreaker().setMinimumCalls(5);
+    final MessageFeignClient client = client();
+    given(target.getMessageById(anyLong())).willThrow(new IllegalStateException("Connection refused"));
+
+    for (int i = 0; i < 5; i++) {
+      assertThatExceptionOfType(IllegalStateException.class).isThrownBy(() -> client.getMessageById(1L));
+    }
+    assertThatExceptionOfType(CallRejectedException.class).isThrownBy(() -> client.getMessageById(1L));
+
+    verify(target, times(5)).getMessageById(1L);
+    assertThat(meterRegistry.get(ResilienceAspect.METRICS_PREFIX + ".circuit-breaker.state").tag("operation", "getMessageById").gauge().value())
+        .isEqualTo(CircuitBreaker.State.OPEN.ordinal());
+    assertThat(meterRegistry.get(ResilienceAspect.METRICS_PREFIX + ".rejected").tags("operation", "getMessageById", "reason", "circuit-open")
+                            .counter().count()).isEqualTo(1);
+  }
+
+  @Test
+  void testGuard_WhenClientErrors_ShouldKeepCircuitClosed() throws Exception {
+    properties.getResilience().getCircuitBreaker().setMinimumCalls(5);
+    final MessageFeignClient client = client();
+    final Request request = Request.create(Request.HttpMethod.GET, "/api/messages/1", Map.of(), null, StandardCharsets.UTF_8, null);
+    given(target.getMessageById(anyLong())).willThrow(new FeignException.NotFound("Not found", request, null, null));
+
+    for (int i = 0; i < 10; i++) {
+      assertThatExceptionOfType(FeignException.NotFound.class).isThrownBy(() -> client.getMessageById(1L));
+    }
+
+    verify(target, times(10)).getMessageById(1L);
+  }
+
+  @Test
+  void testGuard_WhenBulkheadIsFull_ShouldFailFast() throws Exception {
+    properties.getResilience().getBulkhead().setMaxConcurrentCalls(1);
+    final MessageFeignClient client = client();
+    final CountDownLatch started = new CountDownLatch(1);
+    final CountDownLatch release = new CountDownLatch(1);
+    given(target.streamAllMessages()).willAnswer(invocation -> {
+      started.countDown();
+      release.await();
+      return null;
+    });
+
+    final CompletableFuture<?> running = CompletableFuture.runAsync(client::streamAllMessages);
+    assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+    assertThatExceptionOfType(CallRejectedException.class).isThrownBy(client::streamAllMessages);
+    release.countDown();
+    running.get(5, TimeUnit.SECONDS);
+    assertThat(meterRegistry.get(ResilienceAspect.METRICS_PREFIX + ".bulkhead.available").tag("operation", "streamAllMessages").gauge().value())
+        .isEqualTo(1);
+  }
+
+  private double availableSlots(final String operation) {
+    return meterRegistry.get(ResilienceAspect.METRICS_PREFIX + ".bulkhead.available").tag("operation", operation).gauge().value();
+  }
+
+  private MessageFeignClient client() {
+    aspect = new ResilienceAspect(properties, meterRegistry);
+    final AspectJProxyFactory factory = new AspectJProxyFactory(target);
+    factory.addAspect(aspect);
+    return factory.getProxy();
+  }
+}
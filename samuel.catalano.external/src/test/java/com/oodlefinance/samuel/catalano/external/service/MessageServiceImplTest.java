@@ -0,0 +1,215 @@
+package com.oodlefinance.samuel.catalano.external.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import com.oodlefinance.samuel.catalano.external.cache.MessageCache;
+import com.oodlefinance.samuel.catalano.external.cache.MessageCacheProperties;
+import com.oodlefinance.samuel.catalano.external.dto.MessageDTO;
+import com.oodlefinance.samuel.catalano.external.dto.MessagesByIdDTO;
+import com.oodlefinance.samuel.catalano.external.exception.ClientErrorException;
+import com.oodlefinance.samuel.catalano.external.exception.PreconditionFailedException;
+import com.oodlefinance.samuel.catalano.external.exception.ServiceException;
+import com.oodlefinance.samuel.catalano.external.feign.MessageFeignClient;
+import com.oodlefinance.samuel.catalano.external.service.impl.MessageServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+@ExtendWith(MockitoExtension.class)
+class MessageServiceImplTest {
+
+  @Mock
+  private MessageFeignClient messageFeignClient;
+
+  private SimpleMeterRegistry meterRegistry;
+  private MessageCache messageCache;
+  private MessageServiceImpl messageService;
+
+  @BeforeEach
+  void setup() {
+    meterRegistry = new SimpleMeterRegistry();
+    messageCache = new MessageCache(new MessageCacheProperties(), meterRegistry);
+    messageService = new MessageServiceImpl(messageFeignClient, messageCache);
+  }
+
+  @Test
+  void testFindById_ShouldServeRepeatedReadsFromCache() throws ServiceException {
+    final MessageDTO message = MessageDTO.builder().id(1L).message("Cached message").build();
+    when(messageFeignClient.getMessageById(1L)).thenReturn(ResponseEntity.ok(message));
+
+    assertThat(messageService.findById(1L)).isSameAs(message);
+    assertThat(messageService.findById(1L)).isSameAs(message);
+
+    verify(messageFeignClient, times(1)).getMessageById(1L);
+    assertThat(meterRegistry.get("cache.gets").tag("cache", MessageCache.CACHE_NAME).tag("result", "hit").functionCounter().count())
+        .isEqualTo(1.0);
+  }
+
+  @Test
+  void testFindById_WhenChangedDuringTheRead_ShouldNotCacheTheReadMessage() throws ServiceException {
+    final MessageDTO stale = MessageDTO.builder().id(1L).message("Read before the change").version(1L).build();
+    final MessageDTO current = MessageDTO.builder().id(1L).message("Read after the change").version(2L).build();
+    when(messageFeignClient.getMessageById(1L)).thenAnswer(invocation -> {
+      messageCache.evictOlderThan(1L, 2L);
+      return ResponseEntity.ok(stale);
+    }).thenReturn(ResponseEntity.ok(current));
+
+    assertThat(messageService.findById(1L)).isSameAs(stale);
+    assertThat(messageService.findById(1L)).isSameAs(current);
+    assertThat(messageService.findById(1L)).isSameAs(current);
+
+    verify(messageFeignClient, times(2)).getMessageById(1L);
+  }
+
+  @Test
+  void testUpdate_ShouldRefreshCachedMessage() throws ServiceException {
+    final MessageDTO message = MessageDTO.builder().id(1L).message("Old message").build();
+    final MessageDTO updated = MessageDTO.builder().id(1L).message("Updated message").build();
+    when(messageFeignClient.getMessageById(1L)).thenReturn(ResponseEntity.ok(message));
+    when(messageFeignClient.updateMessage(1L, updated, null)).thenReturn(ResponseEntity.ok(updated));
+
+    messageService.findById(1L);
+    messageService.update(1L, updated);
+
+    assertThat(messageService.findById(1L)).isSameAs(updated);
+    verify(messageFeignClient, times(1)).getMessageById(1L);
+  }
+
+  @Test
+  void testUpdate_WithStaleIfMatch_ShouldThrowPreconditionFailedAndEvictCachedMessage() throws ServiceException {
+    final MessageDTO message = MessageDTO.builder().id(1L).message("Cached message").version(3L).build();
+    final MessageDTO updated = MessageDTO.builder().message("Updated message").build();
+    when(messageFeignClient.getMessageById(1L)).thenReturn(ResponseEntity.ok(message));
+    when(messageFeignClient.updateMessage(1L, updated, "\"2\"")).thenThrow(new PreconditionFailedException("Message 1 is no longer at version 2"));
+
+    messageService.findById(1L);
+    assertThatExceptionOfType(PreconditionFailedException.class).isThrownBy(() -> messageService.update(1L, updated, "\"2\""));
+    messageService.findById(1L);
+
+    verify(messageFeignClient, times(2)).getMessageById(1L);
+  }
+
+  @Test
+  void testCreate_WhenOnlyAccepted_ShouldPass202ThroughWithoutCaching() throws ServiceException {
+    final MessageDTO dto = MessageDTO.builder().message("Accepted message").build();
+    final MessageDTO accepted = MessageDTO.builder().id(1L).message("Accepted message").version(0L).build();
+    final MessageDTO written = MessageDTO.builder().id(1L).message("Accepted message").version(0L).build();
+    when(messageFeignClient.createMessage(dto)).thenReturn(ResponseEntity.status(HttpStatus.ACCEPTED).body(accepted));
+    when(messageFeignClient.getMessageById(1L)).thenReturn(ResponseEntity.ok(written));
+
+    final ResponseEntity<MessageDTO> response = messageService.create(dto);
+
+    assertThat(response.getStatusCode()).isEqualTo(HttpStatus.ACCEPTED);
+    assertThat(response.getBody()).isSameAs(accepted);
+    assertThat(messageService.findById(1L)).isSameAs(written);
+  }
+
+  @Test
+  void testFindById_WhenMissing_ShouldPassClientErrorThrough() {
+    final ClientErrorException notFound = new ClientErrorException(404, "There is no member found with id: 1");
+    when(messageFeignClient.getMessageById(1L)).thenThrow(notFound);
+
+    assertThatExceptionOfType(ClientErrorException.class).isThrownBy(() -> messageService.findById(1L)).isSameAs(notFound);
+  }
+
+  @Test
+  void testDeleteById_ShouldEvictCachedMessageEvenWhenDeleteFails() throws ServiceException {
+    final MessageDTO message = MessageDTO.builder().id(1L).message("Cached message").build();
+    when(messageFeignClient.getMessageById(1L)).thenReturn(ResponseEntity.ok(message));
+    when(messageFeignClient.deleteMessage(1L, null)).thenThrow(new RuntimeException("internal service down"));
+
+    messageService.findById(1L);
+    assertThatExceptionOfType(ServiceException.class).isThrownBy(() -> messageService.deleteById(1L));
+    messageService.findById(1L);
+
+    verify(messageFeignClient, times(2)).getMessageById(1L);
+  }
+
+  @Test
+  void testFindById_ShouldShareOneInternalCallBetweenConcurrentMisses() throws Exception {
+    final MessageDTO message = MessageDTO.builder().id(1L).message("Popular message").build();
+    final CountDownLatch release = new CountDownLatch(1);
+    when(messageFeignClient.getMessageById(1L)).thenAnswer(invocation -> {
+      release.await(5, TimeUnit.SECONDS);
+      return ResponseEntity.ok(message);
+    });
+
+    final ExecutorService executor = Executors.newFixedThreadPool(8);
+    try {
+      final List<Future<MessageDTO>> results = new ArrayList<>();
+      for (int i = 0; i < 8; i++) {
+        results.add(executor.submit(() -> messageService.findById(1L)));
+      }
+      Thread.sleep(200);
+      release.countDown();
+
+      for (final Future<MessageDTO> result : results) {
+        assertThat(result.get(5, TimeUnit.SECONDS)).isSameAs(message);
+      }
+      verify(messageFeignClient, times(1)).getMessageById(1L);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  void testFindAllById_ShouldFetchOnlyCacheMissesInOneCall() throws ServiceException {
+    final MessageDTO cached = MessageDTO.builder().id(1L).message("Cached message").build();
+    final MessageDTO fetched = MessageDTO.builder().id(2L).message("Fetched message").build();
+    when(messageFeignClient.getMessageById(1L)).thenReturn(ResponseEntity.ok(cached));
+    when(messageFeignClient.getMessagesByIds(List.of(2L, 3L)))
+        .thenReturn(ResponseEntity.ok(MessagesByIdDTO.builder().messages(List.of(fetched)).missingIds(List.of(3L)).build()));
+
+    messageService.findById(1L);
+    final MessagesByIdDTO result = messageService.findAllById(List.of(2L, 1L, 3L));
+
+    assertThat(result.getMessages()).containsExactly(fetched, cached);
+    assertThat(result.getMissingIds()).containsExactly(3L);
+    assertThat(messageService.findById(2L)).isSameAs(fetched);
+    verify(messageFeignClient, times(1)).getMessagesByIds(List.of(2L, 3L));
+  }
+
+  @Test
+  void testFindAllById_ShouldSplitMissesIntoBoundedCalls() throws ServiceException {
+    final List<Long> ids = LongStream.rangeClosed(1, MessageService.MAX_IDS_PER_CALL + 1).boxed().toList();
+    when(messageFeignClient.getMessagesByIds(anyList()))
+        .thenReturn(ResponseEntity.ok(MessagesByIdDTO.builder().messages(List.of()).missingIds(List.of()).build()));
+
+    final MessagesByIdDTO result = messageService.findAllById(ids);
+
+    assertThat(result.getMissingIds()).hasSize(ids.size());
+    verify(messageFeignClient).getMessagesByIds(ids.subList(0, MessageService.MAX_IDS_PER_CALL));
+    verify(messageFeignClient).getMessagesByIds(List.of((long) MessageService.MAX_IDS_PER_CALL + 1));
+  }
+
+  @Test
+  void testFindAllById_WithTooManyIds_ShouldThrowBadRequest() {
+    final List<Long> ids = LongStream.rangeClosed(1, MessageService.MAX_IDS_PER_REQUEST + 1).boxed().toList();
+
+    assertThatExceptionOfType(ClientErrorException.class)
+        .isThrownBy(() -> messageService.findAllById(ids))
+        .satisfies(e -> assertThat(e.getStatus()).isEqualTo(400));
+    verifyNoInteractions(messageFeignClient);
+  }
+}
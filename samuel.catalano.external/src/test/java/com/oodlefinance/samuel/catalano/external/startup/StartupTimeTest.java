@@ -0,0 +1,128 @@
+package com.oodlefinance.samuel.catalano.external.startup;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.oodlefinance.samuel.catalano.external.ExternalApplication;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestReporter;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Starts the application in its own JVM, the way it is deployed, and measures its startup time, as logged by Spring
+ * Boot, and its time to first request, from launching the JVM to the first answer to {@value #FIRST_REQUEST_PATH}.
+ * Run with {@code ./gradlew startupTest}: after {@code ./gradlew cdsArchive} it starts with the class data sharing
+ * archive, and with {@code -PfastStartup} on both it starts the AOT-processed build. Both times are published
+ * as entries of the test report.
+ */
+@Tag("startup")
+class StartupTimeTest {
+
+  private static final String FIRST_REQUEST_PATH = "/actuator/info";
+  private static final Duration MAX_TIME_TO_FIRST_REQUEST = Duration.ofSeconds(60);
+  private static final Pattern STARTED = Pattern.compile("Started \\w+ in ([0-9.]+) seconds");
+
+  private Process application;
+
+  @AfterEach
+  void tearDown() throws InterruptedException {
+    if (application != null) {
+      application.destroy();
+      if (!application.waitFor(30, TimeUnit.SECONDS)) {
+        application.destroyForcibly();
+      }
+    }
+  }
+
+  @Test
+  void testStartup_ShouldServeFirstRequestWithinBudget(final TestReporter reporter) throws Exception {
+    final int port = freePort();
+    final CompletableFuture<Double> startupSeconds = new CompletableFuture<>();
+    final HttpClient client = HttpClient.newHttpClient();
+    final HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + FIRST_REQUEST_PATH)).build();
+
+    final long launchedAt = System.nanoTime();
+    application = launch(port);
+    watchOutput(application, startupSeconds);
+
+    Integer status = null;
+    while (status == null && application.isAlive() && System.nanoTime() - launchedAt < MAX_TIME_TO_FIRST_REQUEST.toNanos()) {
+      try {
+        status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+      } catch (final IOException e) {
+        Thread.sleep(10);
+      }
+    }
+    final Duration timeToFirstRequest = Duration.ofNanos(System.nanoTime() - launchedAt);
+
+    assertThat(status).isEqualTo(200);
+    assertThat(timeToFirstRequest).isLessThan(MAX_TIME_TO_FIRST_REQUEST);
+    final double started = startupSeconds.get(10, TimeUnit.SECONDS);
+    reporter.publishEntry(Map.of("startupMillis", String.valueOf(Math.round(started * 1000)),
+        "timeToFirstRequestMillis", String.valueOf(timeToFirstRequest.toMillis())));
+  }
+
+  private static Process launch(final int port) throws IOException {
+    final List<String> command = new ArrayList<>();
+    command.add(ProcessHandle.current().info().command().orElse("java"));
+    for (var jvmArg : System.getProperty("oodle.startup.jvm-args", "").split(" ")) {
+      if (!jvmArg.isBlank()) {
+        command.add(jvmArg);
+      }
+    }
+    final String jar = System.getProperty("oodle.startup.jar");
+    File workingDirectory = null;
+    if (jar != null) {
+      command.addAll(List.of("-jar", jar));
+      workingDirectory = new File(jar).getParentFile();
+    } else {
+      command.addAll(List.of("-cp", System.getProperty("java.class.path"), ExternalApplication.class.getName()));
+    }
+    command.addAll(List.of("--spring.profiles.active=fast-startup", "--server.port=" + port));
+    return new ProcessBuilder(command).directory(workingDirectory).redirectErrorStream(true).start();
+  }
+
+  private static void watchOutput(final Process process, final CompletableFuture<Double> startupSeconds) {
+    final Thread reader = new Thread(() -> {
+      try (var lines = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+        String line;
+        while ((line = lines.readLine()) != null) {
+          var matcher = STARTED.matcher(line);
+          if (matcher.find()) {
+            startupSeconds.complete(Double.parseDouble(matcher.group(1)));
+          }
+        }
+      } catch (final IOException e) {
+        startupSeconds.completeExceptionally(e);
+      }
+      startupSeconds.completeExceptionally(new IllegalStateException("The application exited before it started"));
+    }, "startup-output");
+    reader.setDaemon(true);
+    reader.start();
+  }
+
+  private static int freePort() throws IOException {
+    try (var socket = new ServerSocket(0)) {
+      return socket.getLocalPort();
+    }
+  }
+}
@@ -0,0 +1,42 @@
+package com.oodlefinance.samuel.catalano.internal.benchmark;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+import java.time.LocalDateTime;
+
+/**
+ * Copy of the {@code message} mapping with the {@link GenerationType#IDENTITY} ids it used to have, kept as the
+ * baseline of {@link MessageInsertBenchmark}.
+ */
+@Entity
+@Table(name = "identity_message")
+public class IdentityMessage {
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @Column(insertable = false, updatable = false)
+  private Long id;
+
+  @Column(name = "created_at", updatable = false)
+  private LocalDateTime createdAt;
+
+  @Column(name = "message")
+  private String message;
+
+  public Long getId() {
+    return id;
+  }
+
+  public void setCreatedAt(final LocalDateTime createdAt) {
+    this.createdAt = createdAt;
+  }
+
+  public void setMessage(final String message) {
+    this.message = message;
+  }
+}
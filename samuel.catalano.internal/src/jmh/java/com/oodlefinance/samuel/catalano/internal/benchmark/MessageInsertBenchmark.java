@@ -0,0 +1,86 @@
+package com.oodlefinance.samuel.catalano.internal.benchmark;
+
+import com.oodlefinance.samuel.catalano.internal.entity.Message;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.cfg.Configuration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Insert throughput on H2 of {@link Message}, whose ids come from a pooled-lo sequence, against
+ * {@link IdentityMessage}, the same mapping with IDENTITY ids. Each invocation persists {@value #ROWS} rows in one
+ * transaction with the JDBC batching settings of {@code application.yml}; scores are rows per second.
+ * With IDENTITY, Hibernate executes every insert on its own to read the generated key back.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class MessageInsertBenchmark {
+
+  private static final int ROWS = 1_000;
+
+  private SessionFactory sessionFactory;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    sessionFactory = new Configuration()
+        .addAnnotatedClass(Message.class)
+        .addAnnotatedClass(IdentityMessage.class)
+        .setProperty(AvailableSettings.URL, "jdbc:h2:mem:inserts;DB_CLOSE_DELAY=-1;DATABASE_TO_UPPER=false")
+        .setProperty(AvailableSettings.USER, "admin")
+        .setProperty(AvailableSettings.PASS, "admin")
+        .setProperty(AvailableSettings.HBM2DDL_AUTO, "create-drop")
+        .setProperty(AvailableSettings.STATEMENT_BATCH_SIZE, "50")
+        .setProperty(AvailableSettings.ORDER_INSERTS, "true")
+        .buildSessionFactory();
+  }
+
+  @TearDown(Level.Iteration)
+  public void truncate() {
+    sessionFactory.inTransaction(session -> {
+      session.createMutationQuery("delete from Message").executeUpdate();
+      session.createMutationQuery("delete from IdentityMessage").executeUpdate();
+    });
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    sessionFactory.close();
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(ROWS)
+  public void insertWithPooledSequence() {
+    sessionFactory.inTransaction(session -> {
+      for (int i = 0; i < ROWS; i++) {
+        session.persist(Message.builder().message("Benchmark message " + i).build());
+      }
+    });
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(ROWS)
+  public void insertWithIdentity() {
+    sessionFactory.inTransaction(session -> {
+      for (int i = 0; i < ROWS; i++) {
+        final IdentityMessage message = new IdentityMessage();
+        message.setMessage("Benchmark message " + i);
+        message.setCreatedAt(LocalDateTime.now());
+        session.persist(message);
+      }
+    });
+  }
+}
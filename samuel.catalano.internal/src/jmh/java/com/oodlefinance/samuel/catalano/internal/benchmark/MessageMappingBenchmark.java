@@ -0,0 +1,88 @@
+package com.oodlefinance.samuel.catalano.internal.benchmark;
+
+import com.oodlefinance.samuel.catalano.internal.dto.MessageDTO;
+import com.oodlefinance.samuel.catalano.internal.entity.Message;
+import com.oodlefinance.samuel.catalano.internal.mapper.MessageMapper;
+import com.oodlefinance.samuel.catalano.internal.mapper.impl.MessageMapperImpl;
+
+import org.modelmapper.ModelMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the reflective {@link ModelMapper} previously used by the MessageService against the
+ * hand-written {@link MessageMapperImpl}, for single conversions and for a findAll sized page.
+ * Run with {@code ./gradlew jmh}, add {@code -prof gc} through {@code jmh.profilers} to compare allocations.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class MessageMappingBenchmark {
+
+  @Param({"100", "1000"})
+  private int pageSize;
+
+  private final ModelMapper modelMapper = new ModelMapper();
+  private final MessageMapper messageMapper = new MessageMapperImpl();
+
+  private Message message;
+  private MessageDTO messageDTO;
+  private List<Message> page;
+
+  @Setup
+  public void setup() {
+    message = Message.builder().id(1L).message("Any message").build();
+    messageDTO = MessageDTO.builder().message("Any message").build();
+    page = new ArrayList<>(pageSize);
+    for (long id = 1; id <= pageSize; id++) {
+      page.add(Message.builder().id(id).message("Message number " + id).build());
+    }
+    // warms ModelMapper's type map cache so only the steady-state cost is measured
+    modelMapper.map(message, MessageDTO.class);
+    modelMapper.map(messageDTO, Message.class);
+  }
+
+  @Benchmark
+  public MessageDTO modelMapperToDTO() {
+    return modelMapper.map(message, MessageDTO.class);
+  }
+
+  @Benchmark
+  public MessageDTO messageMapperToDTO() {
+    return messageMapper.toDTO(message);
+  }
+
+  @Benchmark
+  public Message modelMapperToEntity() {
+    return modelMapper.map(messageDTO, Message.class);
+  }
+
+  @Benchmark
+  public Message messageMapperToEntity() {
+    return messageMapper.toEntity(messageDTO);
+  }
+
+  @Benchmark
+  public List<MessageDTO> modelMapperFindAllPage() {
+    final List<MessageDTO> result = new ArrayList<>(page.size());
+    page.forEach(entity -> result.add(modelMapper.map(entity, MessageDTO.class)));
+    return result;
+  }
+
+  @Benchmark
+  public List<MessageDTO> messageMapperFindAllPage() {
+    final List<MessageDTO> result = new ArrayList<>(page.size());
+    page.forEach(entity -> result.add(messageMapper.toDTO(entity)));
+    return result;
+  }
+}
@@ -0,0 +1,92 @@
+package com.oodlefinance.samuel.catalano.internal.benchmark;
+
+import com.oodlefinance.samuel.catalano.internal.InternalApplication;
+import com.oodlefinance.samuel.catalano.internal.entity.Message;
+import com.oodlefinance.samuel.catalano.internal.repository.MessageRepository;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link MessageRepository} against the in-memory H2 database of the application, with the JPA and
+ * Hibernate settings of {@code application.yml}. The context is started once per trial, without the web server
+ * or Consul, and seeded with {@value #ROWS} messages.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MessageRepositoryBenchmark {
+
+  private static final int ROWS = 10_000;
+  private static final int PAGE_SIZE = 100;
+
+  private ConfigurableApplicationContext context;
+  private MessageRepository repository;
+  private long firstId;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    context = new SpringApplicationBuilder(InternalApplication.class)
+        .web(WebApplicationType.NONE)
+        .properties("spring.cloud.consul.enabled=false", "spring.main.banner-mode=off")
+        .run();
+    repository = context.getBean(MessageRepository.class);
+
+    final List<Message> messages = new ArrayList<>(ROWS);
+    for (int i = 1; i <= ROWS; i++) {
+      messages.add(Message.builder().message("Message number " + i).build());
+    }
+    firstId = repository.saveAll(messages).get(0).getId();
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    context.close();
+  }
+
+  @Benchmark
+  public Message save() {
+    return repository.save(Message.builder().message("Benchmark message").build());
+  }
+
+  @Benchmark
+  public Optional<Message> findById() {
+    return repository.findById(randomId());
+  }
+
+  @Benchmark
+  public List<Message> findAllByIdPage() {
+    final List<Long> ids = new ArrayList<>(PAGE_SIZE);
+    var from = randomId();
+    for (int i = 0; i < PAGE_SIZE; i++) {
+      ids.add(from + i);
+    }
+    return repository.findAllById(ids);
+  }
+
+  @Benchmark
+  public List<Message> findKeysetPage() {
+    return repository.findByIdGreaterThanOrderByIdAsc(randomId(), PageRequest.of(0, PAGE_SIZE));
+  }
+
+  private long randomId() {
+    return firstId + ThreadLocalRandom.current().nextInt(ROWS - PAGE_SIZE);
+  }
+}
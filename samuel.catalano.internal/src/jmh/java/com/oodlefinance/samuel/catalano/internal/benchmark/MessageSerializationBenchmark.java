@@ -0,0 +1,65 @@
+package com.oodlefinance.samuel.catalano.internal.benchmark;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.oodlefinance.samuel.catalano.internal.dto.MessageDTO;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the Jackson cost of a findAll response: writing a page of {@link MessageDTO} as the internal service
+ * does, and reading it back as the gateway's Feign decoder does. The object mapper is configured like the one
+ * Spring Boot builds.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MessageSerializationBenchmark {
+
+  private static final TypeReference<List<MessageDTO>> MESSAGE_LIST = new TypeReference<>() {};
+
+  @Param({"100", "1000"})
+  private int pageSize;
+
+  private ObjectWriter writer;
+  private ObjectReader reader;
+  private List<MessageDTO> page;
+  private byte[] json;
+
+  @Setup
+  public void setup() throws IOException {
+    var objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    writer = objectMapper.writerFor(MESSAGE_LIST);
+    reader = objectMapper.readerFor(MESSAGE_LIST);
+
+    page = new ArrayList<>(pageSize);
+    for (long id = 1; id <= pageSize; id++) {
+      page.add(MessageDTO.builder().id(id).message("Message number " + id).build());
+    }
+    json = writer.writeValueAsBytes(page);
+  }
+
+  @Benchmark
+  public byte[] serializePage() throws IOException {
+    return writer.writeValueAsBytes(page);
+  }
+
+  @Benchmark
+  public List<MessageDTO> deserializePage() throws IOException {
+    return reader.readValue(json);
+  }
+}
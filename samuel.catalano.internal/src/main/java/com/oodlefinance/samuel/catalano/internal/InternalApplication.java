@@ -1,5 +1,7 @@
 package com.oodlefinance.samuel.catalano.internal;
 
+import com.oodlefinance.samuel.catalano.common.startup.TrainingRun;
+
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.cloud.client.discovery.EnableDiscoveryClient;
@@ -9,6 +11,10 @@ import org.springframework.cloud.client.discovery.EnableDiscoveryClient;
 public class InternalApplication {
 
   public static void main(String[] args) {
-    SpringApplication.run(InternalApplication.class, args);
+    var context = SpringApplication.run(InternalApplication.class, args);
+    if (TrainingRun.run(context)) {
+      // the JVM records the class data sharing archive when it exits
+      System.exit(SpringApplication.exit(context));
+    }
   }
 }
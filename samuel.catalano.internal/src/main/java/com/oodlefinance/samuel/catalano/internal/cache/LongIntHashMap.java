@@ -0,0 +1,144 @@
+package com.oodlefinance.samuel.catalano.internal.cache;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing hash map from {@code long} keys to {@code int} values, with linear probing and no boxing: keys and
+ * values are held in two arrays whatever the number of entries. Key {@code 0} marks an empty slot, so it cannot be
+ * stored: it is never found, and putting it stores nothing. The arrays double when half full; removals shift the
+ * following entries back instead of leaving tombstones.
+ * <p>
+ * Not thread-safe.
+ */
+final class LongIntHashMap {
+
+  static final int ABSENT = -1;
+
+  private static final long GOLDEN_RATIO = 0x9E3779B97F4A7C15L;
+
+  private long[] keys;
+  private int[] values;
+  private int mask;
+  private int size;
+
+  LongIntHashMap(final int expectedSize) {
+    var capacity = Integer.highestOneBit(Math.max(16, expectedSize * 2 - 1)) << 1;
+    allocate(capacity);
+  }
+
+  /**
+   * @return the value of the key, {@link #ABSENT} when there is none
+   */
+  int get(final long key) {
+    if (key == 0) {
+      return ABSENT;
+    }
+    for (int slot = slot(key); ; slot = (slot + 1) & mask) {
+      if (keys[slot] == key) {
+        return values[slot];
+      }
+      if (keys[slot] == 0) {
+        return ABSENT;
+      }
+    }
+  }
+
+  /**
+   * @return the value it replaces, {@link #ABSENT} when there was none or the key is {@code 0} and is not stored
+   */
+  int put(final long key, final int value) {
+    if (key == 0) {
+      return ABSENT;
+    }
+    for (int slot = slot(key); ; slot = (slot + 1) & mask) {
+      if (keys[slot] == key) {
+        var previous = values[slot];
+        values[slot] = value;
+        return previous;
+      }
+      if (keys[slot] == 0) {
+        keys[slot] = key;
+        values[slot] = value;
+        if (++size > keys.length / 2) {
+          rehash(keys.length * 2);
+        }
+        return ABSENT;
+      }
+    }
+  }
+
+  /**
+   * @return the value of the removed key, {@link #ABSENT} when there was none
+   */
+  int remove(final long key) {
+    if (key == 0) {
+      return ABSENT;
+    }
+    var slot = slot(key);
+    while (keys[slot] != key) {
+      if (keys[slot] == 0) {
+        return ABSENT;
+      }
+      slot = (slot + 1) & mask;
+    }
+    var previous = values[slot];
+    // backward shift: move up the entries of the cluster that would no longer be found past the emptied slot
+    var empty = slot;
+    for (int next = (empty + 1) & mask; keys[next] != 0; next = (next + 1) & mask) {
+      var home = slot(keys[next]);
+      if (((next - home) & mask) >= ((next - empty) & mask)) {
+        keys[empty] = keys[next];
+        values[empty] = values[next];
+        empty = next;
+      }
+    }
+    keys[empty] = 0;
+    size--;
+    return previous;
+  }
+
+  /**
+   * Removes the key only while it still maps to the given value.
+   *
+   * @return whether the key was removed
+   */
+  boolean remove(final long key, final int value) {
+    if (get(key) != value) {
+      return false;
+    }
+    remove(key);
+    return true;
+  }
+
+  int size() {
+    return size;
+  }
+
+  void clear() {
+    Arrays.fill(keys, 0);
+    size = 0;
+  }
+
+  private int slot(final long key) {
+    var hash = key * GOLDEN_RATIO;
+    return (int) (hash ^ (hash >>> 32)) & mask;
+  }
+
+  private void allocate(final int capacity) {
+    keys = new long[capacity];
+    values = new int[capacity];
+    mask = capacity - 1;
+  }
+
+  private void rehash(final int capacity) {
+    var oldKeys = keys;
+    var oldValues = values;
+    allocate(capacity);
+    size = 0;
+    for (int i = 0; i < oldKeys.length; i++) {
+      if (oldKeys[i] != 0) {
+        put(oldKeys[i], oldValues[i]);
+      }
+    }
+  }
+}
@@ -0,0 +1,242 @@
+package com.oodlefinance.samuel.catalano.internal.cache;
+
+import com.oodlefinance.samuel.catalano.internal.dto.MessageDTO;
+import com.oodlefinance.samuel.catalano.internal.event.MessageChangeType;
+import com.oodlefinance.samuel.catalano.internal.event.MessageChangedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Cache of the hot messages kept outside the Java heap, in front of the message store, turned on with
+ * {@code oodle.messages.hot-cache.enabled}. Cached messages cost the garbage collector nothing, however many they are.
+ * <p>
+ * Messages are encoded as records (length, id, version, UTF-8 text) in one direct buffer of {@code capacity} bytes,
+ * split into {@value #REGIONS} regions written one after the other. A {@link LongIntHashMap} maps every id to the
+ * offset of its latest record. When the region being written is full, the next one is emptied and reused, evicting
+ * the messages it held: the oldest records are evicted first. A hit decodes the record straight into a
+ * {@link MessageDTO}, no entity is built.
+ * <p>
+ * Updated and deleted messages are evicted when their change is committed. A message loaded while a change was being
+ * committed is not cached, see {@link #stamp()}.
+ */
+@Component
+@ConditionalOnProperty(prefix = "oodle.messages.hot-cache", name = "enabled", havingValue = "true")
+public class OffHeapMessageCache {
+
+  public static final String METRICS_PREFIX = "oodle.messages.hot-cache";
+
+  static final int REGIONS = 16;
+
+  private static final int HEADER_SIZE = 4 + 8 + 8 + 4;
+  private static final long NO_VERSION = -1;
+
+  private final ByteBuffer slab;
+  private final int regionSize;
+  private final int[] regionEnds = new int[REGIONS];
+  private final LongIntHashMap offsets;
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+  private final Counter hits;
+  private final Counter misses;
+  private final Counter evictions;
+  private volatile long invalidations;
+  private int region;
+
+  @Autowired
+  public OffHeapMessageCache(@Value("${oodle.messages.hot-cache.capacity:64MB}") final DataSize capacity,
+                             final MeterRegistry meterRegistry) {
+    if (capacity.toBytes() < REGIONS * HEADER_SIZE || capacity.toBytes() > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("oodle.messages.hot-cache.capacity must be between "
+                                         + REGIONS * HEADER_SIZE + "B and 2GB");
+    }
+    this.regionSize = (int) (capacity.toBytes() / REGIONS);
+    this.slab = ByteBuffer.allocateDirect(regionSize * REGIONS);
+    this.offsets = new LongIntHashMap((int) Math.min(capacity.toBytes() / 256, 1 << 20));
+
+    Gauge.builder(METRICS_PREFIX + ".capacity", slab, ByteBuffer::capacity)
+         .description("Direct memory reserved by the hot message cache")
+         .baseUnit("bytes")
+         .register(meterRegistry);
+    Gauge.builder(METRICS_PREFIX + ".used", this, OffHeapMessageCache::used)
+         .description("Bytes of the hot message cache holding records, including overwritten ones")
+         .baseUnit("bytes")
+         .register(meterRegistry);
+    Gauge.builder(METRICS_PREFIX + ".entries", this, OffHeapMessageCache::size)
+         .description("Number of messages in the hot message cache")
+         .register(meterRegistry);
+    this.hits = Counter.builder(METRICS_PREFIX + ".hits")
+                       .description("Reads answered by the hot message cache")
+                       .register(meterRegistry);
+    this.misses = Counter.builder(METRICS_PREFIX + ".misses")
+                         .description("Reads not found in the hot message cache")
+                         .register(meterRegistry);
+    this.evictions = Counter.builder(METRICS_PREFIX + ".evictions")
+                            .description("Messages evicted from the hot message cache to make room")
+                            .register(meterRegistry);
+  }
+
+  /**
+   * @param id the id of a message
+   * @return the cached message, {@code null} when it is not cached
+   */
+  public MessageDTO get(final long id) {
+    lock.readLock().lock();
+    try {
+      var offset = offsets.get(id);
+      if (offset == LongIntHashMap.ABSENT) {
+        misses.increment();
+        return null;
+      }
+      hits.increment();
+      var version = slab.getLong(offset + 12);
+      var text = new byte[slab.getInt(offset + 20)];
+      slab.get(offset + HEADER_SIZE, text);
+      return MessageDTO.builder()
+                       .id(id)
+                       .message(new String(text, StandardCharsets.UTF_8))
+                       .version(version == NO_VERSION ? null : version)
+                       .build();
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * @param id the id of a message
+   * @return the version of the cached message, {@code null} when it is not cached or has no version
+   */
+  public Long getVersion(final long id) {
+    lock.readLock().lock();
+    try {
+      var offset = offsets.get(id);
+      var version = offset == LongIntHashMap.ABSENT ? NO_VERSION : slab.getLong(offset + 12);
+      return version == NO_VERSION ? null : version;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Takes a stamp before loading a message, to hand to {@link #put(MessageDTO, long)} afterwards.
+   *
+   * @return the number of changes applied so far
+   */
+  public long stamp() {
+    return invalidations;
+  }
+
+  /**
+   * Caches a loaded message, unless a change was applied since the stamp was taken: the message may then have been
+   * read before that change. Messages without id or text, or too large for a region, are not cached.
+   *
+   * @param message the loaded message
+   * @param stamp the stamp taken before loading it
+   */
+  public void put(final MessageDTO message, final long stamp) {
+    if (message == null || message.getId() == null || message.getMessage() == null) {
+      return;
+    }
+    var text = message.getMessage().getBytes(StandardCharsets.UTF_8);
+    var length = HEADER_SIZE + text.length;
+    if (length > regionSize) {
+      return;
+    }
+    lock.writeLock().lock();
+    try {
+      if (stamp != invalidations) {
+        return;
+      }
+      if (regionEnds[region] + length > regionSize) {
+        region = (region + 1) % REGIONS;
+        evictRegion(region);
+      }
+      var offset = region * regionSize + regionEnds[region];
+      slab.putInt(offset, length)
+          .putLong(offset + 4, message.getId())
+          .putLong(offset + 12, message.getVersion() == null ? NO_VERSION : message.getVersion())
+          .putInt(offset + 20, text.length)
+          .put(offset + HEADER_SIZE, text);
+      regionEnds[region] += length;
+      offsets.put(message.getId(), offset);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Evicts a message.
+   *
+   * @param id the id of the message
+   */
+  public void invalidate(final long id) {
+    lock.writeLock().lock();
+    try {
+      invalidations++;
+      offsets.remove(id);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Evicts the messages that were updated or deleted, once the change is committed.
+   *
+   * @param event the change
+   */
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onMessageChanged(final MessageChangedEvent event) {
+    if (event.type() != MessageChangeType.CREATED && event.id() != null) {
+      invalidate(event.id());
+    }
+  }
+
+  /**
+   * @return the number of cached messages
+   */
+  public int size() {
+    lock.readLock().lock();
+    try {
+      return offsets.size();
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * @return the number of bytes holding records, overwritten records included until their region is reused
+   */
+  public long used() {
+    lock.readLock().lock();
+    try {
+      var used = 0L;
+      for (var end : regionEnds) {
+        used += end;
+      }
+      return used;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  private void evictRegion(final int evicted) {
+    var start = evicted * regionSize;
+    for (int offset = start; offset < start + regionEnds[evicted]; offset += slab.getInt(offset)) {
+      if (offsets.remove(slab.getLong(offset + 4), offset)) {
+        evictions.increment();
+      }
+    }
+    regionEnds[evicted] = 0;
+  }
+}
@@ -0,0 +1,56 @@
+package com.oodlefinance.samuel.catalano.internal.config;
+
+import com.oodlefinance.samuel.catalano.internal.limit.AimdLimiter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Concurrency limits of the API, on by default ({@code oodle.messages.concurrency-limit.enabled}). Reads and writes
+ * get separate limits, so a burst of slow writes does not shed the reads, and the other way round. Batches and scans
+ * get a third one with a latency threshold of their own, since they take longer than a single message by nature and
+ * would otherwise keep cutting the limit of the single-message requests while the service is healthy.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "oodle.messages.concurrency-limit", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class ConcurrencyLimitConfig {
+
+  public static final String READ_LIMITER = "readLimiter";
+  public static final String WRITE_LIMITER = "writeLimiter";
+  public static final String BULK_LIMITER = "bulkLimiter";
+
+  @Bean(READ_LIMITER)
+  public AimdLimiter readLimiter(@Value("${oodle.messages.concurrency-limit.reads.initial-limit:50}") final int initialLimit,
+                                 @Value("${oodle.messages.concurrency-limit.reads.max-limit:200}") final int maxLimit,
+                                 @Value("${oodle.messages.concurrency-limit.reads.latency-threshold:100ms}") final Duration latencyThreshold,
+                                 @Value("${oodle.messages.concurrency-limit.min-limit:1}") final int minLimit,
+                                 @Value("${oodle.messages.concurrency-limit.backoff-ratio:0.9}") final double backoffRatio,
+                                 final MeterRegistry meterRegistry) {
+    return new AimdLimiter("reads", initialLimit, minLimit, maxLimit, latencyThreshold, backoffRatio, meterRegistry);
+  }
+
+  @Bean(WRITE_LIMITER)
+  public AimdLimiter writeLimiter(@Value("${oodle.messages.concurrency-limit.writes.initial-limit:20}") final int initialLimit,
+                                  @Value("${oodle.messages.concurrency-limit.writes.max-limit:100}") final int maxLimit,
+                                  @Value("${oodle.messages.concurrency-limit.writes.latency-threshold:250ms}") final Duration latencyThreshold,
+                                  @Value("${oodle.messages.concurrency-limit.min-limit:1}") final int minLimit,
+                                  @Value("${oodle.messages.concurrency-limit.backoff-ratio:0.9}") final double backoffRatio,
+                                  final MeterRegistry meterRegistry) {
+    return new AimdLimiter("writes", initialLimit, minLimit, maxLimit, latencyThreshold, backoffRatio, meterRegistry);
+  }
+
+  @Bean(BULK_LIMITER)
+  public AimdLimiter bulkLimiter(@Value("${oodle.messages.concurrency-limit.bulk.initial-limit:10}") final int initialLimit,
+                                 @Value("${oodle.messages.concurrency-limit.bulk.max-limit:50}") final int maxLimit,
+                                 @Value("${oodle.messages.concurrency-limit.bulk.latency-threshold:5s}") final Duration latencyThreshold,
+                                 @Value("${oodle.messages.concurrency-limit.min-limit:1}") final int minLimit,
+                                 @Value("${oodle.messages.concurrency-limit.backoff-ratio:0.9}") final double backoffRatio,
+                                 final MeterRegistry meterRegistry) {
+    return new AimdLimiter("bulk", initialLimit, minLimit, maxLimit, latencyThreshold, backoffRatio, meterRegistry);
+  }
+}
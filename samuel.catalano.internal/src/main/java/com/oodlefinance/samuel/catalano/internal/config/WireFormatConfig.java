@@ -0,0 +1,34 @@
+package com.oodlefinance.samuel.catalano.internal.config;
+
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+/**
+ * Binary wire format of the API.
+ * <p>
+ * Besides JSON, every endpoint reads and writes Smile ({@value #APPLICATION_SMILE_VALUE}), the binary encoding of
+ * the Jackson data model: a client asking for it in {@code Accept} gets it, a client sending it in
+ * {@code Content-Type} is understood, and JSON stays the default. Smile writes numbers in binary and sends repeated
+ * property names once per payload, so message lists are smaller and cheaper to parse than the same JSON.
+ */
+@Configuration
+public class WireFormatConfig {
+
+  public static final String APPLICATION_SMILE_VALUE = "application/x-jackson-smile";
+
+  /**
+   * Replaces the default Smile converter of Spring MVC, so Smile is written with the same Jackson settings and
+   * modules as JSON.
+   *
+   * @param builder the Jackson builder configured by Spring Boot
+   * @return the Smile message converter
+   */
+  @Bean
+  public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(final Jackson2ObjectMapperBuilder builder) {
+    return new MappingJackson2SmileHttpMessageConverter(builder.createXmlMapper(false).factory(new SmileFactory()).build());
+  }
+}
@@ -0,0 +1,11 @@
+package com.oodlefinance.samuel.catalano.internal.config;
+
+import com.oodlefinance.samuel.catalano.internal.ingest.WriteBehindProperties;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(WriteBehindProperties.class)
+public class WriteBehindConfig {
+}
@@ -3,14 +3,28 @@ package com.oodlefinance.samuel.catalano.internal.controller;
 import jakarta.persistence.EntityNotFoundException;
 import jakarta.validation.Valid;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.oodlefinance.samuel.catalano.internal.controller.base.BaseRESTController;
+import com.oodlefinance.samuel.catalano.internal.dto.BatchItemResultDTO;
+import com.oodlefinance.samuel.catalano.internal.dto.FailedMessageDTO;
+import com.oodlefinance.samuel.catalano.internal.dto.MessageChangesDTO;
+import com.oodlefinance.samuel.catalano.internal.dto.MessageCountDTO;
 import com.oodlefinance.samuel.catalano.internal.dto.MessageDTO;
+import com.oodlefinance.samuel.catalano.internal.dto.MessageRangeDTO;
+import com.oodlefinance.samuel.catalano.internal.dto.MessageSearchResultDTO;
+import com.oodlefinance.samuel.catalano.internal.dto.MessagesByIdDTO;
+import com.oodlefinance.samuel.catalano.internal.exception.BadRequestException;
 import com.oodlefinance.samuel.catalano.internal.exception.ServiceException;
+import com.oodlefinance.samuel.catalano.internal.exception.TooManyRequestsException;
+import com.oodlefinance.samuel.catalano.internal.feed.MessageChangeFeed;
 import com.oodlefinance.samuel.catalano.internal.service.MessageService;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -18,35 +32,134 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.List;
 
 @RestController
 @RequestMapping("/api/messages")
 public class MessageController extends BaseRESTController {
 
+  private static final long DEFAULT_CHANGES_TIMEOUT_MILLIS = 25_000;
+  private static final long MAX_CHANGES_TIMEOUT_MILLIS = 55_000;
+
   private final MessageService messageService;
+  private final MessageChangeFeed messageChangeFeed;
+  private final ObjectMapper objectMapper;
 
   @Autowired
-  public MessageController(final MessageService messageService) {
+  public MessageController(final MessageService messageService, final MessageChangeFeed messageChangeFeed,
+                           final ObjectMapper objectMapper) {
     this.messageService = messageService;
+    this.messageChangeFeed = messageChangeFeed;
+    this.objectMapper = objectMapper;
   }
 
   /**
    * REST API endpoint for creating a new message.
    * Maps to the create method in the MessageService class.
    *
+   * With write-behind ingestion on, the message is only accepted into the queue: the answer is 202 (ACCEPTED) with
+   * the id allocated to the message, or 429 (TOO_MANY_REQUESTS) when the queue is full.
+   *
    * @param messageDTO The message data transfer object (DTO) that contains the message data.
-   * @return A ResponseEntity with the status code 201 (CREATED) and the created message in the response body.
+   * @return A ResponseEntity with the status code 201 (CREATED) and the created message in the response body,
+   *     or 202 (ACCEPTED) and the accepted message with write-behind ingestion.
    * @throws ServiceException If an error occurs while performing the operation.
    */
   @PostMapping
   public ResponseEntity<MessageDTO> createMessage(@Valid @RequestBody final MessageDTO messageDTO) throws ServiceException {
     try {
+      if (messageService.isWriteBehind()) {
+        var acceptedMessage = messageService.enqueue(messageDTO);
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(acceptedMessage);
+      }
       var createdMessage = messageService.create(messageDTO);
       return ResponseEntity.status(HttpStatus.CREATED).body(createdMessage);
+    } catch (final TooManyRequestsException | DataIntegrityViolationException e) {
+      throw e;
+    } catch (final Exception e) {
+      throw new ServiceException(e.getMessage(), e);
+    }
+  }
+
+  /**
+   * REST API endpoint for listing the messages accepted with 202 (ACCEPTED) by write-behind ingestion that could not
+   * be written afterwards, so their senders can find out and send them again.
+   * Maps to the findDeadLetters method in the MessageService class.
+   *
+   * @return A ResponseEntity with the status code 200 (OK) and the failed messages, oldest first, empty when
+   *     write-behind ingestion is off.
+   * @throws ServiceException If an error occurs while performing the operation.
+   */
+  @GetMapping("/dead-letters")
+  public ResponseEntity<List<FailedMessageDTO>> getDeadLetters() throws ServiceException {
+    try {
+      return ResponseEntity.ok(messageService.findDeadLetters());
+    } catch (final Exception e) {
+      throw new ServiceException(e.getMessage(), e);
+    }
+  }
+
+  /**
+   * REST API endpoint for creating several messages in one request.
+   * Maps to the createAll method in the MessageService class.
+   *
+   * @param messageDTOs The messages to create.
+   * @return A ResponseEntity with the status code 200 (OK) and one result per message, in request order.
+   * @throws ServiceException If an error occurs while performing the operation.
+   */
+  @PostMapping("/batch")
+  public ResponseEntity<List<BatchItemResultDTO>> createMessages(@RequestBody final List<MessageDTO> messageDTOs) throws ServiceException {
+    try {
+      var results = messageService.createAll(messageDTOs);
+      return ResponseEntity.ok(results);
+    } catch (final Exception e) {
+      throw new ServiceException(e.getMessage(), e);
+    }
+  }
+
+  /**
+   * REST API endpoint for updating several messages in one request.
+   * Maps to the updateAll method in the MessageService class.
+   *
+   * @param messageDTOs The messages to update, each one holding the ID of the message it replaces.
+   * @return A ResponseEntity with the status code 200 (OK) and one result per message, in request order.
+   * @throws ServiceException If an error occurs while performing the operation.
+   */
+  @PutMapping("/batch")
+  public ResponseEntity<List<BatchItemResultDTO>> updateMessages(@RequestBody final List<MessageDTO> messageDTOs) throws ServiceException {
+    try {
+      var results = messageService.updateAll(messageDTOs);
+      return ResponseEntity.ok(results);
+    } catch (final Exception e) {
+      throw new ServiceException(e.getMessage(), e);
+    }
+  }
+
+  /**
+   * REST API endpoint for deleting several messages in one request.
+   * Maps to the deleteAllById method in the MessageService class.
+   *
+   * @param ids The IDs of the messages to delete.
+   * @return A ResponseEntity with the status code 200 (OK) and one result per ID, in request order.
+   * @throws ServiceException If an error occurs while performing the operation.
+   */
+  @DeleteMapping("/batch")
+  public ResponseEntity<List<BatchItemResultDTO>> deleteMessages(@RequestBody final List<Long> ids) throws ServiceException {
+    try {
+      var results = messageService.deleteAllById(ids);
+      return ResponseEntity.ok(results);
     } catch (final Exception e) {
       throw new ServiceException(e.getMessage(), e);
     }
@@ -54,18 +167,30 @@ public class MessageController extends BaseRESTController {
 
   /**
    * REST API endpoint for updating an existing message.
-   * Maps to the update method in the MessageService class.
+   * Maps to the update method in the MessageService class. With an {@code If-Match} header the message is only
+   * updated if it is still at the version of that ETag.
    *
    * @param id The ID of the message to update.
    * @param messageDTO The message data transfer object (DTO) that contains the updated message data.
-   * @return A ResponseEntity with the status code 200 (OK) and the updated message in the response body.
+   * @param ifMatch The ETag the message must still have, omitted or {@code *} to update whatever the version.
+   * @return A ResponseEntity with the status code 200 (OK), the updated message in the response body and its new
+   * ETag when the update was conditional.
    * @throws ServiceException If an error occurs while performing the operation.
+   * @throws EntityNotFoundException If the message with the specified ID cannot be found.
+   * @throws OptimisticLockingFailureException If the message no longer has the ETag in {@code If-Match}.
    */
   @PutMapping("/{id}")
-  public ResponseEntity<MessageDTO> updateMessage(@PathVariable final Long id, @Valid @RequestBody final MessageDTO messageDTO) throws ServiceException {
+  public ResponseEntity<MessageDTO> updateMessage(@PathVariable final Long id, @Valid @RequestBody final MessageDTO messageDTO,
+                                                  @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) final String ifMatch) throws ServiceException {
     try {
-      var updatedMessage = messageService.update(id, messageDTO);
-      return ResponseEntity.ok(updatedMessage);
+      var updatedMessage = messageService.update(id, messageDTO, versionFromIfMatch(ifMatch));
+      var response = ResponseEntity.ok();
+      if (updatedMessage.getVersion() != null) {
+        response.eTag(eTagOf(updatedMessage.getVersion()));
+      }
+      return response.body(updatedMessage);
+    } catch (final EntityNotFoundException | OptimisticLockingFailureException e) {
+      throw e;
     } catch (final Exception e) {
       throw new ServiceException(e.getMessage(), e);
     }
@@ -73,53 +198,217 @@ public class MessageController extends BaseRESTController {
 
   /**
    * REST API endpoint for retrieving a message by its ID.
-   * Maps to the findById method in the MessageService class.
+   * Maps to the findById method in the MessageService class. The response carries the version of the message as
+   * its ETag. When the {@code If-None-Match} header still matches it, only the version is read and the response is
+   * a 304 (Not Modified) without body.
    *
    * @param id The ID of the message to retrieve.
-   * @return A ResponseEntity with the status code 200 (OK) and the retrieved message in the response body.
+   * @param ifNoneMatch The ETag of the copy the client already holds, if any.
+   * @param webRequest The current request, used to answer 304 (Not Modified).
+   * @return A ResponseEntity with the status code 200 (OK) and the retrieved message in the response body, or
+   * {@code null} when the response is a 304 (Not Modified).
    * @throws EntityNotFoundException If the message with the specified ID cannot be found.
+   * @throws ServiceException If an error occurs while performing the operation.
    */
   @GetMapping("/{id}")
-  public ResponseEntity<MessageDTO> getMessageById(@PathVariable final Long id) throws EntityNotFoundException {
+  public ResponseEntity<MessageDTO> getMessageById(@PathVariable final Long id,
+                                                   @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) final String ifNoneMatch,
+                                                   final WebRequest webRequest) throws ServiceException {
     try {
+      if (ifNoneMatch != null && webRequest.checkNotModified(eTagOf(messageService.findVersionById(id)))) {
+        return null;
+      }
       var message = messageService.findById(id);
-      return ResponseEntity.ok(message);
+      return ResponseEntity.ok().eTag(eTagOf(message.getVersion())).body(message);
+    } catch (final EntityNotFoundException e) {
+      throw e;
     } catch (final Exception e) {
-      throw new EntityNotFoundException(e.getMessage(), e);
+      throw new ServiceException(e.getMessage(), e);
     }
   }
 
   /**
-   * REST API endpoint for retrieving all messages.
-   * Maps to the findAll method in the MessageService class.
+   * REST API endpoint for retrieving messages page by page.
+   * Maps to the findAll method in the MessageService class. To fetch the next page, pass the id of the
+   * last message received as the {@code after} parameter.
    *
-   * @return A ResponseEntity with the status code 200 (OK) and a list of all messages in the response body.
+   * @param after The ID of the last message of the previous page, omitted for the first page.
+   * @param limit The maximum number of messages to return.
+   * @return A ResponseEntity with the status code 200 (OK) and a page of messages in the response body.
    * @throws ServiceException If an error occurs while performing the operation.
    */
   @GetMapping
-  public ResponseEntity<List<MessageDTO>> getAllMessages() throws ServiceException {
+  public ResponseEntity<List<MessageDTO>> getAllMessages(@RequestParam(required = false) final Long after,
+                                                         @RequestParam(required = false) final Integer limit) throws ServiceException {
+    try {
+      var messages = messageService.findAll(after, limit);
+      return ResponseEntity.ok(messages);
+    } catch (final Exception e) {
+      throw new ServiceException(e.getMessage(), e);
+    }
+  }
+
+  /**
+   * REST API endpoint for retrieving several messages by their IDs in one request.
+   * Maps to the findAllById method in the MessageService class. IDs that do not exist are listed in the
+   * response instead of failing the whole request.
+   *
+   * @param ids The IDs of the messages to retrieve, as a comma separated list or a repeated parameter.
+   * @return A ResponseEntity with the status code 200 (OK), the messages found and the missing IDs.
+   * @throws ServiceException If an error occurs while performing the operation.
+   */
+  @GetMapping(params = "ids")
+  public ResponseEntity<MessagesByIdDTO> getMessagesByIds(@RequestParam final List<Long> ids) throws ServiceException {
+    try {
+      var messages = messageService.findAllById(ids);
+      return ResponseEntity.ok(messages);
+    } catch (final Exception e) {
+      throw new ServiceException(e.getMessage(), e);
+    }
+  }
+
+  /**
+   * REST API endpoint for searching the text of the messages.
+   * Maps to the search method in the MessageService class. Messages matching any of the terms are returned, best
+   * match first; a term ending with {@code *} matches every word starting with it.
+   *
+   * @param q The terms to look for, separated by spaces.
+   * @param offset The number of best matches to skip.
+   * @param limit The maximum number of messages to return.
+   * @return A ResponseEntity with the status code 200 (OK), the page of matching messages and the total number of matches.
+   * @throws ServiceException If an error occurs while performing the operation.
+   */
+  @GetMapping("/search")
+  public ResponseEntity<MessageSearchResultDTO> searchMessages(@RequestParam final String q,
+                                                               @RequestParam(required = false) final Integer offset,
+                                                               @RequestParam(required = false) final Integer limit) throws ServiceException {
+    try {
+      var result = messageService.search(q, offset, limit);
+      return ResponseEntity.ok(result);
+    } catch (final Exception e) {
+      throw new ServiceException(e.getMessage(), e);
+    }
+  }
+
+  /**
+   * REST API endpoint for retrieving the messages created in a time range, newest first.
+   * Maps to the findCreatedBetween method in the MessageService class. To fetch the next page, pass the
+   * {@code nextBefore} and {@code nextBeforeId} of the previous page as {@code before} and {@code beforeId}.
+   *
+   * @param from The start of the range (inclusive), as an ISO-8601 instant.
+   * @param to The end of the range (exclusive), as an ISO-8601 instant.
+   * @param before The creation time of the last message of the previous page, omitted for the first page.
+   * @param beforeId The ID of the last message of the previous page, omitted for the first page.
+   * @param limit The maximum number of messages to return.
+   * @return A ResponseEntity with the status code 200 (OK), a page of messages and the cursor of the next page.
+   * @throws ServiceException If an error occurs while performing the operation.
+   */
+  @GetMapping("/range")
+  public ResponseEntity<MessageRangeDTO> getMessagesCreatedBetween(@RequestParam final Instant from,
+                                                                   @RequestParam final Instant to,
+                                                                   @RequestParam(required = false) final Instant before,
+                                                                   @RequestParam(required = false) final Long beforeId,
+                                                                   @RequestParam(required = false) final Integer limit) throws ServiceException {
     try {
-      var messages = messageService.findAll();
+      var messages = messageService.findCreatedBetween(from, to, before, beforeId, limit);
       return ResponseEntity.ok(messages);
+    } catch (final BadRequestException e) {
+      throw e;
     } catch (final Exception e) {
       throw new ServiceException(e.getMessage(), e);
     }
   }
 
+  /**
+   * REST API endpoint for counting the messages created in a time range per interval.
+   * Maps to the countCreatedPerInterval method in the MessageService class.
+   *
+   * @param from The start of the range (inclusive) and of the first interval, as an ISO-8601 instant.
+   * @param to The end of the range (exclusive), as an ISO-8601 instant.
+   * @param interval The length of an interval, as an ISO-8601 duration such as {@code PT1H}.
+   * @return A ResponseEntity with the status code 200 (OK) and the number of messages of every interval, in order.
+   * @throws ServiceException If an error occurs while performing the operation.
+   */
+  @GetMapping("/histogram")
+  public ResponseEntity<List<MessageCountDTO>> countMessagesCreatedPerInterval(@RequestParam final Instant from,
+                                                                               @RequestParam final Instant to,
+                                                                               @RequestParam final Duration interval) throws ServiceException {
+    try {
+      var histogram = messageService.countCreatedPerInterval(from, to, interval);
+      return ResponseEntity.ok(histogram);
+    } catch (final BadRequestException e) {
+      throw e;
+    } catch (final Exception e) {
+      throw new ServiceException(e.getMessage(), e);
+    }
+  }
+
+  /**
+   * REST API endpoint for streaming all messages as newline-delimited JSON.
+   * Maps to the streamAll method in the MessageService class. Messages are written to the response as they
+   * are read from the database, so the whole table is never held in memory.
+   *
+   * @return A ResponseEntity with the status code 200 (OK) and a body streaming one JSON message per line.
+   */
+  @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+  public ResponseEntity<StreamingResponseBody> streamAllMessages() {
+    final StreamingResponseBody body = outputStream -> {
+      var writer = objectMapper.writerFor(MessageDTO.class);
+      try {
+        messageService.streamAll(message -> {
+          try {
+            outputStream.write(writer.writeValueAsBytes(message));
+            outputStream.write('\n');
+          } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+          }
+        });
+      } catch (final ServiceException e) {
+        throw new IOException(e.getMessage(), e);
+      }
+    };
+    return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+  }
+
+  /**
+   * REST API endpoint for reading the message change feed with long polling.
+   * Answers as soon as there are changes after {@code since}, otherwise waits for one for up to {@code timeout}
+   * milliseconds and then returns an empty slice.
+   *
+   * @param since The last sequence received, omitted to only get the current position of the feed.
+   * @param timeout How long to wait for a change, in milliseconds.
+   * @return A DeferredResult completed with the status code 200 (OK) and the changes following {@code since}.
+   */
+  @GetMapping("/changes")
+  public DeferredResult<MessageChangesDTO> getChanges(@RequestParam(required = false) final Long since,
+                                                      @RequestParam(required = false) final Long timeout) {
+    var timeoutMillis = timeout == null ? DEFAULT_CHANGES_TIMEOUT_MILLIS : Math.min(Math.max(timeout, 0), MAX_CHANGES_TIMEOUT_MILLIS);
+    return messageChangeFeed.poll(since, timeoutMillis);
+  }
+
   /**
    * REST API endpoint for deleting a message by its ID.
-   * Maps to the deleteById method in the MessageService class.
+   * Maps to the deleteById method in the MessageService class. With an {@code If-Match} header the message is only
+   * deleted if it is still at the version of that ETag.
    *
+   * @param id The ID of the message to delete.
+   * @param ifMatch The ETag the message must still have, omitted or {@code *} to delete whatever the version.
    * @return A ResponseEntity with the status code 204 (No Content) response indicating that the operation was successful.
-   * @throws DataIntegrityViolationException If an error occurs while performing the operation.
+   * @throws ServiceException If an error occurs while performing the operation.
+   * @throws DataIntegrityViolationException If the message is still referenced and cannot be deleted.
+   * @throws EntityNotFoundException If the message with the specified ID cannot be found.
+   * @throws OptimisticLockingFailureException If the message no longer has the ETag in {@code If-Match}.
    */
   @DeleteMapping("/{id}")
-  public ResponseEntity<Void> deleteMessage(@PathVariable Long id) throws DataIntegrityViolationException {
+  public ResponseEntity<Void> deleteMessage(@PathVariable Long id,
+                                            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) final String ifMatch) throws ServiceException {
     try {
-      messageService.deleteById(id);
+      messageService.deleteById(id, versionFromIfMatch(ifMatch));
       return ResponseEntity.noContent().build();
+    } catch (final EntityNotFoundException | OptimisticLockingFailureException | DataIntegrityViolationException e) {
+      throw e;
     } catch (final Exception e) {
-      throw new DataIntegrityViolationException(e.getMessage(), e);
+      throw new ServiceException(e.getMessage(), e);
     }
   }
 }
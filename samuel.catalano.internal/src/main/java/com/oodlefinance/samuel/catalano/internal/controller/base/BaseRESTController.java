@@ -2,6 +2,7 @@ package com.oodlefinance.samuel.catalano.internal.controller.base;
 
 import lombok.extern.slf4j.Slf4j;
 
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
@@ -37,4 +38,37 @@ public abstract class BaseRESTController {
 
     return errors;
   }
+
+  /**
+   * Builds the strong ETag of an entity version.
+   *
+   * @param version the version of the entity
+   * @return the quoted ETag, or {@code null} when the version is unknown
+   */
+  protected static String eTagOf(final Long version) {
+    return version == null ? null : "\"" + version + "\"";
+  }
+
+  /**
+   * Reads the entity version expected by an {@code If-Match} header. Only a single strong ETag built by
+   * {@link #eTagOf(Long)} can match, anything else fails the precondition.
+   *
+   * @param ifMatch the value of the {@code If-Match} header
+   * @return the expected version, or {@code null} when the header is absent or {@code *}
+   * @throws OptimisticLockingFailureException when the header holds no ETag of this application
+   */
+  protected static Long versionFromIfMatch(final String ifMatch) {
+    if (ifMatch == null || ifMatch.isBlank() || "*".equals(ifMatch.trim())) {
+      return null;
+    }
+    var eTag = ifMatch.trim();
+    if (eTag.length() > 2 && eTag.startsWith("\"") && eTag.endsWith("\"")) {
+      try {
+        return Long.valueOf(eTag.substring(1, eTag.length() - 1));
+      } catch (final NumberFormatException e) {
+        // falls through, not an ETag of ours
+      }
+    }
+    throw new OptimisticLockingFailureException("If-Match does not hold a current ETag: " + ifMatch);
+  }
 }
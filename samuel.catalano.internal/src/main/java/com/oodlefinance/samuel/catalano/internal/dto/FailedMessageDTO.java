@@ -0,0 +1,30 @@
+package com.oodlefinance.samuel.catalano.internal.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import com.oodlefinance.samuel.catalano.internal.dto.base.BaseDTO;
+
+import java.time.Instant;
+
+/**
+ * A message accepted by write-behind ingestion (202) that could not be written, with the reason it failed.
+ */
+@Setter
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class FailedMessageDTO extends BaseDTO {
+
+  private Long id;
+
+  private String message;
+
+  private String error;
+
+  private Instant failedAt;
+}
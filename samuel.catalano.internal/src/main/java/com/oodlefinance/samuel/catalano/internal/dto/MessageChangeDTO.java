@@ -0,0 +1,26 @@
+package com.oodlefinance.samuel.catalano.internal.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import com.oodlefinance.samuel.catalano.internal.dto.base.BaseDTO;
+import com.oodlefinance.samuel.catalano.internal.event.MessageChangeType;
+
+@Setter
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class MessageChangeDTO extends BaseDTO {
+
+  private Long sequence;
+
+  private Long id;
+
+  private MessageChangeType type;
+
+  private Long version;
+}
@@ -0,0 +1,33 @@
+package com.oodlefinance.samuel.catalano.internal.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import com.oodlefinance.samuel.catalano.internal.dto.base.BaseDTO;
+
+import java.util.List;
+
+/**
+ * A slice of the message change feed.
+ * Subscribers pass {@code lastSequence} back as {@code since} to read the following changes. When {@code reset}
+ * is set, or the {@code epoch} differs from the one previously seen, changes were lost and every message
+ * derived state must be discarded.
+ */
+@Setter
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class MessageChangesDTO extends BaseDTO {
+
+  private String epoch;
+
+  private Long lastSequence;
+
+  private boolean reset;
+
+  private List<MessageChangeDTO> changes;
+}
@@ -0,0 +1,26 @@
+package com.oodlefinance.samuel.catalano.internal.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import com.oodlefinance.samuel.catalano.internal.dto.base.BaseDTO;
+
+import java.time.Instant;
+
+/**
+ * Number of messages created during the interval starting at {@code start}.
+ */
+@Setter
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class MessageCountDTO extends BaseDTO {
+
+  private Instant start;
+
+  private long count;
+}
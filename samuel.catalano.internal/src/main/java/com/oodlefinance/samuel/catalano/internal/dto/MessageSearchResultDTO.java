@@ -0,0 +1,31 @@
+package com.oodlefinance.samuel.catalano.internal.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import com.oodlefinance.samuel.catalano.internal.dto.base.BaseDTO;
+
+import java.util.List;
+
+/**
+ * One page of a full-text search: the matching messages of the page, best match first, and the total number
+ * of messages matching the query.
+ */
+@Setter
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class MessageSearchResultDTO extends BaseDTO {
+
+  private long total;
+
+  private int offset;
+
+  private int limit;
+
+  private List<MessageDTO> messages;
+}
@@ -2,6 +2,7 @@ package com.oodlefinance.samuel.catalano.internal.entity;
 
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.Index;
 import jakarta.persistence.Table;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
@@ -17,7 +18,7 @@ import com.oodlefinance.samuel.catalano.internal.entity.base.BaseEntity;
 @NoArgsConstructor
 @SuperBuilder
 @Entity
-@Table(name = "message")
+@Table(name = "message", indexes = @Index(name = "idx_message_created_at_id", columnList = "created_at, id"))
 public class Message extends BaseEntity {
 
   @Column(name = "message")
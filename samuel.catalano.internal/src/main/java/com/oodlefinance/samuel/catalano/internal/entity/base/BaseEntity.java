@@ -6,12 +6,17 @@ import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.MappedSuperclass;
 import jakarta.persistence.PrePersist;
+import jakarta.persistence.Version;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 import lombok.experimental.SuperBuilder;
 
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+
 import java.io.Serializable;
 import java.time.LocalDateTime;
 
@@ -23,14 +28,46 @@ import java.time.LocalDateTime;
 @MappedSuperclass
 public abstract class BaseEntity implements Serializable {
 
+  /**
+   * Increment of the id sequences: one {@code nextval} reserves this many ids. Also used by the code that allocates
+   * ids from the sequence without Hibernate, so both hand out the same blocks.
+   */
+  public static final int ID_BLOCK_SIZE = 50;
+
+  /**
+   * Name of the id sequence. It is set explicitly rather than derived per entity by Hibernate, so the code allocating
+   * ids without Hibernate queries the very same sequence: the database is case sensitive
+   * ({@code DATABASE_TO_UPPER=false}). It is the name Hibernate derived for the message table, so existing databases
+   * keep their sequence.
+   */
+  public static final String ID_SEQUENCE = "message_seq";
+
+  /**
+   * Ids come from the {@link #ID_SEQUENCE} sequence, read in blocks of {@link #ID_BLOCK_SIZE} with the pooled-lo
+   * optimizer: one {@code nextval} reserves the ids {@code [value, value + ID_BLOCK_SIZE)} for this JVM, so inserts
+   * need no round trip to get their key back and Hibernate can batch them. Keep the increment in line with
+   * {@code hibernate.jdbc.batch_size}.
+   */
   @Id
-  @GeneratedValue(strategy = GenerationType.IDENTITY)
-  @Column(updatable = false, insertable = false)
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "pooled_sequence")
+  @GenericGenerator(name = "pooled_sequence", strategy = "org.hibernate.id.enhanced.SequenceStyleGenerator", parameters = {
+      @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = ID_SEQUENCE),
+      @Parameter(name = SequenceStyleGenerator.INCREMENT_PARAM, value = "" + ID_BLOCK_SIZE),
+      @Parameter(name = SequenceStyleGenerator.OPT_PARAM, value = "pooled-lo")
+  })
+  @Column(updatable = false)
   private Long id;
 
   @Column(name = "created_at", updatable = false)
   private LocalDateTime createdAt;
 
+  /**
+   * Incremented on every update, used for optimistic locking and exposed to clients as the ETag of the entity.
+   */
+  @Version
+  @Column(name = "version")
+  private Long version;
+
   @PrePersist
   protected void prePersist() {
     if (createdAt == null) createdAt = LocalDateTime.now();
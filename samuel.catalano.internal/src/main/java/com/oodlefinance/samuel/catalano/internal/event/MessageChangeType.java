@@ -0,0 +1,7 @@
+package com.oodlefinance.samuel.catalano.internal.event;
+
+public enum MessageChangeType {
+  CREATED,
+  UPDATED,
+  DELETED
+}
@@ -0,0 +1,16 @@
+package com.oodlefinance.samuel.catalano.internal.event;
+
+/**
+ * Published by the MessageService every time a message is created, updated or deleted.
+ *
+ * @param id the id of the changed message
+ * @param type the kind of change
+ * @param message the text of the message after the change, {@code null} when it was deleted
+ * @param version the version of the message after the change, {@code null} when it was deleted
+ */
+public record MessageChangedEvent(Long id, MessageChangeType type, String message, Long version) {
+
+  public MessageChangedEvent(final Long id, final MessageChangeType type) {
+    this(id, type, null, null);
+  }
+}
@@ -0,0 +1,23 @@
+package com.oodlefinance.samuel.catalano.internal.exception;
+
+import java.io.Serial;
+
+/**
+ * Thrown when the parameters of a request are invalid, the client should not retry it as is.
+ * <p>
+ * It is an expected answer rather than a fault, so no stack trace is captured.
+ */
+public class BadRequestException extends ServiceException {
+
+  @Serial
+  private static final long serialVersionUID = 1L;
+
+  public BadRequestException(String message) {
+    super(message);
+  }
+
+  @Override
+  public synchronized Throwable fillInStackTrace() {
+    return this;
+  }
+}
@@ -0,0 +1,25 @@
+package com.oodlefinance.samuel.catalano.internal.exception;
+
+import jakarta.persistence.EntityNotFoundException;
+
+import java.io.Serial;
+
+/**
+ * Thrown when there is no message with the requested id.
+ * <p>
+ * It is an expected answer rather than a fault, so no stack trace is captured.
+ */
+public class MessageNotFoundException extends EntityNotFoundException {
+
+  @Serial
+  private static final long serialVersionUID = 1L;
+
+  public MessageNotFoundException(String message) {
+    super(message);
+  }
+
+  @Override
+  public synchronized Throwable fillInStackTrace() {
+    return this;
+  }
+}
@@ -0,0 +1,24 @@
+package com.oodlefinance.samuel.catalano.internal.exception;
+
+import java.io.Serial;
+
+/**
+ * Thrown while reading a request body that is larger than the service accepts, the client should not retry it as is.
+ * <p>
+ * It is unchecked because it is raised from the body stream, under the message converters, and it is an expected
+ * answer rather than a fault, so no stack trace is captured.
+ */
+public class PayloadTooLargeException extends RuntimeException {
+
+  @Serial
+  private static final long serialVersionUID = 1L;
+
+  public PayloadTooLargeException(String message) {
+    super(message);
+  }
+
+  @Override
+  public synchronized Throwable fillInStackTrace() {
+    return this;
+  }
+}
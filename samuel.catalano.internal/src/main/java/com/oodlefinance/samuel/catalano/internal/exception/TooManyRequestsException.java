@@ -0,0 +1,16 @@
+package com.oodlefinance.samuel.catalano.internal.exception;
+
+import java.io.Serial;
+
+/**
+ * Thrown when a request is refused because the service cannot take more work for now, the client should retry later.
+ */
+public class TooManyRequestsException extends ServiceException {
+
+  @Serial
+  private static final long serialVersionUID = 1L;
+
+  public TooManyRequestsException(String message) {
+    super(message);
+  }
+}
@@ -0,0 +1,25 @@
+package com.oodlefinance.samuel.catalano.internal.exception;
+
+import java.io.Serial;
+
+/**
+ * Thrown when a request body is sent with a content encoding the service cannot decode for that request, the client
+ * should send it uncompressed.
+ * <p>
+ * It is unchecked because it is raised from the body stream, and it is an expected answer rather than a fault, so no
+ * stack trace is captured.
+ */
+public class UnsupportedContentEncodingException extends RuntimeException {
+
+  @Serial
+  private static final long serialVersionUID = 1L;
+
+  public UnsupportedContentEncodingException(String message) {
+    super(message);
+  }
+
+  @Override
+  public synchronized Throwable fillInStackTrace() {
+    return this;
+  }
+}
@@ -0,0 +1,124 @@
+package com.oodlefinance.samuel.catalano.internal.feed;
+
+import com.oodlefinance.samuel.catalano.internal.dto.MessageChangeDTO;
+import com.oodlefinance.samuel.catalano.internal.dto.MessageChangesDTO;
+import com.oodlefinance.samuel.catalano.internal.event.MessageChangeType;
+import com.oodlefinance.samuel.catalano.internal.event.MessageChangedEvent;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * In-memory feed of message changes, used by the external gateways to invalidate their caches.
+ * <p>
+ * Every committed {@link MessageChangedEvent} gets the next sequence number and is kept in a fixed size ring buffer of
+ * ids, change types and versions. The version lets readers skip a change older than the copy they hold, since events of
+ * concurrent transactions may commit in a different order than their versions. Readers poll with the last sequence they
+ * have seen and either get the changes that followed it straight away, or wait until one is published or the poll times
+ * out (long polling). A reader that fell behind the ring buffer is told to reset. The epoch identifies this instance of
+ * the feed, it changes on every restart since the feed is not persisted.
+ */
+@Component
+public class MessageChangeFeed {
+
+  private static final int MAX_CHANGES_PER_READ = 1000;
+  private static final MessageChangeType[] TYPES = MessageChangeType.values();
+  private static final long NO_VERSION = -1;
+
+  private final String epoch = UUID.randomUUID().toString();
+  private final long[] ids;
+  private final byte[] types;
+  private final long[] versions;
+  private final List<Waiter> waiters = new ArrayList<>();
+  private long head;
+
+  @Autowired
+  public MessageChangeFeed(@Value("${oodle.messages.changes.capacity:10000}") final int capacity) {
+    this.ids = new long[capacity];
+    this.types = new byte[capacity];
+    this.versions = new long[capacity];
+  }
+
+  /**
+   * Appends a committed change to the feed and wakes up every waiting reader.
+   *
+   * @param event the change to append
+   */
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onMessageChanged(final MessageChangedEvent event) {
+    final List<Waiter> ready;
+    synchronized (this) {
+      head++;
+      var slot = (int) (head % ids.length);
+      ids[slot] = event.id();
+      types[slot] = (byte) event.type().ordinal();
+      versions[slot] = event.version() == null ? NO_VERSION : event.version();
+      ready = new ArrayList<>(waiters);
+      waiters.clear();
+    }
+    ready.forEach(waiter -> waiter.result().setResult(read(waiter.since())));
+  }
+
+  /**
+   * Reads the changes that followed the given sequence, waiting for up to the given timeout when there are none.
+   *
+   * @param since the last sequence seen by the reader, {@code null} to only learn the current position
+   * @param timeoutMillis how long to wait for a change before returning an empty slice
+   * @return the pending slice of the feed
+   */
+  public DeferredResult<MessageChangesDTO> poll(final Long since, final long timeoutMillis) {
+    final DeferredResult<MessageChangesDTO> result = new DeferredResult<>(timeoutMillis, () -> read(since));
+    final Waiter waiter = new Waiter(since, result);
+    result.onCompletion(() -> removeWaiter(waiter));
+
+    synchronized (this) {
+      var changes = read(since);
+      if (since == null || changes.isReset() || !changes.getChanges().isEmpty()) {
+        result.setResult(changes);
+      } else {
+        waiters.add(waiter);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Reads, without waiting, up to {@value #MAX_CHANGES_PER_READ} changes that followed the given sequence.
+   *
+   * @param since the last sequence seen by the reader, {@code null} to only learn the current position
+   * @return the slice of the feed following the given sequence
+   */
+  public synchronized MessageChangesDTO read(final Long since) {
+    var oldest = Math.max(1, head - ids.length + 1);
+    if (since == null || since > head || since < oldest - 1) {
+      return MessageChangesDTO.builder().epoch(epoch).lastSequence(head).reset(since != null).changes(List.of()).build();
+    }
+
+    var last = Math.min(head, since + MAX_CHANGES_PER_READ);
+    final List<MessageChangeDTO> changes = new ArrayList<>((int) (last - since));
+    for (long sequence = since + 1; sequence <= last; sequence++) {
+      var slot = (int) (sequence % ids.length);
+      changes.add(MessageChangeDTO.builder()
+                                  .sequence(sequence)
+                                  .id(ids[slot])
+                                  .type(TYPES[types[slot]])
+                                  .version(versions[slot] == NO_VERSION ? null : versions[slot])
+                                  .build());
+    }
+    return MessageChangesDTO.builder().epoch(epoch).lastSequence(last).reset(false).changes(changes).build();
+  }
+
+  private synchronized void removeWaiter(final Waiter waiter) {
+    waiters.remove(waiter);
+  }
+
+  private record Waiter(Long since, DeferredResult<MessageChangesDTO> result) {
+  }
+}
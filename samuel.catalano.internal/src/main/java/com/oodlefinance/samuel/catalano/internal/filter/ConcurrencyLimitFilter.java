@@ -0,0 +1,161 @@
+package com.oodlefinance.samuel.catalano.internal.filter;
+
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.oodlefinance.samuel.catalano.internal.config.ConcurrencyLimitConfig;
+import com.oodlefinance.samuel.catalano.internal.handler.ErrorResponse;
+import com.oodlefinance.samuel.catalano.internal.limit.AimdLimiter;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Sheds the API requests beyond the concurrency limit of their class, writes ({@code POST}, {@code PUT},
+ * {@code PATCH}, {@code DELETE}) or reads, with a 503 (SERVICE_UNAVAILABLE) and a {@code Retry-After} header, before
+ * they queue for a thread, a database connection or a lock. See {@link AimdLimiter} for how the limits adapt. Runs
+ * first, so a shed request costs as little as possible.
+ * <p>
+ * Batches and scans ({@code /api/messages/batch}, {@code search}, {@code range} and {@code histogram}) are limited as a
+ * class of their own, whatever their method: their latency grows with their size, not only with the load, and must
+ * not shed the single-message requests. The change feed and the message stream are not limited: they hold their
+ * request open by design, their latency says nothing about the load.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@ConditionalOnProperty(prefix = "oodle.messages.concurrency-limit", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+  private static final String API_PATH = "/api/";
+  private static final Set<String> UNLIMITED_PATHS = Set.of("/api/messages/changes", "/api/messages/stream");
+  private static final Set<String> BULK_PATHS = Set.of("/api/messages/batch", "/api/messages/search",
+                                                       "/api/messages/range", "/api/messages/histogram");
+  private static final Set<String> WRITE_METHODS = Set.of(HttpMethod.POST.name(), HttpMethod.PUT.name(),
+                                                          HttpMethod.PATCH.name(), HttpMethod.DELETE.name());
+
+  private final AimdLimiter readLimiter;
+  private final AimdLimiter writeLimiter;
+  private final AimdLimiter bulkLimiter;
+  private final ObjectMapper objectMapper;
+
+  @Autowired
+  public ConcurrencyLimitFilter(@Qualifier(ConcurrencyLimitConfig.READ_LIMITER) final AimdLimiter readLimiter,
+                                @Qualifier(ConcurrencyLimitConfig.WRITE_LIMITER) final AimdLimiter writeLimiter,
+                                @Qualifier(ConcurrencyLimitConfig.BULK_LIMITER) final AimdLimiter bulkLimiter,
+                                final ObjectMapper objectMapper) {
+    this.readLimiter = readLimiter;
+    this.writeLimiter = writeLimiter;
+    this.bulkLimiter = bulkLimiter;
+    this.objectMapper = objectMapper;
+  }
+
+  @Override
+  protected boolean shouldNotFilter(final HttpServletRequest request) {
+    var path = path(request);
+    return !path.startsWith(API_PATH) || UNLIMITED_PATHS.contains(path);
+  }
+
+  @Override
+  protected void doFilterInternal(final HttpServletRequest request, final HttpServletResponse response,
+                                  final FilterChain filterChain) throws ServletException, IOException {
+    var limiter = limiter(request);
+    if (!limiter.tryAcquire()) {
+      shed(response, limiter);
+      return;
+    }
+    var release = new Release(limiter, response, System.nanoTime());
+    try {
+      filterChain.doFilter(request, response);
+    } finally {
+      if (request.isAsyncStarted()) {
+        request.getAsyncContext().addListener(release);
+      } else {
+        release.run();
+      }
+    }
+  }
+
+  private AimdLimiter limiter(final HttpServletRequest request) {
+    if (BULK_PATHS.contains(path(request))) {
+      return bulkLimiter;
+    }
+    return WRITE_METHODS.contains(request.getMethod()) ? writeLimiter : readLimiter;
+  }
+
+  private static String path(final HttpServletRequest request) {
+    return request.getRequestURI().substring(request.getContextPath().length());
+  }
+
+  private void shed(final HttpServletResponse response, final AimdLimiter limiter) throws IOException {
+    var status = HttpStatus.SERVICE_UNAVAILABLE;
+    response.setStatus(status.value());
+    response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+    response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+    var message = "Too many " + limiter.getName() + " in progress, retry later";
+    objectMapper.writeValue(response.getOutputStream(), new ErrorResponse(status.name(), message, status.value()));
+  }
+
+  /**
+   * Gives the slot of a request back once, when it is answered, be it at the end of the filter chain or of its
+   * asynchronous processing.
+   */
+  private static final class Release implements AsyncListener {
+
+    private final AimdLimiter limiter;
+    private final HttpServletResponse response;
+    private final long start;
+    private final AtomicBoolean released = new AtomicBoolean();
+
+    private Release(final AimdLimiter limiter, final HttpServletResponse response, final long start) {
+      this.limiter = limiter;
+      this.response = response;
+      this.start = start;
+    }
+
+    private void run() {
+      if (released.compareAndSet(false, true)) {
+        var status = response.getStatus();
+        limiter.release(start, System.nanoTime(), status == HttpStatus.SERVICE_UNAVAILABLE.value()
+                                                  || status == HttpStatus.TOO_MANY_REQUESTS.value());
+      }
+    }
+
+    @Override
+    public void onComplete(final AsyncEvent event) {
+      run();
+    }
+
+    @Override
+    public void onTimeout(final AsyncEvent event) {
+      run();
+    }
+
+    @Override
+    public void onError(final AsyncEvent event) {
+      run();
+    }
+
+    @Override
+    public void onStartAsync(final AsyncEvent event) {
+      event.getAsyncContext().addListener(this);
+    }
+  }
+}
@@ -0,0 +1,177 @@
+package com.oodlefinance.samuel.catalano.internal.filter;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+
+import com.oodlefinance.samuel.catalano.internal.exception.PayloadTooLargeException;
+import com.oodlefinance.samuel.catalano.internal.exception.UnsupportedContentEncodingException;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Inflates request bodies sent with {@code Content-Encoding: gzip} or {@code deflate}, as the gateway does for large
+ * bodies, so the controllers read them as if they were sent uncompressed. Tomcat only compresses responses
+ * ({@code server.compression}), it does not decode compressed requests. Runs after the {@code PayloadSizeFilter},
+ * which records the compressed size.
+ * <p>
+ * The inflated bytes are counted as they are read, and the read fails with a {@link PayloadTooLargeException} (413)
+ * once they exceed {@code oodle.messages.request.max-inflated-size}, so a small compressed body cannot expand without
+ * bound. The inflating stream can only be read blocking: registering a {@link ReadListener} on it fails with an
+ * {@link UnsupportedContentEncodingException} (415), asking the client to send that body uncompressed.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+public class GzipRequestFilter extends OncePerRequestFilter {
+
+  private final long maxInflatedSize;
+
+  public GzipRequestFilter(@Value("${oodle.messages.request.max-inflated-size:10MB}") final DataSize maxInflatedSize) {
+    this.maxInflatedSize = maxInflatedSize.toBytes();
+  }
+
+  @Override
+  protected boolean shouldNotFilter(final HttpServletRequest request) {
+    var encoding = request.getHeader(HttpHeaders.CONTENT_ENCODING);
+    return encoding == null || !(encoding.equalsIgnoreCase("gzip") || encoding.equalsIgnoreCase("deflate"));
+  }
+
+  @Override
+  protected void doFilterInternal(final HttpServletRequest request, final HttpServletResponse response,
+                                  final FilterChain filterChain) throws ServletException, IOException {
+    filterChain.doFilter(new InflatingRequest(request, maxInflatedSize), response);
+  }
+
+  private static final class InflatingRequest extends HttpServletRequestWrapper {
+
+    private final long maxInflatedSize;
+    private ServletInputStream inputStream;
+    private BufferedReader reader;
+
+    private InflatingRequest(final HttpServletRequest request, final long maxInflatedSize) {
+      super(request);
+      this.maxInflatedSize = maxInflatedSize;
+    }
+
+    @Override
+    public ServletInputStream getInputStream() throws IOException {
+      if (inputStream == null) {
+        final ServletInputStream compressed = super.getInputStream();
+        final InputStream inflated = "gzip".equalsIgnoreCase(super.getHeader(HttpHeaders.CONTENT_ENCODING))
+            ? new GZIPInputStream(compressed)
+            : new InflaterInputStream(compressed);
+        inputStream = new ServletInputStream() {
+          private boolean finished;
+          private long inflatedBytes;
+
+          @Override
+          public boolean isFinished() {
+            return finished;
+          }
+
+          @Override
+          public boolean isReady() {
+            return true;
+          }
+
+          @Override
+          public void setReadListener(final ReadListener readListener) {
+            throw new UnsupportedContentEncodingException("Compressed request bodies can only be read blocking, "
+                                                          + "send this request uncompressed");
+          }
+
+          @Override
+          public int read() throws IOException {
+            var b = inflated.read();
+            finished = b < 0;
+            count(finished ? 0 : 1);
+            return b;
+          }
+
+          @Override
+          public int read(final byte[] b, final int off, final int len) throws IOException {
+            var read = inflated.read(b, off, len);
+            finished = read < 0;
+            count(Math.max(read, 0));
+            return read;
+          }
+
+          private void count(final int bytes) {
+            inflatedBytes += bytes;
+            if (inflatedBytes > maxInflatedSize) {
+              throw new PayloadTooLargeException("The inflated request body is larger than " + maxInflatedSize
+                                                 + " bytes");
+            }
+          }
+
+          @Override
+          public void close() throws IOException {
+            inflated.close();
+          }
+        };
+      }
+      return inputStream;
+    }
+
+    @Override
+    public BufferedReader getReader() throws IOException {
+      if (reader == null) {
+        var encoding = getCharacterEncoding() == null ? StandardCharsets.UTF_8.name() : getCharacterEncoding();
+        reader = new BufferedReader(new InputStreamReader(getInputStream(), encoding));
+      }
+      return reader;
+    }
+
+    @Override
+    public int getContentLength() {
+      return -1;
+    }
+
+    @Override
+    public long getContentLengthLong() {
+      return -1;
+    }
+
+    @Override
+    public String getHeader(final String name) {
+      return isRemovedHeader(name) ? null : super.getHeader(name);
+    }
+
+    @Override
+    public Enumeration<String> getHeaders(final String name) {
+      return isRemovedHeader(name) ? Collections.emptyEnumeration() : super.getHeaders(name);
+    }
+
+    @Override
+    public Enumeration<String> getHeaderNames() {
+      return Collections.enumeration(Collections.list(super.getHeaderNames())
+                                                .stream()
+                                                .filter(name -> !isRemovedHeader(name))
+                                                .toList());
+    }
+
+    private static boolean isRemovedHeader(final String name) {
+      return HttpHeaders.CONTENT_ENCODING.equalsIgnoreCase(name) || HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name);
+    }
+  }
+}
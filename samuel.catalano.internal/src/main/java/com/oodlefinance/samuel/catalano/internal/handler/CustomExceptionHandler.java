@@ -2,9 +2,15 @@ package com.oodlefinance.samuel.catalano.internal.handler;
 
 import jakarta.persistence.EntityNotFoundException;
 
+import com.oodlefinance.samuel.catalano.internal.exception.BadRequestException;
+import com.oodlefinance.samuel.catalano.internal.exception.PayloadTooLargeException;
 import com.oodlefinance.samuel.catalano.internal.exception.ServiceException;
+import com.oodlefinance.samuel.catalano.internal.exception.TooManyRequestsException;
+import com.oodlefinance.samuel.catalano.internal.exception.UnsupportedContentEncodingException;
 
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -36,6 +42,63 @@ public class CustomExceptionHandler extends ResponseEntityExceptionHandler {
     return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).contentType(MediaType.APPLICATION_JSON).body(errorResponse);
   }
 
+  /**
+   * This method handles the TooManyRequestsException, raised when the service cannot accept more work for now, by
+   * returning a response asking the client to retry after one second.
+   *
+   * @param ex the TooManyRequestsException that needs to be handled.
+   * @param request the web request that resulted in the exception.
+   * @return A ResponseEntity with a status code of HttpStatus.TOO_MANY_REQUESTS, a Retry-After header and a body of
+   *     ErrorResponse with error information.
+   */
+  @ExceptionHandler(value = TooManyRequestsException.class)
+  public ResponseEntity<ErrorResponse> handleTooManyRequestsException(final TooManyRequestsException ex, final WebRequest request) {
+    final ErrorResponse errorResponse = new ErrorResponse(HttpStatus.TOO_MANY_REQUESTS.name(), ex.getMessage(), HttpStatus.TOO_MANY_REQUESTS.value());
+    return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).header(HttpHeaders.RETRY_AFTER, "1").contentType(MediaType.APPLICATION_JSON).body(errorResponse);
+  }
+
+  /**
+   * This method handles the BadRequestException, raised when the parameters of a request are invalid, by returning a
+   * response with a corresponding error message.
+   *
+   * @param ex the BadRequestException that needs to be handled.
+   * @param request the web request that resulted in the exception.
+   * @return A ResponseEntity with a status code of HttpStatus.BAD_REQUEST and a body of ErrorResponse with error information.
+   */
+  @ExceptionHandler(value = BadRequestException.class)
+  public ResponseEntity<ErrorResponse> handleBadRequestException(final BadRequestException ex, final WebRequest request) {
+    final ErrorResponse errorResponse = new ErrorResponse(HttpStatus.BAD_REQUEST.name(), ex.getMessage(), HttpStatus.BAD_REQUEST.value());
+    return ResponseEntity.status(HttpStatus.BAD_REQUEST).contentType(MediaType.APPLICATION_JSON).body(errorResponse);
+  }
+
+  /**
+   * This method handles the PayloadTooLargeException, raised when an inflated request body exceeds the configured
+   * maximum, by returning a response with a corresponding error message.
+   *
+   * @param ex the PayloadTooLargeException that needs to be handled.
+   * @param request the web request that resulted in the exception.
+   * @return A ResponseEntity with a status code of HttpStatus.PAYLOAD_TOO_LARGE and a body of ErrorResponse with error information.
+   */
+  @ExceptionHandler(value = PayloadTooLargeException.class)
+  public ResponseEntity<ErrorResponse> handlePayloadTooLargeException(final PayloadTooLargeException ex, final WebRequest request) {
+    final ErrorResponse errorResponse = new ErrorResponse(HttpStatus.PAYLOAD_TOO_LARGE.name(), ex.getMessage(), HttpStatus.PAYLOAD_TOO_LARGE.value());
+    return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).contentType(MediaType.APPLICATION_JSON).body(errorResponse);
+  }
+
+  /**
+   * This method handles the UnsupportedContentEncodingException, raised when a compressed request body cannot be
+   * decoded for that request, by returning a response with a corresponding error message.
+   *
+   * @param ex the UnsupportedContentEncodingException that needs to be handled.
+   * @param request the web request that resulted in the exception.
+   * @return A ResponseEntity with a status code of HttpStatus.UNSUPPORTED_MEDIA_TYPE and a body of ErrorResponse with error information.
+   */
+  @ExceptionHandler(value = UnsupportedContentEncodingException.class)
+  public ResponseEntity<ErrorResponse> handleUnsupportedContentEncodingException(final UnsupportedContentEncodingException ex, final WebRequest request) {
+    final ErrorResponse errorResponse = new ErrorResponse(HttpStatus.UNSUPPORTED_MEDIA_TYPE.name(), ex.getMessage(), HttpStatus.UNSUPPORTED_MEDIA_TYPE.value());
+    return ResponseEntity.status(HttpStatus.UNSUPPORTED_MEDIA_TYPE).contentType(MediaType.APPLICATION_JSON).body(errorResponse);
+  }
+
   /**
    * This method handles the EntityNotFoundException by returning a response with a corresponding error message.
    *
@@ -50,15 +113,30 @@ public class CustomExceptionHandler extends ResponseEntityExceptionHandler {
   }
 
   /**
-   * This method handles the DataIntegrityViolationException by returning a response with a corresponding error message.
+   * This method handles the DataIntegrityViolationException, raised when a change breaks a database constraint, by
+   * returning a response with a corresponding error message.
    *
    * @param ex the DataIntegrityViolationException that needs to be handled.
    * @param request the web request that resulted in the exception.
-   * @return A ResponseEntity with a status code of HttpStatus.OK and a body of ErrorResponse with error information.
+   * @return A ResponseEntity with a status code of HttpStatus.CONFLICT and a body of ErrorResponse with error information.
    */
   @ExceptionHandler(value = DataIntegrityViolationException.class)
   public ResponseEntity<ErrorResponse> handleDataIntegrityViolationException(final DataIntegrityViolationException ex, final WebRequest request) {
-    final ErrorResponse errorResponse = new ErrorResponse(HttpStatus.INTERNAL_SERVER_ERROR.name(), ex.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR.value());
-    return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).contentType(MediaType.APPLICATION_JSON).body(errorResponse);
+    final ErrorResponse errorResponse = new ErrorResponse(HttpStatus.CONFLICT.name(), ex.getMessage(), HttpStatus.CONFLICT.value());
+    return ResponseEntity.status(HttpStatus.CONFLICT).contentType(MediaType.APPLICATION_JSON).body(errorResponse);
+  }
+
+  /**
+   * This method handles the OptimisticLockingFailureException, raised when a conditional request no longer matches
+   * the current version of the message, by returning a response with a corresponding error message.
+   *
+   * @param ex the OptimisticLockingFailureException that needs to be handled.
+   * @param request the web request that resulted in the exception.
+   * @return A ResponseEntity with a status code of HttpStatus.PRECONDITION_FAILED and a body of ErrorResponse with error information.
+   */
+  @ExceptionHandler(value = OptimisticLockingFailureException.class)
+  public ResponseEntity<ErrorResponse> handleOptimisticLockingFailureException(final OptimisticLockingFailureException ex, final WebRequest request) {
+    final ErrorResponse errorResponse = new ErrorResponse(HttpStatus.PRECONDITION_FAILED.name(), ex.getMessage(), HttpStatus.PRECONDITION_FAILED.value());
+    return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).contentType(MediaType.APPLICATION_JSON).body(errorResponse);
   }
-}
\ No newline at end of file
+}
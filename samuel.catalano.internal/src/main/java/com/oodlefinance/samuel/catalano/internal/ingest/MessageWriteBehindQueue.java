@@ -0,0 +1,239 @@
+package com.oodlefinance.samuel.catalano.internal.ingest;
+
+import lombok.extern.slf4j.Slf4j;
+
+import com.oodlefinance.samuel.catalano.internal.entity.Message;
+import com.oodlefinance.samuel.catalano.internal.event.MessageChangeType;
+import com.oodlefinance.samuel.catalano.internal.event.MessageChangedEvent;
+import com.oodlefinance.samuel.catalano.internal.exception.TooManyRequestsException;
+import com.oodlefinance.samuel.catalano.internal.repository.MessageStore;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write-behind ingestion of new messages, turned on with {@code oodle.messages.write-behind.enabled}.
+ * <p>
+ * A new message gets its id straight away, from the same sequence as the entity id generator, and is put in a
+ * bounded in-memory queue; the caller does not wait for the database. A single writer thread takes the queued
+ * messages in batches of up to {@code batch-size}, waiting at most {@code linger} for a batch to fill, and inserts
+ * each batch with one JDBC batch in one transaction. A batch that fails is retried message by message, so one bad
+ * message only loses itself. When the queue is full new messages are refused.
+ * <p>
+ * The caller was already answered 202, so a message that cannot be written is kept as a dead letter, with the
+ * reason, in a bounded list read by {@code GET /api/messages/dead-letters}; the oldest dead letters are dropped first.
+ * <p>
+ * Queued messages are not durable: they are lost if the process dies before they are written. On a normal shutdown
+ * the queue is drained first.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "oodle.messages.write-behind", name = "enabled", havingValue = "true")
+public class MessageWriteBehindQueue implements DisposableBean {
+
+  public static final String METRICS_PREFIX = "oodle.messages.write-behind";
+
+  private static final long POLL_MILLIS = 100;
+  private static final Duration SHUTDOWN_TIMEOUT = Duration.ofSeconds(30);
+
+  private final MessageStore repository;
+  private final TransactionTemplate transactionTemplate;
+  private final ApplicationEventPublisher eventPublisher;
+  private final BlockingQueue<Message> queue;
+  private final int batchSize;
+  private final long lingerNanos;
+  private final Timer flushTimer;
+  private final Counter rejected;
+  private final Counter failed;
+  private final Deque<FailedMessage> deadLetters = new ArrayDeque<>();
+  private final int deadLetterCapacity;
+  private final Thread writer;
+  private volatile boolean running = true;
+
+  @Autowired
+  public MessageWriteBehindQueue(final MessageStore repository, final TransactionTemplate transactionTemplate,
+                                 final ApplicationEventPublisher eventPublisher, final MeterRegistry meterRegistry,
+                                 final WriteBehindProperties properties) {
+    this.repository = repository;
+    this.transactionTemplate = transactionTemplate;
+    this.eventPublisher = eventPublisher;
+    this.queue = new ArrayBlockingQueue<>(properties.getCapacity());
+    this.batchSize = properties.getBatchSize();
+    this.lingerNanos = properties.getLinger().toNanos();
+    this.deadLetterCapacity = properties.getDeadLetterCapacity();
+
+    Gauge.builder(METRICS_PREFIX + ".depth", queue, BlockingQueue::size)
+         .description("Number of accepted messages waiting to be written")
+         .register(meterRegistry);
+    Gauge.builder(METRICS_PREFIX + ".capacity", queue, q -> q.size() + q.remainingCapacity())
+         .description("Maximum number of accepted messages waiting to be written")
+         .register(meterRegistry);
+    this.flushTimer = Timer.builder(METRICS_PREFIX + ".flush")
+                           .description("Time taken to write one batch of accepted messages")
+                           .register(meterRegistry);
+    this.rejected = Counter.builder(METRICS_PREFIX + ".rejected")
+                           .description("Messages refused because the queue was full")
+                           .register(meterRegistry);
+    this.failed = Counter.builder(METRICS_PREFIX + ".failed")
+                         .description("Accepted messages that could not be written")
+                         .register(meterRegistry);
+
+    this.writer = new Thread(this::run, "message-write-behind");
+    this.writer.setDaemon(true);
+    this.writer.start();
+  }
+
+  /**
+   * Accepts a new message for writing.
+   *
+   * @param text the text of the message
+   * @return the accepted message, holding its id, creation time and initial version
+   * @throws TooManyRequestsException when the queue is full or the application is shutting down
+   */
+  public Message offer(final String text) throws TooManyRequestsException {
+    if (!running) {
+      rejected.increment();
+      throw new TooManyRequestsException("Message ingestion is shutting down");
+    }
+    // a full queue refuses before an id is allocated, so refused messages neither wait for the sequence nor use it up
+    if (queue.remainingCapacity() == 0) {
+      rejected.increment();
+      throw new TooManyRequestsException("Message ingestion queue is full, retry later");
+    }
+    final Message message = Message.builder()
+                                   .id(repository.allocateId())
+                                   .createdAt(LocalDateTime.now())
+                                   .message(text)
+                                   .version(0L)
+                                   .build();
+    if (!queue.offer(message)) {
+      rejected.increment();
+      throw new TooManyRequestsException("Message ingestion queue is full, retry later");
+    }
+    return message;
+  }
+
+  /**
+   * @return the number of accepted messages waiting to be written
+   */
+  public int depth() {
+    return queue.size();
+  }
+
+  /**
+   * @return the accepted messages that could not be written, oldest first
+   */
+  public synchronized List<FailedMessage> deadLetters() {
+    return List.copyOf(deadLetters);
+  }
+
+  /**
+   * Stops accepting messages and waits for the queued ones to be written.
+   */
+  @Override
+  public void destroy() throws InterruptedException {
+    running = false;
+    writer.join(SHUTDOWN_TIMEOUT.toMillis());
+    if (!queue.isEmpty()) {
+      log.error("{} accepted messages were not written before shutdown", queue.size());
+    }
+  }
+
+  private void run() {
+    final List<Message> batch = new ArrayList<>(batchSize);
+    while (running || !queue.isEmpty()) {
+      try {
+        var first = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+        if (first == null) {
+          continue;
+        }
+        batch.add(first);
+        var deadline = System.nanoTime() + lingerNanos;
+        while (batch.size() < batchSize) {
+          queue.drainTo(batch, batchSize - batch.size());
+          var remaining = deadline - System.nanoTime();
+          if (batch.size() >= batchSize || remaining <= 0) {
+            break;
+          }
+          var next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+          if (next == null) {
+            break;
+          }
+          batch.add(next);
+        }
+        flush(batch);
+      } catch (final InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      } finally {
+        batch.clear();
+      }
+    }
+  }
+
+  void flush(final List<Message> batch) {
+    flushTimer.record(() -> {
+      try {
+        write(batch);
+      } catch (final RuntimeException e) {
+        log.warn("Error writing a batch of {} messages, writing them one by one: {}", batch.size(), e.getMessage());
+        for (var message : batch) {
+          try {
+            write(List.of(message));
+          } catch (final RuntimeException messageError) {
+            failed.increment();
+            deadLetter(message, messageError);
+            log.error("Error writing accepted message {}: {}", message.getId(), messageError.getMessage(), messageError);
+          }
+        }
+      }
+    });
+  }
+
+  private void write(final List<Message> messages) {
+    transactionTemplate.executeWithoutResult(status -> {
+      repository.insertAll(messages);
+      messages.forEach(message -> eventPublisher.publishEvent(new MessageChangedEvent(message.getId(), MessageChangeType.CREATED, message.getMessage(), message.getVersion())));
+    });
+  }
+
+  private synchronized void deadLetter(final Message message, final RuntimeException error) {
+    if (deadLetterCapacity <= 0) {
+      return;
+    }
+    if (deadLetters.size() >= deadLetterCapacity) {
+      deadLetters.removeFirst();
+    }
+    deadLetters.addLast(new FailedMessage(message.getId(), message.getMessage(), error.getMessage(), Instant.now()));
+  }
+
+  /**
+   * An accepted message that could not be written.
+   *
+   * @param id the id allocated to the message when it was accepted
+   * @param message the text of the message
+   * @param error why it could not be written
+   * @param failedAt when the last attempt to write it failed
+   */
+  public record FailedMessage(Long id, String message, String error, Instant failedAt) {
+  }
+}
@@ -0,0 +1,31 @@
+package com.oodlefinance.samuel.catalano.internal.ingest;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Settings of the {@link MessageWriteBehindQueue}, bound from {@code oodle.messages.write-behind.*}.
+ */
+@Setter
+@Getter
+@ConfigurationProperties(prefix = "oodle.messages.write-behind")
+public class WriteBehindProperties {
+
+  private boolean enabled = false;
+
+  private int capacity = 10_000;
+
+  private int batchSize = 500;
+
+  private Duration linger = Duration.ofMillis(10);
+
+  /**
+   * Number of accepted messages that could not be written kept for {@code GET /api/messages/dead-letters}, the
+   * oldest are dropped first.
+   */
+  private int deadLetterCapacity = 1000;
+}
@@ -0,0 +1,125 @@
+package com.oodlefinance.samuel.catalano.internal.limit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Adaptive limit on the number of requests of one class (reads, writes or bulk) processed at the same time, following
+ * AIMD (additive increase, multiplicative decrease) on the observed latency.
+ * <p>
+ * A request beyond the limit is refused at once instead of queuing behind the others. A request that took longer
+ * than {@code latencyThreshold}, or was dropped by the service, means the service is past its capacity: the limit is
+ * multiplied by {@code backoffRatio}. The limit is cut at most once per window: the requests already in flight when it
+ * was cut were let in under the old limit, so only a request started after the last cut may cut it again, and a burst
+ * of slow requests lowers it once rather than once per request. Every request answered in time while at least half of
+ * the limit was in use raises the limit by one. The limit stays between {@code minLimit} and {@code maxLimit}.
+ */
+public class AimdLimiter {
+
+  public static final String METRICS_PREFIX = "oodle.messages.concurrency-limit";
+
+  private final String name;
+  private final int minLimit;
+  private final int maxLimit;
+  private final long latencyThresholdNanos;
+  private final double backoffRatio;
+  private final AtomicInteger inFlight = new AtomicInteger();
+  private final Counter rejected;
+  private volatile int limit;
+  private boolean cut;
+  private long lastCutAt;
+
+  public AimdLimiter(final String name, final int initialLimit, final int minLimit, final int maxLimit,
+                     final Duration latencyThreshold, final double backoffRatio, final MeterRegistry meterRegistry) {
+    if (minLimit < 1 || maxLimit < minLimit || initialLimit < minLimit || initialLimit > maxLimit) {
+      throw new IllegalArgumentException("Limits of " + name + " must satisfy 1 <= min-limit <= initial-limit <= max-limit");
+    }
+    if (backoffRatio <= 0 || backoffRatio >= 1) {
+      throw new IllegalArgumentException("backoff-ratio must be between 0 and 1");
+    }
+    this.name = name;
+    this.minLimit = minLimit;
+    this.maxLimit = maxLimit;
+    this.latencyThresholdNanos = latencyThreshold.toNanos();
+    this.backoffRatio = backoffRatio;
+    this.limit = initialLimit;
+
+    Gauge.builder(METRICS_PREFIX + ".limit", this, AimdLimiter::getLimit)
+         .description("Current concurrency limit")
+         .tag("class", name)
+         .register(meterRegistry);
+    Gauge.builder(METRICS_PREFIX + ".in-flight", inFlight, AtomicInteger::get)
+         .description("Requests being processed")
+         .tag("class", name)
+         .register(meterRegistry);
+    this.rejected = Counter.builder(METRICS_PREFIX + ".rejected")
+                           .description("Requests refused because the concurrency limit was reached")
+                           .tag("class", name)
+                           .register(meterRegistry);
+  }
+
+  /**
+   * Takes a slot for a request, to give back with {@link #release(long, long, boolean)} once it is answered.
+   *
+   * @return whether the request may be processed, {@code false} when the limit is reached
+   */
+  public boolean tryAcquire() {
+    while (true) {
+      var current = inFlight.get();
+      if (current >= limit) {
+        rejected.increment();
+        return false;
+      }
+      if (inFlight.compareAndSet(current, current + 1)) {
+        return true;
+      }
+    }
+  }
+
+  /**
+   * Gives back the slot of an answered request and adapts the limit to its latency.
+   *
+   * @param startedAt the {@link System#nanoTime()} the request started at
+   * @param now the current {@link System#nanoTime()}
+   * @param dropped whether the service refused the request because it was overloaded
+   */
+  public void release(final long startedAt, final long now, final boolean dropped) {
+    var inUse = inFlight.getAndDecrement();
+    synchronized (this) {
+      if (dropped || now - startedAt > latencyThresholdNanos) {
+        if (!cut || startedAt - lastCutAt >= 0) {
+          limit = Math.max(minLimit, (int) (limit * backoffRatio));
+          cut = true;
+          lastCutAt = now;
+        }
+      } else if (inUse * 2 >= limit) {
+        limit = Math.min(maxLimit, limit + 1);
+      }
+    }
+  }
+
+  /**
+   * @return the class of requests limited, {@code reads}, {@code writes} or {@code bulk}
+   */
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * @return the current limit
+   */
+  public int getLimit() {
+    return limit;
+  }
+
+  /**
+   * @return the number of requests being processed
+   */
+  public int getInFlight() {
+    return inFlight.get();
+  }
+}
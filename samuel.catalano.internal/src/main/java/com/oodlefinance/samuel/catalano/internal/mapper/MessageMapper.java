@@ -0,0 +1,35 @@
+package com.oodlefinance.samuel.catalano.internal.mapper;
+
+import com.oodlefinance.samuel.catalano.internal.dto.MessageDTO;
+import com.oodlefinance.samuel.catalano.internal.entity.Message;
+
+/**
+ * Converts between the {@link Message} entity and its {@link MessageDTO} representation.
+ */
+public interface MessageMapper {
+
+  /**
+   * Maps a Message entity to a new MessageDTO.
+   *
+   * @param entity the entity to map
+   * @return the mapped MessageDTO, or {@code null} if the entity is {@code null}
+   */
+  MessageDTO toDTO(Message entity);
+
+  /**
+   * Maps a MessageDTO to a new, not yet persisted, Message entity.
+   * The id is never copied, it is always assigned by the persistence layer.
+   *
+   * @param dto the DTO to map
+   * @return the mapped Message entity, or {@code null} if the DTO is {@code null}
+   */
+  Message toEntity(MessageDTO dto);
+
+  /**
+   * Copies the updatable fields of a MessageDTO onto an existing Message entity, in place.
+   *
+   * @param dto the DTO holding the new values
+   * @param entity the entity to update
+   */
+  void updateEntity(MessageDTO dto, Message entity);
+}
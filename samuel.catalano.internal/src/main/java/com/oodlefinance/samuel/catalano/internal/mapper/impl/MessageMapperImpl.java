@@ -0,0 +1,42 @@
+package com.oodlefinance.samuel.catalano.internal.mapper.impl;
+
+import com.oodlefinance.samuel.catalano.internal.dto.MessageDTO;
+import com.oodlefinance.samuel.catalano.internal.entity.Message;
+import com.oodlefinance.samuel.catalano.internal.mapper.MessageMapper;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * Plain field-by-field {@link MessageMapper}, no reflection is involved at runtime.
+ * Keep it in sync with {@link Message} and {@link MessageDTO} whenever a field is added.
+ */
+@Component
+public class MessageMapperImpl implements MessageMapper {
+
+  @Override
+  public MessageDTO toDTO(final Message entity) {
+    if (entity == null) {
+      return null;
+    }
+    return MessageDTO.builder()
+                     .id(entity.getId())
+                     .message(entity.getMessage())
+                     .version(entity.getVersion())
+                     .build();
+  }
+
+  @Override
+  public Message toEntity(final MessageDTO dto) {
+    if (dto == null) {
+      return null;
+    }
+    return Message.builder()
+                  .message(dto.getMessage())
+                  .build();
+  }
+
+  @Override
+  public void updateEntity(final MessageDTO dto, final Message entity) {
+    entity.setMessage(dto.getMessage());
+  }
+}
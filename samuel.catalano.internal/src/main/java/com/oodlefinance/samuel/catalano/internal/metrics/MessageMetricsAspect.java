@@ -0,0 +1,83 @@
+package com.oodlefinance.samuel.catalano.internal.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Times every call going through the layers of the message pipeline: controller, service, mapper and repository.
+ * <p>
+ * Each call is recorded by the {@value #TIMER} timer, tagged with the layer, the operation
+ * ({@code Class.method}), the outcome ({@code success} or {@code error}) and the exception class name. Failed calls
+ * also increment the {@value #ERRORS} counter. Percentiles and histograms are configured under
+ * {@code management.metrics.distribution} so they can be changed without a release.
+ */
+@Aspect
+@Component
+public class MessageMetricsAspect {
+
+  public static final String TIMER = "oodle.messages";
+  public static final String ERRORS = "oodle.messages.errors";
+
+  private final MeterRegistry meterRegistry;
+
+  @Autowired
+  public MessageMetricsAspect(final MeterRegistry meterRegistry) {
+    this.meterRegistry = meterRegistry;
+  }
+
+  @Around("within(com.oodlefinance.samuel.catalano.internal.controller..*) && execution(public * *(..))")
+  public Object timeController(final ProceedingJoinPoint joinPoint) throws Throwable {
+    return time(joinPoint, "controller");
+  }
+
+  @Around("within(com.oodlefinance.samuel.catalano.internal.service.impl..*) && execution(public * *(..))")
+  public Object timeService(final ProceedingJoinPoint joinPoint) throws Throwable {
+    return time(joinPoint, "service");
+  }
+
+  @Around("within(com.oodlefinance.samuel.catalano.internal.mapper.impl..*) && execution(public * *(..))")
+  public Object timeMapper(final ProceedingJoinPoint joinPoint) throws Throwable {
+    return time(joinPoint, "mapper");
+  }
+
+  @Around("this(com.oodlefinance.samuel.catalano.internal.repository.MessageStore)")
+  public Object timeRepository(final ProceedingJoinPoint joinPoint) throws Throwable {
+    return time(joinPoint, "repository");
+  }
+
+  private Object time(final ProceedingJoinPoint joinPoint, final String layer) throws Throwable {
+    var signature = joinPoint.getSignature();
+    var operation = signature.getDeclaringType().getSimpleName() + "." + signature.getName();
+    var sample = Timer.start(meterRegistry);
+    try {
+      var result = joinPoint.proceed();
+      record(sample, layer, operation, null);
+      return result;
+    } catch (final Throwable e) {
+      record(sample, layer, operation, e);
+      throw e;
+    }
+  }
+
+  private void record(final Timer.Sample sample, final String layer, final String operation, final Throwable error) {
+    var exception = error == null ? "none" : error.getClass().getSimpleName();
+    sample.stop(Timer.builder(TIMER)
+                     .description("Calls through the message pipeline")
+                     .tags("layer", layer, "operation", operation, "outcome", error == null ? "success" : "error", "exception", exception)
+                     .register(meterRegistry));
+    if (error != null) {
+      Counter.builder(ERRORS)
+             .description("Failed calls through the message pipeline")
+             .tags("layer", layer, "operation", operation, "exception", exception)
+             .register(meterRegistry)
+             .increment();
+    }
+  }
+}
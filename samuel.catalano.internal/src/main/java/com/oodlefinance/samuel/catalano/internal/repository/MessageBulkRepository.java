@@ -0,0 +1,26 @@
+package com.oodlefinance.samuel.catalano.internal.repository;
+
+import com.oodlefinance.samuel.catalano.internal.entity.Message;
+
+import java.util.List;
+
+/**
+ * Bulk operations of {@link MessageRepository} that bypass the persistence context.
+ */
+public interface MessageBulkRepository {
+
+  /**
+   * Allocates a message id without inserting anything, from the same {@code BaseEntity.ID_SEQUENCE} sequence and with
+   * the same pooled-lo blocks as the id generator of the entity, so allocated ids never collide with generated ones.
+   *
+   * @return a new message id
+   */
+  Long allocateId();
+
+  /**
+   * Inserts messages whose id, creation time and version are already set, with one JDBC batch.
+   *
+   * @param messages the messages to insert
+   */
+  void insertAll(List<Message> messages);
+}
@@ -0,0 +1,49 @@
+package com.oodlefinance.samuel.catalano.internal.repository;
+
+import com.oodlefinance.samuel.catalano.internal.entity.Message;
+import com.oodlefinance.samuel.catalano.internal.entity.base.BaseEntity;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+/**
+ * JDBC implementation of {@link MessageBulkRepository}, picked up by Spring Data as a fragment of
+ * {@link MessageRepository}.
+ */
+public class MessageBulkRepositoryImpl implements MessageBulkRepository {
+
+  private static final String NEXT_BLOCK = "select next value for " + BaseEntity.ID_SEQUENCE;
+  private static final String INSERT = "insert into message (id, created_at, message, version) values (?, ?, ?, ?)";
+
+  private final JdbcTemplate jdbcTemplate;
+  private long nextId;
+  private long lastId = -1;
+
+  @Autowired
+  public MessageBulkRepositoryImpl(final JdbcTemplate jdbcTemplate) {
+    this.jdbcTemplate = jdbcTemplate;
+  }
+
+  /**
+   * Hands out ids in the blocks of the pooled-lo optimizer of {@link BaseEntity}: each sequence value {@code v}
+   * reserves the ids {@code v} to {@code v + BaseEntity.ID_BLOCK_SIZE - 1}.
+   */
+  @Override
+  public synchronized Long allocateId() {
+    if (nextId > lastId) {
+      final Long blockStart = jdbcTemplate.queryForObject(NEXT_BLOCK, Long.class);
+      nextId = blockStart;
+      lastId = blockStart + BaseEntity.ID_BLOCK_SIZE - 1;
+    }
+    return nextId++;
+  }
+
+  @Override
+  public void insertAll(final List<Message> messages) {
+    jdbcTemplate.batchUpdate(INSERT, messages.stream()
+                                             .map(message -> new Object[] {message.getId(), message.getCreatedAt(), message.getMessage(), message.getVersion()})
+                                             .toList());
+  }
+}
@@ -1,10 +1,162 @@
 package com.oodlefinance.samuel.catalano.internal.repository;
 
+import jakarta.persistence.QueryHint;
+
+import com.oodlefinance.samuel.catalano.internal.dto.MessageDTO;
 import com.oodlefinance.samuel.catalano.internal.entity.Message;
 
-import org.springframework.data.repository.CrudRepository;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * JPA backend of the {@link MessageStore}, used unless {@code oodle.messages.store.type} says otherwise.
+ */
 @Repository
-public interface MessageRepository extends CrudRepository<Message, Long> {
-}
\ No newline at end of file
+public interface MessageRepository extends JpaRepository<Message, Long>, MessageBulkRepository, MessageStore {
+
+  /**
+   * Retrieves the next page of messages whose id is greater than the given cursor, ordered by id.
+   * The page size is taken from the given {@link Pageable}, no count query is issued.
+   *
+   * @param after the id of the last message of the previous page (exclusive)
+   * @param pageable the page request holding the maximum number of messages to return
+   * @return the messages following the given cursor
+   */
+  @Override
+  List<Message> findByIdGreaterThanOrderByIdAsc(Long after, Pageable pageable);
+
+  /**
+   * Streams every message ordered by id straight off the JDBC cursor as a {@link MessageDTO} projection,
+   * so no entity is attached to the persistence context while the stream is consumed.
+   * Must be called inside a transaction and the returned stream must be closed.
+   *
+   * @return a stream of all messages
+   */
+  @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+  @Query("select new com.oodlefinance.samuel.catalano.internal.dto.MessageDTO(m.id, m.message, m.version) from Message m order by m.id")
+  @Override
+  Stream<MessageDTO> streamAll();
+
+  /**
+   * Retrieves the next page of messages created in a time range, newest first, using keyset pagination on
+   * {@code (createdAt, id)}: only the messages strictly before the cursor are returned. Served by the
+   * {@code (created_at, id)} index, no count query is issued.
+   *
+   * @param from the start of the range (inclusive)
+   * @param beforeCreatedAt the creation time of the cursor, the end of the range (exclusive) for the first page
+   * @param beforeId the id of the cursor, {@link Long#MIN_VALUE} for the first page
+   * @param pageable the page request holding the maximum number of messages to return
+   * @return the messages following the given cursor, newest first
+   */
+  @Query("""
+      select m from Message m
+      where m.createdAt >= :from and m.createdAt <= :beforeCreatedAt and (m.createdAt < :beforeCreatedAt or m.id < :beforeId)
+      order by m.createdAt desc, m.id desc""")
+  @Override
+  List<Message> findCreatedBetween(@Param("from") LocalDateTime from, @Param("beforeCreatedAt") LocalDateTime beforeCreatedAt,
+                                   @Param("beforeId") Long beforeId, Pageable pageable);
+
+  /**
+   * Counts the messages created in a time range per interval of the given length. The interval of a message is
+   * computed and grouped in the query, so only one row per non-empty interval is returned; the date arithmetic is
+   * HQL, which Hibernate translates for each database. Interval {@code n} holds the messages created in
+   * {@code [origin + n * interval, origin + (n + 1) * interval)}.
+   *
+   * @param origin the start of the first interval
+   * @param from the start of the range (inclusive), not before {@code origin}
+   * @param to the end of the range (exclusive)
+   * @param intervalMillis the length of an interval, in milliseconds
+   * @return the number of messages of every non-empty interval, ordered by interval
+   */
+  @Query("""
+      select ((m.createdAt - :origin) by nanosecond) / (:intervalMillis * 1000000) as bucket, count(m) as messages
+      from Message m
+      where m.createdAt >= :from and m.createdAt < :to
+      group by bucket
+      order by bucket""")
+  @Override
+  List<IntervalCount> countCreatedPerInterval(@Param("origin") LocalDateTime origin, @Param("from") LocalDateTime from,
+                                              @Param("to") LocalDateTime to, @Param("intervalMillis") long intervalMillis);
+
+  /**
+   * Retrieves which of the given ids belong to existing messages, without loading the messages themselves.
+   *
+   * @param ids the ids to look up
+   * @return the subset of the given ids that exist
+   */
+  @Query("select m.id from Message m where m.id in :ids")
+  @Override
+  List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+
+  /**
+   * Retrieves the version of a message without loading the message itself.
+   *
+   * @param id the id of the message
+   * @return the version of the message, empty when there is no message with the given id
+   */
+  @Query("select m.version from Message m where m.id = :id")
+  @Override
+  Optional<Long> findVersionById(@Param("id") Long id);
+
+  /**
+   * Replaces the text of a message and increments its version with a single {@code UPDATE} statement, without
+   * loading it first. Must be called inside a transaction.
+   *
+   * @param id the id of the message to update
+   * @param message the new text of the message
+   * @return the number of updated rows, {@code 0} when there is no message with the given id
+   */
+  @Modifying(flushAutomatically = true, clearAutomatically = true)
+  @Query("update Message m set m.message = :message, m.version = m.version + 1 where m.id = :id")
+  @Override
+  int updateMessageById(@Param("id") Long id, @Param("message") String message);
+
+  /**
+   * Same as {@link #updateMessageById(Long, String)}, only when the message is still at the given version.
+   *
+   * @param id the id of the message to update
+   * @param version the version the message must be at
+   * @param message the new text of the message
+   * @return the number of updated rows, {@code 0} when there is no message with the given id and version
+   */
+  @Modifying(flushAutomatically = true, clearAutomatically = true)
+  @Query("update Message m set m.message = :message, m.version = m.version + 1 where m.id = :id and m.version = :version")
+  @Override
+  int updateMessageByIdAndVersion(@Param("id") Long id, @Param("version") Long version, @Param("message") String message);
+
+  /**
+   * Deletes a message with a single {@code DELETE} statement, without loading it first.
+   * Must be called inside a transaction.
+   *
+   * @param id the id of the message to delete
+   * @return the number of deleted rows, {@code 0} when there is no message with the given id
+   */
+  @Modifying(flushAutomatically = true, clearAutomatically = true)
+  @Query("delete from Message m where m.id = :id")
+  @Override
+  int deleteMessageById(@Param("id") Long id);
+
+  /**
+   * Same as {@link #deleteMessageById(Long)}, only when the message is still at the given version.
+   *
+   * @param id the id of the message to delete
+   * @param version the version the message must be at
+   * @return the number of deleted rows, {@code 0} when there is no message with the given id and version
+   */
+  @Modifying(flushAutomatically = true, clearAutomatically = true)
+  @Query("delete from Message m where m.id = :id and m.version = :version")
+  @Override
+  int deleteMessageByIdAndVersion(@Param("id") Long id, @Param("version") Long version);
+}
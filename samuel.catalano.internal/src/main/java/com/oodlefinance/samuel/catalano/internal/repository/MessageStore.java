@@ -0,0 +1,83 @@
+package com.oodlefinance.samuel.catalano.internal.repository;
+
+import com.oodlefinance.samuel.catalano.internal.dto.MessageDTO;
+import com.oodlefinance.samuel.catalano.internal.entity.Message;
+
+import org.springframework.data.domain.Pageable;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Storage of the messages, as used by the {@code MessageService}.
+ * <p>
+ * Two backends are available, chosen with {@code oodle.messages.store.type}: {@code jpa} (default), served by the
+ * Spring Data {@link MessageRepository} which implements this interface as is, and {@code log}, served by the
+ * embedded {@code MessageLogStore}, which keeps the messages in memory-mapped files without any database.
+ * The contract of every method is the one documented on {@link MessageRepository}.
+ */
+public interface MessageStore {
+
+  <S extends Message> S save(S message);
+
+  <S extends Message> List<S> saveAll(Iterable<S> messages);
+
+  Optional<Message> findById(Long id);
+
+  List<Message> findAllById(Iterable<Long> ids);
+
+  boolean existsById(Long id);
+
+  void deleteAllByIdInBatch(Iterable<Long> ids);
+
+  List<Message> findByIdGreaterThanOrderByIdAsc(Long after, Pageable pageable);
+
+  Stream<MessageDTO> streamAll();
+
+  List<Message> findCreatedBetween(LocalDateTime from, LocalDateTime beforeCreatedAt, Long beforeId, Pageable pageable);
+
+  List<IntervalCount> countCreatedPerInterval(LocalDateTime origin, LocalDateTime from, LocalDateTime to, long intervalMillis);
+
+  List<Long> findExistingIds(Collection<Long> ids);
+
+  Optional<Long> findVersionById(Long id);
+
+  int updateMessageById(Long id, String message);
+
+  int updateMessageByIdAndVersion(Long id, Long version, String message);
+
+  int deleteMessageById(Long id);
+
+  int deleteMessageByIdAndVersion(Long id, Long version);
+
+  Long allocateId();
+
+  void insertAll(List<Message> messages);
+
+  /**
+   * Number of messages created during one interval, see {@link #countCreatedPerInterval}.
+   */
+  interface IntervalCount {
+
+    Long getBucket();
+
+    Long getMessages();
+
+    static IntervalCount of(final Long bucket, final Long messages) {
+      return new IntervalCount() {
+        @Override
+        public Long getBucket() {
+          return bucket;
+        }
+
+        @Override
+        public Long getMessages() {
+          return messages;
+        }
+      };
+    }
+  }
+}
@@ -0,0 +1,303 @@
+package com.oodlefinance.samuel.catalano.internal.search;
+
+import lombok.extern.slf4j.Slf4j;
+
+import com.oodlefinance.samuel.catalano.internal.event.MessageChangeType;
+import com.oodlefinance.samuel.catalano.internal.event.MessageChangedEvent;
+import com.oodlefinance.samuel.catalano.internal.repository.MessageStore;
+
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory inverted index over the text of the messages, answering ranked full-text queries without touching
+ * the database.
+ * <p>
+ * Message texts are split into lower-case terms of letters and digits. Every term maps to the ids of the messages
+ * holding it and how many times they hold it. The index is rebuilt from the database at startup and then kept up
+ * to date by the committed {@link MessageChangedEvent}s. Every message remembers the version it was indexed at, so
+ * a change applied after a newer one, as concurrent transactions may commit, is ignored. A deleted message leaves a
+ * tombstone holding the version it was deleted at, so a change applied after the delete is ignored the same way; the
+ * last {@value #MAX_TOMBSTONES} tombstones are kept. Matches are ranked with BM25.
+ * <p>
+ * A query term ending with {@code *} matches every term starting with it (prefix query), messages matching any
+ * of the query terms are returned, the ones matching more and rarer terms first.
+ */
+@Slf4j
+@Component
+public class MessageSearchIndex implements SmartInitializingSingleton {
+
+  private static final double K1 = 1.2;
+  private static final double B = 0.75;
+  private static final int MAX_PREFIX_TERMS = 1000;
+  private static final int MAX_TOMBSTONES = 10_000;
+  private static final long ANY_VERSION = Long.MAX_VALUE;
+
+  private final MessageStore repository;
+  private final TransactionTemplate transactionTemplate;
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+  private final NavigableMap<String, Map<Long, Integer>> postings = new TreeMap<>();
+  private final Map<Long, Document> documents = new HashMap<>();
+  private final Map<Long, Long> tombstones = new LinkedHashMap<>() {
+    @Override
+    protected boolean removeEldestEntry(final Map.Entry<Long, Long> eldest) {
+      return size() > MAX_TOMBSTONES;
+    }
+  };
+  private long totalLength;
+
+  @Autowired
+  public MessageSearchIndex(final MessageStore repository, final TransactionTemplate transactionTemplate) {
+    this.repository = repository;
+    this.transactionTemplate = transactionTemplate;
+  }
+
+  /**
+   * Rebuilds the index from every message in the database, before the application starts serving requests.
+   */
+  @Override
+  public void afterSingletonsInstantiated() {
+    var readOnly = new TransactionTemplate(transactionTemplate.getTransactionManager());
+    readOnly.setReadOnly(true);
+    readOnly.executeWithoutResult(status -> {
+      try (var messages = repository.streamAll()) {
+        messages.forEach(message -> index(message.getId(), message.getMessage(), message.getVersion()));
+      }
+    });
+    log.info("Search index built with {} messages and {} terms", size(), terms());
+  }
+
+  /**
+   * Applies a committed change to the index.
+   *
+   * @param event the change to apply
+   */
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onMessageChanged(final MessageChangedEvent event) {
+    if (event.type() == MessageChangeType.DELETED) {
+      remove(event.id(), event.version());
+    } else {
+      index(event.id(), event.message(), event.version());
+    }
+  }
+
+  /**
+   * Indexes the text of a message whatever its version, replacing what was indexed for it before, even if it was
+   * deleted.
+   *
+   * @param id the id of the message
+   * @param text the text of the message, {@code null} to only remove it
+   */
+  public void index(final Long id, final String text) {
+    index(id, text, null);
+  }
+
+  /**
+   * Indexes the text of a message at the given version, replacing what was indexed for it before unless it was
+   * indexed, or deleted, at a later version.
+   *
+   * @param id the id of the message
+   * @param text the text of the message, {@code null} to only remove it
+   * @param version the version of the message holding this text, {@code null} when unknown
+   */
+  public void index(final Long id, final String text, final Long version) {
+    if (id == null) {
+      return;
+    }
+    final Map<String, Integer> frequencies = new HashMap<>();
+    final List<String> terms = tokenize(text);
+    terms.forEach(term -> frequencies.merge(term, 1, Integer::sum));
+
+    lock.writeLock().lock();
+    try {
+      var indexed = documents.get(id);
+      if (indexed != null && indexed.version() != null && version != null && version < indexed.version()) {
+        return;
+      }
+      var deletedAt = tombstones.get(id);
+      if (deletedAt != null && version != null && version <= deletedAt) {
+        return;
+      }
+      tombstones.remove(id);
+      removeUnlocked(id);
+      if (terms.isEmpty()) {
+        return;
+      }
+      frequencies.forEach((term, frequency) -> postings.computeIfAbsent(term, key -> new HashMap<>()).put(id, frequency));
+      documents.put(id, new Document(frequencies.keySet().toArray(String[]::new), terms.size(), version));
+      totalLength += terms.size();
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Removes a deleted message from the index, leaving a tombstone.
+   *
+   * @param id the id of the message
+   */
+  public void remove(final Long id) {
+    remove(id, null);
+  }
+
+  /**
+   * Removes a deleted message from the index, leaving a tombstone so that its changes up to the given version, when
+   * applied after the delete, are ignored. Ids are never reused, so when the version is unknown every later change of
+   * the message is ignored.
+   *
+   * @param id the id of the message
+   * @param version the version the message was deleted at, {@code null} when unknown
+   */
+  public void remove(final Long id, final Long version) {
+    if (id == null) {
+      return;
+    }
+    lock.writeLock().lock();
+    try {
+      removeUnlocked(id);
+      tombstones.put(id, version == null ? ANY_VERSION : version);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Searches the index.
+   *
+   * @param query the terms to look for, separated by spaces, a term ending with {@code *} being a prefix
+   * @param offset the number of best matches to skip
+   * @param limit the maximum number of matches to return
+   * @return the ids of the matching messages for the requested page, best first, and the total number of matches
+   */
+  public SearchHits search(final String query, final int offset, final int limit) {
+    final Map<Long, Double> scores = new HashMap<>();
+
+    lock.readLock().lock();
+    try {
+      if (documents.isEmpty()) {
+        return new SearchHits(0, List.of());
+      }
+      final double averageLength = (double) totalLength / documents.size();
+      for (var token : query.trim().split("\\s+")) {
+        var terms = tokenize(token);
+        for (int i = 0; i < terms.size(); i++) {
+          var term = terms.get(i);
+          if (i == terms.size() - 1 && token.endsWith("*")) {
+            var expanded = postings.subMap(term, true, term + Character.MAX_VALUE, false).values().stream().limit(MAX_PREFIX_TERMS).toList();
+            expanded.forEach(matches -> score(matches, averageLength, scores));
+          } else {
+            var matches = postings.get(term);
+            if (matches != null) {
+              score(matches, averageLength, scores);
+            }
+          }
+        }
+      }
+    } finally {
+      lock.readLock().unlock();
+    }
+
+    final List<Long> ids = scores.entrySet()
+                                 .stream()
+                                 .sorted(Map.Entry.<Long, Double>comparingByValue(Comparator.reverseOrder()).thenComparing(Map.Entry.comparingByKey()))
+                                 .skip(offset)
+                                 .limit(limit)
+                                 .map(Map.Entry::getKey)
+                                 .toList();
+    return new SearchHits(scores.size(), ids);
+  }
+
+  /**
+   * @return the number of indexed messages
+   */
+  public int size() {
+    lock.readLock().lock();
+    try {
+      return documents.size();
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * @return the number of distinct indexed terms
+   */
+  public int terms() {
+    lock.readLock().lock();
+    try {
+      return postings.size();
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  private void score(final Map<Long, Integer> matches, final double averageLength, final Map<Long, Double> scores) {
+    final double idf = Math.log(1 + (documents.size() - matches.size() + 0.5) / (matches.size() + 0.5));
+    matches.forEach((id, frequency) -> {
+      final double length = documents.get(id).length();
+      final double score = idf * frequency * (K1 + 1) / (frequency + K1 * (1 - B + B * length / averageLength));
+      scores.merge(id, score, Double::sum);
+    });
+  }
+
+  private void removeUnlocked(final Long id) {
+    var document = documents.remove(id);
+    if (document == null) {
+      return;
+    }
+    for (var term : document.terms()) {
+      var matches = postings.get(term);
+      matches.remove(id);
+      if (matches.isEmpty()) {
+        postings.remove(term);
+      }
+    }
+    totalLength -= document.length();
+  }
+
+  static List<String> tokenize(final String text) {
+    final List<String> terms = new ArrayList<>();
+    if (text == null) {
+      return terms;
+    }
+    int start = -1;
+    for (int i = 0; i <= text.length(); i++) {
+      if (i < text.length() && Character.isLetterOrDigit(text.charAt(i))) {
+        if (start < 0) {
+          start = i;
+        }
+      } else if (start >= 0) {
+        terms.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+        start = -1;
+      }
+    }
+    return terms;
+  }
+
+  /**
+   * One page of search results.
+   *
+   * @param total the number of messages matching the query
+   * @param ids the ids of the messages of the page, best match first
+   */
+  public record SearchHits(long total, List<Long> ids) {
+  }
+
+  private record Document(String[] terms, int length, Long version) {
+  }
+}
@@ -8,6 +8,7 @@ import com.oodlefinance.samuel.catalano.internal.exception.ServiceException;
 import org.springframework.dao.DataIntegrityViolationException;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface BaseService <D extends BaseDTO> {
 
@@ -17,7 +18,9 @@ public interface BaseService <D extends BaseDTO> {
 
   D findById(Long id) throws EntityNotFoundException;
 
-  List<D> findAll() throws ServiceException;
+  List<D> findAll(Long after, Integer limit) throws ServiceException;
+
+  void streamAll(Consumer<D> consumer) throws ServiceException;
 
   void deleteById(Long id) throws EntityNotFoundException, DataIntegrityViolationException;
 }
@@ -1,7 +1,47 @@
 package com.oodlefinance.samuel.catalano.internal.service;
 
+import jakarta.persistence.EntityNotFoundException;
+
+import com.oodlefinance.samuel.catalano.internal.dto.BatchItemResultDTO;
+import com.oodlefinance.samuel.catalano.internal.dto.FailedMessageDTO;
+import com.oodlefinance.samuel.catalano.internal.dto.MessageCountDTO;
 import com.oodlefinance.samuel.catalano.internal.dto.MessageDTO;
+import com.oodlefinance.samuel.catalano.internal.dto.MessageRangeDTO;
+import com.oodlefinance.samuel.catalano.internal.dto.MessageSearchResultDTO;
+import com.oodlefinance.samuel.catalano.internal.dto.MessagesByIdDTO;
+import com.oodlefinance.samuel.catalano.internal.exception.ServiceException;
+
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
 
 public interface MessageService extends BaseService<MessageDTO> {
-  // for future Message specific methods to be implemented
+
+  boolean isWriteBehind();
+
+  MessageDTO enqueue(MessageDTO dto) throws ServiceException;
+
+  List<FailedMessageDTO> findDeadLetters();
+
+  MessageDTO update(Long id, MessageDTO dto, Long expectedVersion) throws ServiceException;
+
+  Long findVersionById(Long id) throws EntityNotFoundException;
+
+  void deleteById(Long id, Long expectedVersion) throws EntityNotFoundException, DataIntegrityViolationException;
+
+  MessagesByIdDTO findAllById(List<Long> ids) throws ServiceException;
+
+  MessageSearchResultDTO search(String query, Integer offset, Integer limit) throws ServiceException;
+
+  MessageRangeDTO findCreatedBetween(Instant from, Instant to, Instant before, Long beforeId, Integer limit) throws ServiceException;
+
+  List<MessageCountDTO> countCreatedPerInterval(Instant from, Instant to, Duration interval) throws ServiceException;
+
+  List<BatchItemResultDTO> createAll(List<MessageDTO> dtos);
+
+  List<BatchItemResultDTO> updateAll(List<MessageDTO> dtos);
+
+  List<BatchItemResultDTO> deleteAllById(List<Long> ids);
 }
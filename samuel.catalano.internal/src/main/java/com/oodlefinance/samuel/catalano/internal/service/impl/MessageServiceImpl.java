@@ -1,36 +1,142 @@
 package com.oodlefinance.samuel.catalano.internal.service.impl;
 
+import jakarta.annotation.PreDestroy;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.extern.slf4j.Slf4j;
 
+import com.oodlefinance.samuel.catalano.common.concurrent.MicroBatcher;
+import com.oodlefinance.samuel.catalano.common.concurrent.SingleFlight;
+import com.oodlefinance.samuel.catalano.internal.cache.OffHeapMessageCache;
+import com.oodlefinance.samuel.catalano.internal.dto.BatchItemResultDTO;
+import com.oodlefinance.samuel.catalano.internal.dto.FailedMessageDTO;
+import com.oodlefinance.samuel.catalano.internal.dto.MessageCountDTO;
 import com.oodlefinance.samuel.catalano.internal.dto.MessageDTO;
+import com.oodlefinance.samuel.catalano.internal.dto.MessageRangeDTO;
+import com.oodlefinance.samuel.catalano.internal.dto.MessageSearchResultDTO;
+import com.oodlefinance.samuel.catalano.internal.dto.MessagesByIdDTO;
 import com.oodlefinance.samuel.catalano.internal.entity.Message;
+import com.oodlefinance.samuel.catalano.internal.event.MessageChangeType;
+import com.oodlefinance.samuel.catalano.internal.event.MessageChangedEvent;
+import com.oodlefinance.samuel.catalano.internal.exception.BadRequestException;
+import com.oodlefinance.samuel.catalano.internal.exception.MessageNotFoundException;
 import com.oodlefinance.samuel.catalano.internal.exception.ServiceException;
-import com.oodlefinance.samuel.catalano.internal.repository.MessageRepository;
+import com.oodlefinance.samuel.catalano.internal.exception.TooManyRequestsException;
+import com.oodlefinance.samuel.catalano.internal.ingest.MessageWriteBehindQueue;
+import com.oodlefinance.samuel.catalano.internal.mapper.MessageMapper;
+import com.oodlefinance.samuel.catalano.internal.repository.MessageStore;
+import com.oodlefinance.samuel.catalano.internal.search.MessageSearchIndex;
 import com.oodlefinance.samuel.catalano.internal.service.MessageService;
 
-import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.dao.DataIntegrityViolationException;
-import org.springframework.data.util.Streamable;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 
 @Slf4j
 @Service
 public class MessageServiceImpl implements MessageService {
 
   private static final String MESSAGE_NOT_FOUND = "There is no member found with id: ";
+  private static final int DEFAULT_PAGE_SIZE = 100;
+  private static final int MAX_PAGE_SIZE = 1000;
+  private static final int DEFAULT_SEARCH_PAGE_SIZE = 20;
+  private static final int MAX_SEARCH_PAGE_SIZE = 100;
+  private static final int MAX_INTERVALS = 10_000;
+  private static final int BATCH_CHUNK_SIZE = 500;
+  private static final String MESSAGE_BLANK = "message must not be blank";
+  private static final String ID_NULL = "id must not be null";
 
-  private final MessageRepository repository;
-  private final ModelMapper modelMapper;
+  private final MessageStore repository;
+  private final MessageMapper messageMapper;
+  private final TransactionTemplate transactionTemplate;
+  private final ApplicationEventPublisher eventPublisher;
+  private final MessageSearchIndex searchIndex;
+  private final SingleFlight<Long, MessageDTO> inFlightReads = new SingleFlight<>();
+  private MicroBatcher<Long, MessageDTO> readBatcher;
+  private MessageWriteBehindQueue writeBehindQueue;
+  private OffHeapMessageCache hotCache;
 
   @Autowired
-  public MessageServiceImpl(final MessageRepository repository, final ModelMapper modelMapper) {
+  public MessageServiceImpl(final MessageStore repository, final MessageMapper messageMapper,
+                            final TransactionTemplate transactionTemplate, final ApplicationEventPublisher eventPublisher,
+                            final MessageSearchIndex searchIndex) {
     this.repository = repository;
-    this.modelMapper = modelMapper;
+    this.messageMapper = messageMapper;
+    this.transactionTemplate = transactionTemplate;
+    this.eventPublisher = eventPublisher;
+    this.searchIndex = searchIndex;
+  }
+
+  /**
+   * Turns on micro-batching of {@link #findById(Long)}: the ids asked for during the window are loaded with one
+   * {@code findAllById}. With a zero window (default) concurrent reads of the same id still share one SELECT.
+   *
+   * @param window how long to collect ids before loading them
+   * @param maxBatchSize number of distinct ids that triggers the load before the window closes
+   * @param loaderThreads number of batches that can be loaded concurrently
+   */
+  @Autowired
+  public void configureReadBatching(@Value("${oodle.messages.read.batch-window:0ms}") final Duration window,
+                                    @Value("${oodle.messages.read.max-batch-size:100}") final int maxBatchSize,
+                                    @Value("${oodle.messages.read.loader-threads:4}") final int loaderThreads) {
+    if (!window.isZero() && !window.isNegative()) {
+      this.readBatcher = new MicroBatcher<>("message-read-batcher", this::loadAllAndCache, window, maxBatchSize, loaderThreads);
+    }
+  }
+
+  /**
+   * Turns on write-behind creation of messages, see {@link #enqueue(MessageDTO)}. Only present when
+   * {@code oodle.messages.write-behind.enabled} is set.
+   *
+   * @param writeBehindQueue the queue new messages are accepted into
+   */
+  @Autowired(required = false)
+  public void setWriteBehindQueue(final MessageWriteBehindQueue writeBehindQueue) {
+    this.writeBehindQueue = writeBehindQueue;
+  }
+
+  /**
+   * Turns on the off-heap cache of {@link #findById(Long)} and {@link #findVersionById(Long)}. Only present when
+   * {@code oodle.messages.hot-cache.enabled} is set.
+   *
+   * @param hotCache the cache of the hot messages
+   */
+  @Autowired(required = false)
+  public void setHotCache(final OffHeapMessageCache hotCache) {
+    this.hotCache = hotCache;
+  }
+
+  @PreDestroy
+  public void close() {
+    if (readBatcher != null) {
+      readBatcher.close();
+    }
   }
 
   /**
@@ -39,13 +145,18 @@ public class MessageServiceImpl implements MessageService {
    * @param dto MessageDTO object that holds the message data
    * @return MessageDTO object representing the newly created message
    * @throws ServiceException when an error occurs during message creation
+   * @throws DataIntegrityViolationException when the message breaks a database constraint
    */
   @Override
   public MessageDTO create(final MessageDTO dto) throws ServiceException {
-    var entity = this.modelMapper.map(dto, Message.class);
+    var entity = this.messageMapper.toEntity(dto);
     try {
       var result = repository.save(entity);
-      return this.modelMapper.map(result, MessageDTO.class);
+      eventPublisher.publishEvent(new MessageChangedEvent(result.getId(), MessageChangeType.CREATED, result.getMessage(), result.getVersion()));
+      return this.messageMapper.toDTO(result);
+    } catch (final DataIntegrityViolationException e) {
+      log.warn("Message rejected by a database constraint: {}", e.getMessage());
+      throw e;
     } catch (final Exception e) {
       log.error("Error persisting a new Message: {}", e.getMessage(), e);
       throw new ServiceException("Error persisting a new Message", e);
@@ -53,31 +164,129 @@ public class MessageServiceImpl implements MessageService {
   }
 
   /**
-   * Updates an existing Message.
+   * @return whether new messages are accepted into the write-behind queue instead of being inserted straight away
+   */
+  @Override
+  public boolean isWriteBehind() {
+    return writeBehindQueue != null;
+  }
+
+  /**
+   * Lists the messages accepted into the write-behind queue that could not be written, oldest first.
+   *
+   * @return the dead letters of the write-behind queue, empty when write-behind is off
+   */
+  @Override
+  public List<FailedMessageDTO> findDeadLetters() {
+    if (writeBehindQueue == null) {
+      return List.of();
+    }
+    return writeBehindQueue.deadLetters()
+                           .stream()
+                           .map(failed -> FailedMessageDTO.builder()
+                                                          .id(failed.id())
+                                                          .message(failed.message())
+                                                          .error(failed.error())
+                                                          .failedAt(failed.failedAt())
+                                                          .build())
+                           .toList();
+  }
+
+  /**
+   * Accepts a new Message into the write-behind queue. Its id is allocated straight away, the row is inserted later
+   * by the background writer, so the message may not be readable yet when this method returns.
+   *
+   * @param dto MessageDTO object that holds the message data
+   * @return MessageDTO object representing the accepted message, holding its id
+   * @throws TooManyRequestsException when the queue is full
+   * @throws ServiceException when write-behind is off or an error occurs while accepting the message
+   */
+  @Override
+  public MessageDTO enqueue(final MessageDTO dto) throws ServiceException {
+    if (writeBehindQueue == null) {
+      throw new ServiceException("Write-behind ingestion is not enabled");
+    }
+    try {
+      return this.messageMapper.toDTO(writeBehindQueue.offer(dto.getMessage()));
+    } catch (final TooManyRequestsException e) {
+      throw e;
+    } catch (final Exception e) {
+      log.error("Error accepting a new Message: {}", e.getMessage(), e);
+      throw new ServiceException("Error accepting a new Message", e);
+    }
+  }
+
+  /**
+   * Updates an existing Message whatever its version. Only the version is read first, then the message is updated
+   * with a single {@code UPDATE} statement conditioned on it, retried when a concurrent update got in between, so the
+   * returned version is the one actually persisted.
    *
    * @param id identifier of the message to be updated
    * @param dto MessageDTO object that holds the updated message data
-   * @return MessageDTO object representing the updated message
+   * @return MessageDTO object representing the updated message, with its new version
    * @throws ServiceException when an error occurs during message update
    * @throws EntityNotFoundException when message with the specified id cannot be found
    */
   @Override
+  @Transactional(rollbackFor = ServiceException.class)
   public MessageDTO update(final Long id, final MessageDTO dto) throws ServiceException {
-    var entity = repository.findById(id).orElseThrow(() -> new EntityNotFoundException(MESSAGE_NOT_FOUND + id));
-    modelMapper.map(dto, entity);
-    entity.setId(id);
+    while (true) {
+      final Optional<Long> version;
+      try {
+        version = repository.findVersionById(id);
+      } catch (final Exception e) {
+        log.error("Error updating an existing Message: {}", e.getMessage(), e);
+        throw new ServiceException("Error updating an existing Message", e);
+      }
+      if (version.isEmpty()) {
+        throw new MessageNotFoundException(MESSAGE_NOT_FOUND + id);
+      }
+      try {
+        return update(id, dto, version.get());
+      } catch (final OptimisticLockingFailureException e) {
+        log.debug("Message {} changed while being updated, retrying", id);
+      }
+    }
+  }
 
+  /**
+   * Updates an existing Message with a single {@code UPDATE} statement, only if it is still at the expected version.
+   *
+   * @param id identifier of the message to be updated
+   * @param dto MessageDTO object that holds the updated message data
+   * @param expectedVersion version the message must be at, {@code null} to update whatever the version
+   * @return MessageDTO object representing the updated message, with its new version
+   * @throws ServiceException when an error occurs during message update
+   * @throws EntityNotFoundException when message with the specified id cannot be found
+   * @throws OptimisticLockingFailureException when the message is no longer at the expected version
+   */
+  @Override
+  @Transactional(rollbackFor = ServiceException.class)
+  public MessageDTO update(final Long id, final MessageDTO dto, final Long expectedVersion) throws ServiceException {
+    if (expectedVersion == null) {
+      return update(id, dto);
+    }
+    final int updated;
     try {
-      var result = repository.save(entity);
-      return this.modelMapper.map(result, MessageDTO.class);
+      updated = repository.updateMessageByIdAndVersion(id, expectedVersion, dto.getMessage());
     } catch (final Exception e) {
       log.error("Error updating an existing Message: {}", e.getMessage(), e);
       throw new ServiceException("Error updating an existing Message", e);
     }
+
+    if (updated == 0) {
+      throw notFoundOrStale(id, expectedVersion);
+    }
+    // the statement only matched the row at the expected version and incremented it
+    var version = expectedVersion + 1;
+    eventPublisher.publishEvent(new MessageChangedEvent(id, MessageChangeType.UPDATED, dto.getMessage(), version));
+    return MessageDTO.builder().id(id).message(dto.getMessage()).version(version).build();
   }
 
+
   /**
-   * Retrieves a message by its id.
+   * Retrieves a message by its id, from the off-heap hot cache when it is on and holds the message. On a miss the
+   * message is cached by the read that loads it, the one every concurrent or batched read of the id waits for.
    *
    * @param id identifier of the message to retrieve
    * @return MessageDTO object representing the retrieved message
@@ -85,25 +294,51 @@ public class MessageServiceImpl implements MessageService {
    */
   @Override
   public MessageDTO findById(final Long id) throws EntityNotFoundException {
-    return repository.findById(id)
-                     .map(member -> this.modelMapper.map(member, MessageDTO.class))
-                     .orElseThrow(() -> new EntityNotFoundException(MESSAGE_NOT_FOUND + id));
+    if (hotCache != null) {
+      var cached = hotCache.get(id);
+      if (cached != null) {
+        return cached;
+      }
+    }
+    var message = load(id);
+    if (message == null) {
+      throw new MessageNotFoundException(MESSAGE_NOT_FOUND + id);
+    }
+    return message;
   }
 
   /**
-   * Retrieves a list of all messages.
+   * Retrieves the current version of a message without loading or mapping it, to answer conditional requests.
    *
-   * @return list of MessageDTO objects representing all messages
+   * @param id identifier of the message
+   * @return the version of the message
+   * @throws EntityNotFoundException when message with the specified id cannot be found
+   */
+  @Override
+  public Long findVersionById(final Long id) throws EntityNotFoundException {
+    var cached = hotCache == null ? null : hotCache.getVersion(id);
+    if (cached != null) {
+      return cached;
+    }
+    return repository.findVersionById(id).orElseThrow(() -> new MessageNotFoundException(MESSAGE_NOT_FOUND + id));
+  }
+
+  /**
+   * Retrieves a page of messages using keyset pagination on the message id.
+   *
+   * @param after id of the last message of the previous page, {@code null} to start from the beginning
+   * @param limit maximum number of messages to retrieve, capped at {@value #MAX_PAGE_SIZE}
+   * @return list of MessageDTO objects representing the page of messages
    * @throws ServiceException when an error occurs during message retrieval
    */
   @Override
-  public List<MessageDTO> findAll() throws ServiceException {
+  public List<MessageDTO> findAll(final Long after, final Integer limit) throws ServiceException {
     try {
-      final List<MessageDTO> messagesDTO = new ArrayList<>();
-      var messages = repository.findAll();
-      var messagesList = Streamable.of(messages).toList();
+      var pageSize = limit == null ? DEFAULT_PAGE_SIZE : Math.min(Math.max(limit, 1), MAX_PAGE_SIZE);
+      var messages = repository.findByIdGreaterThanOrderByIdAsc(after == null ? 0L : after, PageRequest.of(0, pageSize));
 
-      messagesList.forEach(message -> messagesDTO.add(this.modelMapper.map(message, MessageDTO.class)));
+      final List<MessageDTO> messagesDTO = new ArrayList<>(messages.size());
+      messages.forEach(message -> messagesDTO.add(this.messageMapper.toDTO(message)));
 
       return messagesDTO;
     } catch (final Exception e) {
@@ -113,20 +348,450 @@ public class MessageServiceImpl implements MessageService {
   }
 
   /**
-   * Deletes a message by its id.
+   * Retrieves several messages by id. Distinct ids are resolved with {@code IN} queries of at most
+   * {@value #BATCH_CHUNK_SIZE} ids each; ids that do not exist are reported instead of failing the call.
+   *
+   * @param ids identifiers of the messages to retrieve, duplicates and {@code null} are ignored
+   * @return the messages found, in request order, and the ids that were not found
+   * @throws ServiceException when an error occurs during message retrieval
+   */
+  @Override
+  public MessagesByIdDTO findAllById(final List<Long> ids) throws ServiceException {
+    try {
+      final List<Long> distinctIds = new ArrayList<>(new LinkedHashSet<>(ids));
+      distinctIds.remove(null);
+
+      final Map<Long, MessageDTO> found = new HashMap<>(distinctIds.size() * 2);
+      forEachChunk(distinctIds, (offset, chunk) -> found.putAll(loadAll(chunk)));
+
+      final List<MessageDTO> messages = new ArrayList<>(found.size());
+      final List<Long> missingIds = new ArrayList<>();
+      distinctIds.forEach(id -> {
+        var message = found.get(id);
+        if (message != null) {
+          messages.add(message);
+        } else {
+          missingIds.add(id);
+        }
+      });
+
+      return MessagesByIdDTO.builder().messages(messages).missingIds(missingIds).build();
+    } catch (final Exception e) {
+      log.error("Error retrieving messages by id: {}", e.getMessage(), e);
+      throw new ServiceException("Error retrieving messages by id", e);
+    }
+  }
+
+  /**
+   * Searches the text of the messages with the in-memory {@link MessageSearchIndex}. Only the messages of the
+   * requested page are loaded from the database, with one {@code findAllById}.
+   *
+   * @param query the terms to look for, a term ending with {@code *} matching every term starting with it
+   * @param offset number of best matches to skip, {@code null} for none
+   * @param limit maximum number of messages to retrieve, capped at {@value #MAX_SEARCH_PAGE_SIZE}
+   * @return the page of matching messages, best match first, and the total number of matches
+   * @throws ServiceException when an error occurs during message retrieval
+   */
+  @Override
+  public MessageSearchResultDTO search(final String query, final Integer offset, final Integer limit) throws ServiceException {
+    try {
+      var pageOffset = offset == null ? 0 : Math.max(offset, 0);
+      var pageSize = limit == null ? DEFAULT_SEARCH_PAGE_SIZE : Math.min(Math.max(limit, 1), MAX_SEARCH_PAGE_SIZE);
+      var hits = searchIndex.search(query == null ? "" : query, pageOffset, pageSize);
+
+      final List<MessageDTO> messages = new ArrayList<>(hits.ids().size());
+      if (!hits.ids().isEmpty()) {
+        var found = loadAll(hits.ids());
+        hits.ids().stream().map(found::get).filter(Objects::nonNull).forEach(messages::add);
+      }
+
+      return MessageSearchResultDTO.builder().total(hits.total()).offset(pageOffset).limit(pageSize).messages(messages).build();
+    } catch (final Exception e) {
+      log.error("Error searching messages: {}", e.getMessage(), e);
+      throw new ServiceException("Error searching messages", e);
+    }
+  }
+
+  /**
+   * Retrieves a page of the messages created in {@code [from, to)}, newest first, using keyset pagination on the
+   * creation time and id. To fetch the next page, pass the {@code nextBefore} and {@code nextBeforeId} of the
+   * previous page.
+   *
+   * @param from start of the range (inclusive)
+   * @param to end of the range (exclusive)
+   * @param before creation time of the last message of the previous page, {@code null} for the first page
+   * @param beforeId id of the last message of the previous page, {@code null} for the first page
+   * @param limit maximum number of messages to retrieve, capped at {@value #MAX_PAGE_SIZE}
+   * @return the page of messages and the cursor of the next page
+   * @throws BadRequestException when the range is invalid
+   * @throws ServiceException when an error occurs during message retrieval
+   */
+  @Override
+  public MessageRangeDTO findCreatedBetween(final Instant from, final Instant to, final Instant before, final Long beforeId,
+                                            final Integer limit) throws ServiceException {
+    try {
+      checkRange(from, to);
+      var pageSize = limit == null ? DEFAULT_PAGE_SIZE : Math.min(Math.max(limit, 1), MAX_PAGE_SIZE);
+      var cursor = before == null || beforeId == null ? to : before;
+      var messages = repository.findCreatedBetween(toLocal(from), toLocal(cursor),
+                                                   before == null || beforeId == null ? Long.MIN_VALUE : beforeId,
+                                                   PageRequest.of(0, pageSize));
+
+      final List<MessageDTO> messagesDTO = new ArrayList<>(messages.size());
+      messages.forEach(message -> messagesDTO.add(this.messageMapper.toDTO(message)));
+
+      var range = MessageRangeDTO.builder().messages(messagesDTO);
+      if (messages.size() == pageSize) {
+        var last = messages.get(messages.size() - 1);
+        range.nextBefore(last.getCreatedAt().atZone(ZoneId.systemDefault()).toInstant()).nextBeforeId(last.getId());
+      }
+      return range.build();
+    } catch (final BadRequestException e) {
+      throw e;
+    } catch (final Exception e) {
+      log.error("Error retrieving messages by creation time: {}", e.getMessage(), e);
+      throw new ServiceException("Error retrieving messages by creation time", e);
+    }
+  }
+
+  /**
+   * Counts the messages created in {@code [from, to)} per interval. The store returns the count of every non-empty
+   * interval; empty intervals are filled with zero. Creation times are local times of the system zone, so a range
+   * crossing a daylight saving change is counted in pieces of constant UTC offset, each from the start of the range
+   * written with its own offset: intervals hold real elapsed time rather than wall-clock time. The local times repeated
+   * when the clocks go back are counted once, with the piece before the change.
+   *
+   * @param from start of the range (inclusive), start of the first interval
+   * @param to end of the range (exclusive)
+   * @param interval length of an interval, at least one millisecond, at most {@value #MAX_INTERVALS} intervals
+   * @return the number of messages of every interval of the range, in order
+   * @throws BadRequestException when the range is invalid
+   * @throws ServiceException when an error occurs during the count
+   */
+  @Override
+  public List<MessageCountDTO> countCreatedPerInterval(final Instant from, final Instant to, final Duration interval) throws ServiceException {
+    try {
+      checkRange(from, to);
+      var intervalMillis = interval == null ? 0 : interval.toMillis();
+      if (intervalMillis <= 0) {
+        throw new BadRequestException("interval must be at least one millisecond");
+      }
+      var rangeMillis = Duration.between(from, to).toMillis();
+      var intervals = (rangeMillis + intervalMillis - 1) / intervalMillis;
+      if (intervals > MAX_INTERVALS) {
+        throw new BadRequestException("range holds more than " + MAX_INTERVALS + " intervals");
+      }
+
+      final long[] counts = new long[(int) intervals];
+      var rules = ZoneId.systemDefault().getRules();
+      LocalDateTime counted = null;
+      for (var start = from; start.isBefore(to); ) {
+        var transition = rules.nextTransition(start);
+        var end = transition == null || !transition.getInstant().isBefore(to) ? to : transition.getInstant();
+        var offset = rules.getOffset(start);
+        var localStart = LocalDateTime.ofInstant(start, offset);
+        var localEnd = LocalDateTime.ofInstant(end, offset);
+        repository.countCreatedPerInterval(LocalDateTime.ofInstant(from, offset), counted != null && counted.isAfter(localStart) ? counted : localStart,
+                                           localEnd, intervalMillis)
+                  .forEach(row -> counts[row.getBucket().intValue()] += row.getMessages());
+        counted = localEnd;
+        start = end;
+      }
+
+      final List<MessageCountDTO> histogram = new ArrayList<>(counts.length);
+      for (int i = 0; i < counts.length; i++) {
+        histogram.add(MessageCountDTO.builder().start(from.plusMillis(i * intervalMillis)).count(counts[i]).build());
+      }
+      return histogram;
+    } catch (final BadRequestException e) {
+      throw e;
+    } catch (final Exception e) {
+      log.error("Error counting messages by creation time: {}", e.getMessage(), e);
+      throw new ServiceException("Error counting messages by creation time", e);
+    }
+  }
+
+  /**
+   * Streams every message, ordered by id, to the given consumer as rows come off the database cursor.
+   * Only one message is held at a time, so heap usage does not depend on the table size.
+   *
+   * @param consumer the consumer receiving each message
+   * @throws ServiceException when an error occurs during message retrieval
+   */
+  @Override
+  @Transactional(readOnly = true)
+  public void streamAll(final Consumer<MessageDTO> consumer) throws ServiceException {
+    try (var messages = repository.streamAll()) {
+      messages.forEach(consumer);
+    } catch (final Exception e) {
+      log.error("Error streaming all existing messages: {}", e.getMessage(), e);
+      throw new ServiceException("Error streaming all existing messages", e);
+    }
+  }
+
+  /**
+   * Deletes a message by its id with a single {@code DELETE} statement, the message is not loaded first.
    *
    * @param id identifier of the message to delete
    * @throws EntityNotFoundException when message with the specified id cannot be found
    * @throws DataIntegrityViolationException when an error occurs during message deletion
    */
   @Override
+  @Transactional
   public void deleteById(final Long id) throws EntityNotFoundException, DataIntegrityViolationException {
-    repository.findById(id).orElseThrow(() -> new EntityNotFoundException(MESSAGE_NOT_FOUND + id));
+    deleteById(id, null);
+  }
+
+  /**
+   * Deletes a message by its id with a single {@code DELETE} statement, only if it is still at the expected version.
+   *
+   * @param id identifier of the message to delete
+   * @param expectedVersion version the message must be at, {@code null} to delete whatever the version
+   * @throws EntityNotFoundException when message with the specified id cannot be found
+   * @throws OptimisticLockingFailureException when the message is no longer at the expected version
+   * @throws DataIntegrityViolationException when an error occurs during message deletion
+   */
+  @Override
+  @Transactional
+  public void deleteById(final Long id, final Long expectedVersion) throws EntityNotFoundException, DataIntegrityViolationException {
+    final int deleted;
     try {
-      repository.deleteById(id);
+      deleted = expectedVersion == null
+          ? repository.deleteMessageById(id)
+          : repository.deleteMessageByIdAndVersion(id, expectedVersion);
     } catch (final DataIntegrityViolationException e) {
-      log.error("Error deleting Message with id: " + id + " - " + e.getMessage(), e);
+      log.warn("Message {} could not be deleted, rejected by a database constraint: {}", id, e.getMessage());
       throw new DataIntegrityViolationException("Error deleting Message with id: " + id + " - " + e.getMessage(), e);
     }
+
+    if (deleted == 0) {
+      throw notFoundOrStale(id, expectedVersion);
+    }
+    eventPublisher.publishEvent(new MessageChangedEvent(id, MessageChangeType.DELETED));
+  }
+
+
+  /**
+   * Creates several messages at once. Items are persisted in chunks of {@value #BATCH_CHUNK_SIZE}, one
+   * transaction per chunk, so the inserts of a chunk are sent to the database as JDBC batches.
+   *
+   * @param dtos the messages to create
+   * @return one result per item, holding the generated id or the reason the item was rejected
+   */
+  @Override
+  public List<BatchItemResultDTO> createAll(final List<MessageDTO> dtos) {
+    final BatchItemResultDTO[] results = new BatchItemResultDTO[dtos.size()];
+
+    forEachChunk(dtos, (offset, chunk) -> {
+      final List<Integer> indexes = new ArrayList<>(chunk.size());
+      final List<Message> entities = new ArrayList<>(chunk.size());
+      for (int i = 0; i < chunk.size(); i++) {
+        var dto = chunk.get(i);
+        if (dto == null || !StringUtils.hasText(dto.getMessage())) {
+          results[offset + i] = failure(offset + i, null, HttpStatus.BAD_REQUEST, MESSAGE_BLANK);
+        } else {
+          indexes.add(offset + i);
+          entities.add(this.messageMapper.toEntity(dto));
+        }
+      }
+
+      try {
+        transactionTemplate.executeWithoutResult(status -> repository.saveAll(entities));
+        for (int i = 0; i < entities.size(); i++) {
+          var entity = entities.get(i);
+          results[indexes.get(i)] = success(indexes.get(i), entity.getId(), HttpStatus.CREATED);
+          eventPublisher.publishEvent(new MessageChangedEvent(entity.getId(), MessageChangeType.CREATED, entity.getMessage(), entity.getVersion()));
+        }
+      } catch (final Exception e) {
+        log.error("Error persisting a batch of {} Messages: {}", entities.size(), e.getMessage(), e);
+        indexes.forEach(index -> results[index] = failure(index, null, HttpStatus.INTERNAL_SERVER_ERROR, e.getMessage()));
+      }
+    });
+
+    return Arrays.asList(results);
+  }
+
+  /**
+   * Updates several messages at once. Each chunk of {@value #BATCH_CHUNK_SIZE} items is loaded with a single
+   * query and updated in place within one transaction, so the updates are flushed as JDBC batches. The updated
+   * messages are saved explicitly for the stores that do not track changes (with JPA they are already managed).
+   *
+   * @param dtos the messages to update, each one holding the id of the message it replaces
+   * @return one result per item, with status 404 for ids that do not exist
+   */
+  @Override
+  public List<BatchItemResultDTO> updateAll(final List<MessageDTO> dtos) {
+    final BatchItemResultDTO[] results = new BatchItemResultDTO[dtos.size()];
+
+    forEachChunk(dtos, (offset, chunk) -> {
+      final List<Integer> indexes = new ArrayList<>(chunk.size());
+      for (int i = 0; i < chunk.size(); i++) {
+        var dto = chunk.get(i);
+        if (dto == null || dto.getId() == null) {
+          results[offset + i] = failure(offset + i, null, HttpStatus.BAD_REQUEST, ID_NULL);
+        } else if (!StringUtils.hasText(dto.getMessage())) {
+          results[offset + i] = failure(offset + i, dto.getId(), HttpStatus.BAD_REQUEST, MESSAGE_BLANK);
+        } else {
+          indexes.add(offset + i);
+        }
+      }
+
+      final Map<Integer, Message> updated = new LinkedHashMap<>(indexes.size() * 2);
+      try {
+        transactionTemplate.executeWithoutResult(status -> {
+          var ids = indexes.stream().map(index -> dtos.get(index).getId()).toList();
+          final Map<Long, Message> entities = new HashMap<>();
+          repository.findAllById(ids).forEach(entity -> entities.put(entity.getId(), entity));
+
+          final List<Message> changed = new ArrayList<>(entities.size());
+          for (var index : indexes) {
+            var dto = dtos.get(index);
+            var entity = entities.get(dto.getId());
+            if (entity == null) {
+              results[index] = failure(index, dto.getId(), HttpStatus.NOT_FOUND, MESSAGE_NOT_FOUND + dto.getId());
+            } else {
+              this.messageMapper.updateEntity(dto, entity);
+              changed.add(entity);
+              updated.put(index, entity);
+            }
+          }
+          repository.saveAll(changed);
+        });
+        updated.forEach((index, entity) -> {
+          results[index] = success(index, entity.getId(), HttpStatus.OK);
+          eventPublisher.publishEvent(new MessageChangedEvent(entity.getId(), MessageChangeType.UPDATED, entity.getMessage(), entity.getVersion()));
+        });
+      } catch (final Exception e) {
+        log.error("Error updating a batch of {} Messages: {}", indexes.size(), e.getMessage(), e);
+        indexes.forEach(index -> results[index] = failure(index, dtos.get(index).getId(), HttpStatus.INTERNAL_SERVER_ERROR, e.getMessage()));
+      }
+    });
+
+    return Arrays.asList(results);
+  }
+
+  /**
+   * Deletes several messages at once. Each chunk of {@value #BATCH_CHUNK_SIZE} ids costs one query to find
+   * which ids exist and one bulk delete statement.
+   *
+   * @param ids the ids of the messages to delete
+   * @return one result per id, with status 404 for ids that do not exist
+   */
+  @Override
+  public List<BatchItemResultDTO> deleteAllById(final List<Long> ids) {
+    final BatchItemResultDTO[] results = new BatchItemResultDTO[ids.size()];
+
+    forEachChunk(ids, (offset, chunk) -> {
+      final List<Long> candidates = new ArrayList<>(chunk.size());
+      for (int i = 0; i < chunk.size(); i++) {
+        if (chunk.get(i) == null) {
+          results[offset + i] = failure(offset + i, null, HttpStatus.BAD_REQUEST, ID_NULL);
+        } else {
+          candidates.add(chunk.get(i));
+        }
+      }
+
+      try {
+        final Set<Long> existing = new HashSet<>();
+        transactionTemplate.executeWithoutResult(status -> {
+          existing.addAll(repository.findExistingIds(candidates));
+          repository.deleteAllByIdInBatch(existing);
+        });
+        existing.forEach(id -> eventPublisher.publishEvent(new MessageChangedEvent(id, MessageChangeType.DELETED)));
+        for (int i = 0; i < chunk.size(); i++) {
+          var id = chunk.get(i);
+          if (id != null) {
+            results[offset + i] = existing.contains(id)
+                                  ? success(offset + i, id, HttpStatus.NO_CONTENT)
+                                  : failure(offset + i, id, HttpStatus.NOT_FOUND, MESSAGE_NOT_FOUND + id);
+          }
+        }
+      } catch (final Exception e) {
+        log.error("Error deleting a batch of {} Messages: {}", candidates.size(), e.getMessage(), e);
+        for (int i = 0; i < chunk.size(); i++) {
+          if (chunk.get(i) != null) {
+            results[offset + i] = failure(offset + i, chunk.get(i), HttpStatus.INTERNAL_SERVER_ERROR, e.getMessage());
+          }
+        }
+      }
+    });
+
+    return Arrays.asList(results);
+  }
+
+  private RuntimeException notFoundOrStale(final Long id, final Long expectedVersion) {
+    if (expectedVersion != null && repository.existsById(id)) {
+      return new OptimisticLockingFailureException("Message " + id + " is no longer at version " + expectedVersion);
+    }
+    return new MessageNotFoundException(MESSAGE_NOT_FOUND + id);
+  }
+
+  private static void checkRange(final Instant from, final Instant to) throws BadRequestException {
+    if (from == null || to == null || !from.isBefore(to)) {
+      throw new BadRequestException("from must be before to");
+    }
+  }
+
+  private static LocalDateTime toLocal(final Instant instant) {
+    return LocalDateTime.ofInstant(instant, ZoneId.systemDefault());
+  }
+
+  private Map<Long, MessageDTO> loadAll(final Collection<Long> ids) {
+    final Map<Long, MessageDTO> messages = new HashMap<>(ids.size() * 2);
+    repository.findAllById(ids).forEach(message -> messages.put(message.getId(), this.messageMapper.toDTO(message)));
+    return messages;
+  }
+
+  /**
+   * Loads a message through the read batcher when it is on, otherwise through the read of the id already running, if
+   * any. Both only fail with the unchecked exceptions of the repository.
+   */
+  private MessageDTO load(final Long id) {
+    try {
+      return readBatcher != null ? readBatcher.get(id) : inFlightReads.execute(id, () -> loadAndCache(id));
+    } catch (final RuntimeException e) {
+      throw e;
+    } catch (final Exception e) {
+      throw new IllegalStateException("Error loading the message " + id, e);
+    }
+  }
+
+  /**
+   * Loads one message and caches it in the hot cache. The stamp is taken right before the read, so a change
+   * committed while a caller waited for a shared load does not let an older copy into the cache.
+   */
+  private MessageDTO loadAndCache(final Long id) {
+    var stamp = hotCache == null ? 0 : hotCache.stamp();
+    var message = repository.findById(id).map(this.messageMapper::toDTO).orElse(null);
+    if (hotCache != null && message != null) {
+      hotCache.put(message, stamp);
+    }
+    return message;
+  }
+
+  /**
+   * Loads a batch of messages for the read batcher and caches them in the hot cache, see {@link #loadAndCache(Long)}.
+   */
+  private Map<Long, MessageDTO> loadAllAndCache(final Collection<Long> ids) {
+    var stamp = hotCache == null ? 0 : hotCache.stamp();
+    var messages = loadAll(ids);
+    if (hotCache != null) {
+      messages.values().forEach(message -> hotCache.put(message, stamp));
+    }
+    return messages;
+  }
+
+  private static <T> void forEachChunk(final List<T> items, final BiConsumer<Integer, List<T>> action) {
+    for (int offset = 0; offset < items.size(); offset += BATCH_CHUNK_SIZE) {
+      action.accept(offset, items.subList(offset, Math.min(offset + BATCH_CHUNK_SIZE, items.size())));
+    }
+  }
+
+  private static BatchItemResultDTO success(final int index, final Long id, final HttpStatus status) {
+    return BatchItemResultDTO.builder().index(index).id(id).status(status.value()).build();
+  }
+
+  private static BatchItemResultDTO failure(final int index, final Long id, final HttpStatus status, final String error) {
+    return BatchItemResultDTO.builder().index(index).id(id).status(status.value()).error(error).build();
   }
 }
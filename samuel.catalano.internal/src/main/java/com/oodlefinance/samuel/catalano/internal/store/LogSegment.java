@@ -0,0 +1,295 @@
+package com.oodlefinance.samuel.catalano.internal.store;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * One memory-mapped file of the {@link MessageLogStore}, holding records one after the other from offset 0. The
+ * file is created at its full size, so the bytes after the last record are zero.
+ * <p>
+ * A record is laid out as: length ({@code int}, whole record), CRC32 of the bytes after the checksum ({@code int}),
+ * type ({@code byte}), id, version, creation time in epoch seconds (UTC) ({@code long}s), nanoseconds of the creation
+ * time ({@code int}), length of the text in UTF-8 bytes, {@code -1} for none ({@code int}), text. A
+ * {@link #HIGH_WATER} record only holds, as its id, the highest id handed out so far, so ids are never reused after a
+ * restart even when the records of that id are gone.
+ * <p>
+ * Records are only read and written with absolute positions, concurrent reads are safe; the store serializes
+ * writes.
+ */
+final class LogSegment implements Closeable {
+
+  static final byte PUT = 1;
+  static final byte DELETE = 2;
+  static final byte HIGH_WATER = 3;
+
+  static final int TYPE = 8;
+  static final int ID = 9;
+  static final int VERSION = 17;
+  static final int CREATED_SECONDS = 25;
+  static final int CREATED_NANOS = 33;
+  static final int TEXT_LENGTH = 37;
+  static final int HEADER_SIZE = 41;
+
+  private static final String SUFFIX = ".log";
+  private static final int ZERO_CHUNK = 64 * 1024;
+  private static final MethodHandle INVOKE_CLEANER = invokeCleaner();
+
+  private final int number;
+  private final Path path;
+  private final FileChannel channel;
+  private final MappedByteBuffer buffer;
+  private int writePosition;
+  private long deadBytes;
+
+  private LogSegment(final int number, final Path path, final FileChannel channel, final MappedByteBuffer buffer) {
+    this.number = number;
+    this.path = path;
+    this.channel = channel;
+    this.buffer = buffer;
+  }
+
+  /**
+   * Maps the segment of the given number in the directory, creating it with the given size when it does not exist.
+   */
+  static LogSegment open(final Path directory, final int number, final long size) throws IOException {
+    var path = directory.resolve(String.format("%010d%s", number, SUFFIX));
+    var channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    try {
+      var mapSize = Math.max(size, channel.size());
+      return new LogSegment(number, path, channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, mapSize));
+    } catch (final IOException | RuntimeException e) {
+      channel.close();
+      throw e;
+    }
+  }
+
+  /**
+   * @param file a file of the store directory
+   * @return the number of the segment held by the file, {@code -1} when the file is not a segment
+   */
+  static int numberOf(final Path file) {
+    var name = file.getFileName().toString();
+    if (!name.endsWith(SUFFIX)) {
+      return -1;
+    }
+    try {
+      return Integer.parseInt(name.substring(0, name.length() - SUFFIX.length()));
+    } catch (final NumberFormatException e) {
+      return -1;
+    }
+  }
+
+  /**
+   * Checks the record at the given offset.
+   *
+   * @param offset the offset of a record
+   * @return the length of the record, {@code 0} at the end of the segment, {@code -1} for a record that is torn or
+   *     corrupt
+   */
+  int check(final int offset) {
+    if (offset + 4 > buffer.capacity()) {
+      return 0;
+    }
+    var length = buffer.getInt(offset);
+    if (length == 0) {
+      return 0;
+    }
+    if (length < HEADER_SIZE || length > buffer.capacity() - offset) {
+      return -1;
+    }
+    var crc = new CRC32();
+    crc.update(buffer.slice(offset + TYPE, length - TYPE));
+    return (int) crc.getValue() == buffer.getInt(offset + 4) ? length : -1;
+  }
+
+  /**
+   * Appends an encoded record.
+   *
+   * @return the offset of the record
+   */
+  int append(final byte[] record) {
+    var offset = writePosition;
+    buffer.put(offset, record);
+    writePosition += record.length;
+    return offset;
+  }
+
+  /**
+   * Appends from the given offset, the end of the records found when the segment was opened.
+   */
+  void resume(final int offset) {
+    writePosition = offset;
+  }
+
+  /**
+   * Zeroes everything from the given offset, dropping a torn record left by a crash, and appends from there.
+   */
+  void truncate(final int offset) {
+    var zeros = new byte[ZERO_CHUNK];
+    for (int position = offset; position < buffer.capacity(); position += ZERO_CHUNK) {
+      buffer.put(position, zeros, 0, Math.min(ZERO_CHUNK, buffer.capacity() - position));
+    }
+    writePosition = offset;
+  }
+
+  boolean fits(final int recordLength) {
+    return recordLength <= buffer.capacity() - writePosition;
+  }
+
+  /**
+   * Encodes a record, see the layout above.
+   */
+  static byte[] encode(final byte type, final long id, final long version, final long createdSeconds,
+                       final int createdNanos, final byte[] text) {
+    var record = new byte[HEADER_SIZE + (text == null ? 0 : text.length)];
+    var encoder = ByteBuffer.wrap(record);
+    encoder.putInt(record.length)
+           .putInt(0)
+           .put(type)
+           .putLong(id)
+           .putLong(version)
+           .putLong(createdSeconds)
+           .putInt(createdNanos)
+           .putInt(text == null ? -1 : text.length);
+    if (text != null) {
+      encoder.put(text);
+    }
+    var crc = new CRC32();
+    crc.update(record, TYPE, record.length - TYPE);
+    encoder.putInt(4, (int) crc.getValue());
+    return record;
+  }
+
+  /**
+   * Copies the record at the given offset, to append it to another segment.
+   */
+  byte[] copy(final int offset) {
+    var record = new byte[buffer.getInt(offset)];
+    buffer.get(offset, record);
+    return record;
+  }
+
+  int length(final int offset) {
+    return buffer.getInt(offset);
+  }
+
+  byte type(final int offset) {
+    return buffer.get(offset + TYPE);
+  }
+
+  long id(final int offset) {
+    return buffer.getLong(offset + ID);
+  }
+
+  long version(final int offset) {
+    return buffer.getLong(offset + VERSION);
+  }
+
+  long createdSeconds(final int offset) {
+    return buffer.getLong(offset + CREATED_SECONDS);
+  }
+
+  int createdNanos(final int offset) {
+    return buffer.getInt(offset + CREATED_NANOS);
+  }
+
+  /**
+   * @return the text of the record in UTF-8, {@code null} when the message has no text
+   */
+  byte[] text(final int offset) {
+    var length = buffer.getInt(offset + TEXT_LENGTH);
+    if (length < 0) {
+      return null;
+    }
+    var text = new byte[length];
+    buffer.get(offset + HEADER_SIZE, text);
+    return text;
+  }
+
+  int number() {
+    return number;
+  }
+
+  int writePosition() {
+    return writePosition;
+  }
+
+  /**
+   * Records that a record of this segment was overwritten or deleted, or is a deletion marker.
+   */
+  void addDeadBytes(final int length) {
+    deadBytes += length;
+  }
+
+  /**
+   * @return the share of the written bytes taken by records that are no longer needed
+   */
+  double garbageRatio() {
+    return writePosition == 0 ? 0 : (double) deadBytes / writePosition;
+  }
+
+  /**
+   * Writes the modified pages of the segment to the disk.
+   */
+  void force() {
+    buffer.force();
+  }
+
+  /**
+   * Closes the file channel. The mapping itself is released when the buffer is garbage collected.
+   */
+  @Override
+  public void close() throws IOException {
+    channel.close();
+  }
+
+  /**
+   * Closes the file, unmaps it and deletes it. Unmapping gives the pages back straight away instead of when the
+   * buffer is garbage collected, which could be long after the file is gone. The segment must not be read any more;
+   * the store only deletes a segment under its write lock, once no location points to it.
+   */
+  void delete() throws IOException {
+    close();
+    unmap();
+    Files.deleteIfExists(path);
+  }
+
+  private void unmap() {
+    if (INVOKE_CLEANER == null) {
+      return;
+    }
+    try {
+      INVOKE_CLEANER.invokeExact((ByteBuffer) buffer);
+    } catch (final Throwable e) {
+      throw new IllegalStateException("Error unmapping message log segment " + number, e);
+    }
+  }
+
+  /**
+   * Finds {@code sun.misc.Unsafe.invokeCleaner}, the only way to unmap a file before the buffer is garbage collected.
+   *
+   * @return the method bound to the {@code Unsafe} instance, {@code null} when it is not available
+   */
+  private static MethodHandle invokeCleaner() {
+    try {
+      var unsafeClass = Class.forName("sun.misc.Unsafe");
+      var theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+      theUnsafe.setAccessible(true);
+      return MethodHandles.lookup()
+                          .findVirtual(unsafeClass, "invokeCleaner", MethodType.methodType(void.class, ByteBuffer.class))
+                          .bindTo(theUnsafe.get(null));
+    } catch (final ReflectiveOperationException | RuntimeException e) {
+      return null;
+    }
+  }
+}
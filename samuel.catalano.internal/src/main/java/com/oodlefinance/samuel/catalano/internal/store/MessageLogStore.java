@@ -0,0 +1,704 @@
+package com.oodlefinance.samuel.catalano.internal.store;
+
+import lombok.extern.slf4j.Slf4j;
+
+import com.oodlefinance.samuel.catalano.internal.dto.MessageDTO;
+import com.oodlefinance.samuel.catalano.internal.entity.Message;
+import com.oodlefinance.samuel.catalano.internal.entity.base.BaseEntity;
+import com.oodlefinance.samuel.catalano.internal.repository.MessageStore;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * Embedded {@link MessageStore} keeping the messages in memory-mapped append-only files, turned on with
+ * {@code oodle.messages.store.type=log}. Nothing is lost on restart. The messages are no longer read from nor
+ * written to the database, but JPA and the H2 datasource are still configured and started with this store.
+ * <p>
+ * Every change appends a record to the active {@link LogSegment} of {@code segment-size} bytes: the new state of
+ * the message, or a deletion marker. When the active segment is full a new one is started. An {@link OffHeapIdIndex}
+ * maps every id to its latest record, so a read is a binary search and a copy out of the mapped file.
+ * <p>
+ * At startup the segments are replayed in order to rebuild the index. A record cut short or corrupted by a crash
+ * fails its checksum; it and everything after it in the segment are dropped. Records are in the page cache as soon
+ * as they are appended, so they survive the process dying; with {@code fsync} each append is also forced to the
+ * disk, so they survive the machine dying.
+ * <p>
+ * Every {@code compaction-interval}, full segments where at least {@code compaction-threshold} of the bytes belong
+ * to overwritten or deleted messages are compacted: their live records are copied to the active segment and the
+ * file is deleted. Deletion markers are copied too while an older segment could still hold the deleted message.
+ * Ids are never handed out twice, even across restarts: {@link #allocateId()} reserves them in blocks recorded by a
+ * high-water mark record, and every compaction appends a high-water mark of the highest id so far, so dropping the
+ * records of a segment never lowers it.
+ * <p>
+ * {@link #saveAll(Iterable)} and {@link #insertAll(List)} are all-or-nothing: the whole batch is checked before the
+ * first record is appended, so a batch that is refused leaves nothing behind.
+ * <p>
+ * Time range queries and counts scan the index, they are meant for the sizes an embedded store is used for.
+ */
+@Slf4j
+@Primary
+@Component
+@ConditionalOnProperty(prefix = "oodle.messages.store", name = "type", havingValue = "log")
+public class MessageLogStore implements MessageStore, DisposableBean {
+
+  public static final String METRICS_PREFIX = "oodle.messages.store.log";
+
+  private static final int STREAM_PAGE_SIZE = 500;
+
+  private final Path directory;
+  private final long segmentSize;
+  private final boolean fsync;
+  private final double compactionThreshold;
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+  private final OffHeapIdIndex index = new OffHeapIdIndex();
+  private final ConcurrentSkipListMap<Integer, LogSegment> segments = new ConcurrentSkipListMap<>();
+  private final ScheduledExecutorService compactor;
+  private LogSegment active;
+  private long nextId = 1;
+  private long reservedId;
+
+  @Autowired
+  public MessageLogStore(@Value("${oodle.messages.store.log.directory:data/messages}") final Path directory,
+                         @Value("${oodle.messages.store.log.segment-size:64MB}") final DataSize segmentSize,
+                         @Value("${oodle.messages.store.log.fsync:false}") final boolean fsync,
+                         @Value("${oodle.messages.store.log.compaction-threshold:0.5}") final double compactionThreshold,
+                         @Value("${oodle.messages.store.log.compaction-interval:1m}") final Duration compactionInterval,
+                         final MeterRegistry meterRegistry) throws IOException {
+    if (segmentSize.toBytes() < LogSegment.HEADER_SIZE || segmentSize.toBytes() > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("oodle.messages.store.log.segment-size must be between "
+                                         + LogSegment.HEADER_SIZE + "B and 2GB");
+    }
+    this.directory = directory;
+    this.segmentSize = segmentSize.toBytes();
+    this.fsync = fsync;
+    this.compactionThreshold = compactionThreshold;
+
+    Files.createDirectories(directory);
+    recover();
+
+    Gauge.builder(METRICS_PREFIX + ".segments", segments, Map::size)
+         .description("Number of segment files of the message log")
+         .register(meterRegistry);
+    Gauge.builder(METRICS_PREFIX + ".messages", this, MessageLogStore::size)
+         .description("Number of messages in the message log")
+         .register(meterRegistry);
+
+    if (compactionInterval.isZero() || compactionInterval.isNegative()) {
+      this.compactor = null;
+    } else {
+      this.compactor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        var thread = new Thread(runnable, "message-log-compactor");
+        thread.setDaemon(true);
+        return thread;
+      });
+      this.compactor.scheduleWithFixedDelay(this::compactQuietly, compactionInterval.toMillis(),
+                                            compactionInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+  }
+
+  @Override
+  public <S extends Message> S save(final S message) {
+    lock.writeLock().lock();
+    try {
+      write(message, false);
+      return message;
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  @Override
+  public <S extends Message> List<S> saveAll(final Iterable<S> messages) {
+    final List<S> saved = new ArrayList<>();
+    messages.forEach(saved::add);
+    lock.writeLock().lock();
+    try {
+      check(saved, false);
+      for (var message : saved) {
+        write(message, false);
+      }
+      return saved;
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Hands out the next id. Ids are reserved in blocks of {@link BaseEntity#ID_BLOCK_SIZE}, like the database sequence,
+   * with a high-water mark record, so an id handed out for a message that is not written yet is not handed out again
+   * after a restart.
+   */
+  @Override
+  public Long allocateId() {
+    lock.writeLock().lock();
+    try {
+      if (nextId > reservedId) {
+        appendHighWater(nextId + BaseEntity.ID_BLOCK_SIZE - 1);
+      }
+      return nextId++;
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  @Override
+  public void insertAll(final List<Message> messages) {
+    lock.writeLock().lock();
+    try {
+      check(messages, true);
+      for (var message : messages) {
+        write(message, true);
+      }
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  @Override
+  public Optional<Message> findById(final Long id) {
+    lock.readLock().lock();
+    try {
+      var location = index.get(id);
+      return location == OffHeapIdIndex.ABSENT ? Optional.empty() : Optional.of(read(location));
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  @Override
+  public List<Message> findAllById(final Iterable<Long> ids) {
+    final List<Message> messages = new ArrayList<>();
+    lock.readLock().lock();
+    try {
+      for (var id : ids) {
+        var location = id == null ? OffHeapIdIndex.ABSENT : index.get(id);
+        if (location != OffHeapIdIndex.ABSENT) {
+          messages.add(read(location));
+        }
+      }
+      return messages;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  @Override
+  public boolean existsById(final Long id) {
+    lock.readLock().lock();
+    try {
+      return index.get(id) != OffHeapIdIndex.ABSENT;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  @Override
+  public List<Long> findExistingIds(final Collection<Long> ids) {
+    lock.readLock().lock();
+    try {
+      return ids.stream().filter(Objects::nonNull).filter(id -> index.get(id) != OffHeapIdIndex.ABSENT).toList();
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  @Override
+  public Optional<Long> findVersionById(final Long id) {
+    lock.readLock().lock();
+    try {
+      var location = index.get(id);
+      return location == OffHeapIdIndex.ABSENT ? Optional.empty() : Optional.of(segment(location).version(offset(location)));
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  @Override
+  public List<Message> findByIdGreaterThanOrderByIdAsc(final Long after, final Pageable pageable) {
+    final List<Message> messages = new ArrayList<>(pageable.getPageSize());
+    lock.readLock().lock();
+    try {
+      for (int slot = index.slotAfter(after); slot < index.slots() && messages.size() < pageable.getPageSize(); slot++) {
+        var location = index.locationAt(slot);
+        if (location != OffHeapIdIndex.ABSENT) {
+          messages.add(read(location));
+        }
+      }
+      return messages;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Streams every message ordered by id, reading them in pages of {@value #STREAM_PAGE_SIZE} so the lock is not held
+   * while the stream is consumed.
+   */
+  @Override
+  public Stream<MessageDTO> streamAll() {
+    return Stream.iterate(page(0L), page -> !page.isEmpty(), page -> page(page.get(page.size() - 1).getId()))
+                 .flatMap(List::stream);
+  }
+
+  @Override
+  public List<Message> findCreatedBetween(final LocalDateTime from, final LocalDateTime beforeCreatedAt, final Long beforeId,
+                                          final Pageable pageable) {
+    final Comparator<Message> newestFirst = Comparator.comparing(Message::getCreatedAt).thenComparing(Message::getId).reversed();
+    final PriorityQueue<Message> newest = new PriorityQueue<>(newestFirst.reversed());
+    lock.readLock().lock();
+    try {
+      for (int slot = 0; slot < index.slots(); slot++) {
+        var location = index.locationAt(slot);
+        if (location == OffHeapIdIndex.ABSENT) {
+          continue;
+        }
+        var createdAt = createdAt(location);
+        var id = index.idAt(slot);
+        if (createdAt.isBefore(from) || createdAt.isAfter(beforeCreatedAt)
+            || (createdAt.isEqual(beforeCreatedAt) && id >= beforeId)) {
+          continue;
+        }
+        newest.add(Message.builder().id(id).createdAt(createdAt).build());
+        if (newest.size() > pageable.getPageSize()) {
+          newest.poll();
+        }
+      }
+      return newest.stream()
+                   .sorted(newestFirst)
+                   .map(message -> read(index.get(message.getId())))
+                   .toList();
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  @Override
+  public List<IntervalCount> countCreatedPerInterval(final LocalDateTime origin, final LocalDateTime from, final LocalDateTime to,
+                                                     final long intervalMillis) {
+    final TreeMap<Long, Long> counts = new TreeMap<>();
+    lock.readLock().lock();
+    try {
+      for (int slot = 0; slot < index.slots(); slot++) {
+        var location = index.locationAt(slot);
+        if (location == OffHeapIdIndex.ABSENT) {
+          continue;
+        }
+        var createdAt = createdAt(location);
+        if (!createdAt.isBefore(from) && createdAt.isBefore(to)) {
+          counts.merge(Duration.between(origin, createdAt).toMillis() / intervalMillis, 1L, Long::sum);
+        }
+      }
+    } finally {
+      lock.readLock().unlock();
+    }
+    return counts.entrySet().stream().map(entry -> IntervalCount.of(entry.getKey(), entry.getValue())).toList();
+  }
+
+  @Override
+  public int updateMessageById(final Long id, final String message) {
+    return update(id, null, message);
+  }
+
+  @Override
+  public int updateMessageByIdAndVersion(final Long id, final Long version, final String message) {
+    return update(id, version, message);
+  }
+
+  @Override
+  public int deleteMessageById(final Long id) {
+    return delete(id, null);
+  }
+
+  @Override
+  public int deleteMessageByIdAndVersion(final Long id, final Long version) {
+    return delete(id, version);
+  }
+
+  @Override
+  public void deleteAllByIdInBatch(final Iterable<Long> ids) {
+    lock.writeLock().lock();
+    try {
+      for (var id : ids) {
+        if (id != null && index.get(id) != OffHeapIdIndex.ABSENT) {
+          appendDelete(id);
+        }
+      }
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * @return the number of messages in the store
+   */
+  public int size() {
+    lock.readLock().lock();
+    try {
+      return index.size();
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Compacts the full segments holding at least {@code compaction-threshold} of garbage, oldest first.
+   *
+   * @return the number of segments compacted
+   */
+  public int compact() {
+    var compacted = 0;
+    for (var segment : List.copyOf(segments.values())) {
+      lock.writeLock().lock();
+      try {
+        if (segment == active || segment.garbageRatio() < compactionThreshold) {
+          continue;
+        }
+      } finally {
+        lock.writeLock().unlock();
+      }
+      compact(segment);
+      compacted++;
+    }
+    return compacted;
+  }
+
+  /**
+   * Stops the compaction and writes the segments to the disk.
+   */
+  @Override
+  public void destroy() throws IOException {
+    if (compactor != null) {
+      compactor.shutdownNow();
+    }
+    lock.writeLock().lock();
+    try {
+      for (var segment : segments.values()) {
+        segment.force();
+        segment.close();
+      }
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  private void recover() throws IOException {
+    final List<Integer> numbers;
+    try (var files = Files.list(directory)) {
+      numbers = files.map(LogSegment::numberOf).filter(number -> number >= 0).sorted().toList();
+    }
+    for (var number : numbers) {
+      var segment = LogSegment.open(directory, number, segmentSize);
+      segments.put(number, segment);
+      var offset = 0;
+      var length = segment.check(offset);
+      while (length > 0) {
+        replay(segment, offset);
+        offset += length;
+        length = segment.check(offset);
+      }
+      if (length < 0) {
+        log.warn("Dropping the torn or corrupt records of message log segment {} from offset {}", number, offset);
+        segment.truncate(offset);
+      } else {
+        segment.resume(offset);
+      }
+      active = segment;
+    }
+    if (active == null) {
+      roll();
+    }
+    log.info("Message log opened in {} with {} messages in {} segments", directory, index.size(), segments.size());
+  }
+
+  private void replay(final LogSegment segment, final int offset) {
+    var id = segment.id(offset);
+    nextId = Math.max(nextId, id + 1);
+    var type = segment.type(offset);
+    if (type == LogSegment.PUT) {
+      release(index.put(id, location(segment.number(), offset)));
+    } else if (type == LogSegment.DELETE) {
+      release(index.remove(id));
+      segment.addDeadBytes(segment.length(offset));
+    } else {
+      reservedId = Math.max(reservedId, id);
+      segment.addDeadBytes(segment.length(offset));
+    }
+  }
+
+  /**
+   * Checks a whole batch before any of it is written: no message is too large for a segment, and with
+   * {@code insertOnly} no id is taken, otherwise every expected version matches, counting the earlier messages of
+   * the batch.
+   */
+  private void check(final Collection<? extends Message> messages, final boolean insertOnly) {
+    final Map<Long, Long> versions = new HashMap<>();
+    for (var message : messages) {
+      var text = message.getMessage();
+      var length = LogSegment.HEADER_SIZE + (text == null ? 0 : text.getBytes(StandardCharsets.UTF_8).length);
+      if (length > segmentSize) {
+        throw new IllegalArgumentException("Message of " + length + " bytes does not fit in a message log segment");
+      }
+      var id = message.getId();
+      if (id == null) {
+        continue;
+      }
+      final Long current;
+      if (versions.containsKey(id)) {
+        current = versions.get(id);
+      } else {
+        var location = index.get(id);
+        current = location == OffHeapIdIndex.ABSENT ? null : segment(location).version(offset(location));
+      }
+      if (current != null && insertOnly) {
+        throw new DuplicateKeyException("There is already a message with id: " + id);
+      }
+      if (current != null && message.getVersion() != null && !message.getVersion().equals(current)) {
+        throw new OptimisticLockingFailureException("Message " + id + " is no longer at version " + message.getVersion());
+      }
+      versions.put(id, current != null ? current + 1 : message.getVersion() == null ? 0L : message.getVersion());
+    }
+  }
+
+  private void write(final Message message, final boolean insertOnly) {
+    if (message.getId() == null) {
+      message.setId(nextId++);
+    } else {
+      nextId = Math.max(nextId, message.getId() + 1);
+    }
+    var current = index.get(message.getId());
+    if (current != OffHeapIdIndex.ABSENT) {
+      if (insertOnly) {
+        throw new DuplicateKeyException("There is already a message with id: " + message.getId());
+      }
+      var currentVersion = segment(current).version(offset(current));
+      if (message.getVersion() != null && message.getVersion() != currentVersion) {
+        throw new OptimisticLockingFailureException("Message " + message.getId() + " is no longer at version " + message.getVersion());
+      }
+      message.setVersion(currentVersion + 1);
+      if (message.getCreatedAt() == null) {
+        message.setCreatedAt(createdAt(current));
+      }
+    } else {
+      if (message.getVersion() == null) {
+        message.setVersion(0L);
+      }
+      if (message.getCreatedAt() == null) {
+        message.setCreatedAt(LocalDateTime.now());
+      }
+    }
+    appendPut(message.getId(), message.getVersion(), message.getCreatedAt(), message.getMessage());
+  }
+
+  private int update(final Long id, final Long expectedVersion, final String message) {
+    lock.writeLock().lock();
+    try {
+      var current = id == null ? OffHeapIdIndex.ABSENT : index.get(id);
+      if (current == OffHeapIdIndex.ABSENT) {
+        return 0;
+      }
+      var version = segment(current).version(offset(current));
+      if (expectedVersion != null && expectedVersion != version) {
+        return 0;
+      }
+      appendPut(id, version + 1, createdAt(current), message);
+      return 1;
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  private int delete(final Long id, final Long expectedVersion) {
+    lock.writeLock().lock();
+    try {
+      var current = id == null ? OffHeapIdIndex.ABSENT : index.get(id);
+      if (current == OffHeapIdIndex.ABSENT) {
+        return 0;
+      }
+      if (expectedVersion != null && expectedVersion != segment(current).version(offset(current))) {
+        return 0;
+      }
+      appendDelete(id);
+      return 1;
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  private void appendPut(final long id, final long version, final LocalDateTime createdAt, final String message) {
+    var createdUtc = createdAt.toInstant(ZoneOffset.UTC);
+    var text = message == null ? null : message.getBytes(StandardCharsets.UTF_8);
+    var location = append(LogSegment.encode(LogSegment.PUT, id, version, createdUtc.getEpochSecond(), createdUtc.getNano(), text));
+    release(index.put(id, location));
+  }
+
+  private void appendDelete(final long id) {
+    var record = LogSegment.encode(LogSegment.DELETE, id, 0, 0, 0, null);
+    var location = append(record);
+    release(index.remove(id));
+    segment(location).addDeadBytes(record.length);
+  }
+
+  private void appendHighWater(final long id) {
+    var record = LogSegment.encode(LogSegment.HIGH_WATER, id, 0, 0, 0, null);
+    var location = append(record);
+    segment(location).addDeadBytes(record.length);
+    reservedId = Math.max(reservedId, id);
+  }
+
+  private long append(final byte[] record) {
+    if (record.length > segmentSize) {
+      throw new IllegalArgumentException("Message of " + record.length + " bytes does not fit in a message log segment");
+    }
+    if (!active.fits(record.length)) {
+      roll();
+    }
+    var offset = active.append(record);
+    if (fsync) {
+      active.force();
+    }
+    return location(active.number(), offset);
+  }
+
+  private void roll() {
+    var number = active == null ? 0 : active.number() + 1;
+    try {
+      if (active != null) {
+        active.force();
+      }
+      active = LogSegment.open(directory, number, segmentSize);
+      segments.put(number, active);
+    } catch (final IOException e) {
+      throw new DataAccessResourceFailureException("Error creating message log segment " + number, e);
+    }
+  }
+
+  /**
+   * Marks the record at the given location as garbage, when there is one.
+   */
+  private void release(final long location) {
+    if (location != OffHeapIdIndex.ABSENT) {
+      var segment = segment(location);
+      segment.addDeadBytes(segment.length(offset(location)));
+    }
+  }
+
+  private void compact(final LogSegment segment) {
+    var copied = 0;
+    for (int offset = 0; offset < segment.writePosition(); offset += segment.length(offset)) {
+      lock.writeLock().lock();
+      try {
+        var id = segment.id(offset);
+        var type = segment.type(offset);
+        if (type == LogSegment.PUT) {
+          if (index.get(id) == location(segment.number(), offset)) {
+            index.put(id, append(segment.copy(offset)));
+            copied++;
+          }
+        } else if (type == LogSegment.DELETE && !segments.firstKey().equals(segment.number())
+                   && index.get(id) == OffHeapIdIndex.ABSENT) {
+          var record = segment.copy(offset);
+          segment(append(record)).addDeadBytes(record.length);
+        }
+      } finally {
+        lock.writeLock().unlock();
+      }
+    }
+
+    lock.writeLock().lock();
+    try {
+      if (nextId > 1) {
+        appendHighWater(Math.max(nextId - 1, reservedId));
+      }
+      segments.remove(segment.number());
+      segment.delete();
+      log.info("Compacted message log segment {}, {} live messages moved", segment.number(), copied);
+    } catch (final IOException e) {
+      throw new UncheckedIOException("Error deleting message log segment " + segment.number(), e);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  private void compactQuietly() {
+    try {
+      compact();
+    } catch (final RuntimeException e) {
+      log.error("Error compacting the message log: {}", e.getMessage(), e);
+    }
+  }
+
+  private List<MessageDTO> page(final Long after) {
+    return findByIdGreaterThanOrderByIdAsc(after, Pageable.ofSize(STREAM_PAGE_SIZE))
+        .stream()
+        .map(message -> new MessageDTO(message.getId(), message.getMessage(), message.getVersion()))
+        .toList();
+  }
+
+  private Message read(final long location) {
+    var segment = segment(location);
+    var offset = offset(location);
+    var text = segment.text(offset);
+    return Message.builder()
+                  .id(segment.id(offset))
+                  .version(segment.version(offset))
+                  .createdAt(createdAt(location))
+                  .message(text == null ? null : new String(text, StandardCharsets.UTF_8))
+                  .build();
+  }
+
+  private LocalDateTime createdAt(final long location) {
+    var segment = segment(location);
+    var offset = offset(location);
+    return LocalDateTime.ofEpochSecond(segment.createdSeconds(offset), segment.createdNanos(offset), ZoneOffset.UTC);
+  }
+
+  private LogSegment segment(final long location) {
+    return segments.get((int) (location >>> 32));
+  }
+
+  private static int offset(final long location) {
+    return (int) location;
+  }
+
+  private static long location(final int segment, final int offset) {
+    return ((long) segment << 32) | (offset & 0xFFFFFFFFL);
+  }
+}
@@ -0,0 +1,166 @@
+package com.oodlefinance.samuel.catalano.internal.store;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Index of the {@link MessageLogStore}, mapping message ids to the location of their latest record, kept outside
+ * the Java heap.
+ * <p>
+ * Entries of 16 bytes (id, location) are stored in a direct buffer, sorted by id, so an id is found by binary search
+ * and a page of ids in order is a contiguous scan. Ids are allocated in increasing order, so new ids are appended;
+ * an id lower than the last one is inserted in place. Removed ids are only marked, the marks are dropped once they
+ * make up half of the entries. The buffer doubles when full.
+ * <p>
+ * Not thread-safe, the store guards it with its lock.
+ */
+final class OffHeapIdIndex {
+
+  static final long ABSENT = -1;
+
+  private static final int ENTRY_SIZE = 16;
+  private static final int INITIAL_CAPACITY = 1024;
+
+  private ByteBuffer entries = ByteBuffer.allocateDirect(INITIAL_CAPACITY * ENTRY_SIZE);
+  private int slots;
+  private int removed;
+
+  /**
+   * @param id the id of a message
+   * @return the location of its latest record, {@link #ABSENT} when there is none
+   */
+  long get(final long id) {
+    var slot = find(id);
+    return slot < 0 ? ABSENT : locationAt(slot);
+  }
+
+  /**
+   * Maps an id to the location of its latest record.
+   *
+   * @param id the id of a message
+   * @param location the location of its latest record
+   * @return the location it replaces, {@link #ABSENT} when there was none
+   */
+  long put(final long id, final long location) {
+    if (slots == 0 || id > idAt(slots - 1)) {
+      ensureCapacity();
+      write(slots++, id, location);
+      return ABSENT;
+    }
+    var slot = find(id);
+    if (slot >= 0) {
+      var previous = locationAt(slot);
+      entries.putLong(slot * ENTRY_SIZE + 8, location);
+      if (previous == ABSENT) {
+        removed--;
+      }
+      return previous;
+    }
+    ensureCapacity();
+    var insertAt = -slot - 1;
+    var tail = new byte[(slots - insertAt) * ENTRY_SIZE];
+    entries.get(insertAt * ENTRY_SIZE, tail);
+    entries.put((insertAt + 1) * ENTRY_SIZE, tail);
+    write(insertAt, id, location);
+    slots++;
+    return ABSENT;
+  }
+
+  /**
+   * Removes an id.
+   *
+   * @param id the id of a message
+   * @return the location of its latest record, {@link #ABSENT} when there was none
+   */
+  long remove(final long id) {
+    var slot = find(id);
+    if (slot < 0 || locationAt(slot) == ABSENT) {
+      return ABSENT;
+    }
+    var previous = locationAt(slot);
+    entries.putLong(slot * ENTRY_SIZE + 8, ABSENT);
+    if (++removed > slots / 2) {
+      purge();
+    }
+    return previous;
+  }
+
+  /**
+   * @return the number of ids in the index
+   */
+  int size() {
+    return slots - removed;
+  }
+
+  /**
+   * @return the number of slots, removed ids included, to scan the index with {@link #idAt} and {@link #locationAt}
+   */
+  int slots() {
+    return slots;
+  }
+
+  /**
+   * @param after an id
+   * @return the first slot holding an id greater than the given one, {@link #slots()} when there is none
+   */
+  int slotAfter(final long after) {
+    var slot = find(after);
+    return slot >= 0 ? slot + 1 : -slot - 1;
+  }
+
+  long idAt(final int slot) {
+    return entries.getLong(slot * ENTRY_SIZE);
+  }
+
+  /**
+   * @return the location stored in a slot, {@link #ABSENT} for a removed id
+   */
+  long locationAt(final int slot) {
+    return entries.getLong(slot * ENTRY_SIZE + 8);
+  }
+
+  private int find(final long id) {
+    var low = 0;
+    var high = slots - 1;
+    while (low <= high) {
+      var middle = (low + high) >>> 1;
+      var middleId = idAt(middle);
+      if (middleId < id) {
+        low = middle + 1;
+      } else if (middleId > id) {
+        high = middle - 1;
+      } else {
+        return middle;
+      }
+    }
+    return -(low + 1);
+  }
+
+  private void write(final int slot, final long id, final long location) {
+    entries.putLong(slot * ENTRY_SIZE, id);
+    entries.putLong(slot * ENTRY_SIZE + 8, location);
+  }
+
+  private void ensureCapacity() {
+    if ((slots + 1) * ENTRY_SIZE <= entries.capacity()) {
+      return;
+    }
+    if (entries.capacity() > Integer.MAX_VALUE / 2) {
+      throw new IllegalStateException("Message index is full");
+    }
+    var grown = ByteBuffer.allocateDirect(entries.capacity() * 2);
+    grown.put(0, entries, 0, slots * ENTRY_SIZE);
+    entries = grown;
+  }
+
+  private void purge() {
+    var kept = 0;
+    for (int slot = 0; slot < slots; slot++) {
+      var location = locationAt(slot);
+      if (location != ABSENT) {
+        write(kept++, idAt(slot), location);
+      }
+    }
+    slots = kept;
+    removed = 0;
+  }
+}
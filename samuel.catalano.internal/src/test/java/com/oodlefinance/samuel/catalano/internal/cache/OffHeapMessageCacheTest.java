@@ -0,0 +1,85 @@
+package com.oodlefinance.samuel.catalano.internal.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.oodlefinance.samuel.catalano.internal.dto.MessageDTO;
+import com.oodlefinance.samuel.catalano.internal.event.MessageChangeType;
+import com.oodlefinance.samuel.catalano.internal.event.MessageChangedEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.util.stream.LongStream;
+
+class OffHeapMessageCacheTest {
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+  @Test
+  void testPutAndGet_ShouldDecodeCachedMessage() {
+    final OffHeapMessageCache cache = new OffHeapMessageCache(DataSize.ofKilobytes(64), meterRegistry);
+
+    cache.put(message(1L, "Cached message \u2713", 3L), cache.stamp());
+    cache.put(MessageDTO.builder().id(2L).message("No version").build(), cache.stamp());
+
+    assertThat(cache.get(1L)).extracting(MessageDTO::getId, MessageDTO::getMessage, MessageDTO::getVersion)
+                             .containsExactly(1L, "Cached message \u2713", 3L);
+    assertThat(cache.get(2L).getVersion()).isNull();
+    assertThat(cache.getVersion(1L)).isEqualTo(3L);
+    assertThat(cache.get(9L)).isNull();
+    assertThat(meterRegistry.get(OffHeapMessageCache.METRICS_PREFIX + ".hits").counter().count()).isEqualTo(2);
+    assertThat(meterRegistry.get(OffHeapMessageCache.METRICS_PREFIX + ".misses").counter().count()).isEqualTo(1);
+    assertThat(meterRegistry.get(OffHeapMessageCache.METRICS_PREFIX + ".entries").gauge().value()).isEqualTo(2);
+  }
+
+  @Test
+  void testOnMessageChanged_ShouldEvictAndRejectLoadsStartedBefore() {
+    final OffHeapMessageCache cache = new OffHeapMessageCache(DataSize.ofKilobytes(64), meterRegistry);
+    cache.put(message(1L, "Old text", 0L), cache.stamp());
+    final long stamp = cache.stamp();
+
+    cache.onMessageChanged(new MessageChangedEvent(1L, MessageChangeType.UPDATED, "New text", 1L));
+    cache.put(message(1L, "Old text", 0L), stamp);
+
+    assertThat(cache.get(1L)).isNull();
+    cache.put(message(1L, "New text", 1L), cache.stamp());
+    assertThat(cache.get(1L).getMessage()).isEqualTo("New text");
+
+    cache.onMessageChanged(new MessageChangedEvent(1L, MessageChangeType.DELETED));
+    assertThat(cache.get(1L)).isNull();
+  }
+
+  @Test
+  void testIdZero_ShouldNeverBeFoundNorCached() {
+    final OffHeapMessageCache cache = new OffHeapMessageCache(DataSize.ofKilobytes(64), meterRegistry);
+    cache.put(message(1L, "Stored at offset zero", 0L), cache.stamp());
+
+    assertThat(cache.get(0L)).isNull();
+    assertThat(cache.getVersion(0L)).isNull();
+
+    cache.put(message(0L, "Id zero", 0L), cache.stamp());
+    cache.onMessageChanged(new MessageChangedEvent(0L, MessageChangeType.DELETED));
+
+    assertThat(cache.get(0L)).isNull();
+    assertThat(cache.get(1L).getMessage()).isEqualTo("Stored at offset zero");
+  }
+
+  @Test
+  void testPut_WhenFull_ShouldEvictOldestMessages() {
+    final OffHeapMessageCache cache = new OffHeapMessageCache(DataSize.ofKilobytes(16), meterRegistry);
+
+    LongStream.rangeClosed(1, 1000).forEach(id -> cache.put(message(id, "Message number " + id, 0L), cache.stamp()));
+
+    assertThat(cache.get(1000L)).isNotNull();
+    assertThat(cache.get(1L)).isNull();
+    assertThat(cache.used()).isLessThanOrEqualTo(DataSize.ofKilobytes(16).toBytes());
+    assertThat(cache.size()).isBetween(100, 1000);
+    assertThat(meterRegistry.get(OffHeapMessageCache.METRICS_PREFIX + ".evictions").counter().count())
+        .isEqualTo(1000 - cache.size());
+  }
+
+  private static MessageDTO message(final Long id, final String text, final Long version) {
+    return MessageDTO.builder().id(id).message(text).version(version).build();
+  }
+}
@@ -1,16 +1,36 @@
 package com.oodlefinance.samuel.catalano.internal.controller;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.Matchers.hasSize;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.oodlefinance.samuel.catalano.internal.config.WireFormatConfig;
+import com.oodlefinance.samuel.catalano.internal.dto.BatchItemResultDTO;
+import com.oodlefinance.samuel.catalano.internal.dto.FailedMessageDTO;
+import com.oodlefinance.samuel.catalano.internal.dto.MessageCountDTO;
 import com.oodlefinance.samuel.catalano.internal.dto.MessageDTO;
+import com.oodlefinance.samuel.catalano.internal.dto.MessageSearchResultDTO;
+import com.oodlefinance.samuel.catalano.internal.dto.MessagesByIdDTO;
+import com.oodlefinance.samuel.catalano.internal.exception.BadRequestException;
+import com.oodlefinance.samuel.catalano.internal.exception.MessageNotFoundException;
+import com.oodlefinance.samuel.catalano.internal.exception.TooManyRequestsException;
 import com.oodlefinance.samuel.catalano.internal.service.MessageService;
 
 import org.junit.jupiter.api.Test;
@@ -18,10 +38,19 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.zip.GZIPOutputStream;
 
 @SpringBootTest
 @AutoConfigureMockMvc
@@ -46,13 +75,73 @@ class MessageControllerTest {
         .andExpect(status().isCreated());
   }
 
+  @Test
+  void createMessage_WithWriteBehind_Returns202AndAllocatedId() throws Exception {
+    final MessageDTO messageDTO = MessageDTO.builder().message("Accepted message").build();
+
+    given(messageService.isWriteBehind()).willReturn(true);
+    given(messageService.enqueue(any(MessageDTO.class))).willReturn(MessageDTO.builder().id(51L).message("Accepted message").version(0L).build());
+
+    mockMvc.perform(post("/api/messages")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(asJsonString(messageDTO)))
+        .andExpect(status().isAccepted())
+        .andExpect(jsonPath("$.id").value(51));
+    verify(messageService, never()).create(any(MessageDTO.class));
+  }
+
+  @Test
+  void createMessage_WithFullWriteBehindQueue_Returns429() throws Exception {
+    final MessageDTO messageDTO = MessageDTO.builder().message("Refused message").build();
+
+    given(messageService.isWriteBehind()).willReturn(true);
+    given(messageService.enqueue(any(MessageDTO.class))).willThrow(new TooManyRequestsException("Message ingestion queue is full, retry later"));
+
+    mockMvc.perform(post("/api/messages")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(asJsonString(messageDTO)))
+        .andExpect(status().isTooManyRequests())
+        .andExpect(header().string(HttpHeaders.RETRY_AFTER, "1"));
+  }
+
+  @Test
+  void getDeadLetters_Returns200AndFailedMessages() throws Exception {
+    given(messageService.findDeadLetters()).willReturn(List.of(
+        FailedMessageDTO.builder().id(51L).message("Lost message").error("constraint violation").failedAt(Instant.EPOCH).build()));
+
+    mockMvc.perform(get("/api/messages/dead-letters"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$", hasSize(1)))
+        .andExpect(jsonPath("$[0].id").value(51))
+        .andExpect(jsonPath("$[0].error").value("constraint violation"));
+  }
+
+  @Test
+  void createMessages_Returns200AndOneResultPerMessage() throws Exception {
+    final List<MessageDTO> messageDTOs = List.of(
+        MessageDTO.builder().message("Message 1").build(),
+        MessageDTO.builder().message("Message 2").build());
+    final List<BatchItemResultDTO> results = List.of(
+        BatchItemResultDTO.builder().index(0).id(1L).status(201).build(),
+        BatchItemResultDTO.builder().index(1).id(2L).status(201).build());
+
+    given(messageService.createAll(any())).willReturn(results);
+
+    mockMvc.perform(post("/api/messages/batch")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(asJsonString(messageDTOs)))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$", hasSize(2)))
+        .andExpect(jsonPath("$[1].id").value(2));
+  }
+
   @Test
   void updateMessage_Returns200AndUpdatedMessage() throws Exception {
     final Long id = 1L;
     final MessageDTO messageDTO = MessageDTO.builder().message("Updated message").build();
     final MessageDTO updatedMessage = new MessageDTO();
 
-    given(messageService.update(id, messageDTO)).willReturn(updatedMessage);
+    given(messageService.update(id, messageDTO, null)).willReturn(updatedMessage);
 
     mockMvc.perform(put("/api/messages/{id}", id)
             .contentType(MediaType.APPLICATION_JSON)
@@ -60,6 +149,36 @@ class MessageControllerTest {
         .andExpect(status().isOk());
   }
 
+  @Test
+  void updateMessage_WithIfMatch_Returns200AndNewETag() throws Exception {
+    final Long id = 1L;
+    final MessageDTO messageDTO = MessageDTO.builder().message("Updated message").build();
+    final MessageDTO updatedMessage = MessageDTO.builder().id(id).message("Updated message").version(4L).build();
+
+    given(messageService.update(id, messageDTO, 3L)).willReturn(updatedMessage);
+
+    mockMvc.perform(put("/api/messages/{id}", id)
+            .header(HttpHeaders.IF_MATCH, "\"3\"")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(asJsonString(messageDTO)))
+        .andExpect(status().isOk())
+        .andExpect(header().string(HttpHeaders.ETAG, "\"4\""));
+  }
+
+  @Test
+  void updateMessage_WithStaleIfMatch_Returns412() throws Exception {
+    final Long id = 1L;
+    final MessageDTO messageDTO = MessageDTO.builder().message("Updated message").build();
+
+    given(messageService.update(id, messageDTO, 3L)).willThrow(new OptimisticLockingFailureException("stale"));
+
+    mockMvc.perform(put("/api/messages/{id}", id)
+            .header(HttpHeaders.IF_MATCH, "\"3\"")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(asJsonString(messageDTO)))
+        .andExpect(status().isPreconditionFailed());
+  }
+
   @Test
   void getMessageById_Returns200AndMessage() throws Exception {
     final Long id = 1L;
@@ -71,17 +190,194 @@ class MessageControllerTest {
         .andExpect(status().isOk());
   }
 
+  @Test
+  void getMessageById_WhenMissing_Returns404AndMessage() throws Exception {
+    final Long id = 1L;
+
+    given(messageService.findById(id)).willThrow(new MessageNotFoundException("There is no member found with id: " + id));
+
+    mockMvc.perform(get("/api/messages/{id}", id))
+        .andExpect(status().isNotFound())
+        .andExpect(jsonPath("$.message").value("There is no member found with id: 1"));
+  }
+
+  @Test
+  void getMessageById_WithETag_Returns200AndETag() throws Exception {
+    final Long id = 1L;
+    final MessageDTO message = MessageDTO.builder().id(id).message("Message").version(2L).build();
+
+    given(messageService.findById(id)).willReturn(message);
+
+    mockMvc.perform(get("/api/messages/{id}", id))
+        .andExpect(status().isOk())
+        .andExpect(header().string(HttpHeaders.ETAG, "\"2\""))
+        .andExpect(jsonPath("$.version").value(2));
+  }
+
+  @Test
+  void getMessageById_WithMatchingIfNoneMatch_Returns304WithoutLoadingMessage() throws Exception {
+    final Long id = 1L;
+
+    given(messageService.findVersionById(id)).willReturn(2L);
+
+    mockMvc.perform(get("/api/messages/{id}", id).header(HttpHeaders.IF_NONE_MATCH, "\"2\""))
+        .andExpect(status().isNotModified())
+        .andExpect(header().string(HttpHeaders.ETAG, "\"2\""))
+        .andExpect(content().string(""));
+
+    verify(messageService, never()).findById(id);
+  }
+
   @Test
   void getAllMessages_Returns200AndListOfMessages() throws Exception {
     final List<MessageDTO> messages = List.of(
         MessageDTO.builder().message("Message 1").build(),
         MessageDTO.builder().message("Message 2").build());
 
-    given(messageService.findAll()).willReturn(messages);
+    given(messageService.findAll(5L, 2)).willReturn(messages);
+
+    mockMvc.perform(get("/api/messages").param("after", "5").param("limit", "2"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$", hasSize(2)));
+  }
+
+  @Test
+  void getAllMessages_WithSmileAccept_Returns200AndSmileBody() throws Exception {
+    final List<MessageDTO> messages = List.of(
+        MessageDTO.builder().id(6L).message("Message 1").build(),
+        MessageDTO.builder().id(7L).message("Message 2").build());
+
+    given(messageService.findAll(5L, 2)).willReturn(messages);
+
+    final MvcResult result = mockMvc.perform(get("/api/messages").param("after", "5").param("limit", "2")
+            .header(HttpHeaders.ACCEPT, WireFormatConfig.APPLICATION_SMILE_VALUE))
+        .andExpect(status().isOk())
+        .andExpect(content().contentType(WireFormatConfig.APPLICATION_SMILE_VALUE))
+        .andReturn();
+
+    final MessageDTO[] decoded = new ObjectMapper(new SmileFactory()).readValue(result.getResponse().getContentAsByteArray(), MessageDTO[].class);
+    assertThat(decoded).extracting(MessageDTO::getId).containsExactly(6L, 7L);
+  }
+
+  @Test
+  void createMessage_WithSmileBody_Returns201() throws Exception {
+    final MessageDTO messageDTO = MessageDTO.builder().message("Created message").build();
+
+    given(messageService.create(any(MessageDTO.class))).willReturn(MessageDTO.builder().id(1L).message("Created message").build());
+
+    mockMvc.perform(post("/api/messages")
+            .contentType(WireFormatConfig.APPLICATION_SMILE_VALUE)
+            .accept(MediaType.APPLICATION_JSON)
+            .content(new ObjectMapper(new SmileFactory()).writeValueAsBytes(messageDTO)))
+        .andExpect(status().isCreated())
+        .andExpect(jsonPath("$.id").value(1));
+  }
+
+  @Test
+  void createMessages_WithGzipBody_Returns200AndOneResultPerMessage() throws Exception {
+    final List<MessageDTO> messageDTOs = List.of(
+        MessageDTO.builder().message("Message 1").build(),
+        MessageDTO.builder().message("Message 2").build());
+    final ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+    try (var gzip = new GZIPOutputStream(compressed)) {
+      gzip.write(asJsonString(messageDTOs).getBytes(StandardCharsets.UTF_8));
+    }
+
+    given(messageService.createAll(any())).willReturn(List.of(
+        BatchItemResultDTO.builder().index(0).id(1L).status(201).build(),
+        BatchItemResultDTO.builder().index(1).id(2L).status(201).build()));
 
-    mockMvc.perform(get("/api/messages"))
+    mockMvc.perform(post("/api/messages/batch")
+            .contentType(MediaType.APPLICATION_JSON)
+            .header(HttpHeaders.CONTENT_ENCODING, "gzip")
+            .content(compressed.toByteArray()))
         .andExpect(status().isOk())
         .andExpect(jsonPath("$", hasSize(2)));
+
+    verify(messageService).createAll(argThat(dtos -> dtos.size() == 2 && "Message 2".equals(dtos.get(1).getMessage())));
+  }
+
+  @Test
+  void getMessagesByIds_Returns200AndMissingIds() throws Exception {
+    final MessagesByIdDTO result = MessagesByIdDTO.builder()
+        .messages(List.of(MessageDTO.builder().id(1L).message("Message 1").build()))
+        .missingIds(List.of(2L))
+        .build();
+
+    given(messageService.findAllById(List.of(1L, 2L))).willReturn(result);
+
+    mockMvc.perform(get("/api/messages").param("ids", "1,2"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.messages", hasSize(1)))
+        .andExpect(jsonPath("$.missingIds[0]").value(2));
+  }
+
+  @Test
+  void searchMessages_Returns200AndRankedPage() throws Exception {
+    final MessageSearchResultDTO result = MessageSearchResultDTO.builder()
+        .total(2)
+        .offset(0)
+        .limit(1)
+        .messages(List.of(MessageDTO.builder().id(4L).message("Payment received").build()))
+        .build();
+
+    given(messageService.search("pay*", null, 1)).willReturn(result);
+
+    mockMvc.perform(get("/api/messages/search").param("q", "pay*").param("limit", "1"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.total").value(2))
+        .andExpect(jsonPath("$.messages[0].id").value(4));
+  }
+
+  @Test
+  void countMessagesCreatedPerInterval_Returns200AndOneCountPerInterval() throws Exception {
+    final Instant from = Instant.parse("2023-02-01T00:00:00Z");
+    final Instant to = Instant.parse("2023-02-01T02:00:00Z");
+    given(messageService.countCreatedPerInterval(from, to, Duration.ofHours(1))).willReturn(List.of(
+        MessageCountDTO.builder().start(from).count(3).build(),
+        MessageCountDTO.builder().start(from.plus(Duration.ofHours(1))).count(0).build()));
+
+    mockMvc.perform(get("/api/messages/histogram")
+            .param("from", from.toString())
+            .param("to", to.toString())
+            .param("interval", "PT1H"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$", hasSize(2)))
+        .andExpect(jsonPath("$[0].count").value(3))
+        .andExpect(jsonPath("$[1].start").value("2023-02-01T01:00:00Z"));
+  }
+
+  @Test
+  void countMessagesCreatedPerInterval_WithInvalidRange_Returns400() throws Exception {
+    final Instant from = Instant.parse("2023-02-01T00:00:00Z");
+    given(messageService.countCreatedPerInterval(from, from, Duration.ofHours(1))).willThrow(new BadRequestException("from must be before to"));
+
+    mockMvc.perform(get("/api/messages/histogram")
+            .param("from", from.toString())
+            .param("to", from.toString())
+            .param("interval", "PT1H"))
+        .andExpect(status().isBadRequest())
+        .andExpect(jsonPath("$.message").value("from must be before to"));
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void streamAllMessages_Returns200AndNewlineDelimitedMessages() throws Exception {
+    willAnswer(invocation -> {
+      final Consumer<MessageDTO> consumer = invocation.getArgument(0);
+      consumer.accept(MessageDTO.builder().id(1L).message("Message 1").build());
+      consumer.accept(MessageDTO.builder().id(2L).message("Message 2").build());
+      return null;
+    }).given(messageService).streamAll(any(Consumer.class));
+
+    final MvcResult result = mockMvc.perform(get("/api/messages/stream"))
+        .andExpect(request().asyncStarted())
+        .andReturn();
+
+    mockMvc.perform(asyncDispatch(result))
+        .andExpect(status().isOk())
+        .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+        .andExpect(content().string("{\"id\":1,\"message\":\"Message 1\"}\n{\"id\":2,\"message\":\"Message 2\"}\n"));
   }
 
   @Test
@@ -92,6 +388,16 @@ class MessageControllerTest {
         .andExpect(status().isNoContent());
   }
 
+  @Test
+  void deleteMessage_WithWeakIfMatch_Returns412() throws Exception {
+    final Long id = 1L;
+
+    mockMvc.perform(delete("/api/messages/{id}", id).header(HttpHeaders.IF_MATCH, "W/\"3\""))
+        .andExpect(status().isPreconditionFailed());
+
+    verify(messageService, never()).deleteById(any(), any());
+  }
+
   private String asJsonString(final Object obj) throws Exception {
     try {
       return new ObjectMapper().writeValueAsString(obj);
@@ -1,18 +1,19 @@
 package com.oodlefinance.samuel.catalano.internal.entity;
 
 import com.oodlefinance.samuel.catalano.internal.dto.MessageDTO;
+import com.oodlefinance.samuel.catalano.internal.mapper.MessageMapper;
+import com.oodlefinance.samuel.catalano.internal.mapper.impl.MessageMapperImpl;
 
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.modelmapper.ModelMapper;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
 @ExtendWith(SpringExtension.class)
 class MessageTest {
 
-  private final ModelMapper mapper = new ModelMapper();
+  private final MessageMapper mapper = new MessageMapperImpl();
   private MessageDTO messageDTO;
 
   @BeforeEach
@@ -25,8 +26,24 @@ class MessageTest {
 
   @Test
   void testMessageMapping() throws Exception {
-    final Message message = this.mapper.map(messageDTO, Message.class);
-    Assertions.assertEquals(message.getId(), message.getId());
-    Assertions.assertEquals(message.getMessage(), message.getMessage());
+    final Message message = this.mapper.toEntity(messageDTO);
+    Assertions.assertNull(message.getId());
+    Assertions.assertEquals(messageDTO.getMessage(), message.getMessage());
+  }
+
+  @Test
+  void testMessageDTOMapping() throws Exception {
+    final Message message = Message.builder().id(1L).message("Any message").build();
+    final MessageDTO result = this.mapper.toDTO(message);
+    Assertions.assertEquals(message.getId(), result.getId());
+    Assertions.assertEquals(message.getMessage(), result.getMessage());
+  }
+
+  @Test
+  void testMessageUpdateMapping() throws Exception {
+    final Message message = Message.builder().id(2L).message("Old message").build();
+    this.mapper.updateEntity(messageDTO, message);
+    Assertions.assertEquals(2L, message.getId());
+    Assertions.assertEquals(messageDTO.getMessage(), message.getMessage());
   }
 }
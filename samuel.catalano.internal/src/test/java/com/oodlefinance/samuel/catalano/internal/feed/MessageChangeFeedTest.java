@@ -0,0 +1,66 @@
+package com.oodlefinance.samuel.catalano.internal.feed;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.oodlefinance.samuel.catalano.internal.dto.MessageChangeDTO;
+import com.oodlefinance.samuel.catalano.internal.dto.MessageChangesDTO;
+import com.oodlefinance.samuel.catalano.internal.event.MessageChangeType;
+import com.oodlefinance.samuel.catalano.internal.event.MessageChangedEvent;
+
+import org.junit.jupiter.api.Test;
+
+class MessageChangeFeedTest {
+
+  private final MessageChangeFeed feed = new MessageChangeFeed(4);
+
+  @Test
+  void testRead_ShouldReturnChangesAfterSequence() {
+    feed.onMessageChanged(new MessageChangedEvent(10L, MessageChangeType.CREATED, "Created", 0L));
+    feed.onMessageChanged(new MessageChangedEvent(11L, MessageChangeType.UPDATED, "Updated", 4L));
+    feed.onMessageChanged(new MessageChangedEvent(10L, MessageChangeType.DELETED));
+
+    final MessageChangesDTO changes = feed.read(1L);
+
+    assertThat(changes.isReset()).isFalse();
+    assertThat(changes.getLastSequence()).isEqualTo(3L);
+    assertThat(changes.getChanges()).extracting(MessageChangeDTO::getId).containsExactly(11L, 10L);
+    assertThat(changes.getChanges()).extracting(MessageChangeDTO::getType)
+        .containsExactly(MessageChangeType.UPDATED, MessageChangeType.DELETED);
+    assertThat(changes.getChanges()).extracting(MessageChangeDTO::getVersion).containsExactly(4L, null);
+  }
+
+  @Test
+  void testRead_ShouldAskReaderToResetWhenItFellBehind() {
+    for (long id = 1; id <= 6; id++) {
+      feed.onMessageChanged(new MessageChangedEvent(id, MessageChangeType.CREATED));
+    }
+
+    final MessageChangesDTO changes = feed.read(1L);
+
+    assertThat(changes.isReset()).isTrue();
+    assertThat(changes.getLastSequence()).isEqualTo(6L);
+    assertThat(changes.getChanges()).isEmpty();
+  }
+
+  @Test
+  void testPoll_ShouldWaitUntilAChangeIsPublished() {
+    final var result = feed.poll(0L, 10_000);
+    assertThat(result.hasResult()).isFalse();
+
+    feed.onMessageChanged(new MessageChangedEvent(42L, MessageChangeType.UPDATED));
+
+    assertThat(result.hasResult()).isTrue();
+    final MessageChangesDTO changes = (MessageChangesDTO) result.getResult();
+    assertThat(changes.getChanges()).extracting(MessageChangeDTO::getId).containsExactly(42L);
+  }
+
+  @Test
+  void testPoll_ShouldAnswerImmediatelyWithCurrentPositionWhenSinceIsMissing() {
+    feed.onMessageChanged(new MessageChangedEvent(1L, MessageChangeType.CREATED));
+
+    final var result = feed.poll(null, 10_000);
+
+    assertThat(result.hasResult()).isTrue();
+    assertThat(((MessageChangesDTO) result.getResult()).getLastSequence()).isEqualTo(1L);
+  }
+}
@@ -0,0 +1,131 @@
+package com.oodlefinance.samuel.catalano.internal.filter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import jakarta.servlet.ServletException;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.oodlefinance.samuel.catalano.internal.limit.AimdLimiter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+class ConcurrencyLimitFilterTest {
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private final AimdLimiter readLimiter = new AimdLimiter("reads", 1, 1, 10, Duration.ofSeconds(1), 0.9, meterRegistry);
+  private final AimdLimiter writeLimiter = new AimdLimiter("writes", 1, 1, 10, Duration.ofSeconds(1), 0.9, meterRegistry);
+  private final AimdLimiter bulkLimiter = new AimdLimiter("bulk", 1, 1, 10, Duration.ofSeconds(1), 0.9, meterRegistry);
+  private final ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(readLimiter, writeLimiter, bulkLimiter, new ObjectMapper());
+
+  @Test
+  void testDoFilter_WhenLimitReached_ShouldShedWith503AndRetryAfter() throws Exception {
+    final List<MockHttpServletResponse> nested = new ArrayList<>();
+    final MockHttpServletResponse first = new MockHttpServletResponse();
+
+    filter.doFilter(new MockHttpServletRequest("GET", "/api/messages/1"), first, (request, response) -> {
+      nested.add(perform("GET", "/api/messages/2"));
+      nested.add(perform("PUT", "/api/messages/2"));
+    });
+
+    assertThat(first.getStatus()).isEqualTo(200);
+    assertThat(nested.get(0).getStatus()).isEqualTo(503);
+    assertThat(nested.get(0).getHeader(HttpHeaders.RETRY_AFTER)).isEqualTo("1");
+    assertThat(nested.get(0).getContentAsString()).contains("Too many reads in progress");
+    assertThat(nested.get(1).getStatus()).isEqualTo(200);
+    assertThat(readLimiter.getInFlight()).isZero();
+    assertThat(writeLimiter.getInFlight()).isZero();
+  }
+
+  @Test
+  void testDoFilter_WhenDropped_ShouldLowerTheLimit() throws Exception {
+    final AimdLimiter limiter = new AimdLimiter("writes", 5, 1, 10, Duration.ofSeconds(1), 0.5, meterRegistry);
+    final ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(readLimiter, limiter, bulkLimiter, new ObjectMapper());
+
+    filter.doFilter(new MockHttpServletRequest("POST", "/api/messages"), new MockHttpServletResponse(),
+                    (request, response) -> ((MockHttpServletResponse) response).setStatus(429));
+
+    assertThat(limiter.getLimit()).isEqualTo(2);
+  }
+
+  @Test
+  void testDoFilter_WhenBurstOfBatchesIsSlow_ShouldCutOnlyTheBulkLimitOnceAndKeepServingSingleMessages() throws Exception {
+    final AimdLimiter writes = new AimdLimiter("writes", 4, 1, 10, Duration.ofMillis(50), 0.5, meterRegistry);
+    final AimdLimiter bulk = new AimdLimiter("bulk", 4, 1, 10, Duration.ofMillis(50), 0.5, meterRegistry);
+    final ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(readLimiter, writes, bulk, new ObjectMapper());
+    final CountDownLatch allInFlight = new CountDownLatch(4);
+    final ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      final List<Future<?>> batches = new ArrayList<>();
+      for (int i = 0; i < 4; i++) {
+        batches.add(executor.submit(() -> {
+          filter.doFilter(new MockHttpServletRequest("POST", "/api/messages/batch"), new MockHttpServletResponse(),
+                          (request, response) -> {
+                            allInFlight.countDown();
+                            await(allInFlight);
+                            sleep(100);
+                          });
+          return null;
+        }));
+      }
+      for (var batch : batches) {
+        batch.get(10, TimeUnit.SECONDS);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    assertThat(bulk.getLimit()).isEqualTo(2);
+    for (int i = 0; i < 10; i++) {
+      final MockHttpServletResponse response = new MockHttpServletResponse();
+      filter.doFilter(new MockHttpServletRequest("POST", "/api/messages"), response, new MockFilterChain());
+      assertThat(response.getStatus()).isEqualTo(200);
+    }
+    assertThat(writes.getLimit()).isEqualTo(4);
+  }
+
+  @Test
+  void testDoFilter_ShouldNotLimitChangeFeedNorNonApiPaths() throws Exception {
+    readLimiter.tryAcquire();
+
+    assertThat(perform("GET", "/api/messages/changes").getStatus()).isEqualTo(200);
+    assertThat(perform("GET", "/actuator/health").getStatus()).isEqualTo(200);
+    assertThat(perform("GET", "/api/messages").getStatus()).isEqualTo(503);
+  }
+
+  private static void await(final CountDownLatch latch) {
+    try {
+      latch.await(10, TimeUnit.SECONDS);
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private static void sleep(final long millis) {
+    try {
+      Thread.sleep(millis);
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private MockHttpServletResponse perform(final String method, final String uri) throws ServletException, IOException {
+    final MockHttpServletResponse response = new MockHttpServletResponse();
+    filter.doFilter(new MockHttpServletRequest(method, uri), response, new MockFilterChain());
+    return response;
+  }
+}
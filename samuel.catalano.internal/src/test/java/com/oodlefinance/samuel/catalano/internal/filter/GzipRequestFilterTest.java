@@ -0,0 +1,69 @@
+package com.oodlefinance.samuel.catalano.internal.filter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.http.HttpServletRequest;
+
+import com.oodlefinance.samuel.catalano.internal.exception.PayloadTooLargeException;
+import com.oodlefinance.samuel.catalano.internal.exception.UnsupportedContentEncodingException;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.GZIPOutputStream;
+
+class GzipRequestFilterTest {
+
+  private final GzipRequestFilter filter = new GzipRequestFilter(DataSize.ofBytes(64));
+
+  @Test
+  void testDoFilter_ShouldInflateGzipBody() throws Exception {
+    final AtomicReference<String> body = new AtomicReference<>();
+
+    filter.doFilter(gzipRequest("{\"message\":\"hello\"}"), new MockHttpServletResponse(), (request, response) -> {
+      body.set(new String(request.getInputStream().readAllBytes(), StandardCharsets.UTF_8));
+      assertThat(((HttpServletRequest) request).getHeader(HttpHeaders.CONTENT_ENCODING)).isNull();
+    });
+
+    assertThat(body.get()).isEqualTo("{\"message\":\"hello\"}");
+  }
+
+  @Test
+  void testDoFilter_WhenInflatedBodyExceedsMax_ShouldThrowPayloadTooLarge() throws Exception {
+    final MockHttpServletRequest gzipRequest = gzipRequest("x".repeat(65));
+
+    assertThatThrownBy(() -> filter.doFilter(gzipRequest, new MockHttpServletResponse(),
+                                             (request, response) -> request.getInputStream().readAllBytes()))
+        .isInstanceOf(PayloadTooLargeException.class);
+  }
+
+  @Test
+  void testDoFilter_WhenReadNonBlocking_ShouldThrowUnsupportedContentEncoding() throws Exception {
+    final MockHttpServletRequest gzipRequest = gzipRequest("{}");
+
+    assertThatThrownBy(() -> filter.doFilter(gzipRequest, new MockHttpServletResponse(), (request, response) ->
+        request.getInputStream().setReadListener(mock(ReadListener.class))))
+        .isInstanceOf(UnsupportedContentEncodingException.class);
+  }
+
+  private static MockHttpServletRequest gzipRequest(final String body) throws IOException {
+    final ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+    try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+      gzip.write(body.getBytes(StandardCharsets.UTF_8));
+    }
+    final MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/messages");
+    request.addHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+    request.setContent(compressed.toByteArray());
+    return request;
+  }
+}
@@ -0,0 +1,156 @@
+package com.oodlefinance.samuel.catalano.internal.ingest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.oodlefinance.samuel.catalano.internal.entity.Message;
+import com.oodlefinance.samuel.catalano.internal.event.MessageChangedEvent;
+import com.oodlefinance.samuel.catalano.internal.exception.TooManyRequestsException;
+import com.oodlefinance.samuel.catalano.internal.repository.MessageRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+class MessageWriteBehindQueueTest {
+
+  private final List<List<Long>> writtenBatches = new CopyOnWriteArrayList<>();
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private MessageRepository repository;
+  private ApplicationEventPublisher eventPublisher;
+  private MessageWriteBehindQueue queue;
+
+  @BeforeEach
+  void setup() {
+    repository = mock(MessageRepository.class);
+    eventPublisher = mock(ApplicationEventPublisher.class);
+    final AtomicLong ids = new AtomicLong();
+    when(repository.allocateId()).thenAnswer(invocation -> ids.incrementAndGet());
+  }
+
+  @AfterEach
+  void tearDown() throws InterruptedException {
+    if (queue != null) {
+      queue.destroy();
+    }
+  }
+
+  @Test
+  void testOffer_ShouldAllocateIdAndWriteInBackground() throws Exception {
+    recordWrites(null);
+    queue = newQueue(100, 500, Duration.ofMillis(500));
+
+    final Message first = queue.offer("First message");
+    final Message second = queue.offer("Second message");
+
+    assertThat(first.getId()).isEqualTo(1L);
+    assertThat(second.getId()).isEqualTo(2L);
+    assertThat(first.getVersion()).isZero();
+    verify(eventPublisher, timeout(5000).times(2)).publishEvent(any(MessageChangedEvent.class));
+    assertThat(writtenBatches).containsExactly(List.of(1L, 2L));
+  }
+
+  @Test
+  void testOffer_WhenQueueIsFull_ShouldThrowTooManyRequests() throws Exception {
+    final CountDownLatch writing = new CountDownLatch(1);
+    final CountDownLatch release = new CountDownLatch(1);
+    recordWrites(() -> {
+      writing.countDown();
+      await(release);
+    });
+    queue = newQueue(1, 1, Duration.ZERO);
+
+    queue.offer("Being written");
+    assertThat(writing.await(5, TimeUnit.SECONDS)).isTrue();
+    queue.offer("Waiting in the queue");
+
+    assertThatExceptionOfType(TooManyRequestsException.class).isThrownBy(() -> queue.offer("Refused"));
+    assertThat(queue.depth()).isEqualTo(1);
+    assertThat(meterRegistry.get(MessageWriteBehindQueue.METRICS_PREFIX + ".rejected").counter().count()).isEqualTo(1);
+    verify(repository, times(2)).allocateId();
+
+    release.countDown();
+    verify(repository, timeout(5000).times(2)).insertAll(anyList());
+  }
+
+  @Test
+  void testFlush_WhenBatchFails_ShouldWriteMessagesOneByOne() {
+    recordWrites(null);
+    queue = newQueue(100, 500, Duration.ZERO);
+    final List<Message> batch = new ArrayList<>(List.of(
+        Message.builder().id(10L).message("Good message").build(),
+        Message.builder().id(11L).message("Bad message").build()));
+    doAnswer(invocation -> {
+      List<Message> messages = invocation.getArgument(0);
+      if (messages.size() > 1 || messages.get(0).getId() == 11L) {
+        throw new IllegalStateException("constraint violation");
+      }
+      writtenBatches.add(List.of(messages.get(0).getId()));
+      return null;
+    }).when(repository).insertAll(anyList());
+
+    queue.flush(batch);
+
+    assertThat(writtenBatches).containsExactly(List.of(10L));
+    verify(repository, times(3)).insertAll(anyList());
+    assertThat(meterRegistry.get(MessageWriteBehindQueue.METRICS_PREFIX + ".failed").counter().count()).isEqualTo(1);
+    assertThat(queue.deadLetters()).singleElement().satisfies(failed -> {
+      assertThat(failed.id()).isEqualTo(11L);
+      assertThat(failed.message()).isEqualTo("Bad message");
+      assertThat(failed.error()).isEqualTo("constraint violation");
+    });
+  }
+
+  private MessageWriteBehindQueue newQueue(final int capacity, final int batchSize, final Duration linger) {
+    final TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+    doAnswer(invocation -> {
+      invocation.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+      return null;
+    }).when(transactionTemplate).executeWithoutResult(any());
+    final WriteBehindProperties properties = new WriteBehindProperties();
+    properties.setCapacity(capacity);
+    properties.setBatchSize(batchSize);
+    properties.setLinger(linger);
+    return new MessageWriteBehindQueue(repository, transactionTemplate, eventPublisher, meterRegistry, properties);
+  }
+
+  private void recordWrites(final Runnable whileWriting) {
+    doAnswer(invocation -> {
+      if (whileWriting != null) {
+        whileWriting.run();
+      }
+      List<Message> messages = invocation.getArgument(0);
+      writtenBatches.add(messages.stream().map(Message::getId).toList());
+      return null;
+    }).when(repository).insertAll(anyList());
+  }
+
+  private static void await(final CountDownLatch latch) {
+    try {
+      latch.await(5, TimeUnit.SECONDS);
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -0,0 +1,104 @@
+package com.oodlefinance.samuel.catalano.internal.limit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.stream.IntStream;
+
+class AimdLimiterTest {
+
+  private static final long FAST = Duration.ofMillis(5).toNanos();
+  private static final long SLOW = Duration.ofMillis(500).toNanos();
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private long now;
+
+  @Test
+  void testTryAcquire_AtLimit_ShouldRejectUntilSlotIsReleased() {
+    final AimdLimiter limiter = limiter(2, 1, 10);
+
+    assertThat(limiter.tryAcquire()).isTrue();
+    assertThat(limiter.tryAcquire()).isTrue();
+    assertThat(limiter.tryAcquire()).isFalse();
+    release(limiter, FAST, false);
+    assertThat(limiter.tryAcquire()).isTrue();
+
+    assertThat(limiter.getInFlight()).isEqualTo(2);
+    assertThat(meterRegistry.get(AimdLimiter.METRICS_PREFIX + ".rejected").tag("class", "reads").counter().count()).isEqualTo(1);
+    assertThat(meterRegistry.get(AimdLimiter.METRICS_PREFIX + ".in-flight").tag("class", "reads").gauge().value()).isEqualTo(2);
+  }
+
+  @Test
+  void testRelease_WhenSlowOrDropped_ShouldBackOffDownToMinLimit() {
+    final AimdLimiter limiter = limiter(10, 2, 10);
+
+    limiter.tryAcquire();
+    release(limiter, SLOW, false);
+    assertThat(limiter.getLimit()).isEqualTo(9);
+    limiter.tryAcquire();
+    release(limiter, FAST, true);
+    assertThat(limiter.getLimit()).isEqualTo(8);
+
+    IntStream.range(0, 20).forEach(i -> {
+      limiter.tryAcquire();
+      release(limiter, SLOW, false);
+    });
+    assertThat(limiter.getLimit()).isEqualTo(2);
+    assertThat(meterRegistry.get(AimdLimiter.METRICS_PREFIX + ".limit").tag("class", "reads").gauge().value()).isEqualTo(2);
+  }
+
+  @Test
+  void testRelease_WhenFastAndLimitInUse_ShouldGrowUpToMaxLimit() {
+    final AimdLimiter limiter = limiter(4, 1, 6);
+
+    limiter.tryAcquire();
+    release(limiter, FAST, false);
+    assertThat(limiter.getLimit()).isEqualTo(4);
+
+    IntStream.range(0, 10).forEach(i -> {
+      limiter.tryAcquire();
+      limiter.tryAcquire();
+      limiter.tryAcquire();
+      release(limiter, FAST, false);
+      release(limiter, FAST, false);
+      release(limiter, FAST, false);
+    });
+    assertThat(limiter.getLimit()).isEqualTo(6);
+  }
+
+  @Test
+  void testRelease_WhenRequestsStartedBeforeTheLastCutAreSlow_ShouldCutOnlyOnce() {
+    final AimdLimiter limiter = limiter(10, 1, 10);
+    final long startedAt = now;
+    IntStream.range(0, 5).forEach(i -> limiter.tryAcquire());
+
+    now += SLOW;
+    IntStream.range(0, 5).forEach(i -> limiter.release(startedAt, now, false));
+    assertThat(limiter.getLimit()).isEqualTo(9);
+
+    limiter.tryAcquire();
+    release(limiter, SLOW, false);
+    assertThat(limiter.getLimit()).isEqualTo(8);
+  }
+
+  @Test
+  void testConstructor_WithInvalidLimits_ShouldThrowIllegalArgumentException() {
+    assertThatIllegalArgumentException().isThrownBy(() -> limiter(20, 1, 10));
+    assertThatIllegalArgumentException().isThrownBy(() -> limiter(1, 0, 10));
+  }
+
+  private void release(final AimdLimiter limiter, final long latencyNanos, final boolean dropped) {
+    final long startedAt = now;
+    now += latencyNanos;
+    limiter.release(startedAt, now, dropped);
+  }
+
+  private AimdLimiter limiter(final int initialLimit, final int minLimit, final int maxLimit) {
+    return new AimdLimiter("reads", initialLimit, minLimit, maxLimit, Duration.ofMillis(100), 0.9, meterRegistry);
+  }
+}
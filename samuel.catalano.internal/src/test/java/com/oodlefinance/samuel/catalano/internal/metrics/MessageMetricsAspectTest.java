@@ -0,0 +1,50 @@
+package com.oodlefinance.samuel.catalano.internal.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+import com.oodlefinance.samuel.catalano.internal.dto.MessageDTO;
+import com.oodlefinance.samuel.catalano.internal.entity.Message;
+import com.oodlefinance.samuel.catalano.internal.mapper.MessageMapper;
+import com.oodlefinance.samuel.catalano.internal.mapper.impl.MessageMapperImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+
+class MessageMetricsAspectTest {
+
+  private SimpleMeterRegistry meterRegistry;
+  private MessageMapper mapper;
+
+  @BeforeEach
+  void setup() {
+    meterRegistry = new SimpleMeterRegistry();
+    final AspectJProxyFactory proxyFactory = new AspectJProxyFactory(new MessageMapperImpl());
+    proxyFactory.addAspect(new MessageMetricsAspect(meterRegistry));
+    mapper = proxyFactory.getProxy();
+  }
+
+  @Test
+  void testSuccessfulCall_ShouldBeTimedWithLayerOperationAndOutcome() {
+    mapper.toDTO(Message.builder().id(1L).message("Message").build());
+
+    assertThat(meterRegistry.get(MessageMetricsAspect.TIMER)
+                            .tags("layer", "mapper", "operation", "MessageMapperImpl.toDTO", "outcome", "success")
+                            .timer()
+                            .count()).isEqualTo(1);
+  }
+
+  @Test
+  void testFailedCall_ShouldBeTimedAndCountedAsError() {
+    assertThatExceptionOfType(NullPointerException.class)
+        .isThrownBy(() -> mapper.updateEntity(new MessageDTO(), null));
+
+    assertThat(meterRegistry.get(MessageMetricsAspect.TIMER).tags("outcome", "error").timer().count()).isEqualTo(1);
+    assertThat(meterRegistry.get(MessageMetricsAspect.ERRORS)
+                            .tags("layer", "mapper", "exception", "NullPointerException")
+                            .counter()
+                            .count()).isEqualTo(1);
+  }
+}
@@ -0,0 +1,56 @@
+package com.oodlefinance.samuel.catalano.internal.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+import com.oodlefinance.samuel.catalano.internal.entity.Message;
+import com.oodlefinance.samuel.catalano.internal.repository.MessageStore.IntervalCount;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Runs against the H2 database configured for the application, not an embedded replacement, so the sequence and table
+ * names are resolved with the same case sensitivity.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class MessageRepositoryTest {
+
+  @Autowired
+  private MessageRepository repository;
+
+  @Test
+  void testAllocateId_ShouldShareTheSequenceOfTheEntityIdGenerator() {
+    final Long allocated = repository.allocateId();
+    final Message saved = repository.saveAndFlush(Message.builder().message("Generated id").build());
+    repository.insertAll(List.of(message(allocated, "Allocated id", LocalDateTime.now())));
+
+    assertThat(saved.getId()).isNotEqualTo(allocated);
+    assertThat(repository.findById(allocated)).map(Message::getMessage).contains("Allocated id");
+    assertThat(repository.findById(saved.getId())).map(Message::getMessage).contains("Generated id");
+  }
+
+  @Test
+  void testCountCreatedPerInterval_ShouldGroupRowsPerIntervalInTheQuery() {
+    final LocalDateTime from = LocalDateTime.of(2001, 2, 1, 0, 0);
+    final List<LocalDateTime> createdAt = List.of(from.minusSeconds(1), from, from.plusMinutes(59).plusSeconds(59).plusNanos(999_000_000),
+                                                  from.plusHours(2), from.plusHours(2).plusSeconds(1), from.plusHours(3));
+    repository.insertAll(createdAt.stream().map(time -> message(repository.allocateId(), "Created at " + time, time)).toList());
+
+    final List<IntervalCount> counts = repository.countCreatedPerInterval(from, from, from.plusHours(3), Duration.ofHours(1).toMillis());
+
+    assertThat(counts).extracting(IntervalCount::getBucket, IntervalCount::getMessages)
+                      .containsExactly(tuple(0L, 2L), tuple(2L, 2L));
+  }
+
+  private static Message message(final Long id, final String text, final LocalDateTime createdAt) {
+    return Message.builder().id(id).createdAt(createdAt).message(text).version(0L).build();
+  }
+}
@@ -0,0 +1,93 @@
+package com.oodlefinance.samuel.catalano.internal.search;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.oodlefinance.samuel.catalano.internal.event.MessageChangeType;
+import com.oodlefinance.samuel.catalano.internal.event.MessageChangedEvent;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class MessageSearchIndexTest {
+
+  private MessageSearchIndex index;
+
+  @BeforeEach
+  void setup() {
+    index = new MessageSearchIndex(null, null);
+    index.index(1L, "Payment received for invoice 42");
+    index.index(2L, "Invoice 43 is overdue, payment reminder sent");
+    index.index(3L, "Weekly report");
+    index.index(4L, "Payment payment payment");
+  }
+
+  @Test
+  void testSearch_ShouldRankMessagesMatchingMoreTermsFirst() {
+    var hits = index.search("invoice payment", 0, 10);
+
+    assertThat(hits.total()).isEqualTo(3);
+    assertThat(hits.ids()).hasSize(3).startsWith(1L).doesNotContain(3L);
+  }
+
+  @Test
+  void testSearch_ShouldIgnoreCaseAndPunctuation() {
+    assertThat(index.search("OVERDUE,", 0, 10).ids()).containsExactly(2L);
+  }
+
+  @Test
+  void testSearch_ShouldMatchPrefix() {
+    assertThat(index.search("re*", 0, 10).ids()).containsExactlyInAnyOrder(1L, 2L, 3L);
+    assertThat(index.search("re", 0, 10).ids()).isEmpty();
+  }
+
+  @Test
+  void testSearch_ShouldPaginateRankedMatches() {
+    var all = index.search("payment", 0, 10).ids();
+    var secondPage = index.search("payment", 1, 1);
+
+    assertThat(all).hasSize(3).startsWith(4L);
+    assertThat(secondPage.total()).isEqualTo(3);
+    assertThat(secondPage.ids()).containsExactly(all.get(1));
+  }
+
+  @Test
+  void testOnMessageChanged_ShouldReplaceUpdatedTermsAndDropDeletedMessages() {
+    index.onMessageChanged(new MessageChangedEvent(3L, MessageChangeType.UPDATED, "Monthly report", 1L));
+    index.onMessageChanged(new MessageChangedEvent(1L, MessageChangeType.DELETED));
+    index.onMessageChanged(new MessageChangedEvent(5L, MessageChangeType.CREATED, "Monthly invoice", 0L));
+
+    assertThat(index.search("weekly", 0, 10).ids()).isEmpty();
+    assertThat(index.search("monthly", 0, 10).ids()).containsExactlyInAnyOrder(3L, 5L);
+    assertThat(index.search("42", 0, 10).ids()).isEmpty();
+    assertThat(index.size()).isEqualTo(4);
+  }
+
+  @Test
+  void testOnMessageChanged_ShouldIgnoreChangeOlderThanIndexedVersion() {
+    index.onMessageChanged(new MessageChangedEvent(3L, MessageChangeType.UPDATED, "Monthly report", 2L));
+    index.onMessageChanged(new MessageChangedEvent(3L, MessageChangeType.UPDATED, "Yearly report", 1L));
+
+    assertThat(index.search("monthly", 0, 10).ids()).containsExactly(3L);
+    assertThat(index.search("yearly", 0, 10).ids()).isEmpty();
+  }
+
+  @Test
+  void testOnMessageChanged_ShouldIgnoreChangeAppliedAfterDelete() {
+    index.onMessageChanged(new MessageChangedEvent(3L, MessageChangeType.UPDATED, "Monthly report", 1L));
+    index.onMessageChanged(new MessageChangedEvent(3L, MessageChangeType.DELETED));
+    index.onMessageChanged(new MessageChangedEvent(3L, MessageChangeType.UPDATED, "Yearly report", 2L));
+
+    assertThat(index.search("report", 0, 10).ids()).isEmpty();
+    assertThat(index.size()).isEqualTo(3);
+  }
+
+  @Test
+  void testOnMessageChanged_ShouldIgnoreChangeUpToTheDeletedVersion() {
+    index.remove(3L, 2L);
+    index.onMessageChanged(new MessageChangedEvent(3L, MessageChangeType.UPDATED, "Monthly report", 2L));
+    index.onMessageChanged(new MessageChangedEvent(3L, MessageChangeType.UPDATED, "Yearly report", 3L));
+
+    assertThat(index.search("monthly", 0, 10).ids()).isEmpty();
+    assertThat(index.search("yearly", 0, 10).ids()).containsExactly(3L);
+  }
+}
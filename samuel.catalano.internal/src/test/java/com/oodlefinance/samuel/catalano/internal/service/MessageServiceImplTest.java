@@ -6,6 +6,7 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
@@ -15,11 +16,24 @@ import static org.mockito.Mockito.when;
 
 import jakarta.persistence.EntityNotFoundException;
 
+import com.oodlefinance.samuel.catalano.internal.cache.OffHeapMessageCache;
+import com.oodlefinance.samuel.catalano.internal.dto.BatchItemResultDTO;
+import com.oodlefinance.samuel.catalano.internal.dto.MessageCountDTO;
 import com.oodlefinance.samuel.catalano.internal.dto.MessageDTO;
+import com.oodlefinance.samuel.catalano.internal.dto.MessageRangeDTO;
+import com.oodlefinance.samuel.catalano.internal.dto.MessageSearchResultDTO;
+import com.oodlefinance.samuel.catalano.internal.dto.MessagesByIdDTO;
 import com.oodlefinance.samuel.catalano.internal.entity.Message;
+import com.oodlefinance.samuel.catalano.internal.event.MessageChangeType;
+import com.oodlefinance.samuel.catalano.internal.event.MessageChangedEvent;
+import com.oodlefinance.samuel.catalano.internal.exception.BadRequestException;
 import com.oodlefinance.samuel.catalano.internal.exception.ServiceException;
+import com.oodlefinance.samuel.catalano.internal.mapper.MessageMapper;
 import com.oodlefinance.samuel.catalano.internal.repository.MessageRepository;
+import com.oodlefinance.samuel.catalano.internal.repository.MessageStore.IntervalCount;
+import com.oodlefinance.samuel.catalano.internal.search.MessageSearchIndex;
 import com.oodlefinance.samuel.catalano.internal.service.impl.MessageServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -27,12 +41,26 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.modelmapper.ModelMapper;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.dao.DataIntegrityViolationException;
-
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @ExtendWith(MockitoExtension.class)
 class MessageServiceImplTest {
@@ -41,7 +69,16 @@ class MessageServiceImplTest {
   private MessageRepository repository;
 
   @Mock
-  private ModelMapper modelMapper;
+  private MessageMapper messageMapper;
+
+  @Mock
+  private TransactionTemplate transactionTemplate;
+
+  @Mock
+  private ApplicationEventPublisher eventPublisher;
+
+  @Mock
+  private MessageSearchIndex searchIndex;
 
   @InjectMocks
   private MessageServiceImpl messageService;
@@ -51,9 +88,9 @@ class MessageServiceImplTest {
     final MessageDTO messageDTO = MessageDTO.builder().message("Created message").build();
     final Message message = new Message();
 
-    when(modelMapper.map(messageDTO, Message.class)).thenReturn(message);
+    when(messageMapper.toEntity(messageDTO)).thenReturn(message);
     when(repository.save(message)).thenReturn(message);
-    when(modelMapper.map(message, MessageDTO.class)).thenReturn(messageDTO);
+    when(messageMapper.toDTO(message)).thenReturn(messageDTO);
 
     final MessageDTO result = messageService.create(messageDTO);
 
@@ -62,7 +99,8 @@ class MessageServiceImplTest {
     final Message capturedMessage = captor.getValue();
     assertEquals(message, capturedMessage);
 
-    verify(modelMapper, times(1)).map(capturedMessage, MessageDTO.class);
+    verify(messageMapper, times(1)).toDTO(capturedMessage);
+    verify(eventPublisher, times(1)).publishEvent(new MessageChangedEvent(null, MessageChangeType.CREATED));
     assertEquals(messageDTO, result);
   }
 
@@ -71,16 +109,46 @@ class MessageServiceImplTest {
     final MessageDTO dto = MessageDTO.builder().message("Created message").build();
     final Message entity = new Message();
 
-    when(modelMapper.map(eq(dto), eq(Message.class))).thenReturn(entity);
+    when(messageMapper.toEntity(eq(dto))).thenReturn(entity);
     when(repository.save(eq(entity))).thenThrow(new RuntimeException());
 
     assertThatExceptionOfType(ServiceException.class)
         .isThrownBy(() -> messageService.create(dto))
         .withMessage("Error persisting a new Message");
 
-    verify(modelMapper, times(1)).map(eq(dto), eq(Message.class));
+    verify(messageMapper, times(1)).toEntity(eq(dto));
     verify(repository, times(1)).save(eq(entity));
-    verify(modelMapper, never()).map(eq(entity), eq(MessageDTO.class));
+    verify(messageMapper, never()).toDTO(eq(entity));
+  }
+
+  @Test
+  void testUpdate_ShouldUpdateAtCurrentVersion() throws ServiceException {
+    final MessageDTO dto = MessageDTO.builder().message("Updated message").build();
+    when(repository.findVersionById(1L)).thenReturn(Optional.of(2L));
+    when(repository.updateMessageByIdAndVersion(1L, 2L, "Updated message")).thenReturn(1);
+
+    final MessageDTO result = messageService.update(1L, dto);
+
+    assertThat(result.getId()).isEqualTo(1L);
+    assertThat(result.getMessage()).isEqualTo("Updated message");
+    assertThat(result.getVersion()).isEqualTo(3L);
+    verify(repository).updateMessageByIdAndVersion(1L, 2L, "Updated message");
+    verify(eventPublisher).publishEvent(new MessageChangedEvent(1L, MessageChangeType.UPDATED, "Updated message", 3L));
+    verifyNoMoreInteractions(repository, messageMapper);
+  }
+
+  @Test
+  void testUpdate_WhenUpdatedConcurrently_ShouldRetryAtNewVersion() throws ServiceException {
+    final MessageDTO dto = MessageDTO.builder().message("Updated message").build();
+    when(repository.findVersionById(1L)).thenReturn(Optional.of(2L), Optional.of(3L));
+    when(repository.updateMessageByIdAndVersion(1L, 2L, "Updated message")).thenReturn(0);
+    when(repository.existsById(1L)).thenReturn(true);
+    when(repository.updateMessageByIdAndVersion(1L, 3L, "Updated message")).thenReturn(1);
+
+    final MessageDTO result = messageService.update(1L, dto);
+
+    assertThat(result.getVersion()).isEqualTo(4L);
+    verify(eventPublisher, times(1)).publishEvent(any());
   }
 
   @Test
@@ -91,12 +159,45 @@ class MessageServiceImplTest {
     dto.setMessage("Test message");
 
     // when
-    when(repository.findById(id)).thenReturn(Optional.empty());
+    when(repository.findVersionById(id)).thenReturn(Optional.empty());
 
     // then
     assertThrows(EntityNotFoundException.class, () -> messageService.update(id, dto));
-    verify(repository).findById(id);
-    verifyNoMoreInteractions(repository, modelMapper);
+    verify(repository).findVersionById(id);
+    verifyNoMoreInteractions(repository, messageMapper);
+    verify(eventPublisher, never()).publishEvent(any());
+  }
+
+  @Test
+  void testUpdate_WithCurrentVersion_ShouldReturnNextVersion() throws ServiceException {
+    final MessageDTO dto = MessageDTO.builder().message("Updated message").build();
+    when(repository.updateMessageByIdAndVersion(1L, 3L, "Updated message")).thenReturn(1);
+
+    final MessageDTO result = messageService.update(1L, dto, 3L);
+
+    assertThat(result.getVersion()).isEqualTo(4L);
+    verify(repository, never()).existsById(any());
+  }
+
+  @Test
+  void testUpdate_WithStaleVersion_ShouldThrowOptimisticLockingFailureException() {
+    final MessageDTO dto = MessageDTO.builder().message("Updated message").build();
+    when(repository.updateMessageByIdAndVersion(1L, 3L, "Updated message")).thenReturn(0);
+    when(repository.existsById(1L)).thenReturn(true);
+
+    assertThatExceptionOfType(OptimisticLockingFailureException.class)
+        .isThrownBy(() -> messageService.update(1L, dto, 3L));
+
+    verify(eventPublisher, never()).publishEvent(any());
+  }
+
+  @Test
+  void testDeleteById_WithVersionOfMissingMessage_ShouldThrowEntityNotFoundException() {
+    when(repository.deleteMessageByIdAndVersion(1L, 3L)).thenReturn(0);
+    when(repository.existsById(1L)).thenReturn(false);
+
+    assertThatExceptionOfType(EntityNotFoundException.class)
+        .isThrownBy(() -> messageService.deleteById(1L, 3L));
   }
 
   @Test
@@ -106,7 +207,7 @@ class MessageServiceImplTest {
     final Long id = 1L;
 
     when(repository.findById(id)).thenReturn(Optional.of(message));
-    when(modelMapper.map(message, MessageDTO.class)).thenReturn(messageDTO);
+    when(messageMapper.toDTO(message)).thenReturn(messageDTO);
 
     final MessageDTO result = messageService.findById(id);
 
@@ -115,10 +216,105 @@ class MessageServiceImplTest {
     final Long capturedId = captor.getValue();
     assertEquals(id, capturedId);
 
-    verify(modelMapper, times(1)).map(message, MessageDTO.class);
+    verify(messageMapper, times(1)).toDTO(message);
     assertEquals(messageDTO, result);
   }
 
+  @Test
+  void testFindById_WithHotCache_ShouldServeRepeatedReadsFromCache() throws EntityNotFoundException {
+    final Message message = Message.builder().id(1L).message("Hot message").version(2L).build();
+    messageService.setHotCache(new OffHeapMessageCache(DataSize.ofKilobytes(64), new SimpleMeterRegistry()));
+
+    when(repository.findById(1L)).thenReturn(Optional.of(message));
+    when(messageMapper.toDTO(message)).thenReturn(MessageDTO.builder().id(1L).message("Hot message").version(2L).build());
+
+    messageService.findById(1L);
+    final MessageDTO result = messageService.findById(1L);
+
+    verify(repository, times(1)).findById(1L);
+    assertThat(result).extracting(MessageDTO::getId, MessageDTO::getMessage, MessageDTO::getVersion)
+                      .containsExactly(1L, "Hot message", 2L);
+    assertEquals(2L, messageService.findVersionById(1L));
+    verify(repository, never()).findVersionById(any());
+  }
+
+  @Test
+  void testFindById_WhenChangedWhileLoading_ShouldNotCacheTheOldCopy() throws EntityNotFoundException {
+    final OffHeapMessageCache hotCache = new OffHeapMessageCache(DataSize.ofKilobytes(64), new SimpleMeterRegistry());
+    final Message message = Message.builder().id(1L).message("Old message").version(0L).build();
+    messageService.setHotCache(hotCache);
+
+    when(repository.findById(1L)).thenAnswer(invocation -> {
+      hotCache.onMessageChanged(new MessageChangedEvent(1L, MessageChangeType.UPDATED, "New message", 1L));
+      return Optional.of(message);
+    });
+    when(messageMapper.toDTO(message)).thenReturn(MessageDTO.builder().id(1L).message("Old message").version(0L).build());
+
+    messageService.findById(1L);
+    messageService.findById(1L);
+
+    verify(repository, times(2)).findById(1L);
+    assertThat(hotCache.get(1L)).isNull();
+  }
+
+  @Test
+  void testSearch_ShouldLoadOnlyThePageInRankOrder() throws ServiceException {
+    final Message first = Message.builder().id(7L).message("payment payment").build();
+    final Message second = Message.builder().id(3L).message("payment").build();
+    when(searchIndex.search("payment", 0, 20)).thenReturn(new MessageSearchIndex.SearchHits(5, List.of(7L, 3L)));
+    when(repository.findAllById(List.of(7L, 3L))).thenReturn(List.of(second, first));
+    when(messageMapper.toDTO(first)).thenReturn(MessageDTO.builder().id(7L).message("payment payment").build());
+    when(messageMapper.toDTO(second)).thenReturn(MessageDTO.builder().id(3L).message("payment").build());
+
+    final MessageSearchResultDTO result = messageService.search("payment", null, null);
+
+    assertThat(result.getTotal()).isEqualTo(5);
+    assertThat(result.getLimit()).isEqualTo(20);
+    assertThat(result.getMessages()).extracting(MessageDTO::getId).containsExactly(7L, 3L);
+  }
+
+  @Test
+  void testFindCreatedBetween_WhenPageIsFull_ShouldReturnCursorOfLastMessage() throws ServiceException {
+    final Instant from = Instant.parse("2023-02-01T00:00:00Z");
+    final Instant to = Instant.parse("2023-02-02T00:00:00Z");
+    final LocalDateTime newest = LocalDateTime.ofInstant(to.minusSeconds(60), ZoneId.systemDefault());
+    final LocalDateTime oldest = LocalDateTime.ofInstant(to.minusSeconds(120), ZoneId.systemDefault());
+    final List<Message> messages = List.of(Message.builder().id(9L).createdAt(newest).build(), Message.builder().id(4L).createdAt(oldest).build());
+    when(repository.findCreatedBetween(LocalDateTime.ofInstant(from, ZoneId.systemDefault()), LocalDateTime.ofInstant(to, ZoneId.systemDefault()),
+                                       Long.MIN_VALUE, PageRequest.of(0, 2))).thenReturn(messages);
+    when(messageMapper.toDTO(any(Message.class))).thenReturn(new MessageDTO());
+
+    final MessageRangeDTO result = messageService.findCreatedBetween(from, to, null, null, 2);
+
+    assertThat(result.getMessages()).hasSize(2);
+    assertThat(result.getNextBefore()).isEqualTo(to.minusSeconds(120));
+    assertThat(result.getNextBeforeId()).isEqualTo(4L);
+  }
+
+  @Test
+  void testCountCreatedPerInterval_ShouldFillEmptyIntervalsWithZero() throws ServiceException {
+    final Instant from = Instant.parse("2023-02-01T00:00:00Z");
+    final Instant to = Instant.parse("2023-02-01T03:30:00Z");
+    when(repository.countCreatedPerInterval(LocalDateTime.ofInstant(from, ZoneId.systemDefault()), LocalDateTime.ofInstant(from, ZoneId.systemDefault()),
+                                            LocalDateTime.ofInstant(to, ZoneId.systemDefault()), Duration.ofHours(1).toMillis()))
+        .thenReturn(List.of(IntervalCount.of(1L, 5L), IntervalCount.of(3L, 2L)));
+
+    final List<MessageCountDTO> result = messageService.countCreatedPerInterval(from, to, Duration.ofHours(1));
+
+    assertThat(result).extracting(MessageCountDTO::getCount).containsExactly(0L, 5L, 0L, 2L);
+    assertThat(result.get(3).getStart()).isEqualTo(Instant.parse("2023-02-01T03:00:00Z"));
+  }
+
+  @Test
+  void testCountCreatedPerInterval_WithTooManyIntervals_ShouldThrowBadRequestException() {
+    final Instant from = Instant.parse("2023-02-01T00:00:00Z");
+
+    assertThatExceptionOfType(BadRequestException.class)
+        .isThrownBy(() -> messageService.countCreatedPerInterval(from, from.plus(Duration.ofDays(365)), Duration.ofSeconds(1)))
+        .satisfies(e -> assertThat(e.getStackTrace()).isEmpty());
+    verifyNoMoreInteractions(repository);
+  }
+
   @Test
   void testFindAll_WhenRepositoryFindAllMethodReturnsData() throws ServiceException {
     List<Message> messages = Arrays.asList(
@@ -127,7 +323,7 @@ class MessageServiceImplTest {
         new Message("message 3")
     );
 
-    when(repository.findAll()).thenReturn(messages);
+    when(repository.findByIdGreaterThanOrderByIdAsc(eq(0L), any(Pageable.class))).thenReturn(messages);
 
     final MessageDTO messageDTO1 = new MessageDTO();
     messageDTO1.setMessage("message 1");
@@ -138,54 +334,174 @@ class MessageServiceImplTest {
     final MessageDTO messageDTO3 = new MessageDTO();
     messageDTO3.setMessage("message 3");
 
-    when(modelMapper.map(messages.get(0), MessageDTO.class)).thenReturn(messageDTO1);
-    when(modelMapper.map(messages.get(1), MessageDTO.class)).thenReturn(messageDTO2);
-    when(modelMapper.map(messages.get(2), MessageDTO.class)).thenReturn(messageDTO3);
+    when(messageMapper.toDTO(messages.get(0))).thenReturn(messageDTO1);
+    when(messageMapper.toDTO(messages.get(1))).thenReturn(messageDTO2);
+    when(messageMapper.toDTO(messages.get(2))).thenReturn(messageDTO3);
 
-    final List<MessageDTO> result = messageService.findAll();
+    final List<MessageDTO> result = messageService.findAll(null, 3);
 
     assertThat(result).hasSize(3);
     assertThat(result.get(0)).isEqualToComparingFieldByField(messageDTO1);
     assertThat(result.get(1)).isEqualToComparingFieldByField(messageDTO2);
     assertThat(result.get(2)).isEqualToComparingFieldByField(messageDTO3);
 
-    verify(repository).findAll();
-    verify(modelMapper, times(3)).map(any(Message.class), eq(MessageDTO.class));
+    verify(repository).findByIdGreaterThanOrderByIdAsc(0L, PageRequest.of(0, 3));
+    verify(messageMapper, times(3)).toDTO(any(Message.class));
   }
 
   @Test
   void findAll_WhenRepositoryFindAllMethodThrowsException() {
-    when(repository.findAll()).thenThrow(new EntityNotFoundException("There are no messages to be retrieved"));
+    when(repository.findByIdGreaterThanOrderByIdAsc(eq(10L), any(Pageable.class)))
+        .thenThrow(new EntityNotFoundException("There are no messages to be retrieved"));
 
     assertThatExceptionOfType(ServiceException.class)
-        .isThrownBy(() -> messageService.findAll())
+        .isThrownBy(() -> messageService.findAll(10L, 50))
         .withMessage("Error retrieving all existing messages")
         .withCauseInstanceOf(RuntimeException.class);
-    verify(repository).findAll();
-    verify(modelMapper, never()).map(any(Message.class), eq(MessageDTO.class));
+    verify(repository).findByIdGreaterThanOrderByIdAsc(10L, PageRequest.of(0, 50));
+    verify(messageMapper, never()).toDTO(any(Message.class));
+  }
+
+  @Test
+  void testFindAll_ShouldCapPageSize() throws ServiceException {
+    when(repository.findByIdGreaterThanOrderByIdAsc(eq(0L), any(Pageable.class))).thenReturn(List.of());
+
+    final List<MessageDTO> result = messageService.findAll(null, 1_000_000);
+
+    assertThat(result).isEmpty();
+    verify(repository).findByIdGreaterThanOrderByIdAsc(0L, PageRequest.of(0, 1000));
+  }
+
+  @Test
+  void testStreamAll_ShouldPassEveryMessageToConsumer() throws ServiceException {
+    final MessageDTO messageDTO1 = MessageDTO.builder().id(1L).message("message 1").build();
+    final MessageDTO messageDTO2 = MessageDTO.builder().id(2L).message("message 2").build();
+    when(repository.streamAll()).thenReturn(Stream.of(messageDTO1, messageDTO2));
+
+    final List<MessageDTO> result = new ArrayList<>();
+    messageService.streamAll(result::add);
+
+    assertThat(result).containsExactly(messageDTO1, messageDTO2);
+    verify(messageMapper, never()).toDTO(any(Message.class));
   }
 
   @Test
   void testDeleteById_ShouldDeleteMessage() throws EntityNotFoundException, DataIntegrityViolationException {
     final Long id = 1L;
-    when(repository.findById(eq(id))).thenReturn(Optional.of(new Message()));
+    when(repository.deleteMessageById(eq(id))).thenReturn(1);
 
     messageService.deleteById(id);
 
-    verify(repository, times(1)).findById(eq(id));
-    verify(repository, times(1)).deleteById(eq(id));
+    verify(repository, times(1)).deleteMessageById(eq(id));
+    verify(repository, never()).findById(any());
+  }
+
+  @Test
+  void testDeleteById_ShouldThrowEntityNotFoundException() {
+    final Long id = 1L;
+    when(repository.deleteMessageById(eq(id))).thenReturn(0);
+
+    assertThatExceptionOfType(EntityNotFoundException.class)
+        .isThrownBy(() -> messageService.deleteById(id));
+
+    verify(eventPublisher, never()).publishEvent(any());
   }
 
   @Test
   void testDeleteById_ShouldThrowException() {
     Long id = 1L;
-    when(repository.findById(eq(id))).thenReturn(Optional.of(new Message()));
-    doThrow(DataIntegrityViolationException.class).when(repository).deleteById(eq(id));
+    doThrow(DataIntegrityViolationException.class).when(repository).deleteMessageById(eq(id));
 
     assertThatExceptionOfType(DataIntegrityViolationException.class)
         .isThrownBy(() -> messageService.deleteById(id));
 
-    verify(repository, times(1)).findById(eq(id));
-    verify(repository, times(1)).deleteById(eq(id));
+    verify(repository, times(1)).deleteMessageById(eq(id));
+  }
+
+  @Test
+  void testCreateAll_ShouldPersistValidItemsAndRejectBlankOnes() {
+    final MessageDTO blank = MessageDTO.builder().message(" ").build();
+    final MessageDTO valid = MessageDTO.builder().message("Created message").build();
+    final Message entity = new Message();
+
+    runTransactionCallbacks();
+    when(messageMapper.toEntity(valid)).thenReturn(entity);
+    when(repository.saveAll(List.of(entity))).thenAnswer(invocation -> {
+      entity.setId(7L);
+      return List.of(entity);
+    });
+
+    final List<BatchItemResultDTO> results = messageService.createAll(Arrays.asList(blank, valid));
+
+    assertThat(results).extracting(BatchItemResultDTO::getIndex).containsExactly(0, 1);
+    assertThat(results).extracting(BatchItemResultDTO::getStatus).containsExactly(400, 201);
+    assertThat(results.get(1).getId()).isEqualTo(7L);
+    verify(messageMapper, never()).toEntity(blank);
+  }
+
+  @Test
+  void testCreateAll_ShouldReportFailedChunk() {
+    final MessageDTO valid = MessageDTO.builder().message("Created message").build();
+
+    runTransactionCallbacks();
+    when(messageMapper.toEntity(valid)).thenReturn(new Message());
+    when(repository.saveAll(any())).thenThrow(new DataIntegrityViolationException("constraint"));
+
+    final List<BatchItemResultDTO> results = messageService.createAll(List.of(valid));
+
+    assertThat(results).extracting(BatchItemResultDTO::getStatus).containsExactly(500);
+    assertThat(results.get(0).getError()).isEqualTo("constraint");
+  }
+
+  @Test
+  void testUpdateAll_ShouldUpdateExistingAndReportMissingIds() {
+    final MessageDTO existing = MessageDTO.builder().id(1L).message("Updated message").build();
+    final MessageDTO missing = MessageDTO.builder().id(2L).message("Updated message").build();
+    final Message entity = Message.builder().id(1L).message("Old message").build();
+
+    runTransactionCallbacks();
+    when(repository.findAllById(List.of(1L, 2L))).thenReturn(List.of(entity));
+
+    final List<BatchItemResultDTO> results = messageService.updateAll(List.of(existing, missing));
+
+    assertThat(results).extracting(BatchItemResultDTO::getStatus).containsExactly(200, 404);
+    verify(messageMapper).updateEntity(existing, entity);
+    verify(repository, never()).save(any(Message.class));
+  }
+
+  @Test
+  void testDeleteAllById_ShouldDeleteExistingAndReportMissingIds() {
+    runTransactionCallbacks();
+    when(repository.findExistingIds(List.of(1L, 2L))).thenReturn(List.of(1L));
+
+    final List<BatchItemResultDTO> results = messageService.deleteAllById(List.of(1L, 2L));
+
+    assertThat(results).extracting(BatchItemResultDTO::getStatus).containsExactly(204, 404);
+    verify(repository).deleteAllByIdInBatch(Set.of(1L));
+    verify(eventPublisher, times(1)).publishEvent(new MessageChangedEvent(1L, MessageChangeType.DELETED));
+  }
+
+  @Test
+  void testFindAllById_ShouldKeepRequestOrderAndReportMissingIds() throws ServiceException {
+    final Message first = Message.builder().id(1L).message("Message 1").build();
+    final Message third = Message.builder().id(3L).message("Message 3").build();
+    final MessageDTO firstDTO = MessageDTO.builder().id(1L).message("Message 1").build();
+    final MessageDTO thirdDTO = MessageDTO.builder().id(3L).message("Message 3").build();
+
+    when(repository.findAllById(List.of(3L, 2L, 1L))).thenReturn(List.of(first, third));
+    when(messageMapper.toDTO(first)).thenReturn(firstDTO);
+    when(messageMapper.toDTO(third)).thenReturn(thirdDTO);
+
+    final MessagesByIdDTO result = messageService.findAllById(Arrays.asList(3L, 2L, null, 1L, 3L));
+
+    assertThat(result.getMessages()).containsExactly(thirdDTO, firstDTO);
+    assertThat(result.getMissingIds()).containsExactly(2L);
+  }
+
+  private void runTransactionCallbacks() {
+    doAnswer(invocation -> {
+      invocation.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+      return null;
+    }).when(transactionTemplate).executeWithoutResult(any());
   }
 }
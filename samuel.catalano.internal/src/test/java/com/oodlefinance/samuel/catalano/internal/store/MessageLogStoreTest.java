@@ -0,0 +1,192 @@
+package com.oodlefinance.samuel.catalano.internal.store;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.assertj.core.api.Assertions.tuple;
+
+import com.oodlefinance.samuel.catalano.internal.dto.MessageDTO;
+import com.oodlefinance.samuel.catalano.internal.entity.Message;
+import com.oodlefinance.samuel.catalano.internal.repository.MessageStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Pageable;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.IntStream;
+
+class MessageLogStoreTest {
+
+  @TempDir
+  Path directory;
+
+  private MessageLogStore store;
+
+  @AfterEach
+  void tearDown() throws IOException {
+    if (store != null) {
+      store.destroy();
+    }
+  }
+
+  @Test
+  void testSaveUpdateDelete_ShouldKeepLatestStateAndVersion() {
+    store = open(DataSize.ofMegabytes(1));
+
+    final Message saved = store.save(Message.builder().message("First message").build());
+
+    assertThat(saved.getId()).isEqualTo(1L);
+    assertThat(saved.getVersion()).isZero();
+    assertThat(saved.getCreatedAt()).isNotNull();
+    assertThat(store.updateMessageByIdAndVersion(1L, 0L, "Updated message")).isEqualTo(1);
+    assertThat(store.updateMessageByIdAndVersion(1L, 0L, "Stale update")).isZero();
+    assertThat(store.findById(1L)).get()
+                                  .extracting(Message::getMessage, Message::getVersion, Message::getCreatedAt)
+                                  .containsExactly("Updated message", 1L, saved.getCreatedAt());
+    assertThat(store.findVersionById(1L)).contains(1L);
+    assertThatExceptionOfType(OptimisticLockingFailureException.class)
+        .isThrownBy(() -> store.save(Message.builder().id(1L).version(0L).message("Stale save").build()));
+
+    assertThat(store.deleteMessageByIdAndVersion(1L, 0L)).isZero();
+    assertThat(store.deleteMessageById(1L)).isEqualTo(1);
+    assertThat(store.findById(1L)).isEmpty();
+    assertThat(store.existsById(1L)).isFalse();
+    assertThat(store.updateMessageById(1L, "Gone")).isZero();
+  }
+
+  @Test
+  void testQueries_ShouldPageByIdAndByCreationTime() {
+    store = open(DataSize.ofMegabytes(1));
+    final LocalDateTime start = LocalDateTime.of(2023, 3, 1, 10, 0);
+    IntStream.range(0, 5).forEach(i -> store.save(Message.builder().message("Message " + i).createdAt(start.plusMinutes(i)).build()));
+    store.deleteMessageById(3L);
+
+    assertThat(store.findByIdGreaterThanOrderByIdAsc(1L, Pageable.ofSize(2))).extracting(Message::getId).containsExactly(2L, 4L);
+    assertThat(store.findAllById(List.of(5L, 3L, 1L))).extracting(Message::getId).containsExactly(5L, 1L);
+    assertThat(store.findExistingIds(List.of(1L, 3L, 9L))).containsExactly(1L);
+    assertThat(store.streamAll().map(MessageDTO::getId)).containsExactly(1L, 2L, 4L, 5L);
+
+    assertThat(store.findCreatedBetween(start, start.plusMinutes(10), Long.MIN_VALUE, Pageable.ofSize(2)))
+        .extracting(Message::getId).containsExactly(5L, 4L);
+    assertThat(store.findCreatedBetween(start, start.plusMinutes(3), 4L, Pageable.ofSize(10)))
+        .extracting(Message::getId).containsExactly(2L, 1L);
+    assertThat(store.countCreatedPerInterval(start, start, start.plusMinutes(5), Duration.ofMinutes(2).toMillis()))
+        .extracting(MessageStore.IntervalCount::getBucket, MessageStore.IntervalCount::getMessages)
+        .containsExactly(tuple(0L, 2L), tuple(1L, 1L), tuple(2L, 1L));
+  }
+
+  @Test
+  void testRecovery_ShouldRestoreMessagesAndContinueIds() throws IOException {
+    store = open(DataSize.ofMegabytes(1));
+    store.save(Message.builder().message("Kept message").build());
+    store.save(Message.builder().message("Updated message").build());
+    store.updateMessageById(2L, "Updated twice");
+    store.save(Message.builder().message("Deleted message").build());
+    store.deleteMessageById(3L);
+    store.destroy();
+
+    store = open(DataSize.ofMegabytes(1));
+
+    assertThat(store.size()).isEqualTo(2);
+    assertThat(store.findById(2L)).get().extracting(Message::getMessage, Message::getVersion).containsExactly("Updated twice", 1L);
+    assertThat(store.findById(3L)).isEmpty();
+    assertThat(store.save(Message.builder().message("After restart").build()).getId()).isEqualTo(4L);
+  }
+
+  @Test
+  void testRecovery_ShouldDropTornRecord() throws IOException {
+    store = open(DataSize.ofMegabytes(1));
+    store.save(Message.builder().message("Complete").build());
+    store.save(Message.builder().message("Torn").build());
+    store.destroy();
+
+    final int tornTextOffset = LogSegment.HEADER_SIZE + "Complete".length() + LogSegment.HEADER_SIZE;
+    try (var file = new RandomAccessFile(segmentFiles().get(0).toFile(), "rw")) {
+      file.seek(tornTextOffset);
+      file.write("X".getBytes(StandardCharsets.UTF_8));
+    }
+
+    store = open(DataSize.ofMegabytes(1));
+
+    assertThat(store.findById(1L)).get().extracting(Message::getMessage).isEqualTo("Complete");
+    assertThat(store.findById(2L)).isEmpty();
+    store.save(Message.builder().message("Written after recovery").build());
+    store.destroy();
+    store = open(DataSize.ofMegabytes(1));
+    assertThat(store.streamAll().map(MessageDTO::getMessage)).containsExactly("Complete", "Written after recovery");
+  }
+
+  @Test
+  void testCompact_ShouldMoveLiveMessagesAndDeleteSegments() throws IOException {
+    store = open(DataSize.ofBytes(256));
+    IntStream.range(0, 4).forEach(i -> store.save(Message.builder().message("Message " + i).build()));
+    IntStream.range(0, 10).forEach(i -> store.updateMessageById(1L, "Update " + i));
+    store.deleteMessageById(2L);
+    final int segmentsBefore = segmentFiles().size();
+
+    assertThat(store.compact()).isPositive();
+
+    assertThat(segmentFiles()).hasSizeLessThan(segmentsBefore);
+    assertThat(store.findById(1L)).map(Message::getMessage).isEqualTo(Optional.of("Update 9"));
+    assertThat(store.findById(2L)).isEmpty();
+    store.destroy();
+    store = open(DataSize.ofBytes(256));
+    assertThat(store.streamAll().map(MessageDTO::getMessage)).containsExactly("Update 9", "Message 2", "Message 3");
+  }
+
+  @Test
+  void testInsertAll_WhenOneIdIsTaken_ShouldWriteNothing() {
+    store = open(DataSize.ofMegabytes(1));
+    store.save(Message.builder().message("Existing").build());
+
+    assertThatExceptionOfType(DuplicateKeyException.class).isThrownBy(() -> store.insertAll(List.of(
+        Message.builder().id(2L).message("New").build(),
+        Message.builder().id(1L).message("Taken").build())));
+
+    assertThat(store.findById(2L)).isEmpty();
+    assertThat(store.findById(1L)).map(Message::getMessage).isEqualTo(Optional.of("Existing"));
+    assertThat(store.size()).isEqualTo(1);
+  }
+
+  @Test
+  void testAllocateId_ShouldNotHandOutIdsAgainAfterCompactionAndRestart() throws IOException {
+    store = open(DataSize.ofBytes(256));
+    store.save(Message.builder().message("Message").build());
+    final Long allocated = store.allocateId();
+    IntStream.range(0, 10).forEach(i -> store.updateMessageById(1L, "Update " + i));
+
+    assertThat(store.compact()).isPositive();
+    store.destroy();
+    store = open(DataSize.ofBytes(256));
+
+    assertThat(store.allocateId()).isGreaterThan(allocated);
+    assertThat(store.save(Message.builder().message("After restart").build()).getId()).isGreaterThan(allocated);
+  }
+
+  private MessageLogStore open(final DataSize segmentSize) {
+    try {
+      return new MessageLogStore(directory, segmentSize, false, 0.5, Duration.ZERO, new SimpleMeterRegistry());
+    } catch (final IOException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private List<Path> segmentFiles() throws IOException {
+    try (var files = Files.list(directory)) {
+      return files.filter(file -> LogSegment.numberOf(file) >= 0).sorted().toList();
+    }
+  }
+}